@@ -0,0 +1,60 @@
+package com.datatrust360.common;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes record values that are already UTF-8 bytes to Kafka.
+ *
+ * <p>Importance: Pass-through REST envelopes and columnar gRPC batches both produce encoded
+ * values, so sending them as bytes avoids decoding into a String only for the serializer to
+ * encode it again.</p>
+ * <p>Alternatives: Reuse the String template, but that adds a decode and re-encode per event.</p>
+ *
+ * <p>Not a component: each ingest service declares it as a bean, and Spring calls
+ * {@link #close()} on shutdown.</p>
+ */
+public class ByteValuePublisher implements AutoCloseable {
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    /**
+     * Creates the publisher from Boot's producer factory with a byte-array value serializer.
+     *
+     * <p>Importance: Shares broker and security settings with the String producer while
+     * avoiding a second {@code KafkaTemplate} bean that would disable Boot's default one.</p>
+     * <p>Alternatives: Declare a separate producer factory bean, but that also backs off
+     * Boot's auto-configured factory.</p>
+     */
+    public ByteValuePublisher(ProducerFactory<String, byte[]> producerFactory) {
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory,
+            Map.of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class));
+    }
+
+    /**
+     * Sends one record and returns the producer's completion future.
+     *
+     * <p>Importance: Callers that report per-event status combine these futures.</p>
+     * <p>Alternatives: Fire and forget, but then failures could not be reported per event.</p>
+     */
+    public CompletableFuture<SendResult<String, byte[]>> send(String topic, String key, byte[] value) {
+        return kafkaTemplate.send(topic, key, value);
+    }
+
+    /**
+     * Closes the producer created for the override factory.
+     *
+     * <p>Importance: The copied factory is not a bean, so Spring will not close it for us.</p>
+     * <p>Alternatives: Leak the producer on shutdown, but that can drop buffered records.</p>
+     */
+    @Override
+    public void close() {
+        kafkaTemplate.destroy();
+    }
+}
@@ -1,5 +1,7 @@
 package com.datatrust360.common;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.Instant;
 import java.util.Map;
 
@@ -12,12 +14,32 @@ import java.util.Map;
  * and complicates validation and storage mappings.</p>
  */
 public class EventEnvelope {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String eventId;
     private String tenantId;
     private String source;
     private String schemaVersion;
     private Instant receivedAt;
     private Map<String, Object> payload;
 
+    /**
+     * Returns the deterministic event identifier, or null when the event has none.
+     *
+     * <p>Importance: Storage upserts on this id, so redelivered and replayed events overwrite
+     * nothing and create no duplicates.</p>
+     * <p>Alternatives: Deduplicate on a payload hash, but identical payloads can be distinct events.</p>
+     */
+    public String getEventId() { return eventId; }
+    /**
+     * Sets the deterministic event identifier.
+     *
+     * <p>Importance: Clients may supply their own; otherwise the worker derives one from the
+     * event's position in Kafka or Kinesis. Omitted from JSON when null, so records without
+     * one keep their existing encoding.</p>
+     * <p>Alternatives: Always generate one at ingest, but then client retries would get new ids.</p>
+     */
+    public void setEventId(String eventId) { this.eventId = eventId; }
+
     /**
      * Returns the tenant identifier that owns the event.
      *
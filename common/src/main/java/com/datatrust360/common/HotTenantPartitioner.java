@@ -0,0 +1,200 @@
+package com.datatrust360.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses Kafka record keys so heavy-hitter tenants spread across several partitions.
+ *
+ * <p>Importance: Keying by tenant pins a large tenant to one partition and one consumer thread;
+ * salting only detected hot tenants lifts that cap while every other tenant keeps strict
+ * per-key ordering.</p>
+ * <p>Alternatives: Salt every tenant, but that gives up ordering for the many small tenants
+ * that never needed it.</p>
+ *
+ * <p>Detection uses a sampled Space-Saving top-K sketch. At the end of each window, tenants whose
+ * estimated share of sampled traffic meets the threshold become hot for the next window, and
+ * counters are halved so the hot set follows shifting load. Hot tenants lose cross-partition
+ * ordering; consumers must not rely on ordering for them.</p>
+ */
+public final class HotTenantPartitioner implements MeterBinder {
+
+    static final char SALT_SEPARATOR = '#';
+
+    private final boolean enabled;
+    private final int capacity;
+    private final double hotShareThreshold;
+    private final int subPartitions;
+    private final long windowNanos;
+    private final int sampleRate;
+    private final long minSamples;
+    private final Map<String, long[]> counters = new HashMap<>();
+    private long windowTotal;
+    private long windowEnd;
+    private volatile Map<String, Double> hotTenants = Map.of();
+    private volatile MultiGauge hotTenantGauge;
+
+    /**
+     * Creates the partitioner with sketch and salting settings.
+     *
+     * <p>Importance: Lets each service tune detection sensitivity and fan-out to its topic size.</p>
+     * <p>Alternatives: Fixed constants, but partition counts differ across environments.</p>
+     */
+    public HotTenantPartitioner(
+        boolean enabled,
+        int capacity,
+        double hotShareThreshold,
+        int subPartitions,
+        long windowMillis,
+        int sampleRate,
+        long minSamples
+    ) {
+        this.enabled = enabled && subPartitions > 1;
+        this.capacity = Math.max(capacity, 1);
+        this.hotShareThreshold = hotShareThreshold;
+        this.subPartitions = subPartitions;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.sampleRate = Math.max(sampleRate, 1);
+        this.minSamples = minSamples;
+        this.windowEnd = System.nanoTime() + windowNanos;
+    }
+
+    /**
+     * Returns the record key for a tenant, salting it when the tenant is currently hot.
+     *
+     * <p>Importance: Runs on every send, so the common path is a sampled check plus one
+     * lock-free read of an immutable hot set.</p>
+     * <p>Alternatives: A custom Kafka Partitioner, but it would have to be registered in each
+     * producer's config, while a salted key works with the default partitioner.</p>
+     */
+    public String keyFor(String tenantId) {
+        if (!enabled || tenantId == null) {
+            return tenantId;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(sampleRate) == 0) {
+            observe(tenantId);
+        }
+        if (!hotTenants.containsKey(tenantId)) {
+            return tenantId;
+        }
+        return tenantId + SALT_SEPARATOR + random.nextInt(subPartitions);
+    }
+
+    /**
+     * Returns the tenants currently being salted.
+     *
+     * <p>Importance: Supports diagnostics and tests without scraping metrics.</p>
+     * <p>Alternatives: Expose only via metrics, but programmatic access is simpler for tooling.</p>
+     */
+    public Set<String> hotTenants() {
+        return hotTenants.keySet();
+    }
+
+    /**
+     * Registers a multi-gauge reporting each hot tenant's estimated traffic share.
+     *
+     * <p>Importance: Makes salting decisions visible on the Prometheus endpoint.</p>
+     * <p>Alternatives: Log hot tenants, but metrics are easier to alert on.</p>
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        hotTenantGauge = MultiGauge.builder("dt360.kafka.hot.tenants")
+            .description("Estimated traffic share of tenants salted across sub-partitions")
+            .register(registry);
+        publishGauge(hotTenants);
+    }
+
+    /**
+     * Records a sampled observation in the Space-Saving sketch.
+     *
+     * <p>Importance: Sampling keeps the lock off most sends while still finding heavy hitters,
+     * which by definition appear in many samples.</p>
+     * <p>Alternatives: Count-Min sketch, but Space-Saving yields the top keys directly.</p>
+     */
+    private synchronized void observe(String tenantId) {
+        long now = System.nanoTime();
+        if (now - windowEnd >= 0) {
+            rollWindow(now);
+        }
+        windowTotal++;
+        long[] counter = counters.get(tenantId);
+        if (counter != null) {
+            counter[0]++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(tenantId, new long[] {1, 0});
+            return;
+        }
+        String minKey = null;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            if (entry.getValue()[0] < minCount) {
+                minCount = entry.getValue()[0];
+                minKey = entry.getKey();
+            }
+        }
+        counters.remove(minKey);
+        counters.put(tenantId, new long[] {minCount + 1, minCount});
+    }
+
+    /**
+     * Publishes the hot set for the next window and decays the counters.
+     *
+     * <p>Importance: Uses the guaranteed count (count minus error) so evicted-then-readmitted
+     * tenants are not promoted on inherited counts.</p>
+     * <p>Alternatives: Reset counters each window, but halving smooths flapping at the threshold.</p>
+     */
+    private void rollWindow(long now) {
+        Map<String, Double> hot = new HashMap<>();
+        if (windowTotal >= minSamples) {
+            for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+                double share = (double) (entry.getValue()[0] - entry.getValue()[1]) / windowTotal;
+                if (share >= hotShareThreshold) {
+                    hot.put(entry.getKey(), share);
+                }
+            }
+        }
+        Iterator<long[]> iterator = counters.values().iterator();
+        while (iterator.hasNext()) {
+            long[] counter = iterator.next();
+            counter[0] /= 2;
+            counter[1] /= 2;
+            if (counter[0] == 0) {
+                iterator.remove();
+            }
+        }
+        windowTotal /= 2;
+        windowEnd = now + windowNanos;
+        hotTenants = Map.copyOf(hot);
+        publishGauge(hotTenants);
+    }
+
+    /**
+     * Replaces the gauge rows with the current hot set.
+     *
+     * <p>Importance: Removes rows for tenants that cooled down so dashboards stay accurate.</p>
+     * <p>Alternatives: Keep stale rows, but that would show tenants as hot indefinitely.</p>
+     */
+    private void publishGauge(Map<String, Double> hot) {
+        MultiGauge gauge = hotTenantGauge;
+        if (gauge == null) {
+            return;
+        }
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        hot.forEach((tenant, share) -> rows.add(MultiGauge.Row.of(Tags.of("tenant", tenant), share)));
+        gauge.register(rows, true);
+    }
+}
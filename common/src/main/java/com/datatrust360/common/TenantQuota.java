@@ -0,0 +1,54 @@
+package com.datatrust360.common;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Admission quota for a tenant expressed as a sustained rate and a burst size.
+ *
+ * <p>Importance: Lets operators give large tenants more headroom without raising limits for all.</p>
+ * <p>Alternatives: One global limit, but that lets a single tenant consume the shared budget.</p>
+ */
+public record TenantQuota(double permitsPerSecond, long burst) {
+
+    /**
+     * Validates quota values.
+     *
+     * <p>Importance: Rejects misconfiguration at startup instead of at the first request.</p>
+     * <p>Alternatives: Clamp silently, but that hides typos in quota overrides.</p>
+     */
+    public TenantQuota {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Quota requires a positive rate and burst");
+        }
+    }
+
+    /**
+     * Parses overrides in the form {@code tenantA=500:1000,tenantB=50:100} (rate:burst).
+     *
+     * <p>Importance: Fits a single property so both ingest services can share the format.</p>
+     * <p>Alternatives: Nested YAML maps, but those need per-service binding classes.</p>
+     */
+    public static Map<String, TenantQuota> parseOverrides(String value) {
+        Map<String, TenantQuota> overrides = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return overrides;
+        }
+        for (String entry : value.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int eq = trimmed.indexOf('=');
+            int colon = trimmed.indexOf(':', eq + 1);
+            if (eq <= 0 || colon < 0) {
+                throw new IllegalArgumentException("Invalid tenant quota override: " + trimmed);
+            }
+            overrides.put(trimmed.substring(0, eq).trim(), new TenantQuota(
+                Double.parseDouble(trimmed.substring(eq + 1, colon).trim()),
+                Long.parseLong(trimmed.substring(colon + 1).trim())
+            ));
+        }
+        return overrides;
+    }
+}
@@ -0,0 +1,223 @@
+package com.datatrust360.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free per-tenant token-bucket limiter for ingestion admission control.
+ *
+ * <p>Importance: Stops one tenant from filling the Kafka producer buffer and adding latency
+ * for every other tenant.</p>
+ * <p>Alternatives: A shared semaphore, but that throttles everyone once one tenant floods.</p>
+ *
+ * <p>Each bucket is a single {@link AtomicLong} holding the theoretical arrival time of the next
+ * permit (the GCRA form of a token bucket), so admission is one CAS with no lock. Buckets live in
+ * a Caffeine cache, whose lookups are as contention-free as a {@code ConcurrentHashMap}.</p>
+ *
+ * <p>Tenant ids come from clients, so the cache is bounded by size and idle time, and a bucket's
+ * meters are removed with it. An idle bucket is full again by the time it expires, as long as
+ * the idle expiry exceeds {@code burst / rate}, so eviction does not hand out extra permits.</p>
+ */
+public final class TenantRateLimiter {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final TenantQuota defaultQuota;
+    private final Map<String, TenantQuota> overrides;
+    private final Cache<String, Bucket> buckets;
+
+    /**
+     * Creates the limiter with default and per-tenant quotas, tracking at most 10,000 tenants
+     * that each expire after ten idle minutes.
+     *
+     * <p>Importance: Keeps quotas data-driven so they can change without code edits.</p>
+     * <p>Alternatives: Look quotas up from storage-service, but that adds a hop to every request.</p>
+     */
+    public TenantRateLimiter(
+        MeterRegistry meterRegistry,
+        boolean enabled,
+        TenantQuota defaultQuota,
+        Map<String, TenantQuota> overrides
+    ) {
+        this(meterRegistry, enabled, defaultQuota, overrides, 10_000, Duration.ofMinutes(10));
+    }
+
+    /**
+     * Creates the limiter with explicit bounds on the tenants it tracks.
+     *
+     * <p>Importance: A client cycling through made-up tenant ids would otherwise grow the
+     * bucket map and the meter registry without limit.</p>
+     * <p>Alternatives: Evict on a schedule, but Caffeine already amortizes that into lookups.</p>
+     */
+    public TenantRateLimiter(
+        MeterRegistry meterRegistry,
+        boolean enabled,
+        TenantQuota defaultQuota,
+        Map<String, TenantQuota> overrides,
+        long maxTenants,
+        Duration idleExpiry
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.defaultQuota = defaultQuota;
+        this.overrides = Map.copyOf(overrides);
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxTenants)
+            .expireAfterAccess(idleExpiry)
+            .<String, Bucket>evictionListener((tenantId, bucket, cause) -> {
+                if (bucket != null) {
+                    meterRegistry.remove(bucket.allowed);
+                    meterRegistry.remove(bucket.denied);
+                }
+            })
+            .build();
+    }
+
+    /**
+     * Attempts to admit {@code permits} events for a tenant.
+     *
+     * <p>Importance: Multi-permit acquisition lets batch endpoints charge per event, not per call.</p>
+     * <p>Alternatives: Charge one permit per request, but that lets large batches bypass quotas.</p>
+     */
+    public Admission tryAcquire(String tenantId, int permits) {
+        if (!enabled) {
+            return Admission.ADMITTED;
+        }
+        String key = tenantId == null ? "unknown" : tenantId;
+        Bucket bucket = buckets.get(key, this::newBucket);
+        long retryAfterNanos = bucket.tryAcquire(permits, System.nanoTime());
+        if (retryAfterNanos == 0) {
+            bucket.allowed.increment(permits);
+            return Admission.ADMITTED;
+        }
+        bucket.denied.increment(permits);
+        return new Admission(false, Math.max(1, TimeUnit.NANOSECONDS.toMillis(retryAfterNanos)));
+    }
+
+    /**
+     * Returns permits admitted by {@link #tryAcquire} that were never used.
+     *
+     * <p>Importance: A multi-tenant batch charges tenants one by one; when a later tenant is
+     * denied, the earlier tenants' permits are refunded so a rejected batch costs nothing.</p>
+     * <p>Alternatives: Check every tenant before charging any, but another request can drain a
+     * bucket between the check and the charge.</p>
+     */
+    public void release(String tenantId, int permits) {
+        if (!enabled) {
+            return;
+        }
+        Bucket bucket = buckets.getIfPresent(tenantId == null ? "unknown" : tenantId);
+        if (bucket != null) {
+            bucket.release(permits);
+        }
+    }
+
+    /**
+     * Runs pending cache maintenance such as evictions.
+     *
+     * <p>Importance: Lets tests observe evictions without waiting for Caffeine's amortized cleanup.</p>
+     * <p>Alternatives: Sleep until cleanup happens, but that makes tests slow and flaky.</p>
+     */
+    void cleanUp() {
+        buckets.cleanUp();
+    }
+
+    /**
+     * Creates a bucket and its metrics for a newly seen tenant.
+     *
+     * <p>Importance: Resolves the quota once so admission never touches the override map.</p>
+     * <p>Alternatives: Resolve quotas per call, but that adds a lookup on the hot path.</p>
+     */
+    private Bucket newBucket(String tenantId) {
+        TenantQuota quota = overrides.getOrDefault(tenantId, defaultQuota);
+        return new Bucket(
+            quota,
+            meterRegistry.counter("dt360.ingest.admission", "tenant", tenantId, "result", "allowed"),
+            meterRegistry.counter("dt360.ingest.admission", "tenant", tenantId, "result", "denied")
+        );
+    }
+
+    /**
+     * Outcome of an admission attempt with a retry hint for rejected callers.
+     *
+     * <p>Importance: Lets transports map rejections to 429 or RESOURCE_EXHAUSTED consistently.</p>
+     * <p>Alternatives: Throw on rejection, but exceptions are costly on a flood path.</p>
+     */
+    public record Admission(boolean admitted, long retryAfterMillis) {
+        public static final Admission ADMITTED = new Admission(true, 0);
+    }
+
+    /**
+     * Token bucket stored as the theoretical arrival time of the next permit.
+     *
+     * <p>Importance: A single atomic long makes the bucket lock-free and allocation-free.</p>
+     * <p>Alternatives: Tokens plus refill timestamp, but two fields need a lock or boxing.</p>
+     */
+    private static final class Bucket {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+        private final Counter allowed;
+        private final Counter denied;
+
+        /**
+         * Creates the bucket from a quota.
+         *
+         * <p>Importance: Precomputes nanosecond intervals once per tenant.</p>
+         * <p>Alternatives: Compute per call, but that repeats floating-point work.</p>
+         */
+        Bucket(TenantQuota quota, Counter allowed, Counter denied) {
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / quota.permitsPerSecond()));
+            this.toleranceNanos = intervalNanos * quota.burst();
+            this.allowed = allowed;
+            this.denied = denied;
+        }
+
+        /**
+         * Admits permits with a CAS loop, returning 0 or the nanoseconds until they fit.
+         *
+         * <p>Importance: Requests larger than the burst can never fit, so their hint is the time
+         * for a full bucket; callers should split such batches.</p>
+         * <p>Alternatives: Block until permits are available, but that ties up request threads.</p>
+         */
+        long tryAcquire(int permits, long now) {
+            long cost = intervalNanos * permits;
+            while (true) {
+                long current = theoreticalArrival.get();
+                long base = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long next = base + cost;
+                long allowAt = next - toleranceNanos;
+                if (allowAt - now > 0) {
+                    return cost > toleranceNanos ? toleranceNanos : allowAt - now;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        /**
+         * Moves the next arrival back by the cost of {@code permits}.
+         *
+         * <p>Importance: Undoes an earlier charge; an arrival time in the past is treated as
+         * "now" by {@link #tryAcquire}, so the refund cannot exceed a full bucket.</p>
+         * <p>Alternatives: Keep a separate credit balance, but that is a second field to update.</p>
+         */
+        void release(int permits) {
+            long cost = intervalNanos * permits;
+            while (true) {
+                long current = theoreticalArrival.get();
+                if (current == Long.MIN_VALUE || theoreticalArrival.compareAndSet(current, current - cost)) {
+                    return;
+                }
+            }
+        }
+    }
+}
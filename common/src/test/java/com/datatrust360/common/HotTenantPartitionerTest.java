@@ -0,0 +1,77 @@
+package com.datatrust360.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for hot-tenant key salting.
+ *
+ * <p>Importance: Salting the wrong tenants breaks their ordering; missing a hot one leaves a
+ * single partition overloaded.</p>
+ * <p>Alternatives: Produce to a real topic and inspect partitions, but keys decide placement.</p>
+ */
+class HotTenantPartitionerTest {
+
+    /**
+     * Verifies a dominant tenant is spread across sub-partition keys once its window closes.
+     *
+     * <p>Importance: Spreading the heavy hitter is what lifts the one-partition cap.</p>
+     * <p>Alternatives: Assert only {@link HotTenantPartitioner#hotTenants()}, but the keys are
+     * what the producer sees.</p>
+     */
+    @Test
+    void spreadsHotTenantAcrossSubPartitions() throws InterruptedException {
+        HotTenantPartitioner partitioner = warmedUp();
+
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            keys.add(partitioner.keyFor("hot"));
+        }
+
+        assertThat(partitioner.hotTenants()).containsExactly("hot");
+        assertThat(keys).hasSizeGreaterThan(1)
+            .allSatisfy(key -> assertThat(key).startsWith("hot" + HotTenantPartitioner.SALT_SEPARATOR))
+            .isSubsetOf("hot#0", "hot#1", "hot#2", "hot#3");
+    }
+
+    /**
+     * Verifies light tenants keep their plain key while a hot tenant is being salted.
+     *
+     * <p>Importance: Cold tenants rely on a stable key for per-tenant ordering.</p>
+     * <p>Alternatives: Check cold keys with no hot tenant, but salting must stay targeted.</p>
+     */
+    @Test
+    void keepsColdTenantsOnTheirOwnKey() throws InterruptedException {
+        HotTenantPartitioner partitioner = warmedUp();
+
+        for (int i = 0; i < 200; i++) {
+            partitioner.keyFor("hot");
+            if (i % 10 == 0) {
+                assertThat(partitioner.keyFor("cold-" + (i % 3))).isEqualTo("cold-" + (i % 3));
+            }
+        }
+
+        assertThat(partitioner.hotTenants()).containsExactly("hot");
+    }
+
+    /**
+     * Builds a partitioner that samples every call and has already promoted tenant {@code hot}.
+     *
+     * <p>Importance: A promotion only takes effect after a window closes, so the window is
+     * short and the fixture waits it out.</p>
+     * <p>Alternatives: Zero-length windows, but then every sample rolls and halves the counts.</p>
+     */
+    private HotTenantPartitioner warmedUp() throws InterruptedException {
+        HotTenantPartitioner partitioner = new HotTenantPartitioner(true, 16, 0.2, 4, 50, 1, 10);
+        for (int i = 0; i < 200; i++) {
+            partitioner.keyFor(i % 10 == 0 ? "cold-" + (i % 3) : "hot");
+        }
+        Thread.sleep(60);
+        partitioner.keyFor("hot");
+        return partitioner;
+    }
+}
@@ -0,0 +1,94 @@
+package com.datatrust360.common;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the Kafka pipeline timing interceptor.
+ *
+ * <p>Importance: Ensures every ingest record carries the stamp the downstream stages measure from.</p>
+ * <p>Alternatives: Check headers in an end-to-end test, but that needs a broker.</p>
+ */
+class PipelineTimingInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PipelineTimingInterceptor interceptor = new PipelineTimingInterceptor();
+
+    /**
+     * Verifies a record is stamped with the configured path and a current ingest time.
+     *
+     * <p>Importance: The path header becomes the tag every downstream timer is split by.</p>
+     * <p>Alternatives: Assert only presence, but a wrong unit would skew every stage.</p>
+     */
+    @Test
+    void stampsIngestTimeAndPath() {
+        interceptor.configure(Map.of(PipelineTimingInterceptor.PATH_CONFIG, PipelineTiming.PATH_GRPC));
+        long before = PipelineTiming.nowMicros();
+
+        ProducerRecord<Object, Object> record = interceptor.onSend(new ProducerRecord<>("topic", "value"));
+
+        long stamp = PipelineTiming.decode(record.headers().lastHeader(PipelineTiming.INGEST_HEADER).value());
+        assertThat(stamp).isBetween(before, PipelineTiming.nowMicros());
+        assertThat(PipelineTiming.decodePath(record.headers().lastHeader(PipelineTiming.PATH_HEADER).value()))
+            .isEqualTo(PipelineTiming.PATH_GRPC);
+    }
+
+    /**
+     * Verifies a path header outside the known values decodes as unknown.
+     *
+     * <p>Importance: The path becomes a metric tag, so arbitrary header bytes must not create
+     * new time series.</p>
+     * <p>Alternatives: Check the meter registry, but the decode is where the bound is applied.</p>
+     */
+    @Test
+    void unknownPathDecodesAsUnknown() {
+        assertThat(PipelineTiming.decodePath(PipelineTiming.encodePath("tenant-42"))).isEqualTo(PipelineTiming.PATH_UNKNOWN);
+        assertThat(PipelineTiming.decodePath(PipelineTiming.encodePath(PipelineTiming.PATH_KINESIS)))
+            .isEqualTo(PipelineTiming.PATH_KINESIS);
+    }
+
+    /**
+     * Verifies an existing stamp is kept, so a forwarded record keeps its original ingest time.
+     *
+     * <p>Importance: Re-stamping would hide the time spent before the forward.</p>
+     * <p>Alternatives: Always overwrite, but then end-to-end latency would restart at each hop.</p>
+     */
+    @Test
+    void keepsExistingStamp() {
+        ProducerRecord<Object, Object> record = new ProducerRecord<>("topic", "value");
+        record.headers().add(PipelineTiming.INGEST_HEADER, PipelineTiming.encode(42));
+
+        interceptor.onSend(record);
+
+        assertThat(record.headers().headers(PipelineTiming.INGEST_HEADER)).hasSize(1);
+        assertThat(PipelineTiming.decode(record.headers().lastHeader(PipelineTiming.INGEST_HEADER).value()))
+            .isEqualTo(42);
+    }
+
+    /**
+     * Verifies a broker acknowledgement records the publish stage for the configured path.
+     *
+     * <p>Importance: The publish stage is the only ingest-side timer.</p>
+     * <p>Alternatives: Time the send future, but not every caller keeps it.</p>
+     */
+    @Test
+    void recordsPublishStageOnAcknowledgement() {
+        interceptor.configure(Map.of(
+            PipelineTimingInterceptor.PATH_CONFIG, PipelineTiming.PATH_REST,
+            PipelineTimingInterceptor.REGISTRY_CONFIG, meterRegistry));
+
+        interceptor.onAcknowledgement(new RecordMetadata(new TopicPartition("topic", 0), 0, 0,
+            System.currentTimeMillis() - 3, 0, 0), null);
+
+        assertThat(meterRegistry.get("dt360.pipeline.stage.latency")
+            .tags("stage", PipelineTiming.STAGE_PUBLISH, "path", PipelineTiming.PATH_REST).timer().count())
+            .isEqualTo(1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.datatrust360.common;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for per-tenant admission control.
+ *
+ * <p>Importance: Ensures quotas are isolated per tenant and overrides are honored.</p>
+ * <p>Alternatives: Load-test the ingest services, but unit tests pin the bucket math.</p>
+ */
+class TenantRateLimiterTest {
+
+    /**
+     * Verifies a tenant is throttled after its burst while other tenants are unaffected.
+     *
+     * <p>Importance: Isolation between tenants is the point of the limiter.</p>
+     * <p>Alternatives: Assert only the throttled tenant, but that misses shared-bucket bugs.</p>
+     */
+    @Test
+    void throttlesTenantAfterBurstWithoutAffectingOthers() {
+        TenantRateLimiter limiter = new TenantRateLimiter(new SimpleMeterRegistry(), true,
+            new TenantQuota(1, 3), Map.of());
+
+        assertThat(limiter.tryAcquire("t-1", 3).admitted()).isTrue();
+        TenantRateLimiter.Admission denied = limiter.tryAcquire("t-1", 1);
+
+        assertThat(denied.admitted()).isFalse();
+        assertThat(denied.retryAfterMillis()).isPositive();
+        assertThat(limiter.tryAcquire("t-2", 1).admitted()).isTrue();
+    }
+
+    /**
+     * Verifies per-tenant overrides parsed from configuration take effect.
+     *
+     * <p>Importance: Large tenants need more headroom than the default quota.</p>
+     * <p>Alternatives: Construct quotas directly, but parsing is part of the config contract.</p>
+     */
+    @Test
+    void appliesParsedOverrides() {
+        TenantRateLimiter limiter = new TenantRateLimiter(new SimpleMeterRegistry(), true,
+            new TenantQuota(1, 1), TenantQuota.parseOverrides("big=100:50, small=1:1"));
+
+        assertThat(limiter.tryAcquire("big", 50).admitted()).isTrue();
+        assertThat(limiter.tryAcquire("small", 2).admitted()).isFalse();
+    }
+
+    /**
+     * Verifies released permits can be admitted again.
+     *
+     * <p>Importance: gRPC batches refund earlier tenants when a later tenant is denied.</p>
+     * <p>Alternatives: Inspect the bucket state, but admission is the observable contract.</p>
+     */
+    @Test
+    void releasedPermitsCanBeReacquired() {
+        TenantRateLimiter limiter = new TenantRateLimiter(new SimpleMeterRegistry(), true,
+            new TenantQuota(1, 3), Map.of());
+
+        assertThat(limiter.tryAcquire("t-1", 3).admitted()).isTrue();
+        limiter.release("t-1", 2);
+
+        assertThat(limiter.tryAcquire("t-1", 2).admitted()).isTrue();
+        assertThat(limiter.tryAcquire("t-1", 1).admitted()).isFalse();
+    }
+
+    /**
+     * Verifies evicted tenants take their admission meters with them.
+     *
+     * <p>Importance: Tenant ids are client input, so neither buckets nor meters may grow unbounded.</p>
+     * <p>Alternatives: Check only the cache size, but the meter registry was the larger leak.</p>
+     */
+    @Test
+    void evictsTenantsBeyondCapacityWithTheirMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TenantRateLimiter limiter = new TenantRateLimiter(registry, true,
+            new TenantQuota(1, 3), Map.of(), 2, Duration.ofMinutes(10));
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire("t-" + i, 1);
+        }
+        limiter.cleanUp();
+
+        assertThat(registry.find("dt360.ingest.admission").counters()).hasSizeLessThanOrEqualTo(4);
+    }
+}
@@ -0,0 +1,114 @@
+package com.datatrust360.common;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the CPU time and heap allocation of a workload on the calling thread.
+ *
+ * <p>Importance: Allocation per event drives GC pressure in every service, and thread CPU
+ * time ignores scheduler noise, so both are reported per operation.</p>
+ * <p>Alternatives: JMH, but it needs its own build plugin and forked JVMs, and the
+ * differences the benchmarks look for are large enough to read without its rigor.</p>
+ *
+ * <p>Shared with the service modules through the {@code common} test-jar. Benchmarks stay
+ * opt-in with {@code @EnabledIfSystemProperty(named = "benchmarks", matches = "true")}.</p>
+ */
+public final class ThreadCostHarness {
+
+    /**
+     * Prevents instantiation.
+     *
+     * <p>Importance: The harness is stateless.</p>
+     * <p>Alternatives: An injectable instance, but benchmarks have nothing to swap.</p>
+     */
+    private ThreadCostHarness() {
+    }
+
+    /**
+     * Runs a workload and prints per-operation CPU, throughput, and allocation unless the
+     * label starts with {@code warmup}.
+     *
+     * <p>Importance: Warmup runs share the code path so the JIT compiles what is measured.</p>
+     * <p>Alternatives: Separate warmup and measure methods, but callers always pair them.</p>
+     */
+    public static Result measure(String label, String unit, int iterations, Workload workload) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long sink = 0;
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long allocStart = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            sink += workload.run(i);
+        }
+        Result result = new Result(iterations, threads.getCurrentThreadCpuTime() - cpuStart,
+            threads.getThreadAllocatedBytes(threadId) - allocStart, sink);
+        if (!label.startsWith("warmup")) {
+            System.out.printf("%-14s cpu=%8.0f ns/%s (%,.0f %s/s/core)  alloc=%8d B/%s  (checksum %d)%n",
+                label, result.cpuNanosPerOp(), unit, result.opsPerCpuSecond(), unit,
+                result.allocatedBytesPerOp(), unit, sink);
+        }
+        return result;
+    }
+
+    /**
+     * Totals for one measured run.
+     *
+     * <p>Importance: Lets a benchmark derive its own figures, such as wire-size ratios.</p>
+     * <p>Alternatives: Print only, but then results could not be compared in code.</p>
+     *
+     * @param iterations operations run
+     * @param cpuNanos thread CPU time spent
+     * @param allocatedBytes heap bytes allocated by the thread
+     * @param sink sum of workload return values
+     */
+    public record Result(long iterations, long cpuNanos, long allocatedBytes, long sink) {
+
+        /**
+         * Returns the CPU nanoseconds per operation.
+         *
+         * <p>Importance: The headline number for CPU-bound paths.</p>
+         * <p>Alternatives: Total CPU only, but runs differ in iteration count.</p>
+         */
+        public double cpuNanosPerOp() {
+            return (double) cpuNanos / iterations;
+        }
+
+        /**
+         * Returns the operations one fully busy core sustains per second.
+         *
+         * <p>Importance: Reads directly against throughput targets.</p>
+         * <p>Alternatives: Wall-clock throughput, but that includes time off the CPU.</p>
+         */
+        public double opsPerCpuSecond() {
+            return cpuNanos == 0 ? 0 : iterations * 1e9 / cpuNanos;
+        }
+
+        /**
+         * Returns the bytes allocated per operation.
+         *
+         * <p>Importance: Allocation rate is what young-generation GC frequency follows.</p>
+         * <p>Alternatives: GC logs, but per-thread counters isolate the measured code.</p>
+         */
+        public long allocatedBytesPerOp() {
+            return allocatedBytes / iterations;
+        }
+    }
+
+    /**
+     * Benchmark body returning a value to defeat dead-code elimination.
+     *
+     * <p>Importance: Ensures the JIT cannot skip the measured work.</p>
+     * <p>Alternatives: JMH Blackhole, but that requires the JMH dependency.</p>
+     */
+    @FunctionalInterface
+    public interface Workload {
+        /**
+         * Executes one iteration.
+         *
+         * <p>Importance: The iteration index lets workloads cycle through pre-built inputs.</p>
+         * <p>Alternatives: Runnable, but it cannot return a sink value.</p>
+         */
+        long run(int iteration) throws Exception;
+    }
+}
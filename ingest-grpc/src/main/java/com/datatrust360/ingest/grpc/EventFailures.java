@@ -0,0 +1,53 @@
+package com.datatrust360.ingest.grpc;
+
+import io.grpc.Status;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Builds per-event failure entries for batch and streaming ingest responses.
+ *
+ * <p>Importance: Keeps failure codes and messages consistent across every ingest RPC.</p>
+ * <p>Alternatives: Build protobuf messages inline, but each RPC would unwrap errors differently.</p>
+ */
+final class EventFailures {
+
+    /**
+     * Prevents instantiation of the static helper.
+     *
+     * <p>Importance: Signals that the helper is stateless.</p>
+     * <p>Alternatives: A Spring bean, but nothing here needs injection.</p>
+     */
+    private EventFailures() {
+    }
+
+    /**
+     * Builds a failure entry for the event at the given index.
+     *
+     * <p>Importance: Protobuf setters reject nulls, and exception messages may be null.</p>
+     * <p>Alternatives: Report codes only, but messages speed up client debugging.</p>
+     */
+    static EventFailure of(long index, Status.Code code, String message) {
+        return EventFailure.newBuilder()
+            .setIndex(index)
+            .setCode(code.name())
+            .setMessage(message == null ? "" : message)
+            .build();
+    }
+
+    /**
+     * Builds a failure entry for a Kafka send that did not complete.
+     *
+     * <p>Importance: Reports the producer's error rather than the future wrapper around it.</p>
+     * <p>Alternatives: Report the wrapper, but its message only repeats the cause.</p>
+     */
+    static EventFailure sendFailed(long index, Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+            && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return of(index, Status.Code.UNAVAILABLE, cause.getMessage());
+    }
+}
@@ -0,0 +1,87 @@
+package com.datatrust360.ingest.grpc;
+
+import com.datatrust360.common.EventEnvelope;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Converts protobuf event payloads into the JSON envelopes published to Kafka.
+ *
+ * <p>Importance: Keeps unary and streaming RPCs producing identical Kafka records.</p>
+ * <p>Alternatives: Duplicate the mapping per RPC, but the copies would drift.</p>
+ */
+class EventPayloadConverter {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates the converter with the shared JSON mapper.
+     *
+     * <p>Importance: Reuses Spring's mapper configuration for timestamps.</p>
+     * <p>Alternatives: A private mapper, but that risks different date formats.</p>
+     */
+    EventPayloadConverter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Maps a protobuf payload into an event envelope.
+     *
+     * <p>Importance: Normalizes gRPC input into the shared pipeline schema.</p>
+     * <p>Alternatives: Publish protobuf bytes, but consumers expect JSON envelopes.</p>
+     */
+    EventEnvelope toEnvelope(EventPayload payload) {
+        EventEnvelope envelope = new EventEnvelope();
+        envelope.setEventId(payload.getEventId().isEmpty() ? null : payload.getEventId());
+        envelope.setTenantId(payload.getTenantId());
+        envelope.setSource(payload.getSource());
+        envelope.setSchemaVersion(payload.getSchemaVersion());
+        envelope.setReceivedAt(parseInstant(payload.getReceivedAt()));
+        envelope.setPayload(parsePayload(payload.getJsonPayload()));
+        return envelope;
+    }
+
+    /**
+     * Parses an ISO-8601 timestamp, defaulting to now if blank.
+     *
+     * <p>Importance: Ensures each event has a usable timestamp for ordering.</p>
+     * <p>Alternatives: Reject missing timestamps, but that would drop partner batches.</p>
+     */
+    private Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return Instant.now();
+        }
+        return Instant.parse(value);
+    }
+
+    /**
+     * Parses the JSON payload into a generic map.
+     *
+     * <p>Importance: Supports dynamic schemas without strict compilation-time models.</p>
+     * <p>Alternatives: Use Protobuf Any, but JSON is simpler for external clients.</p>
+     */
+    private Map<String, Object> parsePayload(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<>() {});
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Invalid json payload", ex);
+        }
+    }
+
+    /**
+     * Serializes an event envelope to JSON.
+     *
+     * <p>Importance: Produces a portable representation for Kafka pipelines.</p>
+     * <p>Alternatives: Use Avro or Protobuf in Kafka, but JSON keeps tooling simple.</p>
+     */
+    String toJson(EventEnvelope envelope) {
+        try {
+            return objectMapper.writeValueAsString(envelope);
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Unable to serialize event", ex);
+        }
+    }
+}
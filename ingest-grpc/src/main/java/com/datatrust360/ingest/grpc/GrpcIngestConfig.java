@@ -0,0 +1,113 @@
+package com.datatrust360.ingest.grpc;
+
+import com.datatrust360.common.ByteValuePublisher;
+import com.datatrust360.common.HotTenantPartitioner;
+import com.datatrust360.common.PipelineTiming;
+import com.datatrust360.common.PipelineTimingInterceptor;
+import com.datatrust360.common.TenantQuota;
+import com.datatrust360.common.TenantRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Configuration for gRPC ingestion dependencies.
+ *
+ * <p>Importance: Centralizes publishing strategy beans for the bulk ingestion path.</p>
+ * <p>Alternatives: Construct helpers inside the service, but beans are easier to tune and test.</p>
+ */
+@Configuration
+public class GrpcIngestConfig {
+
+    /**
+     * Creates the hot-tenant key strategy for bulk Kafka publishing.
+     *
+     * <p>Importance: Bulk clients are the most likely to pin a partition with one tenant.</p>
+     * <p>Alternatives: Share nothing with ingest-rest, but one strategy keeps keys consistent.</p>
+     */
+    @Bean
+    public HotTenantPartitioner hotTenantPartitioner(
+        @Value("${ingest.kafka.hot-tenants.enabled:true}") boolean enabled,
+        @Value("${ingest.kafka.hot-tenants.capacity:64}") int capacity,
+        @Value("${ingest.kafka.hot-tenants.threshold:0.1}") double threshold,
+        @Value("${ingest.kafka.hot-tenants.sub-partitions:8}") int subPartitions,
+        @Value("${ingest.kafka.hot-tenants.window-ms:10000}") long windowMs,
+        @Value("${ingest.kafka.hot-tenants.sample-rate:16}") int sampleRate,
+        @Value("${ingest.kafka.hot-tenants.min-samples:100}") long minSamples
+    ) {
+        return new HotTenantPartitioner(enabled, capacity, threshold, subPartitions, windowMs, sampleRate, minSamples);
+    }
+
+    /**
+     * Creates the per-tenant admission limiter for bulk ingestion.
+     *
+     * <p>Importance: Charges every event in a batch so bulk clients cannot bypass quotas.</p>
+     * <p>Alternatives: Limit by connection, but one connection can carry many tenants.</p>
+     */
+    @Bean
+    public TenantRateLimiter tenantRateLimiter(
+        MeterRegistry meterRegistry,
+        @Value("${ingest.rate-limit.enabled:true}") boolean enabled,
+        @Value("${ingest.rate-limit.default-rate:1000}") double defaultRate,
+        @Value("${ingest.rate-limit.default-burst:2000}") long defaultBurst,
+        @Value("${ingest.rate-limit.overrides:}") String overrides,
+        @Value("${ingest.rate-limit.max-tenants:10000}") long maxTenants,
+        @Value("${ingest.rate-limit.idle-expiry-ms:600000}") long idleExpiryMs
+    ) {
+        return new TenantRateLimiter(meterRegistry, enabled,
+            new TenantQuota(defaultRate, defaultBurst), TenantQuota.parseOverrides(overrides),
+            maxTenants, Duration.ofMillis(idleExpiryMs));
+    }
+
+    /**
+     * Creates the byte-value Kafka publisher used for columnar batches.
+     *
+     * <p>Importance: Columnar values are encoded straight to UTF-8, so they skip the String serializer.</p>
+     * <p>Alternatives: A module-local publisher, but the REST pass-through path needs the same one.</p>
+     */
+    @Bean
+    public ByteValuePublisher byteValuePublisher(ProducerFactory<String, byte[]> producerFactory) {
+        return new ByteValuePublisher(producerFactory);
+    }
+
+    /**
+     * Creates the scheduler that emits time-based acks on bidirectional ingest streams.
+     *
+     * <p>Importance: One daemon thread serves every open stream, since ack tasks only build
+     * a small message under the stream's lock.</p>
+     * <p>Alternatives: A timer per stream, but thousands of streams would mean thousands of threads.</p>
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService ackScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "grpc-stream-ack");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds the pipeline timing interceptor to Boot's Kafka producer factory.
+     *
+     * <p>Importance: Stamps gRPC events on both the String and the byte-array templates,
+     * since the byte-array template copies this factory.</p>
+     * <p>Alternatives: {@code spring.kafka.producer.properties}, but YAML cannot pass the
+     * {@link MeterRegistry} instance the interceptor records into.</p>
+     */
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer pipelineTimingCustomizer(MeterRegistry meterRegistry) {
+        return factory -> factory.updateConfigs(Map.of(
+            ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, PipelineTimingInterceptor.class.getName(),
+            PipelineTimingInterceptor.PATH_CONFIG, PipelineTiming.PATH_GRPC,
+            PipelineTimingInterceptor.REGISTRY_CONFIG, meterRegistry));
+    }
+}
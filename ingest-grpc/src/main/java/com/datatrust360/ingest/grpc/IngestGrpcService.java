@@ -1,14 +1,23 @@
 package com.datatrust360.ingest.grpc;
 
-import com.datatrust360.common.EventEnvelope;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.datatrust360.common.ByteValuePublisher;
+import com.datatrust360.common.HotTenantPartitioner;
+import com.datatrust360.common.TenantRateLimiter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import net.devh.boot.grpc.server.service.GrpcService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * gRPC service handling bulk ingestion and publishing to Kafka.
@@ -19,8 +28,19 @@ import java.util.Map;
 @GrpcService
 public class IngestGrpcService extends BulkIngestServiceGrpc.BulkIngestServiceImplBase {
 
+    static final Metadata.Key<String> RETRY_PUSHBACK_KEY =
+        Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+
     private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final ByteValuePublisher byteValuePublisher;
+    private final EventPayloadConverter converter;
+    private final ColumnarBatchEncoder columnarEncoder;
+    private final HotTenantPartitioner partitioner;
+    private final TenantRateLimiter rateLimiter;
+    private final ScheduledExecutorService ackScheduler;
+    private final int streamMaxInFlight;
+    private final int streamAckEvery;
+    private final long streamAckIntervalMs;
     private final String kafkaTopic = "dt360.events.bulk";
 
     /**
@@ -29,72 +49,240 @@ public class IngestGrpcService extends BulkIngestServiceGrpc.BulkIngestServiceIm
      * <p>Importance: Allows Kafka publishing and JSON parsing to be injected and tested.</p>
      * <p>Alternatives: Build clients inline, but that complicates testing.</p>
      */
-    public IngestGrpcService(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
+    public IngestGrpcService(
+        KafkaTemplate<String, String> kafkaTemplate,
+        ByteValuePublisher byteValuePublisher,
+        ObjectMapper objectMapper,
+        HotTenantPartitioner partitioner,
+        TenantRateLimiter rateLimiter,
+        ScheduledExecutorService ackScheduler,
+        @Value("${ingest.grpc.stream.max-in-flight:1000}") int streamMaxInFlight,
+        @Value("${ingest.grpc.stream.ack-every:500}") int streamAckEvery,
+        @Value("${ingest.grpc.stream.ack-interval-ms:1000}") long streamAckIntervalMs
+    ) {
         this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = objectMapper;
+        this.byteValuePublisher = byteValuePublisher;
+        this.converter = new EventPayloadConverter(objectMapper);
+        this.columnarEncoder = new ColumnarBatchEncoder(objectMapper.getFactory());
+        this.partitioner = partitioner;
+        this.rateLimiter = rateLimiter;
+        this.ackScheduler = ackScheduler;
+        this.streamMaxInFlight = Math.max(streamMaxInFlight, 1);
+        this.streamAckEvery = Math.max(streamAckEvery, 1);
+        this.streamAckIntervalMs = streamAckIntervalMs;
     }
 
     /**
-     * Ingests a batch of events and publishes each to Kafka.
+     * Ingests a batch of events and responds once Kafka has acknowledged or failed every one.
      *
-     * <p>Importance: Handles high-volume ingestion with a single round trip.</p>
-     * <p>Alternatives: Use streaming RPC, but simple batching is sufficient for MVP throughput.</p>
+     * <p>Importance: All sends are dispatched before any is awaited, so the response waits only
+     * for the slowest send, and {@code accepted} now means durable rather than merely buffered.</p>
+     * <p>Alternatives: Block on each future in turn, but that parks the gRPC thread and
+     * serializes broker round trips.</p>
      */
     @Override
     public void ingestBatch(IngestBatchRequest request, StreamObserver<IngestBatchResponse> responseObserver) {
-        int accepted = 0;
+        Map<String, Integer> permitsByTenant = new HashMap<>();
         for (EventPayload payload : request.getEventsList()) {
-            EventEnvelope envelope = new EventEnvelope();
-            envelope.setTenantId(payload.getTenantId());
-            envelope.setSource(payload.getSource());
-            envelope.setSchemaVersion(payload.getSchemaVersion());
-            envelope.setReceivedAt(parseInstant(payload.getReceivedAt()));
-            envelope.setPayload(parsePayload(payload.getJsonPayload()));
-            kafkaTemplate.send(kafkaTopic, envelope.getTenantId(), toJson(envelope));
-            accepted++;
+            permitsByTenant.merge(payload.getTenantId(), 1, Integer::sum);
+        }
+        if (!admit(permitsByTenant, responseObserver)) {
+            return;
+        }
+        int count = request.getEventsCount();
+        EventFailure[] failures = new EventFailure[count];
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i++) {
+            sends[i] = dispatch(request.getEvents(i), i, failures);
         }
-        responseObserver.onNext(IngestBatchResponse.newBuilder().setAccepted(accepted).build());
-        responseObserver.onCompleted();
+        CompletableFuture.allOf(sends).whenComplete((ignored, ex) -> {
+            responseObserver.onNext(toResponse(failures));
+            responseObserver.onCompleted();
+        });
     }
 
     /**
-     * Parses an ISO-8601 timestamp, defaulting to now if blank.
+     * Ingests a dictionary-encoded columnar batch with the same semantics as {@code IngestBatch}.
      *
-     * <p>Importance: Ensures each event has a usable timestamp for ordering.</p>
-     * <p>Alternatives: Reject missing timestamps, but that would drop partner batches.</p>
+     * <p>Importance: Shared strings cross the wire once, timestamps are packed integers, and
+     * payload bytes go to Kafka without being parsed into a {@code Map} and re-serialized.</p>
+     * <p>Alternatives: Compress row batches, but that trades wire size for more server CPU.</p>
      */
-    private Instant parseInstant(String value) {
-        if (value == null || value.isBlank()) {
-            return Instant.now();
+    @Override
+    public void ingestColumnar(IngestColumnarBatch batch, StreamObserver<IngestBatchResponse> responseObserver) {
+        ColumnarBatchEncoder.EncodedBatch encoded;
+        try {
+            encoded = columnarEncoder.encode(batch);
+        } catch (IllegalArgumentException ex) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(ex.getMessage()).asRuntimeException());
+            return;
         }
-        return Instant.parse(value);
+        EventFailure[] failures = encoded.failures();
+        Map<String, Integer> permitsByTenant = new HashMap<>();
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] == null) {
+                permitsByTenant.merge(encoded.tenants()[i], 1, Integer::sum);
+            }
+        }
+        if (!admit(permitsByTenant, responseObserver)) {
+            return;
+        }
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[failures.length];
+        for (int i = 0; i < failures.length; i++) {
+            sends[i] = failures[i] != null
+                ? CompletableFuture.completedFuture(null)
+                : dispatchEncoded(encoded.tenants()[i], encoded.values()[i], i, failures);
+        }
+        CompletableFuture.allOf(sends).whenComplete((ignored, ex) -> {
+            responseObserver.onNext(toResponse(failures));
+            responseObserver.onCompleted();
+        });
     }
 
     /**
-     * Parses the JSON payload into a generic map.
+     * Sends one pre-encoded columnar event, recording its failure slot when it does not succeed.
      *
-     * <p>Importance: Supports dynamic schemas without strict compilation-time models.</p>
-     * <p>Alternatives: Use Protobuf Any, but JSON is simpler for external clients.</p>
+     * <p>Importance: Mirrors {@link #dispatch} so both batch RPCs report send errors identically.</p>
+     * <p>Alternatives: Share one method with a value converter, but the value types differ.</p>
      */
-    private Map<String, Object> parsePayload(String json) {
+    private CompletableFuture<?> dispatchEncoded(String tenantId, byte[] value, int index, EventFailure[] failures) {
         try {
-            return objectMapper.readValue(json, new TypeReference<>() {});
-        } catch (Exception ex) {
-            throw new IllegalArgumentException("Invalid json payload", ex);
+            return byteValuePublisher.send(kafkaTopic, partitioner.keyFor(tenantId), value)
+                .handle((result, ex) -> {
+                    if (ex != null) {
+                        failures[index] = EventFailures.sendFailed(index, ex);
+                    }
+                    return null;
+                });
+        } catch (RuntimeException ex) {
+            failures[index] = EventFailures.sendFailed(index, ex);
+            return CompletableFuture.completedFuture(null);
         }
     }
 
     /**
-     * Serializes an event envelope to JSON.
+     * Converts and sends one batch event, recording its failure slot when it does not succeed.
      *
-     * <p>Importance: Produces a portable representation for Kafka pipelines.</p>
-     * <p>Alternatives: Use Avro or Protobuf in Kafka, but JSON keeps tooling simple.</p>
+     * <p>Importance: A bad {@code json_payload} is rejected on its own index instead of aborting
+     * the rest of the batch.</p>
+     * <p>Alternatives: Validate the whole batch up front, but that walks every payload twice.</p>
      */
-    private String toJson(EventEnvelope envelope) {
+    private CompletableFuture<?> dispatch(EventPayload payload, int index, EventFailure[] failures) {
+        String value;
+        try {
+            value = converter.toJson(converter.toEnvelope(payload));
+        } catch (RuntimeException ex) {
+            failures[index] = EventFailures.of(index, Status.Code.INVALID_ARGUMENT, ex.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
         try {
-            return objectMapper.writeValueAsString(envelope);
-        } catch (Exception ex) {
-            throw new IllegalArgumentException("Unable to serialize event", ex);
+            return kafkaTemplate.send(kafkaTopic, partitioner.keyFor(payload.getTenantId()), value)
+                .handle((result, ex) -> {
+                    if (ex != null) {
+                        failures[index] = EventFailures.sendFailed(index, ex);
+                    }
+                    return null;
+                });
+        } catch (RuntimeException ex) {
+            failures[index] = EventFailures.sendFailed(index, ex);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Builds the batch response with one status per event and details for each failure.
+     *
+     * <p>Importance: Clients resend exactly the rejected indices instead of the whole batch.</p>
+     * <p>Alternatives: Return failures only, but statuses let clients zip results with events.</p>
+     */
+    private IngestBatchResponse toResponse(EventFailure[] failures) {
+        IngestBatchResponse.Builder response = IngestBatchResponse.newBuilder();
+        int rejected = 0;
+        for (EventFailure failure : failures) {
+            if (failure == null) {
+                response.addStatuses(EventStatus.EVENT_STATUS_ACCEPTED);
+            } else {
+                response.addStatuses(EventStatus.EVENT_STATUS_REJECTED);
+                response.addFailures(failure);
+                rejected++;
+            }
+        }
+        return response.setAccepted(failures.length - rejected).setRejected(rejected).build();
+    }
+
+    /**
+     * Accepts a client stream of events and replies once with the final cumulative ack.
+     *
+     * <p>Importance: Lets clients push unbounded event sequences without sizing batches, while
+     * the server pulls only as many events as Kafka is keeping up with.</p>
+     * <p>Alternatives: Many unary batches, but each one pays a round trip and buffers a whole
+     * batch in memory.</p>
+     */
+    @Override
+    public StreamObserver<EventPayload> streamIngest(StreamObserver<IngestAck> responseObserver) {
+        return openStream(responseObserver, false);
+    }
+
+    /**
+     * Accepts a client stream of events and sends periodic cumulative acks back.
+     *
+     * <p>Importance: Acks let producers keep a sliding window of unacknowledged events and
+     * retry exactly the failed indices, instead of resending the whole stream on error.</p>
+     * <p>Alternatives: Per-event responses, but cumulative acks cost one message per window.</p>
+     */
+    @Override
+    public StreamObserver<EventPayload> streamIngestBidi(StreamObserver<IngestAck> responseObserver) {
+        return openStream(responseObserver, true);
+    }
+
+    /**
+     * Creates the per-call observer with manual inbound flow control.
+     *
+     * <p>Importance: Must run before the RPC method returns so auto-request can be disabled.</p>
+     * <p>Alternatives: Rely on gRPC auto flow control, but then inbound events queue in memory
+     * whenever Kafka slows down.</p>
+     */
+    private StreamObserver<EventPayload> openStream(StreamObserver<IngestAck> responseObserver, boolean periodicAcks) {
+        return new StreamingIngestObserver(
+            (ServerCallStreamObserver<IngestAck>) responseObserver,
+            kafkaTemplate,
+            kafkaTopic,
+            converter,
+            partitioner,
+            rateLimiter,
+            streamMaxInFlight,
+            periodicAcks ? streamAckEvery : 0,
+            periodicAcks ? ackScheduler : null,
+            streamAckIntervalMs
+        );
+    }
+
+    /**
+     * Charges each tenant in the batch for its events, failing with RESOURCE_EXHAUSTED when any
+     * tenant is over quota.
+     *
+     * <p>Importance: Rejects floods before any Kafka buffer space is consumed, and returns the
+     * wait time in the standard {@code grpc-retry-pushback-ms} trailer for client retry policies.
+     * Tenants charged before the denied one are refunded, since none of the batch is sent.</p>
+     * <p>Alternatives: Drop only the throttled tenant's events, but a whole-batch status is
+     * simpler for clients that batch per tenant.</p>
+     */
+    private boolean admit(Map<String, Integer> permitsByTenant, StreamObserver<?> responseObserver) {
+        List<Map.Entry<String, Integer>> charged = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : permitsByTenant.entrySet()) {
+            TenantRateLimiter.Admission admission = rateLimiter.tryAcquire(entry.getKey(), entry.getValue());
+            if (!admission.admitted()) {
+                charged.forEach(refund -> rateLimiter.release(refund.getKey(), refund.getValue()));
+                Metadata trailers = new Metadata();
+                trailers.put(RETRY_PUSHBACK_KEY, Long.toString(admission.retryAfterMillis()));
+                responseObserver.onError(Status.RESOURCE_EXHAUSTED
+                    .withDescription("Rate limit exceeded for tenant " + entry.getKey()
+                        + ", retry after " + admission.retryAfterMillis() + " ms")
+                    .asRuntimeException(trailers));
+                return false;
+            }
+            charged.add(entry);
         }
+        return true;
     }
 }
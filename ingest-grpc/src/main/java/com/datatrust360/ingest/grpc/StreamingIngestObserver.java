@@ -0,0 +1,257 @@
+package com.datatrust360.ingest.grpc;
+
+import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.HotTenantPartitioner;
+import com.datatrust360.common.TenantRateLimiter;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call handler for streaming ingestion that pulls events only as fast as Kafka acknowledges them.
+ *
+ * <p>Importance: Auto flow control lets a fast client fill server memory while the producer
+ * buffer is full; requesting one event per completed send caps each stream at a fixed number
+ * of in-flight events, so backpressure reaches the client through HTTP/2 flow control.</p>
+ * <p>Alternatives: Check {@code isReady} on a timer, but completion-driven requests react
+ * exactly when producer capacity frees up.</p>
+ *
+ * <p>Events are numbered by arrival order starting at 0. A cumulative ack reports the highest
+ * contiguous completed index, running totals, and the failures completed since the previous ack.</p>
+ */
+final class StreamingIngestObserver implements StreamObserver<EventPayload> {
+
+    private final ServerCallStreamObserver<IngestAck> responseObserver;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final String kafkaTopic;
+    private final EventPayloadConverter converter;
+    private final HotTenantPartitioner partitioner;
+    private final TenantRateLimiter rateLimiter;
+    private final int ackEvery;
+    private final ScheduledFuture<?> ackTimer;
+    private final List<EventFailure> failures = new ArrayList<>();
+    private BitSet completedAhead = new BitSet();
+    private long received;
+    private long ackedThrough;
+    private long lastSentAck;
+    private long accepted;
+    private long rejected;
+    private boolean halfClosed;
+    private boolean finished;
+
+    /**
+     * Creates the observer, disables auto-request, and requests the initial window.
+     *
+     * <p>Importance: Flow control must be configured before the RPC method returns.</p>
+     * <p>Alternatives: Request one event at a time, but a window keeps Kafka batches full.</p>
+     *
+     * @param ackEvery send an ack after this many completions, or 0 to ack only at the end
+     * @param ackScheduler scheduler for time-based acks, or null to disable them
+     */
+    StreamingIngestObserver(
+        ServerCallStreamObserver<IngestAck> responseObserver,
+        KafkaTemplate<String, String> kafkaTemplate,
+        String kafkaTopic,
+        EventPayloadConverter converter,
+        HotTenantPartitioner partitioner,
+        TenantRateLimiter rateLimiter,
+        int maxInFlight,
+        int ackEvery,
+        ScheduledExecutorService ackScheduler,
+        long ackIntervalMs
+    ) {
+        this.responseObserver = responseObserver;
+        this.kafkaTemplate = kafkaTemplate;
+        this.kafkaTopic = kafkaTopic;
+        this.converter = converter;
+        this.partitioner = partitioner;
+        this.rateLimiter = rateLimiter;
+        this.ackEvery = ackEvery;
+        responseObserver.disableAutoRequest();
+        responseObserver.setOnCancelHandler(this::cancel);
+        this.ackTimer = ackScheduler == null || ackIntervalMs <= 0
+            ? null
+            : ackScheduler.scheduleAtFixedRate(this::sendTimedAck, ackIntervalMs, ackIntervalMs, TimeUnit.MILLISECONDS);
+        responseObserver.request(maxInFlight);
+    }
+
+    /**
+     * Converts, admits, and publishes one streamed event.
+     *
+     * <p>Importance: Rejections complete immediately so the window is replenished and one bad
+     * or throttled event does not stall the stream.</p>
+     * <p>Alternatives: Fail the call on the first bad event, but that discards the client's
+     * in-flight window.</p>
+     */
+    @Override
+    public void onNext(EventPayload payload) {
+        long index;
+        synchronized (this) {
+            index = received++;
+        }
+        String tenantId = payload.getTenantId();
+        String value;
+        try {
+            EventEnvelope envelope = converter.toEnvelope(payload);
+            value = converter.toJson(envelope);
+        } catch (RuntimeException ex) {
+            complete(index, EventFailures.of(index, Status.Code.INVALID_ARGUMENT, ex.getMessage()));
+            return;
+        }
+        TenantRateLimiter.Admission admission = rateLimiter.tryAcquire(tenantId, 1);
+        if (!admission.admitted()) {
+            complete(index, EventFailures.of(index, Status.Code.RESOURCE_EXHAUSTED,
+                "Rate limit exceeded, retry after " + admission.retryAfterMillis() + " ms"));
+            return;
+        }
+        try {
+            kafkaTemplate.send(kafkaTopic, partitioner.keyFor(tenantId), value)
+                .whenComplete((result, ex) -> complete(index,
+                    ex == null ? null : EventFailures.sendFailed(index, ex)));
+        } catch (RuntimeException ex) {
+            complete(index, EventFailures.sendFailed(index, ex));
+        }
+    }
+
+    /**
+     * Stops acking when the client aborts the stream.
+     *
+     * <p>Importance: Releases the ack timer; in-flight sends still finish on the producer.</p>
+     * <p>Alternatives: Abort in-flight sends, but Kafka offers no per-record cancellation.</p>
+     */
+    @Override
+    public void onError(Throwable t) {
+        cancel();
+    }
+
+    /**
+     * Marks the client half-closed and finishes once every received event has completed.
+     *
+     * <p>Importance: The final ack must cover every event so clients know nothing is pending.</p>
+     * <p>Alternatives: Reply immediately, but then late Kafka failures would go unreported.</p>
+     */
+    @Override
+    public void onCompleted() {
+        synchronized (this) {
+            halfClosed = true;
+            finishIfDrained();
+        }
+    }
+
+    /**
+     * Records the outcome of one event, advances the watermark, and replenishes the window.
+     *
+     * <p>Importance: Producer callbacks arrive out of order across partitions, so completions
+     * beyond the watermark are parked in a bitset until the gap closes.</p>
+     * <p>Alternatives: Ack the raw completion count, but that does not tell clients which
+     * prefix of their window is safe to drop.</p>
+     */
+    private void complete(long index, EventFailure failure) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            if (failure == null) {
+                accepted++;
+            } else {
+                rejected++;
+                failures.add(failure);
+            }
+            completedAhead.set((int) (index - ackedThrough));
+            int advance = completedAhead.nextClearBit(0);
+            if (advance > 0) {
+                completedAhead = completedAhead.get(advance, Math.max(advance, completedAhead.length()));
+                ackedThrough += advance;
+            }
+            if (ackEvery > 0 && ackedThrough - lastSentAck >= ackEvery) {
+                sendAck();
+            }
+            if (finishIfDrained()) {
+                return;
+            }
+        }
+        responseObserver.request(1);
+    }
+
+    /**
+     * Sends a timed ack when progress or failures accumulated since the last one.
+     *
+     * <p>Importance: Slow streams never reach the count threshold but still need acks to
+     * advance their client window.</p>
+     * <p>Alternatives: Count-only acks, but low-rate tenants would stall their producers.</p>
+     */
+    private synchronized void sendTimedAck() {
+        if (finished || responseObserver.isCancelled()) {
+            return;
+        }
+        if (ackedThrough > lastSentAck || !failures.isEmpty()) {
+            sendAck();
+        }
+    }
+
+    /**
+     * Sends the final ack and completes the call once the client half-closed and all sends finished.
+     *
+     * <p>Importance: Runs from both the half-close and the last producer callback, whichever is later.</p>
+     * <p>Alternatives: Block the half-close on outstanding futures, but that parks a gRPC thread.</p>
+     */
+    private boolean finishIfDrained() {
+        if (finished || !halfClosed || ackedThrough < received) {
+            return finished;
+        }
+        finished = true;
+        cancelTimer();
+        sendAck();
+        responseObserver.onCompleted();
+        return true;
+    }
+
+    /**
+     * Emits a cumulative ack and clears the reported failures.
+     *
+     * <p>Importance: Callers hold the monitor, which serializes writes to the response observer
+     * as gRPC requires.</p>
+     * <p>Alternatives: A dedicated writer thread, but acks are small and infrequent.</p>
+     */
+    private void sendAck() {
+        responseObserver.onNext(IngestAck.newBuilder()
+            .setAckedThrough(ackedThrough)
+            .setAccepted(accepted)
+            .setRejected(rejected)
+            .addAllFailures(failures)
+            .build());
+        failures.clear();
+        lastSentAck = ackedThrough;
+    }
+
+    /**
+     * Marks the call finished without responding.
+     *
+     * <p>Importance: A cancelled call can no longer be written to.</p>
+     * <p>Alternatives: Ignore cancellation, but writes to a cancelled call throw.</p>
+     */
+    private synchronized void cancel() {
+        finished = true;
+        cancelTimer();
+    }
+
+    /**
+     * Cancels the periodic ack task if one was scheduled.
+     *
+     * <p>Importance: Prevents timers from leaking past the call's lifetime.</p>
+     * <p>Alternatives: Let the task check state forever, but that grows the scheduler queue.</p>
+     */
+    private void cancelTimer() {
+        if (ackTimer != null) {
+            ackTimer.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.datatrust360.ingest.grpc;
+
+import com.datatrust360.common.ThreadCostHarness.Workload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static com.datatrust360.common.ThreadCostHarness.measure;
+
+/**
+ * Compares wire size and server CPU of row batches against columnar batches.
+ *
+ * <p>Importance: Quantifies the savings that justify a second batch message format.</p>
+ * <p>Alternatives: Compare wire size only, but the server-side decode is where columnar
+ * batches could lose what they save on the wire.</p>
+ *
+ * <p>Both workloads parse the request from its wire bytes and build Kafka record values, which
+ * is the server work before the producer. CPU and allocation are reported per batch of
+ * {@value #BATCH_SIZE} events. Run with
+ * {@code mvn -pl ingest-grpc test -Dtest=ColumnarBatchBenchmark -Dbenchmarks=true}.</p>
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ColumnarBatchBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int TENANTS = 8;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1_000;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+        .findAndAddModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+
+    /**
+     * Builds equivalent row and columnar batches and prints wire size plus per-event CPU and allocation.
+     *
+     * <p>Importance: Same events and thread keep the comparison fair.</p>
+     * <p>Alternatives: Wall-clock timing, but thread CPU time ignores scheduler noise.</p>
+     */
+    @Test
+    void compareRowAndColumnarBatches() throws Exception {
+        IngestBatchRequest.Builder rows = IngestBatchRequest.newBuilder();
+        IngestColumnarBatch.Builder columns = IngestColumnarBatch.newBuilder().addSourceDictionary("agent")
+            .addSchemaDictionary("v1");
+        for (int t = 0; t < TENANTS; t++) {
+            columns.addTenantDictionary("tenant-" + t);
+        }
+        long baseMicros = 1_735_689_600_000_000L;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String payload = samplePayload(i);
+            long micros = baseMicros + i * 1_000L;
+            rows.addEvents(EventPayload.newBuilder()
+                .setTenantId("tenant-" + (i % TENANTS))
+                .setSource("agent")
+                .setSchemaVersion("v1")
+                .setReceivedAt(Instant.ofEpochSecond(micros / 1_000_000L, (micros % 1_000_000L) * 1_000L).toString())
+                .setJsonPayload(payload));
+            columns.addTenantRefs(i % TENANTS).addSourceRefs(0).addSchemaRefs(0).addReceivedAtMicros(micros)
+                .addPayloads(ByteString.copyFromUtf8(payload));
+        }
+        byte[] rowWire = rows.build().toByteArray();
+        byte[] columnarWire = columns.build().toByteArray();
+        System.out.printf("wire size: row=%d B  columnar=%d B  (%.1f%%)%n",
+            rowWire.length, columnarWire.length, 100.0 * columnarWire.length / rowWire.length);
+
+        EventPayloadConverter converter = new EventPayloadConverter(objectMapper);
+        ColumnarBatchEncoder encoder = new ColumnarBatchEncoder(objectMapper.getFactory());
+        Workload row = i -> {
+            long bytes = 0;
+            for (EventPayload event : IngestBatchRequest.parseFrom(rowWire).getEventsList()) {
+                bytes += converter.toJson(converter.toEnvelope(event)).getBytes(StandardCharsets.UTF_8).length;
+            }
+            return bytes;
+        };
+        Workload columnar = i -> {
+            long bytes = 0;
+            for (byte[] value : encoder.encode(IngestColumnarBatch.parseFrom(columnarWire)).values()) {
+                bytes += value.length;
+            }
+            return bytes;
+        };
+
+        measure("warmup-row", "batch", WARMUP, row);
+        measure("warmup-columnar", "batch", WARMUP, columnar);
+        measure("row", "batch", ITERATIONS, row);
+        measure("columnar", "batch", ITERATIONS, columnar);
+    }
+
+    /**
+     * Builds a small metrics payload typical of agent events.
+     *
+     * <p>Importance: Small payloads make repeated header strings a large share of the wire.</p>
+     * <p>Alternatives: Large payloads, but those hide the dictionary savings.</p>
+     */
+    private String samplePayload(int i) {
+        return "{\"latencyMs\":" + (i % 400) + ",\"status\":\"ok\",\"host\":\"node-" + (i % 16)
+            + "\",\"errors\":" + (i % 3) + "}";
+    }
+}
@@ -0,0 +1,115 @@
+package com.datatrust360.ingest.grpc;
+
+import com.datatrust360.common.ByteValuePublisher;
+import com.datatrust360.common.HotTenantPartitioner;
+import com.datatrust360.common.TenantQuota;
+import com.datatrust360.common.TenantRateLimiter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the unary batch ingest RPC.
+ *
+ * <p>Importance: Clients resend exactly the indices reported as rejected, so statuses must
+ * line up with request order.</p>
+ * <p>Alternatives: Call through an in-process channel, but the response message is the contract.</p>
+ */
+class IngestGrpcServiceTest {
+
+    /**
+     * Verifies a batch mixing valid events, a malformed payload, and a failed send reports each
+     * event's own status.
+     *
+     * <p>Importance: One bad event must not reject its neighbours or hide among the accepted ones.</p>
+     * <p>Alternatives: Assert only the counts, but clients act on the per-index statuses.</p>
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingestBatchReportsStatusPerEvent() {
+        KafkaTemplate<String, String> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), anyString()))
+            .thenReturn(CompletableFuture.completedFuture(Mockito.mock(SendResult.class)))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+            .thenReturn(CompletableFuture.completedFuture(Mockito.mock(SendResult.class)));
+        StreamObserver<IngestBatchResponse> responseObserver = Mockito.mock(StreamObserver.class);
+        IngestBatchRequest request = IngestBatchRequest.newBuilder()
+            .addEvents(event("{\"n\":0}"))
+            .addEvents(event("not json"))
+            .addEvents(event("{\"n\":2}"))
+            .addEvents(event("{\"n\":3}"))
+            .build();
+
+        service(kafkaTemplate).ingestBatch(request, responseObserver);
+
+        ArgumentCaptor<IngestBatchResponse> captor = ArgumentCaptor.forClass(IngestBatchResponse.class);
+        Mockito.verify(responseObserver).onNext(captor.capture());
+        Mockito.verify(responseObserver).onCompleted();
+        IngestBatchResponse response = captor.getValue();
+        assertThat(response.getStatusesList()).containsExactly(
+            EventStatus.EVENT_STATUS_ACCEPTED,
+            EventStatus.EVENT_STATUS_REJECTED,
+            EventStatus.EVENT_STATUS_REJECTED,
+            EventStatus.EVENT_STATUS_ACCEPTED);
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(2);
+        assertThat(response.getFailuresList())
+            .extracting(EventFailure::getIndex, EventFailure::getCode, EventFailure::getMessage)
+            .containsExactly(
+                tuple(1L, "INVALID_ARGUMENT", "Invalid json payload"),
+                tuple(2L, "UNAVAILABLE", "broker down"));
+    }
+
+    /**
+     * Builds the service with admission and hot-tenant salting disabled.
+     *
+     * <p>Importance: Leaves conversion and the Kafka outcome as the only sources of rejection.</p>
+     * <p>Alternatives: Load a Spring context, but that needs a broker and a gRPC server.</p>
+     */
+    private IngestGrpcService service(KafkaTemplate<String, String> kafkaTemplate) {
+        return new IngestGrpcService(
+            kafkaTemplate,
+            Mockito.mock(ByteValuePublisher.class),
+            JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build(),
+            new HotTenantPartitioner(false, 1, 1.0, 1, 1_000, 1, 1),
+            new TenantRateLimiter(new SimpleMeterRegistry(), false, new TenantQuota(1, 1), Map.of()),
+            null,
+            1_000,
+            500,
+            1_000
+        );
+    }
+
+    /**
+     * Builds a batch event for tenant {@code t-1} with the given JSON payload.
+     *
+     * <p>Importance: Only the payload decides whether conversion succeeds.</p>
+     * <p>Alternatives: Share a fixture with the streaming tests, but each class stays readable alone.</p>
+     */
+    private static EventPayload event(String json) {
+        return EventPayload.newBuilder()
+            .setTenantId("t-1")
+            .setSource("agent")
+            .setSchemaVersion("v1")
+            .setReceivedAt("2025-01-01T00:00:00Z")
+            .setJsonPayload(json)
+            .build();
+    }
+}
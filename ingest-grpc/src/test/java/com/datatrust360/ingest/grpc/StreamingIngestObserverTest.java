@@ -0,0 +1,229 @@
+package com.datatrust360.ingest.grpc;
+
+import com.datatrust360.common.HotTenantPartitioner;
+import com.datatrust360.common.TenantQuota;
+import com.datatrust360.common.TenantRateLimiter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the streaming ingest handler's flow control and acks.
+ *
+ * <p>Importance: Clients drop buffered events based on {@code acked_through}, so a wrong
+ * watermark or a missing final ack loses or duplicates data.</p>
+ * <p>Alternatives: Run an in-process gRPC server, but a fake response observer lets each
+ * Kafka completion be ordered by hand.</p>
+ */
+class StreamingIngestObserverTest {
+
+    private final List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>();
+    private final FakeResponseObserver response = new FakeResponseObserver();
+
+    /**
+     * Verifies acks advance only over a contiguous prefix and the final ack follows the last send.
+     *
+     * <p>Importance: Producer callbacks complete out of order across partitions.</p>
+     * <p>Alternatives: Complete sends in order, but that never exercises the parked bitset.</p>
+     */
+    @Test
+    void acksContiguousPrefixAndCompletesAfterLastSend() {
+        StreamingIngestObserver observer = observer(2);
+
+        observer.onNext(event("{\"n\":0}"));
+        observer.onNext(event("{\"n\":1}"));
+        observer.onNext(event("{\"n\":2}"));
+        sends.get(1).complete(null);
+        assertThat(response.acks).isEmpty();
+        sends.get(0).complete(null);
+        observer.onCompleted();
+        assertThat(response.completed).isFalse();
+        sends.get(2).complete(null);
+
+        assertThat(response.acks).extracting(IngestAck::getAckedThrough).containsExactly(2L, 3L);
+        IngestAck last = response.acks.get(1);
+        assertThat(last.getAccepted()).isEqualTo(3);
+        assertThat(last.getRejected()).isZero();
+        assertThat(response.completed).isTrue();
+        // One more event per completion, except the last, which finishes the call instead.
+        assertThat(response.requested).isEqualTo(4 + 2);
+    }
+
+    /**
+     * Verifies invalid events and failed sends are reported by index and still ack the window.
+     *
+     * <p>Importance: A bad event must neither stall the stream nor be reported as accepted.</p>
+     * <p>Alternatives: Fail the call, but that discards the client's whole in-flight window.</p>
+     */
+    @Test
+    void reportsInvalidEventsAndSendFailures() {
+        StreamingIngestObserver observer = observer(0);
+
+        observer.onNext(event("not json"));
+        observer.onNext(event("{\"n\":1}"));
+        observer.onNext(event("{\"n\":2}"));
+        sends.get(0).completeExceptionally(new IllegalStateException("broker down"));
+        sends.get(1).complete(null);
+        observer.onCompleted();
+
+        assertThat(response.acks).hasSize(1);
+        IngestAck ack = response.acks.get(0);
+        assertThat(ack.getAckedThrough()).isEqualTo(3);
+        assertThat(ack.getAccepted()).isEqualTo(1);
+        assertThat(ack.getRejected()).isEqualTo(2);
+        assertThat(ack.getFailuresList())
+            .extracting(EventFailure::getIndex, EventFailure::getCode, EventFailure::getMessage)
+            .containsExactly(
+                tuple(0L, "INVALID_ARGUMENT", "Invalid json payload"),
+                tuple(1L, "UNAVAILABLE", "broker down"));
+        assertThat(response.completed).isTrue();
+    }
+
+    /**
+     * Verifies a client error stops all further writes to the call.
+     *
+     * <p>Importance: Writing to an aborted call throws on the producer's callback thread.</p>
+     * <p>Alternatives: Assert the timer is cancelled, but no writes is the observable contract.</p>
+     */
+    @Test
+    void stopsAckingAfterClientError() {
+        StreamingIngestObserver observer = observer(1);
+
+        observer.onNext(event("{\"n\":0}"));
+        observer.onError(new RuntimeException("client went away"));
+        sends.get(0).complete(null);
+        observer.onCompleted();
+
+        assertThat(response.acks).isEmpty();
+        assertThat(response.completed).isFalse();
+        assertThat(response.requested).isEqualTo(4);
+    }
+
+    /**
+     * Builds an observer with a window of four whose Kafka sends complete only when the test says so.
+     *
+     * <p>Importance: Puts completion order under the test's control.</p>
+     * <p>Alternatives: An embedded broker, but its callback order cannot be chosen.</p>
+     */
+    @SuppressWarnings("unchecked")
+    private StreamingIngestObserver observer(int ackEvery) {
+        KafkaTemplate<String, String> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            CompletableFuture<SendResult<String, String>> future = new CompletableFuture<>();
+            sends.add(future);
+            return future;
+        });
+        return new StreamingIngestObserver(
+            response,
+            kafkaTemplate,
+            "topic",
+            new EventPayloadConverter(JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()),
+            new HotTenantPartitioner(false, 1, 1.0, 1, 1_000, 1, 1),
+            new TenantRateLimiter(new SimpleMeterRegistry(), false, new TenantQuota(1, 1), Map.of()),
+            4,
+            ackEvery,
+            null,
+            0
+        );
+    }
+
+    /**
+     * Builds a streamed event for tenant {@code t-1} with the given JSON payload.
+     *
+     * <p>Importance: Only the payload decides whether conversion succeeds.</p>
+     * <p>Alternatives: Vary tenants too, but admission is disabled in these tests.</p>
+     */
+    private static EventPayload event(String json) {
+        return EventPayload.newBuilder()
+            .setTenantId("t-1")
+            .setSource("agent")
+            .setSchemaVersion("v1")
+            .setReceivedAt("2025-01-01T00:00:00Z")
+            .setJsonPayload(json)
+            .build();
+    }
+
+    /**
+     * Response side of a server call that records acks, completion, and requested messages.
+     *
+     * <p>Importance: Exposes exactly what the client would observe.</p>
+     * <p>Alternatives: Mock the observer, but a plain fake reads better in assertions.</p>
+     */
+    private static final class FakeResponseObserver extends ServerCallStreamObserver<IngestAck> {
+        private final List<IngestAck> acks = new ArrayList<>();
+        private boolean completed;
+        private int requested;
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void disableAutoRequest() {
+        }
+
+        @Override
+        public void request(int count) {
+            requested += count;
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public void onNext(IngestAck value) {
+            acks.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            throw new AssertionError("Streaming calls report failures in acks, not as errors", t);
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+    }
+}
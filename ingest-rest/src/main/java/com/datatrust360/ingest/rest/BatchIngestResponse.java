@@ -0,0 +1,21 @@
+package com.datatrust360.ingest.rest;
+
+import java.util.List;
+
+/**
+ * Result of a batch ingestion request with per-line error details.
+ *
+ * <p>Importance: Lets clients retry only the events that were rejected.</p>
+ * <p>Alternatives: Return only a status code, but that forces clients to resend whole batches.</p>
+ */
+public record BatchIngestResponse(int accepted, int rejected, List<LineError> errors) {
+
+    /**
+     * Describes a rejected event by its line (NDJSON) or 1-based element position (JSON array).
+     *
+     * <p>Importance: Pinpoints failures without echoing payloads back to the client.</p>
+     * <p>Alternatives: Return the rejected payloads, but that inflates responses.</p>
+     */
+    public record LineError(int line, String message) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.datatrust360.ingest.rest;
+
+import com.datatrust360.common.EventEnvelope;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incrementally reads event envelopes from a JSON array or NDJSON request body.
+ *
+ * <p>Importance: Lets batch ingestion hand events to Kafka as they are parsed instead of
+ * buffering the whole body in memory.</p>
+ * <p>Alternatives: Bind the body to a {@code List<EventEnvelope>}, but that holds every event
+ * in memory and fails the whole batch on a single bad element.</p>
+ */
+public class EventStreamReader {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates the reader with the shared JSON mapper.
+     *
+     * <p>Importance: Reuses Spring's configured mapper so date handling matches single-event ingest.</p>
+     * <p>Alternatives: Build a dedicated mapper, but that risks diverging serialization settings.</p>
+     */
+    public EventStreamReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads newline-delimited JSON, one envelope per non-blank line.
+     *
+     * <p>Importance: NDJSON lets clients stream arbitrarily large batches with per-line errors.</p>
+     * <p>Alternatives: Require JSON arrays only, but NDJSON is friendlier to log shippers.</p>
+     */
+    public void readNdjson(InputStream body, EventSink sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                sink.onEvent(lineNumber, objectMapper.readValue(line, EventEnvelope.class));
+            } catch (JsonProcessingException ex) {
+                sink.onError(lineNumber, ex.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads a JSON array of envelopes element by element using the streaming parser.
+     *
+     * <p>Importance: Binding errors reject only the offending element, while syntax errors stop
+     * the stream because the remaining tokens can no longer be trusted.</p>
+     * <p>Alternatives: Read the full array as a tree, but that defeats incremental parsing.</p>
+     */
+    public void readJsonArray(InputStream body, EventSink sink) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                sink.onError(0, "Expected a JSON array of events");
+                return;
+            }
+            int index = 0;
+            JsonToken token;
+            while ((token = nextToken(parser, index + 1, sink)) != JsonToken.END_ARRAY) {
+                index++;
+                if (token == null) {
+                    return;
+                }
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(parser);
+                } catch (JsonProcessingException ex) {
+                    sink.onError(index, ex.getOriginalMessage());
+                    return;
+                }
+                try {
+                    sink.onEvent(index, objectMapper.treeToValue(node, EventEnvelope.class));
+                } catch (JsonProcessingException ex) {
+                    sink.onError(index, ex.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Advances the parser, reporting truncated or malformed input against the next element.
+     *
+     * <p>Importance: Surfaces syntax errors between elements as per-line errors instead of 500s.</p>
+     * <p>Alternatives: Let parse exceptions propagate, but clients would lose accepted counts.</p>
+     */
+    private JsonToken nextToken(JsonParser parser, int index, EventSink sink) throws IOException {
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                sink.onError(index, "Unexpected end of input");
+            }
+            return token;
+        } catch (JsonProcessingException ex) {
+            sink.onError(index, ex.getOriginalMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Callback receiving parsed envelopes and per-line parse errors.
+     *
+     * <p>Importance: Decouples parsing from publishing so events flow out as they are read.</p>
+     * <p>Alternatives: Return an iterator, but callbacks keep error reporting in one place.</p>
+     */
+    public interface EventSink {
+        /**
+         * Handles a successfully parsed envelope.
+         *
+         * <p>Importance: Allows immediate publishing without collecting the batch.</p>
+         * <p>Alternatives: Queue envelopes, but that reintroduces buffering.</p>
+         */
+        void onEvent(int line, EventEnvelope envelope);
+
+        /**
+         * Handles an element that could not be parsed.
+         *
+         * <p>Importance: Gives clients line-level feedback for retries.</p>
+         * <p>Alternatives: Fail the whole request, but that drops valid events.</p>
+         */
+        void onError(int line, String message);
+    }
+}
@@ -0,0 +1,24 @@
+package com.datatrust360.ingest.rest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Signals that an ingestion buffer is full and the client should retry later.
+ *
+ * <p>Importance: Turns internal saturation into an explicit 503 instead of unbounded queuing.</p>
+ * <p>Alternatives: Block request threads indefinitely, but that exhausts the servlet pool.</p>
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class IngestBackpressureException extends RuntimeException {
+
+    /**
+     * Creates the exception with a client-facing reason.
+     *
+     * <p>Importance: Explains which buffer rejected the request.</p>
+     * <p>Alternatives: Use a generic message, but specific reasons speed up triage.</p>
+     */
+    public IngestBackpressureException(String message) {
+        super(message);
+    }
+}
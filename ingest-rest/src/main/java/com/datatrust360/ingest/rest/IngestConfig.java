@@ -1,13 +1,25 @@
 package com.datatrust360.ingest.rest;
 
+import com.datatrust360.common.ByteValuePublisher;
+import com.datatrust360.common.HotTenantPartitioner;
+import com.datatrust360.common.PipelineTiming;
+import com.datatrust360.common.PipelineTimingInterceptor;
+import com.datatrust360.common.TenantQuota;
+import com.datatrust360.common.TenantRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.ProducerFactory;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.kinesis.KinesisClient;
 import software.amazon.awssdk.services.kinesis.KinesisClientBuilder;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
 
 /**
  * Configuration for ingestion dependencies like the Kinesis client.
@@ -33,4 +45,73 @@ public class IngestConfig {
         }
         return builder.build();
     }
+
+    /**
+     * Creates the hot-tenant key strategy for Kafka publishing.
+     *
+     * <p>Importance: Spreads heavy-hitter tenants across partitions while keeping ordering
+     * for everyone else.</p>
+     * <p>Alternatives: Increase partitions only, but a single key still maps to one partition.</p>
+     */
+    @Bean
+    public HotTenantPartitioner hotTenantPartitioner(
+        @Value("${ingest.kafka.hot-tenants.enabled:true}") boolean enabled,
+        @Value("${ingest.kafka.hot-tenants.capacity:64}") int capacity,
+        @Value("${ingest.kafka.hot-tenants.threshold:0.1}") double threshold,
+        @Value("${ingest.kafka.hot-tenants.sub-partitions:8}") int subPartitions,
+        @Value("${ingest.kafka.hot-tenants.window-ms:10000}") long windowMs,
+        @Value("${ingest.kafka.hot-tenants.sample-rate:16}") int sampleRate,
+        @Value("${ingest.kafka.hot-tenants.min-samples:100}") long minSamples
+    ) {
+        return new HotTenantPartitioner(enabled, capacity, threshold, subPartitions, windowMs, sampleRate, minSamples);
+    }
+
+    /**
+     * Creates the per-tenant admission limiter for REST ingestion.
+     *
+     * <p>Importance: Protects the shared Kafka producer buffer from a single flooding tenant.</p>
+     * <p>Alternatives: Rate limit at an API gateway, but it cannot see tenants inside batches.</p>
+     */
+    @Bean
+    public TenantRateLimiter tenantRateLimiter(
+        MeterRegistry meterRegistry,
+        @Value("${ingest.rate-limit.enabled:true}") boolean enabled,
+        @Value("${ingest.rate-limit.default-rate:1000}") double defaultRate,
+        @Value("${ingest.rate-limit.default-burst:2000}") long defaultBurst,
+        @Value("${ingest.rate-limit.overrides:}") String overrides,
+        @Value("${ingest.rate-limit.max-tenants:10000}") long maxTenants,
+        @Value("${ingest.rate-limit.idle-expiry-ms:600000}") long idleExpiryMs
+    ) {
+        return new TenantRateLimiter(meterRegistry, enabled,
+            new TenantQuota(defaultRate, defaultBurst), TenantQuota.parseOverrides(overrides),
+            maxTenants, Duration.ofMillis(idleExpiryMs));
+    }
+
+    /**
+     * Creates the byte-value Kafka publisher used by the pass-through endpoint.
+     *
+     * <p>Importance: Pass-through envelopes are already encoded, so they skip the String serializer.</p>
+     * <p>Alternatives: Let {@link PassThroughPublisher} build its own template, but the gRPC
+     * service needs the same producer setup.</p>
+     */
+    @Bean
+    public ByteValuePublisher byteValuePublisher(ProducerFactory<String, byte[]> producerFactory) {
+        return new ByteValuePublisher(producerFactory);
+    }
+
+    /**
+     * Adds the pipeline timing interceptor to Boot's Kafka producer factory.
+     *
+     * <p>Importance: Every REST event leaves with an ingest stamp, including pass-through
+     * and batch sends, which share this factory.</p>
+     * <p>Alternatives: {@code spring.kafka.producer.properties}, but YAML cannot pass the
+     * {@link MeterRegistry} instance the interceptor records into.</p>
+     */
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer pipelineTimingCustomizer(MeterRegistry meterRegistry) {
+        return factory -> factory.updateConfigs(Map.of(
+            ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, PipelineTimingInterceptor.class.getName(),
+            PipelineTimingInterceptor.PATH_CONFIG, PipelineTiming.PATH_REST,
+            PipelineTimingInterceptor.REGISTRY_CONFIG, meterRegistry));
+    }
 }
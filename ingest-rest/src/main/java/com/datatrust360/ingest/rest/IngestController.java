@@ -1,15 +1,26 @@
 package com.datatrust360.ingest.rest;
 
 import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.TenantRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * REST API for ingesting operational events into streaming pipelines.
  *
@@ -22,31 +33,80 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Ingestion")
 public class IngestController {
 
+    static final String X_NDJSON_VALUE = "application/x-ndjson";
+
     private final IngestService ingestService;
+    private final TenantRateLimiter rateLimiter;
+    private final PassThroughPublisher passThroughPublisher;
+    private final ObjectMapper objectMapper;
+    private final boolean passThrough;
 
     /**
-     * Creates the controller with ingestion service dependency.
+     * Creates the controller with ingestion service and admission control dependencies.
      *
      * <p>Importance: Enables testable injection of publish logic.</p>
      * <p>Alternatives: Instantiate service directly, but that makes unit testing harder.</p>
      */
-    public IngestController(IngestService ingestService) {
+    public IngestController(
+        IngestService ingestService,
+        TenantRateLimiter rateLimiter,
+        PassThroughPublisher passThroughPublisher,
+        ObjectMapper objectMapper,
+        @Value("${ingest.rest.pass-through.enabled:false}") boolean passThrough
+    ) {
         this.ingestService = ingestService;
+        this.rateLimiter = rateLimiter;
+        this.passThroughPublisher = passThroughPublisher;
+        this.objectMapper = objectMapper;
+        this.passThrough = passThrough;
     }
 
     /**
      * Ingests events via REST and publishes to Kafka.
      *
-     * <p>Importance: Kafka provides low-latency internal streaming and replayability.</p>
+     * <p>Importance: Kafka provides low-latency internal streaming and replayability. In
+     * pass-through mode only header fields are parsed and the payload bytes go to Kafka as-is.</p>
      * <p>Alternatives: Write directly to storage, but streaming enables async processing.</p>
      */
-    @PostMapping("/events")
+    @PostMapping(value = "/events", consumes = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.ACCEPTED)
     @Operation(summary = "Ingest operational events via REST and forward to Kafka")
-    public void ingest(@RequestBody EventEnvelope envelope) {
+    public void ingest(
+        @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            content = @Content(schema = @Schema(implementation = EventEnvelope.class)))
+        @RequestBody byte[] body
+    ) {
+        if (passThrough) {
+            PassThroughEnvelope envelope = passThroughPublisher.read(body);
+            admit(envelope.tenantId());
+            passThroughPublisher.publish(envelope);
+            return;
+        }
+        EventEnvelope envelope = bind(body);
+        admit(envelope.getTenantId());
         ingestService.publishToKafka(envelope);
     }
 
+    /**
+     * Ingests a JSON array or NDJSON stream of events and publishes each to Kafka as it is parsed.
+     *
+     * <p>Importance: Amortizes HTTP and binding overhead across many events per request.</p>
+     * <p>Alternatives: Use gRPC bulk ingest, but many HTTP clients cannot speak gRPC.</p>
+     */
+    @PostMapping(
+        value = "/events:batch",
+        consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, X_NDJSON_VALUE}
+    )
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(summary = "Ingest a JSON array or NDJSON stream of events and forward to Kafka")
+    public BatchIngestResponse ingestBatch(
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+        InputStream body
+    ) throws IOException {
+        boolean ndjson = !MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        return ingestService.publishBatchToKafka(body, ndjson);
+    }
+
     /**
      * Ingests partner events via REST and publishes to Kinesis.
      *
@@ -57,6 +117,34 @@ public class IngestController {
     @ResponseStatus(HttpStatus.ACCEPTED)
     @Operation(summary = "Partner bulk ingestion via REST and forward to Kinesis")
     public void ingestPartner(@RequestBody EventEnvelope envelope) {
+        admit(envelope.getTenantId());
         ingestService.publishToKinesis(envelope);
     }
+
+    /**
+     * Binds a request body to an envelope, mapping malformed JSON to 400.
+     *
+     * <p>Importance: Keeps bind-mode behavior identical now that the body arrives as bytes.</p>
+     * <p>Alternatives: Declare two handler methods, but one mapping cannot switch on config.</p>
+     */
+    private EventEnvelope bind(byte[] body) {
+        try {
+            return objectMapper.readValue(body, EventEnvelope.class);
+        } catch (IOException ex) {
+            throw new InvalidEnvelopeException("Malformed event JSON", ex);
+        }
+    }
+
+    /**
+     * Charges one permit to the tenant or rejects the request with a retry hint.
+     *
+     * <p>Importance: Rejects floods before serialization or broker buffering costs are paid.</p>
+     * <p>Alternatives: Check inside the service, but rejecting early saves the most work.</p>
+     */
+    private void admit(String tenantId) {
+        TenantRateLimiter.Admission admission = rateLimiter.tryAcquire(tenantId, 1);
+        if (!admission.admitted()) {
+            throw new TenantThrottledException(tenantId, admission.retryAfterMillis());
+        }
+    }
 }
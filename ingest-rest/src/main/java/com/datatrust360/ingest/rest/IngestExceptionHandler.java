@@ -0,0 +1,33 @@
+package com.datatrust360.ingest.rest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Maps ingestion admission failures to HTTP responses.
+ *
+ * <p>Importance: Gives throttled clients a standard 429 with a usable retry hint.</p>
+ * <p>Alternatives: Build responses in each controller method, but that duplicates header logic.</p>
+ */
+@RestControllerAdvice
+public class IngestExceptionHandler {
+
+    /**
+     * Returns 429 with {@code Retry-After} (seconds) and the precise hint in milliseconds.
+     *
+     * <p>Importance: Seconds satisfy the HTTP spec while milliseconds allow tighter backoff.</p>
+     * <p>Alternatives: Return only the header, but JSON bodies are easier for SDKs to read.</p>
+     */
+    @ExceptionHandler(TenantThrottledException.class)
+    public ResponseEntity<Map<String, Object>> throttled(TenantThrottledException ex) {
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+            .body(Map.of("error", ex.getMessage(), "retryAfterMs", ex.getRetryAfterMillis()));
+    }
+}
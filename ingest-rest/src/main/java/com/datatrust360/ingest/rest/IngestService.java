@@ -2,6 +2,9 @@ package com.datatrust360.ingest.rest;
 
 import com.datatrust360.common.EventEnvelope;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * Publishing contract for REST ingestion to streaming backends.
  *
@@ -24,4 +27,12 @@ public interface IngestService {
      * <p>Alternatives: Use Kafka for partners, but Kinesis simplifies AWS integration.</p>
      */
     void publishToKinesis(EventEnvelope envelope);
+
+    /**
+     * Streams a JSON array or NDJSON body to Kafka, publishing events as they are parsed.
+     *
+     * <p>Importance: Amortizes HTTP and binding overhead across many events per request.</p>
+     * <p>Alternatives: Loop over single-event calls client-side, but that pays per-request cost.</p>
+     */
+    BatchIngestResponse publishBatchToKafka(InputStream body, boolean ndjson) throws IOException;
 }
@@ -1,14 +1,21 @@
 package com.datatrust360.ingest.rest;
 
 import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.HotTenantPartitioner;
+import com.datatrust360.common.TenantRateLimiter;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.core.SdkBytes;
-import software.amazon.awssdk.services.kinesis.KinesisClient;
-import software.amazon.awssdk.services.kinesis.model.PutRecordRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 
 /**
  * Default implementation of ingestion publishing to Kafka and Kinesis.
@@ -20,57 +27,80 @@ import software.amazon.awssdk.services.kinesis.model.PutRecordRequest;
 @Service
 public class IngestServiceImpl implements IngestService {
 
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_IN_FLIGHT = 1024;
+
     private final KafkaTemplate<String, String> kafkaTemplate;
-    private final KinesisClient kinesisClient;
+    private final KinesisBatchPublisher kinesisPublisher;
     private final ObjectMapper objectMapper;
+    private final HotTenantPartitioner partitioner;
+    private final TenantRateLimiter rateLimiter;
     private final String kafkaTopic;
-    private final String kinesisStream;
+    private final EventStreamReader streamReader;
 
     /**
      * Constructs the ingest service with stream clients and configuration.
      *
-     * <p>Importance: Ensures transport clients and topic/stream names are configured centrally.</p>
+     * <p>Importance: Ensures transport clients and topic names are configured centrally.</p>
      * <p>Alternatives: Use static clients, but dependency injection makes testing simpler.</p>
      */
     public IngestServiceImpl(
         KafkaTemplate<String, String> kafkaTemplate,
-        KinesisClient kinesisClient,
+        KinesisBatchPublisher kinesisPublisher,
         ObjectMapper objectMapper,
-        @Value("${ingest.kafka.topic}") String kafkaTopic,
-        @Value("${ingest.kinesis.stream}") String kinesisStream
+        HotTenantPartitioner partitioner,
+        TenantRateLimiter rateLimiter,
+        @Value("${ingest.kafka.topic}") String kafkaTopic
     ) {
         this.kafkaTemplate = kafkaTemplate;
-        this.kinesisClient = kinesisClient;
+        this.kinesisPublisher = kinesisPublisher;
         this.objectMapper = objectMapper;
+        this.partitioner = partitioner;
+        this.rateLimiter = rateLimiter;
         this.kafkaTopic = kafkaTopic;
-        this.kinesisStream = kinesisStream;
+        this.streamReader = new EventStreamReader(objectMapper);
     }
 
     /**
-     * Publishes to Kafka using the tenant ID as the partition key.
+     * Publishes to Kafka using the tenant ID as the partition key, salted for hot tenants.
      *
-     * <p>Importance: Tenant-based keys keep ordering and isolation by tenant.</p>
+     * <p>Importance: Tenant-based keys keep ordering and isolation by tenant, while salting
+     * prevents one heavy tenant from saturating a single partition.</p>
      * <p>Alternatives: Random partition keys, but that reduces tenant-level ordering.</p>
      */
     @Override
     public void publishToKafka(EventEnvelope envelope) {
-        kafkaTemplate.send(kafkaTopic, envelope.getTenantId(), toJson(envelope));
+        kafkaTemplate.send(kafkaTopic, partitioner.keyFor(envelope.getTenantId()), toJson(envelope));
     }
 
     /**
-     * Publishes to Kinesis using the tenant ID as the partition key.
+     * Buffers the event for asynchronous Kinesis publishing using the tenant ID as the partition key.
      *
-     * <p>Importance: Aligns partitioning with tenant isolation in partner flows.</p>
-     * <p>Alternatives: Use source as the key, but tenant isolation is the primary concern.</p>
+     * <p>Importance: Aligns partitioning with tenant isolation while keeping the Kinesis round
+     * trip off the request thread.</p>
+     * <p>Alternatives: Call putRecord inline, but that caps throughput at round-trip latency.</p>
      */
     @Override
     public void publishToKinesis(EventEnvelope envelope) {
-        PutRecordRequest request = PutRecordRequest.builder()
-            .streamName(kinesisStream)
-            .partitionKey(envelope.getTenantId())
-            .data(SdkBytes.fromUtf8String(toJson(envelope)))
-            .build();
-        kinesisClient.putRecord(request);
+        kinesisPublisher.submit(envelope.getTenantId(), toJson(envelope).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Streams a batch body to Kafka and waits for all sends before reporting counts.
+     *
+     * <p>Importance: Events leave as soon as they are parsed, so the only added latency is the
+     * slowest in-flight send rather than the sum of all sends.</p>
+     * <p>Alternatives: Report counts without waiting, but then accepted would not mean delivered.</p>
+     */
+    @Override
+    public BatchIngestResponse publishBatchToKafka(InputStream body, boolean ndjson) throws IOException {
+        BatchCollector collector = new BatchCollector();
+        if (ndjson) {
+            streamReader.readNdjson(body, collector);
+        } else {
+            streamReader.readJsonArray(body, collector);
+        }
+        return collector.awaitResult();
     }
 
     /**
@@ -86,4 +116,107 @@ public class IngestServiceImpl implements IngestService {
             throw new IllegalArgumentException("Unable to serialize event", e);
         }
     }
+
+    /**
+     * Tracks in-flight Kafka sends and rejected lines for a single batch request.
+     *
+     * <p>Importance: Keeps per-request state off the singleton service.</p>
+     * <p>Alternatives: Use thread-local counters, but a scoped collector is easier to reason about.</p>
+     *
+     * <p>Each send folds its outcome into counters as it completes, and at most
+     * {@value IngestServiceImpl#MAX_IN_FLIGHT} sends are outstanding, so memory stays bounded however large the
+     * request body is. Completions arrive on the producer thread, so shared state is guarded by
+     * the collector's monitor.</p>
+     */
+    private final class BatchCollector implements EventStreamReader.EventSink {
+
+        private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        private final List<BatchIngestResponse.LineError> errors = new ArrayList<>();
+        private int accepted;
+        private int rejected;
+
+        /**
+         * Validates, admits, and publishes a parsed envelope without waiting for the broker.
+         *
+         * <p>Importance: Overlaps network I/O with parsing of the remaining body, and blocks
+         * parsing only when the in-flight window is full.</p>
+         * <p>Alternatives: Block on each send, but that serializes the batch on broker latency.</p>
+         */
+        @Override
+        public void onEvent(int line, EventEnvelope envelope) {
+            if (envelope == null || envelope.getTenantId() == null || envelope.getTenantId().isBlank()) {
+                onError(line, "tenantId is required");
+                return;
+            }
+            TenantRateLimiter.Admission admission = rateLimiter.tryAcquire(envelope.getTenantId(), 1);
+            if (!admission.admitted()) {
+                onError(line, "Rate limit exceeded, retry after " + admission.retryAfterMillis() + " ms");
+                return;
+            }
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                onError(line, "Interrupted while waiting for in-flight sends");
+                return;
+            }
+            try {
+                kafkaTemplate.send(kafkaTopic, partitioner.keyFor(envelope.getTenantId()), toJson(envelope))
+                    .whenComplete((result, ex) -> onSendComplete(line, ex));
+            } catch (RuntimeException ex) {
+                inFlight.release();
+                onError(line, ex.getMessage());
+            }
+        }
+
+        /**
+         * Records a rejected line, capping the number of reported messages.
+         *
+         * <p>Importance: Bounds response size when a client sends a badly broken stream.</p>
+         * <p>Alternatives: Report every error, but responses could grow as large as the request.</p>
+         */
+        @Override
+        public synchronized void onError(int line, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BatchIngestResponse.LineError(line, message));
+            }
+        }
+
+        /**
+         * Counts a settled send and frees its in-flight slot.
+         *
+         * <p>Importance: Nothing per event outlives its send.</p>
+         * <p>Alternatives: Keep the futures and join them at the end, but that holds one future
+         * per event for the whole request.</p>
+         */
+        private void onSendComplete(int line, Throwable ex) {
+            try {
+                if (ex == null) {
+                    synchronized (this) {
+                        accepted++;
+                    }
+                } else {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    onError(line, "Kafka send failed: " + cause.getMessage());
+                }
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        /**
+         * Waits for all in-flight sends to settle and builds the batch response.
+         *
+         * <p>Importance: Ensures accepted counts reflect broker acknowledgements.</p>
+         * <p>Alternatives: Report counts without waiting, but then accepted would not mean delivered.</p>
+         */
+        private BatchIngestResponse awaitResult() {
+            inFlight.acquireUninterruptibly(MAX_IN_FLIGHT);
+            inFlight.release(MAX_IN_FLIGHT);
+            synchronized (this) {
+                return new BatchIngestResponse(accepted, rejected, List.copyOf(errors));
+            }
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package com.datatrust360.ingest.rest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Signals that a request body is not a valid event envelope.
+ *
+ * <p>Importance: Keeps malformed client input a 400 when the body is parsed manually.</p>
+ * <p>Alternatives: Let Jackson exceptions surface, but those become 500 responses.</p>
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidEnvelopeException extends RuntimeException {
+
+    /**
+     * Creates the exception with a client-facing reason and parse cause.
+     *
+     * <p>Importance: Preserves the parser location for server logs.</p>
+     * <p>Alternatives: Drop the cause, but that hides where parsing failed.</p>
+     */
+    public InvalidEnvelopeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
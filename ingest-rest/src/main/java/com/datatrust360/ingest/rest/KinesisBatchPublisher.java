@@ -0,0 +1,479 @@
+package com.datatrust360.ingest.rest;
+
+import com.datatrust360.common.KinesisAggregation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.kinesis.KinesisClient;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsRequest;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsRequestEntry;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsResponse;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsResultEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers partner envelopes and publishes them to Kinesis in aggregated {@code PutRecords} batches.
+ *
+ * <p>Importance: Moves Kinesis round trips off the request thread so partner throughput is
+ * bounded by batch capacity instead of per-call latency.</p>
+ * <p>Alternatives: Use the Kinesis Producer Library, but it needs a native daemon and its own
+ * aggregation format that the lightweight poller would have to adopt.</p>
+ *
+ * <p>Callers are answered before their records reach Kinesis, so records that still fail after
+ * the last retry are published to the pipeline's Kafka dead-letter topic, keyed by partition
+ * key, with the raw topic as their original topic so the worker's DLT replay feeds them back
+ * in. They are only lost if that publish fails too.</p>
+ *
+ * <p>Failed entries are not retried in place. They wait out their backoff in a retry list and
+ * join a later flush, so one throttled shard never holds up the others. New records for a key
+ * that has a retry pending wait behind it, which keeps per-key order.</p>
+ */
+@Component
+public class KinesisBatchPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(KinesisBatchPublisher.class);
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final String ORIGINAL_TOPIC_HEADER = "dt360-original-topic";
+    private static final String ERROR_HEADER = "dt360-error";
+
+    private final KinesisClient kinesisClient;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final String streamName;
+    private final String deadLetterTopic;
+    private final String originalTopic;
+    private final int maxRecords;
+    private final long maxBytes;
+    private final long lingerNanos;
+    private final long maxBlockMs;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final boolean aggregationEnabled;
+    private final int maxAggregatedBytes;
+    private final BlockingQueue<PendingRecord> buffer;
+    /** Entries waiting out a retry backoff; only the flusher thread touches this list. */
+    private final List<RetryEntry> retries = new ArrayList<>();
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    private final Counter deadLetteredCounter;
+    private volatile boolean running;
+    private Thread flusher;
+
+    /**
+     * Creates the publisher with batch, aggregation, and buffer limits.
+     *
+     * <p>Importance: Keeps Kinesis service limits and backpressure tunable per environment.</p>
+     * <p>Alternatives: Hardcode the Kinesis maximums, but small linger values suit low-volume envs.</p>
+     */
+    public KinesisBatchPublisher(
+        KinesisClient kinesisClient,
+        KafkaTemplate<String, String> kafkaTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${ingest.kinesis.stream}") String streamName,
+        @Value("${ingest.kinesis.dead-letter-topic:dt360.events.dlt}") String deadLetterTopic,
+        @Value("${ingest.kafka.topic:dt360.events.raw}") String originalTopic,
+        @Value("${ingest.kinesis.batch.max-records:500}") int maxRecords,
+        @Value("${ingest.kinesis.batch.max-bytes:5242880}") long maxBytes,
+        @Value("${ingest.kinesis.batch.linger-ms:50}") long lingerMs,
+        @Value("${ingest.kinesis.batch.buffer-capacity:10000}") int bufferCapacity,
+        @Value("${ingest.kinesis.batch.max-block-ms:100}") long maxBlockMs,
+        @Value("${ingest.kinesis.batch.max-retries:5}") int maxRetries,
+        @Value("${ingest.kinesis.batch.retry-backoff-ms:100}") long retryBackoffMs,
+        @Value("${ingest.kinesis.aggregation.enabled:true}") boolean aggregationEnabled,
+        @Value("${ingest.kinesis.aggregation.max-record-bytes:51200}") int maxAggregatedBytes
+    ) {
+        this.kinesisClient = kinesisClient;
+        this.kafkaTemplate = kafkaTemplate;
+        this.streamName = streamName;
+        this.deadLetterTopic = deadLetterTopic;
+        this.originalTopic = originalTopic;
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.maxBlockMs = maxBlockMs;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        this.aggregationEnabled = aggregationEnabled;
+        this.maxAggregatedBytes = maxAggregatedBytes;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.sentCounter = meterRegistry.counter("dt360.kinesis.publisher.records", "result", "sent");
+        this.failedCounter = meterRegistry.counter("dt360.kinesis.publisher.records", "result", "failed");
+        this.retriedCounter = meterRegistry.counter("dt360.kinesis.publisher.records", "result", "retried");
+        this.deadLetteredCounter = meterRegistry.counter("dt360.kinesis.publisher.records", "result", "dead_lettered");
+        meterRegistry.gauge("dt360.kinesis.publisher.buffered", buffer, BlockingQueue::size);
+    }
+
+    /**
+     * Starts the background flusher thread.
+     *
+     * <p>Importance: A single flusher keeps batches large and preserves per-key ordering.</p>
+     * <p>Alternatives: Flush from request threads, but that reintroduces request latency.</p>
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::runLoop, "kinesis-batch-publisher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stops accepting work and drains the buffer before shutdown.
+     *
+     * <p>Importance: Prevents losing accepted partner events on rolling deploys.</p>
+     * <p>Alternatives: Drop buffered events, but clients already received 202 responses.</p>
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * Enqueues an envelope, blocking briefly when the buffer is full.
+     *
+     * <p>Importance: Bounded buffering with a short block gives callers backpressure instead of
+     * unbounded memory growth.</p>
+     * <p>Alternatives: Drop on full, but silent loss is worse than an explicit 503.</p>
+     */
+    public void submit(String partitionKey, byte[] data) {
+        if (!running) {
+            throw new IngestBackpressureException("Kinesis publisher is shutting down");
+        }
+        try {
+            if (!buffer.offer(new PendingRecord(partitionKey, data), maxBlockMs, TimeUnit.MILLISECONDS)) {
+                throw new IngestBackpressureException("Kinesis publish buffer is full");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IngestBackpressureException("Interrupted while waiting for Kinesis buffer");
+        }
+    }
+
+    /**
+     * Collects records until a batch limit or the linger time is reached, then flushes.
+     *
+     * <p>Importance: Linger trades a few milliseconds of latency for far fewer round trips.</p>
+     * <p>Alternatives: Flush on a fixed schedule, but that delays full batches needlessly.</p>
+     *
+     * <p>The idle wait is cut short when a retry comes due, so retries are sent on time even
+     * when no new records arrive. On shutdown the loop keeps going until pending retries are
+     * sent or dead-lettered.</p>
+     */
+    private void runLoop() {
+        List<PendingRecord> batch = new ArrayList<>();
+        while (running || !buffer.isEmpty() || !retries.isEmpty()) {
+            try {
+                PendingRecord first = buffer.poll(idleWaitNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    if (nextRetryInNanos() <= 0) {
+                        flush(batch);
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long bytes = first.size();
+                long deadline = System.nanoTime() + lingerNanos;
+                while (bytes < maxBytes && (aggregationEnabled || batch.size() < maxRecords)) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingRecord next = remaining > 0 ? buffer.poll(remaining, TimeUnit.NANOSECONDS) : buffer.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    bytes += next.size();
+                }
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                logger.error("Unexpected failure flushing Kinesis batch", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns how long the flusher may wait for new records before a retry comes due.
+     *
+     * <p>Importance: Keeps an idle publisher from sitting on due retries.</p>
+     * <p>Alternatives: A scheduled executor for retries, but a second thread would have to
+     * coordinate with the flusher to keep per-key order.</p>
+     */
+    private long idleWaitNanos() {
+        return Math.max(0, Math.min(Math.max(lingerNanos, IDLE_POLL_NANOS), nextRetryInNanos()));
+    }
+
+    /**
+     * Returns the time until the next retry can be sent, or {@code Long.MAX_VALUE}.
+     *
+     * <p>Importance: The retry list is small, so a scan is cheaper than keeping it sorted.</p>
+     * <p>Alternatives: A priority queue, but due entries must still leave in insertion order.</p>
+     *
+     * <p>Only the oldest entry of each key counts, since the ones behind it wait for it.</p>
+     */
+    private long nextRetryInNanos() {
+        long now = System.nanoTime();
+        long next = Long.MAX_VALUE;
+        Set<String> seen = new HashSet<>();
+        for (RetryEntry retry : retries) {
+            if (seen.add(retry.packed().entry().partitionKey())) {
+                next = Math.min(next, retry.notBeforeNanos() - now);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Sends due retries and the given records in size-bounded calls.
+     *
+     * <p>Importance: Respects the 500-record and 5 MiB PutRecords limits.</p>
+     * <p>Alternatives: One call per record, but that is the latency bottleneck being removed.</p>
+     *
+     * <p>Due retries go first, in the order they failed. A new entry whose key still has a retry
+     * waiting joins the retry list behind it instead of overtaking it.</p>
+     */
+    void flush(List<PendingRecord> records) {
+        List<RetryEntry> entries = new ArrayList<>();
+        long now = System.nanoTime();
+        Map<String, Long> heldKeys = new HashMap<>();
+        Iterator<RetryEntry> pending = retries.iterator();
+        while (pending.hasNext()) {
+            RetryEntry retry = pending.next();
+            String key = retry.packed().entry().partitionKey();
+            if (heldKeys.containsKey(key) || retry.notBeforeNanos() - now > 0) {
+                heldKeys.merge(key, retry.notBeforeNanos(), Math::max);
+            } else {
+                entries.add(retry);
+                pending.remove();
+            }
+        }
+        for (PackedEntry packed : toEntries(records)) {
+            Long notBefore = heldKeys.get(packed.entry().partitionKey());
+            if (notBefore == null) {
+                entries.add(new RetryEntry(packed, 0, 0));
+            } else {
+                retries.add(new RetryEntry(packed, 0, notBefore));
+            }
+        }
+        List<RetryEntry> request = new ArrayList<>();
+        long requestBytes = 0;
+        for (RetryEntry queued : entries) {
+            PackedEntry packed = queued.packed();
+            long entryBytes = packed.entry().data().asByteArrayUnsafe().length
+                + packed.entry().partitionKey().getBytes(StandardCharsets.UTF_8).length;
+            if (!request.isEmpty() && (request.size() >= maxRecords || requestBytes + entryBytes > maxBytes)) {
+                send(request);
+                request = new ArrayList<>();
+                requestBytes = 0;
+            }
+            request.add(queued);
+            requestBytes += entryBytes;
+        }
+        if (!request.isEmpty()) {
+            send(request);
+        }
+    }
+
+    /**
+     * Builds request entries, packing same-key records together when aggregation is enabled.
+     *
+     * <p>Importance: Grouping by partition key keeps per-tenant ordering intact inside a record.</p>
+     * <p>Alternatives: Pack across keys, but that would route tenants to arbitrary shards.</p>
+     */
+    private List<PackedEntry> toEntries(List<PendingRecord> records) {
+        List<PackedEntry> entries = new ArrayList<>();
+        if (!aggregationEnabled) {
+            for (PendingRecord record : records) {
+                entries.add(new PackedEntry(entry(record.partitionKey(), record.data()), List.of(record)));
+            }
+            return entries;
+        }
+        Map<String, List<PendingRecord>> byKey = new LinkedHashMap<>();
+        for (PendingRecord record : records) {
+            byKey.computeIfAbsent(record.partitionKey(), key -> new ArrayList<>()).add(record);
+        }
+        for (Map.Entry<String, List<PendingRecord>> group : byKey.entrySet()) {
+            List<PendingRecord> packed = new ArrayList<>();
+            long packedBytes = 0;
+            for (PendingRecord record : group.getValue()) {
+                int nextSize = KinesisAggregation.encodedSize(packed.size() + 1, packedBytes + record.data().length);
+                if (!packed.isEmpty() && nextSize > maxAggregatedBytes) {
+                    entries.add(packedEntry(group.getKey(), packed));
+                    packed = new ArrayList<>();
+                    packedBytes = 0;
+                }
+                packed.add(record);
+                packedBytes += record.data().length;
+            }
+            entries.add(packedEntry(group.getKey(), packed));
+        }
+        return entries;
+    }
+
+    /**
+     * Creates an entry for a packed group, skipping the header for single records.
+     *
+     * <p>Importance: Keeps lone records readable by consumers that predate aggregation.</p>
+     * <p>Alternatives: Always aggregate, but that adds overhead with no batching benefit.</p>
+     */
+    private PackedEntry packedEntry(String partitionKey, List<PendingRecord> packed) {
+        byte[] data = packed.size() == 1
+            ? packed.get(0).data()
+            : KinesisAggregation.aggregate(packed.stream().map(PendingRecord::data).toList());
+        return new PackedEntry(entry(partitionKey, data), packed);
+    }
+
+    /**
+     * Creates a single PutRecords entry.
+     *
+     * <p>Importance: Centralizes SDK entry construction.</p>
+     * <p>Alternatives: Inline builders, but that repeats SDK boilerplate.</p>
+     */
+    private PutRecordsRequestEntry entry(String partitionKey, byte[] data) {
+        return PutRecordsRequestEntry.builder()
+            .partitionKey(partitionKey)
+            .data(SdkBytes.fromByteArrayUnsafe(data))
+            .build();
+    }
+
+    /**
+     * Sends entries once and schedules only the entries Kinesis reports as failed for retry.
+     *
+     * <p>Importance: Partial failures (throttling on a hot shard) no longer resend whole batches.</p>
+     * <p>Alternatives: Retry the full request, but that duplicates already-stored records.</p>
+     */
+    private void send(List<RetryEntry> entries) {
+        List<RetryEntry> failed = new ArrayList<>();
+        try {
+            PutRecordsResponse response = kinesisClient.putRecords(
+                PutRecordsRequest.builder()
+                    .streamName(streamName)
+                    .records(entries.stream().map(queued -> queued.packed().entry()).toList())
+                    .build()
+            );
+            List<PutRecordsResultEntry> results = response.records();
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).errorCode() != null) {
+                    failed.add(entries.get(i));
+                }
+            }
+        } catch (SdkException ex) {
+            logger.warn("PutRecords call failed for {} entries", entries.size(), ex);
+            failed = entries;
+        }
+        sentCounter.increment(entries.size() - failed.size());
+        List<PackedEntry> exhausted = new ArrayList<>();
+        long now = System.nanoTime();
+        for (RetryEntry queued : failed) {
+            if (queued.attempts() >= maxRetries) {
+                exhausted.add(queued.packed());
+            } else {
+                long backoffNanos = TimeUnit.MILLISECONDS.toNanos(retryBackoffMs << Math.min(queued.attempts(), 6));
+                retries.add(new RetryEntry(queued.packed(), queued.attempts() + 1, now + backoffNanos));
+            }
+        }
+        retriedCounter.increment(failed.size() - exhausted.size());
+        if (!exhausted.isEmpty()) {
+            logger.error("Dead-lettering {} Kinesis entries after {} retries", exhausted.size(), maxRetries);
+            deadLetter(exhausted);
+        }
+    }
+
+    /**
+     * Publishes the records of entries Kinesis kept rejecting to the dead-letter topic.
+     *
+     * <p>Importance: The client already has its 202, so this is the last place the records
+     * can be kept. Records are unpacked, so replay does not need to understand aggregation, and
+     * they carry the same original-topic and error headers as the worker's dead letters.</p>
+     * <p>Alternatives: Answer only after Kinesis accepts, but that puts Kinesis latency back on
+     * the request path this publisher exists to remove.</p>
+     */
+    private void deadLetter(List<PackedEntry> entries) {
+        for (PackedEntry packed : entries) {
+            for (PendingRecord record : packed.records()) {
+                try {
+                    ProducerRecord<String, String> deadLetter = new ProducerRecord<>(deadLetterTopic,
+                        record.partitionKey(), new String(record.data(), StandardCharsets.UTF_8));
+                    deadLetter.headers()
+                        .add(ORIGINAL_TOPIC_HEADER, originalTopic.getBytes(StandardCharsets.UTF_8))
+                        .add(ERROR_HEADER, "Kinesis rejected the record after retries".getBytes(StandardCharsets.UTF_8));
+                    kafkaTemplate.send(deadLetter)
+                        .whenComplete((result, ex) -> {
+                            if (ex == null) {
+                                deadLetteredCounter.increment();
+                            } else {
+                                failedCounter.increment();
+                                logger.error("Lost Kinesis record for {}: dead-letter publish failed",
+                                    record.partitionKey(), ex);
+                            }
+                        });
+                } catch (RuntimeException ex) {
+                    failedCounter.increment();
+                    logger.error("Lost Kinesis record for {}: dead-letter publish failed", record.partitionKey(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Request entry together with the buffered records packed into it.
+     *
+     * <p>Importance: Failed entries can be dead-lettered as the original records.</p>
+     * <p>Alternatives: Dead-letter the packed bytes, but replay would then need to deaggregate.</p>
+     */
+    record PackedEntry(PutRecordsRequestEntry entry, List<PendingRecord> records) {
+    }
+
+    /**
+     * Request entry with its failed attempts so far and the earliest time it may be sent.
+     *
+     * <p>Importance: Carries the backoff state that used to live on the flusher's stack.</p>
+     * <p>Alternatives: A timer per entry, but the flusher already wakes often enough.</p>
+     */
+    record RetryEntry(PackedEntry packed, int attempts, long notBeforeNanos) {
+    }
+
+    /**
+     * Buffered envelope awaiting publication.
+     *
+     * <p>Importance: Carries the partition key needed for grouping and shard routing.</p>
+     * <p>Alternatives: Buffer SDK entries directly, but raw bytes are cheaper to aggregate.</p>
+     */
+    record PendingRecord(String partitionKey, byte[] data) {
+        /**
+         * Returns the approximate request bytes this record contributes.
+         *
+         * <p>Importance: Drives the byte-bounded batch cut-off.</p>
+         * <p>Alternatives: Count records only, but large payloads would exceed request limits.</p>
+         */
+        long size() {
+            return data.length + partitionKey.length();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.datatrust360.ingest.rest;
+
+/**
+ * Envelope read in pass-through mode: the tenant key plus the ready-to-send Kafka record value.
+ *
+ * <p>Importance: Carries only what routing and admission need, leaving the payload as raw bytes.</p>
+ * <p>Alternatives: Reuse {@code EventEnvelope}, but its payload map is what this mode avoids.</p>
+ */
+public record PassThroughEnvelope(String tenantId, byte[] value) {
+}
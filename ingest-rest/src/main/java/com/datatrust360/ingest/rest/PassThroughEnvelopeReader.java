@@ -0,0 +1,160 @@
+package com.datatrust360.ingest.rest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads envelope header fields from a request body and splices the raw payload bytes into the
+ * Kafka record value.
+ *
+ * <p>Importance: Skips binding the payload into a {@code Map} and re-serializing it, which is
+ * where most CPU and garbage went for large events.</p>
+ * <p>Alternatives: Forward the whole request body, but that would pass through unknown fields
+ * and unvalidated timestamps that the bind path drops or rejects.</p>
+ *
+ * <p>The output has the same fields and order as {@code EventEnvelope} serialization,
+ * including an {@code eventId} only when the client sent one, so consumers cannot tell which
+ * mode produced a record. {@code receivedAt} must be an ISO-8601 string in this mode.</p>
+ */
+public class PassThroughEnvelopeReader {
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Creates the reader on the shared JSON factory.
+     *
+     * <p>Importance: Reuses the mapper's factory and its symbol tables across requests.</p>
+     * <p>Alternatives: A new factory per call, but factories are meant to be shared.</p>
+     */
+    public PassThroughEnvelopeReader(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Parses header fields, skips over the payload, and builds the Kafka record value.
+     *
+     * <p>Importance: The payload is tokenized to validate it but never materialized.</p>
+     * <p>Alternatives: Bind to {@code JsonNode}, but that still allocates the whole tree.</p>
+     */
+    public PassThroughEnvelope read(byte[] body) {
+        String eventId = null;
+        String tenantId = null;
+        String source = null;
+        String schemaVersion = null;
+        String receivedAt = null;
+        int payloadStart = -1;
+        int payloadEnd = -1;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new InvalidEnvelopeException("Event must be a JSON object", null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "eventId" -> eventId = text(parser, value, field);
+                    case "tenantId" -> tenantId = text(parser, value, field);
+                    case "source" -> source = text(parser, value, field);
+                    case "schemaVersion" -> schemaVersion = text(parser, value, field);
+                    case "receivedAt" -> receivedAt = timestamp(parser, value);
+                    case "payload" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            payloadStart = (int) parser.currentTokenLocation().getByteOffset();
+                            parser.skipChildren();
+                            payloadEnd = (int) parser.currentLocation().getByteOffset();
+                        } else if (value != JsonToken.VALUE_NULL) {
+                            throw new InvalidEnvelopeException("payload must be a JSON object", null);
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException ex) {
+            throw new InvalidEnvelopeException("Malformed event JSON", ex);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + 96);
+        out.write('{');
+        if (eventId != null) {
+            writeField(out, "eventId", eventId, true);
+            out.write(',');
+        }
+        writeField(out, "tenantId", tenantId, true);
+        writeField(out, "source", source, false);
+        writeField(out, "schemaVersion", schemaVersion, false);
+        writeField(out, "receivedAt", receivedAt, false);
+        out.writeBytes(",\"payload\":".getBytes(StandardCharsets.US_ASCII));
+        if (payloadStart >= 0) {
+            out.write(body, payloadStart, payloadEnd - payloadStart);
+        } else {
+            out.writeBytes(NULL);
+        }
+        out.write('}');
+        return new PassThroughEnvelope(tenantId, out.toByteArray());
+    }
+
+    /**
+     * Reads a string header value, allowing JSON null.
+     *
+     * <p>Importance: Mirrors the bind path, which accepts missing or null header fields.</p>
+     * <p>Alternatives: Coerce numbers to strings, but that diverges from bind-mode validation.</p>
+     */
+    private String text(JsonParser parser, JsonToken value, String field) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value != JsonToken.VALUE_STRING) {
+            throw new InvalidEnvelopeException(field + " must be a string", null);
+        }
+        return parser.getText();
+    }
+
+    /**
+     * Reads and validates an ISO-8601 {@code receivedAt} value.
+     *
+     * <p>Importance: Rejects bad timestamps at the edge, as binding to {@code Instant} does.</p>
+     * <p>Alternatives: Forward unvalidated, but consumers would then fail on the record.</p>
+     */
+    private String timestamp(JsonParser parser, JsonToken value) throws IOException {
+        String text = text(parser, value, "receivedAt");
+        if (text == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(text).toString();
+        } catch (DateTimeParseException ex) {
+            throw new InvalidEnvelopeException("receivedAt must be an ISO-8601 instant", ex);
+        }
+    }
+
+    /**
+     * Writes a JSON string field, escaping the value.
+     *
+     * <p>Importance: Produces valid JSON without a generator for a few small fields.</p>
+     * <p>Alternatives: Use {@code JsonGenerator}, but it cannot splice raw payload bytes.</p>
+     */
+    private void writeField(ByteArrayOutputStream out, String name, String value, boolean first) {
+        if (!first) {
+            out.write(',');
+        }
+        out.write('"');
+        out.writeBytes(name.getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes("\":".getBytes(StandardCharsets.US_ASCII));
+        if (value == null) {
+            out.writeBytes(NULL);
+            return;
+        }
+        out.write('"');
+        out.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(value));
+        out.write('"');
+    }
+}
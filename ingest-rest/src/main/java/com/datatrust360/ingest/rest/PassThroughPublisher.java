@@ -0,0 +1,62 @@
+package com.datatrust360.ingest.rest;
+
+import com.datatrust360.common.ByteValuePublisher;
+import com.datatrust360.common.HotTenantPartitioner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes pass-through envelopes to Kafka as raw byte values.
+ *
+ * <p>Importance: Sends the spliced record bytes without decoding them back into a String.</p>
+ * <p>Alternatives: Bind the envelope and use the String template, which is what pass-through
+ * exists to avoid.</p>
+ */
+@Component
+public class PassThroughPublisher {
+
+    private final ByteValuePublisher byteValuePublisher;
+    private final PassThroughEnvelopeReader reader;
+    private final HotTenantPartitioner partitioner;
+    private final String kafkaTopic;
+
+    /**
+     * Creates the publisher on top of the shared byte-value producer.
+     *
+     * <p>Importance: Keeps the envelope reader and tenant keying here, and the producer setup
+     * in one place for both ingest services.</p>
+     * <p>Alternatives: Build a byte-array template here, but the gRPC service needs the same one.</p>
+     */
+    public PassThroughPublisher(
+        ByteValuePublisher byteValuePublisher,
+        ObjectMapper objectMapper,
+        HotTenantPartitioner partitioner,
+        @Value("${ingest.kafka.topic}") String kafkaTopic
+    ) {
+        this.byteValuePublisher = byteValuePublisher;
+        this.reader = new PassThroughEnvelopeReader(objectMapper.getFactory());
+        this.partitioner = partitioner;
+        this.kafkaTopic = kafkaTopic;
+    }
+
+    /**
+     * Reads header fields and builds the record value without binding the payload.
+     *
+     * <p>Importance: Exposes the tenant before publishing so admission can run first.</p>
+     * <p>Alternatives: Read and publish in one call, but then throttled events cost a full parse.</p>
+     */
+    public PassThroughEnvelope read(byte[] body) {
+        return reader.read(body);
+    }
+
+    /**
+     * Publishes the record value using the (possibly salted) tenant key.
+     *
+     * <p>Importance: Keeps partitioning identical to the bind path.</p>
+     * <p>Alternatives: Key by a random value, but that breaks per-tenant ordering.</p>
+     */
+    public void publish(PassThroughEnvelope envelope) {
+        byteValuePublisher.send(kafkaTopic, partitioner.keyFor(envelope.tenantId()), envelope.value());
+    }
+}
@@ -0,0 +1,31 @@
+package com.datatrust360.ingest.rest;
+
+/**
+ * Signals that a tenant exceeded its ingestion quota.
+ *
+ * <p>Importance: Carries the retry hint so the HTTP layer can set {@code Retry-After}.</p>
+ * <p>Alternatives: Use {@code ResponseStatusException}, but it cannot carry response headers.</p>
+ */
+public class TenantThrottledException extends RuntimeException {
+
+    private final long retryAfterMillis;
+
+    /**
+     * Creates the exception for a throttled tenant.
+     *
+     * <p>Importance: Identifies the tenant and wait time for client backoff.</p>
+     * <p>Alternatives: Omit the hint, but clients would then retry blindly.</p>
+     */
+    public TenantThrottledException(String tenantId, long retryAfterMillis) {
+        super("Rate limit exceeded for tenant " + tenantId);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Returns how long the client should wait before retrying.
+     *
+     * <p>Importance: Drives the {@code Retry-After} header value.</p>
+     * <p>Alternatives: Fixed backoff, but quota-derived hints avoid premature retries.</p>
+     */
+    public long getRetryAfterMillis() { return retryAfterMillis; }
+}
@@ -0,0 +1,99 @@
+package com.datatrust360.ingest.rest;
+
+import com.datatrust360.common.EventEnvelope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for incremental batch body parsing.
+ *
+ * <p>Importance: Ensures bad lines are isolated and reported with their positions.</p>
+ * <p>Alternatives: Test through the controller with MockMvc, but parser tests are faster.</p>
+ */
+class EventStreamReaderTest {
+
+    /**
+     * Verifies NDJSON lines are parsed independently and blank lines are skipped.
+     *
+     * <p>Importance: One malformed line must not reject the rest of the stream.</p>
+     * <p>Alternatives: Fail fast, but that forces clients to resend valid events.</p>
+     */
+    @Test
+    void readNdjsonReportsBadLinesAndContinues() throws Exception {
+        String body = "{\"tenantId\":\"t-1\",\"payload\":{}}\n\n{not json}\n{\"tenantId\":\"t-2\"}\n";
+        RecordingSink sink = new RecordingSink();
+
+        new EventStreamReader(new ObjectMapper()).readNdjson(stream(body), sink);
+
+        assertThat(sink.tenants).containsExactly("t-1", "t-2");
+        assertThat(sink.errorLines).containsExactly(3);
+    }
+
+    /**
+     * Verifies JSON array elements with binding errors are rejected individually.
+     *
+     * <p>Importance: Type mismatches in one element should not abort the array.</p>
+     * <p>Alternatives: Bind the whole array at once, but a single error would fail everything.</p>
+     */
+    @Test
+    void readJsonArrayRejectsInvalidElementOnly() throws Exception {
+        String body = "[{\"tenantId\":\"t-1\"},{\"payload\":\"not-a-map\"},{\"tenantId\":\"t-3\"}]";
+        RecordingSink sink = new RecordingSink();
+
+        new EventStreamReader(new ObjectMapper()).readJsonArray(stream(body), sink);
+
+        assertThat(sink.tenants).containsExactly("t-1", "t-3");
+        assertThat(sink.errorLines).containsExactly(2);
+    }
+
+    /**
+     * Wraps a string in a UTF-8 input stream.
+     *
+     * <p>Importance: Mirrors how the servlet body is handed to the reader.</p>
+     * <p>Alternatives: Use a Reader, but the production API consumes streams.</p>
+     */
+    private InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sink that records parsed tenants and error positions.
+     *
+     * <p>Importance: Allows assertions without a Kafka dependency.</p>
+     * <p>Alternatives: Mock the sink, but a recorder keeps assertions readable.</p>
+     */
+    private static final class RecordingSink implements EventStreamReader.EventSink {
+        private final List<String> tenants = new ArrayList<>();
+        private final List<Integer> errorLines = new ArrayList<>();
+
+        /**
+         * Records the tenant of a parsed envelope.
+         *
+         * <p>Importance: Confirms which elements were accepted.</p>
+         * <p>Alternatives: Store whole envelopes, but tenants are enough to identify them.</p>
+         */
+        @Override
+        public void onEvent(int line, EventEnvelope envelope) {
+            tenants.add(envelope.getTenantId());
+        }
+
+        /**
+         * Records the position of a rejected element.
+         *
+         * <p>Importance: Confirms errors are attributed to the right line.</p>
+         * <p>Alternatives: Store messages too, but Jackson wording is not a stable contract.</p>
+         */
+        @Override
+        public void onError(int line, String message) {
+            errorLines.add(line);
+        }
+    }
+}
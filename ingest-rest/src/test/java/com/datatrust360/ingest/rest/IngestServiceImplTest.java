@@ -1,12 +1,22 @@
 package com.datatrust360.ingest.rest;
 
 import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.HotTenantPartitioner;
+import com.datatrust360.common.TenantQuota;
+import com.datatrust360.common.TenantRateLimiter;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.kafka.core.KafkaTemplate;
-import software.amazon.awssdk.services.kinesis.KinesisClient;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
@@ -24,11 +34,15 @@ class IngestServiceImplTest {
      * <p>Alternatives: Swallow errors and log only, but that hides failures from callers.</p>
      */
     @Test
-    void publishToKafkaRejectsInvalidJson() {
+    void publishToKafkaRejectsInvalidJson() throws Exception {
         KafkaTemplate<String, String> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
-        KinesisClient kinesisClient = Mockito.mock(KinesisClient.class);
+        KinesisBatchPublisher kinesisPublisher = Mockito.mock(KinesisBatchPublisher.class);
         ObjectMapper objectMapper = Mockito.mock(ObjectMapper.class);
-        IngestServiceImpl service = new IngestServiceImpl(kafkaTemplate, kinesisClient, objectMapper, "topic", "stream");
+        Mockito.when(objectMapper.writeValueAsString(Mockito.any()))
+            .thenThrow(new JsonMappingException(null, "unserializable payload"));
+        IngestServiceImpl service = new IngestServiceImpl(kafkaTemplate, kinesisPublisher, objectMapper,
+            new HotTenantPartitioner(false, 1, 1.0, 1, 1000, 1, 1),
+            new TenantRateLimiter(new SimpleMeterRegistry(), false, new TenantQuota(1, 1), Map.of()), "topic");
 
         EventEnvelope envelope = new EventEnvelope();
         envelope.setTenantId("t-1");
@@ -36,4 +50,36 @@ class IngestServiceImplTest {
         assertThatThrownBy(() -> service.publishToKafka(envelope))
             .isInstanceOf(IllegalArgumentException.class);
     }
+
+    /**
+     * Verifies a batch counts each send as it settles and reports broker failures by line.
+     *
+     * <p>Importance: Accepted must still mean acknowledged once futures are no longer kept.</p>
+     * <p>Alternatives: Assert only totals, but clients retry by line number.</p>
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishBatchToKafkaCountsSettledSends() throws Exception {
+        KafkaTemplate<String, String> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+        Mockito.when(kafkaTemplate.send(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
+            .thenReturn(CompletableFuture.completedFuture(null))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+            .thenReturn(CompletableFuture.completedFuture(null));
+        IngestServiceImpl service = new IngestServiceImpl(kafkaTemplate, Mockito.mock(KinesisBatchPublisher.class),
+            new ObjectMapper().findAndRegisterModules(), new HotTenantPartitioner(false, 1, 1.0, 1, 1000, 1, 1),
+            new TenantRateLimiter(new SimpleMeterRegistry(), false, new TenantQuota(1, 1), Map.of()), "topic");
+        String body = """
+            {"tenantId":"t-1","payload":{}}
+            {"tenantId":"t-1","payload":{}}
+            {"tenantId":"t-1","payload":{}}
+            {"payload":{}}
+            """;
+
+        BatchIngestResponse response = service.publishBatchToKafka(
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), true);
+
+        assertThat(response.accepted()).isEqualTo(2);
+        assertThat(response.rejected()).isEqualTo(2);
+        assertThat(response.errors()).extracting(BatchIngestResponse.LineError::line).containsExactlyInAnyOrder(2, 4);
+    }
 }
@@ -0,0 +1,177 @@
+package com.datatrust360.ingest.rest;
+
+import com.datatrust360.common.KinesisAggregation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaTemplate;
+import software.amazon.awssdk.services.kinesis.KinesisClient;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsRequest;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsRequestEntry;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsResponse;
+import software.amazon.awssdk.services.kinesis.model.PutRecordsResultEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for batched Kinesis publishing.
+ *
+ * <p>Importance: Guards the partial-retry and aggregation contract the poller depends on.</p>
+ * <p>Alternatives: Test against LocalStack, but it does not simulate partial failures.</p>
+ */
+class KinesisBatchPublisherTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+
+    /**
+     * Verifies only entries reported as failed are resent.
+     *
+     * <p>Importance: Resending successful entries would duplicate partner events.</p>
+     * <p>Alternatives: Retry whole batches, but that is the behavior being prevented.</p>
+     */
+    @Test
+    void flushRetriesOnlyFailedEntries() throws Exception {
+        KinesisClient kinesisClient = Mockito.mock(KinesisClient.class);
+        when(kinesisClient.putRecords(any(PutRecordsRequest.class)))
+            .thenReturn(response(null, "ProvisionedThroughputExceededException"))
+            .thenReturn(response((String) null));
+        KinesisBatchPublisher publisher = publisher(kinesisClient, false);
+
+        publisher.flush(List.of(record("t-1", "a"), record("t-2", "b")));
+        Thread.sleep(20);
+        publisher.flush(List.of());
+
+        ArgumentCaptor<PutRecordsRequest> captor = ArgumentCaptor.forClass(PutRecordsRequest.class);
+        Mockito.verify(kinesisClient, times(2)).putRecords(captor.capture());
+        PutRecordsRequest retry = captor.getAllValues().get(1);
+        assertThat(retry.records()).hasSize(1);
+        assertThat(retry.records().get(0).partitionKey()).isEqualTo("t-2");
+    }
+
+    /**
+     * Verifies a failed entry waits out its backoff without holding back other keys.
+     *
+     * <p>Importance: Sleeping on the flusher let one throttled shard stall every tenant.</p>
+     * <p>Alternatives: Time the flush call, but the request contents show the same thing.</p>
+     */
+    @Test
+    void failedEntryDoesNotBlockOtherKeys() throws Exception {
+        KinesisClient kinesisClient = Mockito.mock(KinesisClient.class);
+        when(kinesisClient.putRecords(any(PutRecordsRequest.class)))
+            .thenReturn(response("ProvisionedThroughputExceededException"))
+            .thenReturn(response((String) null));
+        KinesisBatchPublisher publisher = new KinesisBatchPublisher(kinesisClient, kafkaTemplate,
+            new SimpleMeterRegistry(), "stream", "dlt", "raw", 500, 5_242_880, 10, 100, 10, 3, 60_000, false, 51_200);
+
+        publisher.flush(List.of(record("t-1", "a")));
+        publisher.flush(List.of(record("t-2", "b"), record("t-1", "c")));
+
+        ArgumentCaptor<PutRecordsRequest> captor = ArgumentCaptor.forClass(PutRecordsRequest.class);
+        Mockito.verify(kinesisClient, times(2)).putRecords(captor.capture());
+        assertThat(captor.getAllValues().get(1).records())
+            .extracting(PutRecordsRequestEntry::partitionKey)
+            .containsExactly("t-2");
+    }
+
+    /**
+     * Verifies same-tenant records are packed into one aggregated entry.
+     *
+     * <p>Importance: Aggregation is what reduces per-record Kinesis cost.</p>
+     * <p>Alternatives: Assert only call counts, but decoding proves the format round-trips.</p>
+     */
+    @Test
+    void flushAggregatesRecordsPerPartitionKey() throws Exception {
+        KinesisClient kinesisClient = Mockito.mock(KinesisClient.class);
+        when(kinesisClient.putRecords(any(PutRecordsRequest.class))).thenReturn(response(null, null));
+        KinesisBatchPublisher publisher = publisher(kinesisClient, true);
+
+        publisher.flush(List.of(record("t-1", "a"), record("t-2", "b"), record("t-1", "c")));
+
+        ArgumentCaptor<PutRecordsRequest> captor = ArgumentCaptor.forClass(PutRecordsRequest.class);
+        Mockito.verify(kinesisClient).putRecords(captor.capture());
+        PutRecordsRequest request = captor.getValue();
+        assertThat(request.records()).hasSize(2);
+        List<byte[]> unpacked = KinesisAggregation.deaggregate(request.records().get(0).data().asByteArray());
+        assertThat(unpacked).extracting(bytes -> new String(bytes, StandardCharsets.UTF_8))
+            .containsExactly("a", "c");
+    }
+
+    /**
+     * Verifies records of entries that exhaust their retries go to the dead-letter topic.
+     *
+     * <p>Importance: Callers already got their 202, so dropping these would lose events silently.</p>
+     * <p>Alternatives: Assert the failure counter only, but that is what dropping looked like.</p>
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushDeadLettersRecordsThatExhaustRetries() throws Exception {
+        KinesisClient kinesisClient = Mockito.mock(KinesisClient.class);
+        when(kinesisClient.putRecords(any(PutRecordsRequest.class)))
+            .thenReturn(response("ProvisionedThroughputExceededException", null))
+            .thenReturn(response("ProvisionedThroughputExceededException"));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+        KinesisBatchPublisher publisher = publisher(kinesisClient, true);
+
+        publisher.flush(List.of(record("t-1", "a"), record("t-2", "b"), record("t-1", "c")));
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(20);
+            publisher.flush(List.of());
+        }
+
+        Mockito.verify(kinesisClient, times(4)).putRecords(any(PutRecordsRequest.class));
+        ArgumentCaptor<ProducerRecord<String, String>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        Mockito.verify(kafkaTemplate, times(2)).send(captor.capture());
+        assertThat(captor.getAllValues()).extracting(ProducerRecord::topic).containsOnly("dlt");
+        assertThat(captor.getAllValues()).extracting(ProducerRecord::key).containsOnly("t-1");
+        assertThat(captor.getAllValues()).extracting(ProducerRecord::value).containsExactly("a", "c");
+        assertThat(new String(captor.getValue().headers().lastHeader("dt360-original-topic").value(),
+            StandardCharsets.UTF_8)).isEqualTo("raw");
+    }
+
+    /**
+     * Builds a publisher with small limits for tests.
+     *
+     * <p>Importance: Keeps test setup focused on the behavior under test.</p>
+     * <p>Alternatives: Load a Spring context, but that is slower and needs AWS config.</p>
+     */
+    private KinesisBatchPublisher publisher(KinesisClient kinesisClient, boolean aggregation) {
+        return new KinesisBatchPublisher(kinesisClient, kafkaTemplate, new SimpleMeterRegistry(), "stream", "dlt", "raw",
+            500, 5_242_880, 10, 100, 10, 3, 1, aggregation, 51_200);
+    }
+
+    /**
+     * Creates a buffered record with a UTF-8 payload.
+     *
+     * <p>Importance: Keeps test data compact.</p>
+     * <p>Alternatives: Serialize full envelopes, but payload contents are irrelevant here.</p>
+     */
+    private KinesisBatchPublisher.PendingRecord record(String key, String data) {
+        return new KinesisBatchPublisher.PendingRecord(key, data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds a PutRecords response with one result per error code (null for success).
+     *
+     * <p>Importance: Simulates partial batch failures precisely.</p>
+     * <p>Alternatives: Throw exceptions, but that models full-request failure instead.</p>
+     */
+    private PutRecordsResponse response(String... errorCodes) {
+        PutRecordsResultEntry[] entries = new PutRecordsResultEntry[errorCodes.length];
+        int failed = 0;
+        for (int i = 0; i < errorCodes.length; i++) {
+            entries[i] = PutRecordsResultEntry.builder().errorCode(errorCodes[i]).build();
+            failed += errorCodes[i] == null ? 0 : 1;
+        }
+        return PutRecordsResponse.builder().records(entries).failedRecordCount(failed).build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.datatrust360.ingest.rest;
+
+import com.datatrust360.common.EventEnvelope;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for pass-through envelope reading.
+ *
+ * <p>Importance: Consumers must not be able to tell pass-through records from bound ones.</p>
+ * <p>Alternatives: Compare raw strings, but payload whitespace is intentionally preserved.</p>
+ */
+class PassThroughEnvelopeReaderTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+        .findAndAddModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .build();
+
+    /**
+     * Verifies the spliced record matches bind-and-serialize output.
+     *
+     * <p>Importance: Guarantees the optimization does not change the Kafka contract.</p>
+     * <p>Alternatives: Check fields individually, but tree equality covers the whole shape.</p>
+     */
+    @Test
+    void readProducesSameRecordAsBindPath() throws Exception {
+        String body = "{\"extra\":[1,2],\"tenantId\":\"t-\\\"1\",\"source\":\"agent\","
+            + "\"receivedAt\":\"2025-01-01T00:00:00Z\",\"payload\":{ \"latencyMs\" : 120, \"tags\":{\"a\":\"}\"} }}";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        PassThroughEnvelope envelope = new PassThroughEnvelopeReader(objectMapper.getFactory()).read(bytes);
+        String bound = objectMapper.writeValueAsString(objectMapper.readValue(bytes, EventEnvelope.class));
+
+        assertThat(envelope.tenantId()).isEqualTo("t-\"1");
+        assertThat(objectMapper.readTree(envelope.value())).isEqualTo(objectMapper.readTree(bound));
+    }
+
+    /**
+     * Verifies a client-supplied event id is carried into the record.
+     *
+     * <p>Importance: Storage upserts on the id, so dropping it turns a client resend into a
+     * duplicate document.</p>
+     * <p>Alternatives: Only compare with the bind path, but that would also pass if both
+     * dropped the id.</p>
+     */
+    @Test
+    void readKeepsEventId() throws Exception {
+        String body = "{\"tenantId\":\"t-1\",\"eventId\":\"client-42\",\"payload\":{\"a\":1}}";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        PassThroughEnvelope envelope = new PassThroughEnvelopeReader(objectMapper.getFactory()).read(bytes);
+        String bound = objectMapper.writeValueAsString(objectMapper.readValue(bytes, EventEnvelope.class));
+
+        assertThat(objectMapper.readValue(envelope.value(), EventEnvelope.class).getEventId()).isEqualTo("client-42");
+        assertThat(new String(envelope.value(), StandardCharsets.UTF_8)).isEqualTo(bound);
+    }
+
+    /**
+     * Verifies malformed bodies are rejected as invalid envelopes.
+     *
+     * <p>Importance: Keeps bad input a client error rather than a server error.</p>
+     * <p>Alternatives: Forward and let consumers fail, but that poisons the topic.</p>
+     */
+    @Test
+    void readRejectsMalformedPayload() {
+        byte[] bytes = "{\"tenantId\":\"t-1\",\"payload\":{\"a\":}".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> new PassThroughEnvelopeReader(objectMapper.getFactory()).read(bytes))
+            .isInstanceOf(InvalidEnvelopeException.class);
+    }
+}
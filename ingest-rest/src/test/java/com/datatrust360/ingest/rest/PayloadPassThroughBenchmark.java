@@ -0,0 +1,76 @@
+package com.datatrust360.ingest.rest;
+
+import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.ThreadCostHarness.Workload;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.datatrust360.common.ThreadCostHarness.measure;
+
+/**
+ * Compares CPU time and allocation of the bind path against pass-through mode.
+ *
+ * <p>Importance: Quantifies the savings that justify a second ingest code path.</p>
+ * <p>Alternatives: Compare a single parse, but the bind path also re-serializes the envelope.</p>
+ *
+ * <p>Run with {@code mvn -pl ingest-rest test -Dtest=PayloadPassThroughBenchmark -Dbenchmarks=true}.</p>
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class PayloadPassThroughBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+        .findAndAddModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .build();
+
+    /**
+     * Runs both paths over the same 4 KB event and prints per-event CPU and bytes allocated.
+     *
+     * <p>Importance: Same input and thread keep the comparison fair.</p>
+     * <p>Alternatives: Wall-clock timing, but thread CPU time ignores scheduler noise.</p>
+     */
+    @Test
+    void compareBindAndPassThrough() throws Exception {
+        byte[] body = sampleEvent(64).getBytes(StandardCharsets.UTF_8);
+        PassThroughEnvelopeReader reader = new PassThroughEnvelopeReader(objectMapper.getFactory());
+
+        Workload bind = i -> objectMapper.writeValueAsString(objectMapper.readValue(body, EventEnvelope.class))
+            .getBytes(StandardCharsets.UTF_8).length;
+        Workload passThrough = i -> reader.read(body).value().length;
+
+        measure("warmup-bind", "event", WARMUP, bind);
+        measure("warmup-pass-through", "event", WARMUP, passThrough);
+        measure("bind", "event", ITERATIONS, bind);
+        measure("pass-through", "event", ITERATIONS, passThrough);
+    }
+
+    /**
+     * Builds an event with a nested payload of the given number of metrics.
+     *
+     * <p>Importance: Payload size is what separates the two paths.</p>
+     * <p>Alternatives: A tiny payload, but that understates real partner events.</p>
+     */
+    private String sampleEvent(int metrics) {
+        StringBuilder payload = new StringBuilder("{");
+        for (int i = 0; i < metrics; i++) {
+            if (i > 0) {
+                payload.append(',');
+            }
+            payload.append("\"metric").append(i).append("\":{\"value\":").append(i * 1.5)
+                .append(",\"unit\":\"ms\",\"labels\":[\"a\",\"b\"]}");
+        }
+        payload.append('}');
+        return "{\"tenantId\":\"t-1\",\"source\":\"agent\",\"schemaVersion\":\"v1\","
+            + "\"receivedAt\":\"2025-01-01T00:00:00Z\",\"payload\":" + payload + "}";
+    }
+}
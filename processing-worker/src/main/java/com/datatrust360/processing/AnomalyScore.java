@@ -0,0 +1,40 @@
+package com.datatrust360.processing;
+
+/**
+ * Result of scoring one event: its most unusual metric and whether it crossed the thresholds.
+ *
+ * <p>Importance: Lets the worker decide on insights and log scores without re-reading stats.</p>
+ * <p>Alternatives: Return a score per metric, but one summary per event is what consumers use.</p>
+ *
+ * @param tenantId tenant the event was attributed to
+ * @param source event source
+ * @param metric payload field with the highest robust z-score, or null if nothing was scored
+ * @param value observed value of that metric
+ * @param robustZ (value - median) scaled by the median absolute deviation
+ * @param ewmaZ (value - EWMA mean) divided by the EWMA standard deviation
+ * @param median streaming median of the metric before this event
+ * @param p99 streaming 99th percentile of the metric before this event
+ * @param anomalous whether both z-scores crossed their thresholds after warm-up
+ */
+public record AnomalyScore(
+    String tenantId,
+    String source,
+    String metric,
+    double value,
+    double robustZ,
+    double ewmaZ,
+    double median,
+    double p99,
+    boolean anomalous
+) {
+
+    /**
+     * Builds a result for an event without scorable metrics.
+     *
+     * <p>Importance: Keeps tenant attribution even when nothing was scored.</p>
+     * <p>Alternatives: Return null, but callers would need null checks.</p>
+     */
+    static AnomalyScore none(String tenantId, String source) {
+        return new AnomalyScore(tenantId, source, null, Double.NaN, 0, 0, Double.NaN, Double.NaN, false);
+    }
+}
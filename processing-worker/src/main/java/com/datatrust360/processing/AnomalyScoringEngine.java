@@ -0,0 +1,341 @@
+package com.datatrust360.processing;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process streaming anomaly scorer keyed by tenant, source, and payload metric.
+ *
+ * <p>Importance: Replaces the scoring stub with real statistics so only unusual events reach
+ * the LLM insight service, which is slow and billed per call.</p>
+ * <p>Alternatives: An external ML service, but a network hop per event costs more than the
+ * arithmetic, and these statistics need no training pipeline.</p>
+ *
+ * <p>Every top-level numeric field of an event's {@code payload} is its own series with an
+ * EWMA mean and variance plus P-square estimates of the median, the median absolute deviation,
+ * and the 99th percentile. Each value is scored against the state before it and then added.
+ * An event is anomalous when, after warm-up, its robust z-score and its EWMA z-score both
+ * cross their thresholds. The robust score resists outliers and the EWMA score follows drift.</p>
+ *
+ * <p>The hot path streams the JSON with a {@link JsonParser} and keeps per-thread scratch
+ * buffers. Jackson canonicalizes repeated field names, and series state is all primitive
+ * fields, so a steady-state event allocates little beyond the parser itself.</p>
+ */
+@Component
+public class AnomalyScoringEngine {
+
+    private static final double MAD_TO_SIGMA = 0.6745;
+    private static final double MIN_SCALE = 1e-9;
+
+    private final JsonFactory jsonFactory;
+    private final double alpha;
+    private final double robustThreshold;
+    private final double ewmaThreshold;
+    private final long warmupSamples;
+    private final int maxSeries;
+    private final Map<String, Map<String, Map<String, Series>>> series = new ConcurrentHashMap<>();
+    private final AtomicInteger seriesCount = new AtomicInteger();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+    private final Counter scoredCounter;
+    private final Counter anomalousCounter;
+    private final Counter unparseableCounter;
+    private final Counter droppedSeriesCounter;
+
+    /**
+     * Creates the engine with thresholds and memory bounds.
+     *
+     * <p>Importance: Thresholds trade insight cost against recall and differ per deployment.</p>
+     * <p>Alternatives: Per-tenant thresholds, but global defaults are enough until tuned.</p>
+     */
+    public AnomalyScoringEngine(
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        @Value("${processing.anomaly.ewma-alpha:0.05}") double alpha,
+        @Value("${processing.anomaly.robust-z-threshold:3.5}") double robustThreshold,
+        @Value("${processing.anomaly.ewma-z-threshold:4.0}") double ewmaThreshold,
+        @Value("${processing.anomaly.warmup-samples:30}") long warmupSamples,
+        @Value("${processing.anomaly.max-series:100000}") int maxSeries
+    ) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.alpha = alpha;
+        this.robustThreshold = robustThreshold;
+        this.ewmaThreshold = ewmaThreshold;
+        this.warmupSamples = warmupSamples;
+        this.maxSeries = maxSeries;
+        this.scoredCounter = meterRegistry.counter("dt360.anomaly.events", "result", "scored");
+        this.anomalousCounter = meterRegistry.counter("dt360.anomaly.events", "result", "anomalous");
+        this.unparseableCounter = meterRegistry.counter("dt360.anomaly.events", "result", "unparseable");
+        this.droppedSeriesCounter = meterRegistry.counter("dt360.anomaly.series.dropped");
+        meterRegistry.gauge("dt360.anomaly.series", seriesCount);
+    }
+
+    /**
+     * Scores one event JSON document.
+     *
+     * <p>Importance: Header metadata is used when present, so the body is parsed exactly once.</p>
+     * <p>Alternatives: Bind to {@code EventEnvelope}, but building the payload map allocates a
+     * node per field for values that are only read once.</p>
+     *
+     * @param tenantId tenant from the message header, or null to read it from the body
+     * @param source source from the message header, or null to read it from the body
+     * @param json the event envelope JSON
+     */
+    public AnomalyScore score(String tenantId, String source, String json) {
+        Scratch state = scratch.get();
+        state.reset();
+        String tenant = tenantId;
+        String src = source;
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                unparseableCounter.increment();
+                return AnomalyScore.none(orUnknown(tenant), orUnknown(src));
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("payload".equals(field) && token == JsonToken.START_OBJECT) {
+                    readMetrics(parser, state);
+                } else if (tenant == null && "tenantId".equals(field) && token == JsonToken.VALUE_STRING) {
+                    tenant = parser.getText();
+                } else if (src == null && "source".equals(field) && token == JsonToken.VALUE_STRING) {
+                    src = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException ex) {
+            unparseableCounter.increment();
+            return AnomalyScore.none(orUnknown(tenant), orUnknown(src));
+        }
+        tenant = orUnknown(tenant);
+        src = orUnknown(src);
+        scoredCounter.increment();
+        if (state.size == 0) {
+            return AnomalyScore.none(tenant, src);
+        }
+        Map<String, Map<String, Series>> sources = series.get(tenant);
+        Map<String, Series> metrics = sources == null ? null : sources.get(src);
+        for (int i = 0; i < state.size; i++) {
+            Series metric = metrics == null ? null : metrics.get(state.names[i]);
+            if (metric == null) {
+                if (seriesCount.get() >= maxSeries) {
+                    droppedSeriesCounter.increment();
+                    continue;
+                }
+                if (metrics == null) {
+                    metrics = series
+                        .computeIfAbsent(tenant, key -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(src, key -> new ConcurrentHashMap<>());
+                }
+                metric = newSeries(metrics, state.names[i]);
+            }
+            metric.observe(state.values[i], state.names[i], state);
+        }
+        if (state.worstMetric == null) {
+            return AnomalyScore.none(tenant, src);
+        }
+        if (state.worstAnomalous) {
+            anomalousCounter.increment();
+        }
+        return new AnomalyScore(tenant, src, state.worstMetric, state.worstValue, state.worstRobustZ,
+            state.worstEwmaZ, state.worstMedian, state.worstP99, state.worstAnomalous);
+    }
+
+    /**
+     * Collects the numeric fields of the payload object into the scratch buffer.
+     *
+     * <p>Importance: Buffering lets tenant and source fields that follow the payload still
+     * select the right series.</p>
+     * <p>Alternatives: Require header metadata, but queued legacy messages carry none.</p>
+     */
+    private static void readMetrics(JsonParser parser, Scratch state) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                state.add(name, parser.getDoubleValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Creates state for a new metric series once the caller has checked the series budget.
+     *
+     * <p>Importance: Bounds memory when tenants send high-cardinality field names; the caller
+     * checks the cap before creating tenant and source maps so rejected tenants leave no
+     * empty maps behind.</p>
+     * <p>Alternatives: Evict least-recently-used series, but that needs access tracking on
+     * every event; dropped series are counted so the cap can be raised.</p>
+     */
+    private Series newSeries(Map<String, Series> metrics, String name) {
+        return metrics.computeIfAbsent(name, key -> {
+            seriesCount.incrementAndGet();
+            return new Series();
+        });
+    }
+
+    /**
+     * Returns how many tenants currently hold series state.
+     *
+     * <p>Importance: Lets tests confirm a capped engine stops growing its tenant maps.</p>
+     * <p>Alternatives: A gauge, but the series gauge already tracks memory in production.</p>
+     */
+    int trackedTenants() {
+        return series.size();
+    }
+
+    /**
+     * Replaces a missing attribute with {@code unknown}.
+     *
+     * <p>Importance: Keeps map keys non-null and matches the worker's previous default.</p>
+     * <p>Alternatives: Skip unattributed events, but they can still be anomalous.</p>
+     */
+    private static String orUnknown(String value) {
+        return value == null ? "unknown" : value;
+    }
+
+    /**
+     * Streaming statistics of one tenant, source, and metric series.
+     *
+     * <p>Importance: All state is primitive fields and fixed arrays, so an update is a few
+     * dozen floating-point operations with no allocation.</p>
+     * <p>Alternatives: Sliding windows of raw values, but memory and cost grow with window size.</p>
+     */
+    private final class Series {
+
+        private final P2Quantile median = new P2Quantile(0.5);
+        private final P2Quantile deviation = new P2Quantile(0.5);
+        private final P2Quantile p99 = new P2Quantile(0.99);
+        private long count;
+        private double mean;
+        private double variance;
+
+        /**
+         * Scores a value against the current state, records it if it is the event's most
+         * unusual metric so far, and then updates the state.
+         *
+         * <p>Importance: Scoring before updating keeps a spike from masking itself.</p>
+         * <p>Alternatives: Update first, but then large spikes shrink their own z-scores.</p>
+         */
+        synchronized void observe(double value, String name, Scratch state) {
+            double currentMedian = median.value();
+            double robustZ = 0;
+            double ewmaZ = 0;
+            if (count >= warmupSamples && count >= 5) {
+                double mad = deviation.value();
+                robustZ = MAD_TO_SIGMA * (value - currentMedian) / Math.max(mad, MIN_SCALE);
+                ewmaZ = (value - mean) / Math.max(Math.sqrt(variance), MIN_SCALE);
+            }
+            boolean anomalous = Math.abs(robustZ) >= robustThreshold && Math.abs(ewmaZ) >= ewmaThreshold;
+            if (state.worstMetric == null
+                || anomalous && !state.worstAnomalous
+                || anomalous == state.worstAnomalous && Math.abs(robustZ) > Math.abs(state.worstRobustZ)) {
+                state.worst(name, value, robustZ, ewmaZ, currentMedian, p99.value(), anomalous);
+            }
+
+            if (count == 0) {
+                mean = value;
+            } else {
+                double diff = value - mean;
+                double increment = alpha * diff;
+                mean += increment;
+                variance = (1 - alpha) * (variance + diff * increment);
+            }
+            median.add(value);
+            if (count >= 5) {
+                deviation.add(Math.abs(value - median.value()));
+            }
+            p99.add(value);
+            count++;
+        }
+    }
+
+    /**
+     * Per-thread buffers reused across events.
+     *
+     * <p>Importance: Listener threads score sequentially, so one buffer per thread is enough and
+     * reuse keeps the hot path free of per-event arrays.</p>
+     * <p>Alternatives: Allocate lists per event, but they are garbage after every message.</p>
+     */
+    private static final class Scratch {
+
+        private String[] names = new String[32];
+        private double[] values = new double[32];
+        private int size;
+        private String worstMetric;
+        private double worstValue;
+        private double worstRobustZ;
+        private double worstEwmaZ;
+        private double worstMedian;
+        private double worstP99;
+        private boolean worstAnomalous;
+
+        /**
+         * Clears the buffer for the next event.
+         *
+         * <p>Importance: Releases references to the previous event's field names.</p>
+         * <p>Alternatives: Allocate a new scratch, but reuse is the point.</p>
+         */
+        void reset() {
+            Arrays.fill(names, 0, size, null);
+            size = 0;
+            worstMetric = null;
+            worstAnomalous = false;
+        }
+
+        /**
+         * Appends a metric, growing the arrays when an event has many fields.
+         *
+         * <p>Importance: Growth happens once per thread, not per event.</p>
+         * <p>Alternatives: Cap the metric count, but that silently skips fields.</p>
+         */
+        void add(String name, double value) {
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            names[size] = name;
+            values[size] = value;
+            size++;
+        }
+
+        /**
+         * Records the metric currently considered the event's most unusual.
+         *
+         * <p>Importance: Only one result object is built per event, at the end. Anomalous
+         * metrics win over higher-scoring ones that missed a threshold.</p>
+         * <p>Alternatives: Build a result per metric, but most would be discarded.</p>
+         */
+        void worst(
+            String name,
+            double value,
+            double robustZ,
+            double ewmaZ,
+            double median,
+            double p99,
+            boolean anomalous
+        ) {
+            worstMetric = name;
+            worstValue = value;
+            worstRobustZ = robustZ;
+            worstEwmaZ = ewmaZ;
+            worstMedian = median;
+            worstP99 = p99;
+            worstAnomalous = anomalous;
+        }
+    }
+}
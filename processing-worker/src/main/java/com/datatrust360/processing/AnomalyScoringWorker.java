@@ -1,63 +1,273 @@
 package com.datatrust360.processing;
 
-import com.datatrust360.common.EventEnvelope;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.datatrust360.common.PipelineTiming;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Worker that processes anomaly scoring jobs from RabbitMQ.
  *
  * <p>Importance: Separates CPU-heavy scoring from ingestion to keep pipelines responsive.</p>
  * <p>Alternatives: Use synchronous scoring, but that would slow down ingestion throughput.</p>
+ *
+ * <p>The queue is consumed in batches through {@link RabbitConfig#SCORING_CONTAINER_FACTORY}.
+ * Scored messages are acknowledged together; a message that fails is rejected on its own and
+ * returns through the retry queue, or is moved to the parking queue once it has failed
+ * {@code processing.rabbit.retry.max-attempts} times. In
+ * {@code processing.pipeline.mode=in-process} the listener is not started and
+ * {@link InProcessScoringQueue} calls {@link #score(String, String, String, PipelineTrace)}
+ * directly.</p>
+ *
+ * <p>Both paths record the scoring stage and end-to-end latency per source path; the AMQP path
+ * also records the queue stage from the publisher's {@code dt360-enqueued-us} header.</p>
  */
 @Component
 public class AnomalyScoringWorker {
 
+    public static final String ERROR_HEADER = "dt360-error";
+
     private static final Logger logger = LoggerFactory.getLogger(AnomalyScoringWorker.class);
 
     private final OpenAiInsightService insightService;
-    private final ObjectMapper objectMapper;
+    private final AnomalyScoringEngine scoringEngine;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+    private final int maxAttempts;
+    private final long confirmTimeoutMs;
+    private final Counter rejectedCounter;
+    private final Counter parkedCounter;
+    private final PipelineTiming timing;
 
     /**
-     * Creates the scoring worker with insight generation dependency.
+     * Creates the scoring worker with scoring and insight generation dependencies.
      *
      * <p>Importance: Allows optional insight generation after scoring.</p>
      * <p>Alternatives: Trigger insights in a separate service, but this keeps MVP simpler.</p>
      */
-    public AnomalyScoringWorker(OpenAiInsightService insightService, ObjectMapper objectMapper) {
+    public AnomalyScoringWorker(
+        OpenAiInsightService insightService,
+        AnomalyScoringEngine scoringEngine,
+        MeterRegistry meterRegistry,
+        @Value("${processing.rabbit.retry.max-attempts:3}") int maxAttempts,
+        @Value("${processing.rabbit.publish.confirm-timeout-ms:10000}") long confirmTimeoutMs
+    ) {
         this.insightService = insightService;
-        this.objectMapper = objectMapper;
+        this.scoringEngine = scoringEngine;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.rejectedCounter = meterRegistry.counter("dt360.rabbit.scoring.failed", "action", "retry");
+        this.parkedCounter = meterRegistry.counter("dt360.rabbit.scoring.failed", "action", "parked");
+        this.timing = new PipelineTiming(meterRegistry);
     }
 
     /**
-     * Scores a payload from the anomaly queue and triggers optional insights.
+     * Scores a batch of messages from the anomaly queue and settles each message.
      *
-     * <p>Importance: Couples scoring with insight generation for analyst workflows.</p>
-     * <p>Alternatives: Trigger insights in a separate pipeline, but this keeps the MVP simpler.</p>
+     * <p>Importance: One listener call and one acknowledgement per batch instead of per
+     * message is where batch consumption saves its overhead, and a failing message is
+     * rejected alone instead of sending its whole batch around again.</p>
+     * <p>Alternatives: Throw and let the container reject the batch, but every healthy
+     * message in it would then be retried too.</p>
+     *
+     * <p>Bodies are decoded directly from the message bytes; the publisher always sends UTF-8.
+     * Failures are settled first and the highest scored delivery tag is then acknowledged with
+     * {@code multiple}, which covers every other scored message in the batch.</p>
      */
-    @RabbitListener(queues = RabbitConfig.ANOMALY_QUEUE)
-    public void score(String payload) {
-        // TODO: call ML/anomaly scoring service and persist results.
-        insightService.generateInsight(extractTenantId(payload), payload);
-        System.out.println("Scoring payload length=" + payload.length());
+    @RabbitListener(id = RabbitConfig.SCORING_LISTENER_ID, queues = RabbitConfig.ANOMALY_QUEUE,
+        containerFactory = RabbitConfig.SCORING_CONTAINER_FACTORY,
+        autoStartup = "#{'${processing.pipeline.mode:amqp}' == 'amqp'}")
+    public void scoreBatch(List<Message> messages, Channel channel) throws IOException {
+        long lastScored = -1;
+        for (Message message : messages) {
+            MessageProperties properties = message.getMessageProperties();
+            PipelineTrace trace = trace(properties);
+            try {
+                score(
+                    new String(message.getBody(), StandardCharsets.UTF_8),
+                    properties.getHeader(PartnerQueuePublisher.TENANT_ID_HEADER),
+                    properties.getHeader(PartnerQueuePublisher.SOURCE_HEADER),
+                    trace
+                );
+                lastScored = properties.getDeliveryTag();
+            } catch (RuntimeException ex) {
+                fail(message, channel, ex);
+            }
+        }
+        if (lastScored >= 0) {
+            channel.basicAck(lastScored, true);
+        }
+    }
+
+    /**
+     * Scores a payload and records its scoring stage and end-to-end latency.
+     *
+     * <p>Importance: Scoring is the last stage, so this is where the ingest stamp is closed out.</p>
+     * <p>Alternatives: Time the listener call, but that would lump a whole batch together.</p>
+     */
+    public void score(String payload, String tenantId, String source, PipelineTrace trace) {
+        long start = System.nanoTime();
+        try {
+            score(payload, tenantId, source);
+        } finally {
+            timing.recordStage(PipelineTiming.STAGE_SCORING, trace.path(), System.nanoTime() - start);
+            timing.recordEndToEnd(trace.path(), trace.ingestMicros());
+        }
+    }
+
+    /**
+     * Scores a payload from the anomaly queue and requests an insight when it is anomalous.
+     *
+     * <p>Importance: Only events that cross the scoring thresholds reach the LLM, which keeps
+     * insight cost and latency proportional to anomalies rather than traffic.</p>
+     * <p>Alternatives: Generate insights for every event, but most events are normal and
+     * each call is slow and billed.</p>
+     *
+     * <p>Tenant and source come from the publisher's AMQP headers; the engine reads them from
+     * the body only for messages that predate the headers.</p>
+     */
+    public void score(String payload, String tenantId, String source) {
+        AnomalyScore result = scoringEngine.score(tenantId, source, payload);
+        if (result.anomalous()) {
+            logger.info("Anomaly for tenant={} source={} metric={} value={} robustZ={} ewmaZ={}",
+                result.tenantId(), result.source(), result.metric(), result.value(), result.robustZ(), result.ewmaZ());
+            insightService.generateInsight(result.tenantId(), payload);
+        } else {
+            logger.debug("Scored tenant={} metric={} robustZ={}", result.tenantId(), result.metric(), result.robustZ());
+        }
+    }
+
+    /**
+     * Reads the timing headers of a scoring message and records its queue stage.
+     *
+     * <p>Importance: The queue stage covers the RabbitMQ hop, from publish to consumption.</p>
+     * <p>Alternatives: The broker's timestamp property, but RabbitMQ does not set it.</p>
+     *
+     * <p>Messages back from the retry queue are not recorded, since their wait includes the
+     * retry delay rather than queueing.</p>
+     */
+    private PipelineTrace trace(MessageProperties properties) {
+        Object path = properties.getHeader(PipelineTiming.PATH_HEADER);
+        PipelineTrace trace = new PipelineTrace(PipelineTiming.knownPath(path == null ? null : path.toString()),
+            micros(properties.getHeader(PipelineTiming.INGEST_HEADER)));
+        if (properties.getXDeathHeader() == null && properties.getHeader("x-death") == null) {
+            timing.recordSince(PipelineTiming.STAGE_QUEUE, trace.path(),
+                micros(properties.getHeader(PipelineTiming.ENQUEUED_HEADER)));
+        }
+        return trace;
+    }
+
+    /**
+     * Reads a numeric timestamp header, returning 0 when absent.
+     *
+     * <p>Importance: AMQP may decode small numbers as integers, so any number is accepted.</p>
+     * <p>Alternatives: Cast to {@code Long}, which fails on other numeric types.</p>
+     */
+    private static long micros(Object header) {
+        return header instanceof Number number ? number.longValue() : 0;
+    }
+
+    /**
+     * Rejects a failed message for a delayed retry, or parks it once retries are exhausted.
+     *
+     * <p>Importance: Rejection hands the delay to the broker's retry queue, so the consumer
+     * thread moves straight on to the next message.</p>
+     * <p>Alternatives: Requeue immediately, but a poison message would then spin at the head
+     * of the queue.</p>
+     *
+     * <p>Attempts are counted from the broker's {@code x-death} entries for this queue, which
+     * the converter exposes separately or, on older clients, in the headers map. A parked copy
+     * is published with a publisher confirm, and the original is acked only once the broker
+     * confirmed it; a nack or timeout rejects the original into the retry queue instead, so it
+     * comes back and is parked again rather than lost.</p>
+     */
+    private void fail(Message message, Channel channel, RuntimeException error) throws IOException {
+        MessageProperties properties = message.getMessageProperties();
+        long attempts = rejections(properties) + 1;
+        if (attempts < maxAttempts) {
+            logger.warn("Scoring failed on attempt {}, retrying later", attempts, error);
+            rejectedCounter.increment();
+            channel.basicReject(properties.getDeliveryTag(), false);
+            return;
+        }
+        logger.error("Scoring failed {} times, parking message", attempts, error);
+        parkedCounter.increment();
+        properties.setHeader(ERROR_HEADER, error.getClass().getSimpleName() + ": " + error.getMessage());
+        channel.confirmSelect();
+        channel.basicPublish("", RabbitConfig.ANOMALY_PARKING_QUEUE,
+            propertiesConverter.fromMessageProperties(properties, StandardCharsets.UTF_8.name()), message.getBody());
+        if (parkingConfirmed(channel)) {
+            channel.basicAck(properties.getDeliveryTag(), false);
+        } else {
+            logger.warn("Parking publish was not confirmed, returning the message to the retry queue");
+            channel.basicReject(properties.getDeliveryTag(), false);
+        }
     }
 
     /**
-     * Extracts tenant ID from a JSON payload if possible.
+     * Waits for the broker to confirm the parking publish on the listener channel.
      *
-     * <p>Importance: Ensures insights are associated with the correct tenant for audit logs.</p>
-     * <p>Alternatives: Use a fixed tenant, but that would break multi-tenant attribution.</p>
+     * <p>Importance: Acking the original before the parked copy is confirmed can lose the
+     * message if the broker drops the publish.</p>
+     * <p>Alternatives: {@code waitForConfirmsOrDie}, but closing the channel would also
+     * redeliver every scored message of the batch that is not acked yet.</p>
      */
-    private String extractTenantId(String payload) {
+    private boolean parkingConfirmed(Channel channel) {
         try {
-            EventEnvelope envelope = objectMapper.readValue(payload, EventEnvelope.class);
-            return envelope.getTenantId();
-        } catch (Exception ex) {
-            logger.warn("Unable to parse tenantId from payload, defaulting to unknown", ex);
-            return "unknown";
+            return channel.waitForConfirms(confirmTimeoutMs);
+        } catch (TimeoutException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
+
+    /**
+     * Returns how often the broker has dead-lettered this message from the scoring queue.
+     *
+     * <p>Importance: The count survives redelivery, so attempts need no external state.</p>
+     * <p>Alternatives: An attempt header set by the worker, but rejected messages cannot be
+     * modified before they are dead-lettered.</p>
+     */
+    static long rejections(MessageProperties properties) {
+        List<Map<String, ?>> deaths = properties.getXDeathHeader();
+        if (deaths == null) {
+            deaths = properties.getHeader("x-death");
+        }
+        if (deaths == null) {
+            return 0;
+        }
+        for (Map<String, ?> death : deaths) {
+            if (RabbitConfig.ANOMALY_QUEUE.equals(death.get("queue")) && "rejected".equals(death.get("reason"))
+                && death.get("count") instanceof Number count) {
+                return count.longValue();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Scores a payload that carries no metadata headers.
+     *
+     * <p>Importance: Keeps callers without AMQP properties, such as tests and replays, working.</p>
+     * <p>Alternatives: Require headers, but messages queued before the upgrade have none.</p>
+     */
+    public void score(String payload) {
+        score(payload, null, null);
+    }
 }
@@ -0,0 +1,110 @@
+package com.datatrust360.processing;
+
+/**
+ * Consecutive-failure circuit breaker with a single half-open trial.
+ *
+ * <p>Importance: Stops calling an upstream that keeps failing, so its timeouts do not tie up
+ * every permit and thread while it is down.</p>
+ * <p>Alternatives: Resilience4j, but one breaker around one HTTP call does not justify a new
+ * dependency and its configuration surface.</p>
+ *
+ * <p>After {@code failureThreshold} consecutive failures the breaker opens for
+ * {@code openMs}; the first request after that is a trial whose outcome closes or reopens it.</p>
+ */
+final class CircuitBreaker {
+
+    /**
+     * Breaker states.
+     *
+     * <p>Importance: Exposed as a gauge so dashboards show when insights are short-circuited.</p>
+     * <p>Alternatives: A boolean, but half-open is a distinct, observable state.</p>
+     */
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * Creates a closed breaker.
+     *
+     * <p>Importance: Thresholds are per upstream, so they are constructor arguments.</p>
+     * <p>Alternatives: Global settings, but other upstreams may need different limits.</p>
+     */
+    CircuitBreaker(int failureThreshold, long openMs) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openMs * 1_000_000L;
+    }
+
+    /**
+     * Returns whether a call may proceed now.
+     *
+     * <p>Importance: Open breakers reject without touching the network.</p>
+     * <p>Alternatives: Let calls through and fail fast on timeout, but that still costs a thread.</p>
+     */
+    synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Records a successful call and closes the breaker.
+     *
+     * <p>Importance: One success after a trial restores full traffic.</p>
+     * <p>Alternatives: Require several successes, but insight calls are too sparse for that.</p>
+     */
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * Records a failed call and opens the breaker when the threshold is reached.
+     *
+     * <p>Importance: A failed trial reopens immediately for another full interval.</p>
+     * <p>Alternatives: Failure-rate windows, but consecutive failures are simpler to reason about.</p>
+     */
+    synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * Hands back a granted request that was never sent.
+     *
+     * <p>Importance: A half-open trial dropped before reaching the upstream would otherwise
+     * leave the breaker waiting forever for an outcome.</p>
+     * <p>Alternatives: Count the skip as a failure, but the upstream was never called.</p>
+     */
+    synchronized void onSkipped() {
+        trialInFlight = false;
+    }
+
+    /**
+     * Returns the current state.
+     *
+     * <p>Importance: Backs the breaker gauge.</p>
+     * <p>Alternatives: Expose counters only, but state is what on-call needs first.</p>
+     */
+    synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,79 @@
+package com.datatrust360.processing;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Operator endpoints for replaying dead-lettered events.
+ *
+ * <p>Importance: Turns recovery after a fix into one request instead of broker surgery.</p>
+ * <p>Alternatives: A CLI tool, but the worker already holds the broker connections.</p>
+ *
+ * <p>The worker is not exposed publicly; these endpoints are reached through the cluster
+ * network only, like the actuator endpoints.</p>
+ */
+@RestController
+@RequestMapping("/api/v1/admin/dead-letters")
+public class DeadLetterController {
+
+    private final DeadLetterReplayer replayer;
+
+    /**
+     * Creates the controller with the replayer that runs the jobs.
+     *
+     * <p>Importance: Keeps the HTTP layer free of broker code.</p>
+     * <p>Alternatives: Replay inline in the controller, but jobs outlive the request.</p>
+     */
+    public DeadLetterController(DeadLetterReplayer replayer) {
+        this.replayer = replayer;
+    }
+
+    /**
+     * Replays events from the Kafka dead-letter topic to their original topics.
+     *
+     * <p>Importance: Reprocesses ingest events that exhausted their retry tiers.</p>
+     * <p>Alternatives: Reset the ingest group's offsets, but that would replay healthy events too.</p>
+     */
+    @PostMapping("/kafka/replay")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public DeadLetterReplayer.ReplayStatus replayKafka(
+        @RequestParam(defaultValue = "1000") int max,
+        @RequestParam(defaultValue = "100") int ratePerSecond
+    ) {
+        return replayer.replayKafka(max, ratePerSecond);
+    }
+
+    /**
+     * Replays messages from the RabbitMQ parking queue to the scoring queue.
+     *
+     * <p>Importance: Reprocesses scoring messages that exhausted their broker retries.</p>
+     * <p>Alternatives: Purge the parking queue, but those events would never be scored.</p>
+     */
+    @PostMapping("/rabbit/replay")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public DeadLetterReplayer.ReplayStatus replayRabbit(
+        @RequestParam(defaultValue = "1000") int max,
+        @RequestParam(defaultValue = "100") int ratePerSecond
+    ) {
+        return replayer.replayRabbit(max, ratePerSecond);
+    }
+
+    /**
+     * Returns the progress of a replay job.
+     *
+     * <p>Importance: Lets operators confirm a replay finished before closing an incident.</p>
+     * <p>Alternatives: Watch the topic lag, but it does not show failures.</p>
+     */
+    @GetMapping("/replays/{id}")
+    public DeadLetterReplayer.ReplayStatus replay(@PathVariable String id) {
+        return replayer.status(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown replay " + id));
+    }
+}
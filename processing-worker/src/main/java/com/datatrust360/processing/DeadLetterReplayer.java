@@ -0,0 +1,366 @@
+package com.datatrust360.processing;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays dead-lettered events back into the pipeline at a bounded rate.
+ *
+ * <p>Importance: Once the cause of a failure is fixed, parked events can be reprocessed
+ * without hand-crafted scripts or a burst that overwhelms storage again.</p>
+ * <p>Alternatives: Move messages with broker tooling, but that cannot strip the retry
+ * headers or pace the replay.</p>
+ *
+ * <p>Kafka replays read {@code dt360.events.dlt} up to its end offsets at job start, tracking
+ * their position in a dedicated consumer group's committed offsets. They republish each
+ * event to its original topic, and commit the DLT offsets only after the sends complete.
+ * RabbitMQ replays move messages from the parking queue back to the scoring queue with
+ * {@code x-death} removed, so they get a fresh set of attempts, and ack each parked message
+ * only after the broker confirmed its republish. Jobs run one at a time, and only the most
+ * recent {@code retained-jobs} finished jobs stay queryable.</p>
+ */
+@Component
+public class DeadLetterReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayer.class);
+    private static final String REPLAY_GROUP = "processing-worker-dlt-replay";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+    /**
+     * State of one replay job.
+     *
+     * <p>Importance: Lets operators poll a long replay instead of holding an HTTP request open.</p>
+     * <p>Alternatives: Stream progress over the response, but proxies time out long requests.</p>
+     */
+    public record ReplayStatus(String id, String source, int requested, int replayed, String state, String error) {
+
+        /**
+         * Returns a copy with a new progress count and state.
+         *
+         * <p>Importance: Records are immutable, so progress is published by replacing the entry.</p>
+         * <p>Alternatives: Mutable counters, but readers could then see half-updated jobs.</p>
+         */
+        ReplayStatus with(int replayed, String state, String error) {
+            return new ReplayStatus(id, source, requested, replayed, state, error);
+        }
+    }
+
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxRatePerSecond;
+    private final long confirmTimeoutMs;
+    private final int retainedJobs;
+    private final Map<String, ReplayStatus> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> finished = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor;
+
+    /**
+     * Creates the replayer with the Kafka and RabbitMQ clients it moves events with.
+     *
+     * <p>Importance: Reuses Boot's configured factories so replays use the same brokers and
+     * serializers as normal traffic.</p>
+     * <p>Alternatives: A separate replay tool, but it would duplicate the connection settings.</p>
+     */
+    public DeadLetterReplayer(
+        ConsumerFactory<String, String> consumerFactory,
+        KafkaTemplate<String, String> kafkaTemplate,
+        RabbitTemplate rabbitTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${processing.dead-letter.replay.max-rate:500}") int maxRatePerSecond,
+        @Value("${processing.dead-letter.replay.confirm-timeout-ms:10000}") long confirmTimeoutMs,
+        @Value("${processing.dead-letter.replay.retained-jobs:100}") int retainedJobs
+    ) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxRatePerSecond = Math.max(1, maxRatePerSecond);
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.retainedJobs = Math.max(1, retainedJobs);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dead-letter-replay-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts replaying up to {@code max} events from the Kafka dead-letter topic.
+     *
+     * <p>Importance: Returns immediately with a job ID; the replay runs in the background.</p>
+     * <p>Alternatives: Replay synchronously, but large topics would exceed request timeouts.</p>
+     */
+    public ReplayStatus replayKafka(int max, int ratePerSecond) {
+        return submit("kafka", max, ratePerSecond, this::drainKafka);
+    }
+
+    /**
+     * Starts replaying up to {@code max} messages from the RabbitMQ parking queue.
+     *
+     * <p>Importance: Same job model as the Kafka replay, so operators use one workflow.</p>
+     * <p>Alternatives: The management UI's shovel, but it keeps the {@code x-death} history
+     * and would park the messages again on their first failure.</p>
+     */
+    public ReplayStatus replayRabbit(int max, int ratePerSecond) {
+        return submit("rabbit", max, ratePerSecond, this::drainRabbit);
+    }
+
+    /**
+     * Returns the current state of a replay job.
+     *
+     * <p>Importance: Backs the status endpoint.</p>
+     * <p>Alternatives: Only log progress, but operators would then need log access.</p>
+     */
+    public Optional<ReplayStatus> status(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * A replay loop that reports its progress through the job map.
+     *
+     * <p>Importance: Lets both sources share the submission and error handling.</p>
+     * <p>Alternatives: Duplicate the job bookkeeping per source.</p>
+     */
+    @FunctionalInterface
+    private interface Drain {
+
+        /**
+         * Replays up to {@code max} events, pacing sends by {@code intervalNanos}.
+         *
+         * <p>Importance: Returns the count so the job records how far it got.</p>
+         * <p>Alternatives: Report through a callback, but the count is all the caller needs.</p>
+         */
+        int drain(String id, int max, long intervalNanos) throws Exception;
+    }
+
+    /**
+     * Registers a job and runs it on the replay thread.
+     *
+     * <p>Importance: One replay thread keeps concurrent replays from multiplying the rate.</p>
+     * <p>Alternatives: A thread per job, but two jobs would then double the load on storage.</p>
+     */
+    private ReplayStatus submit(String source, int max, int ratePerSecond, Drain drain) {
+        String id = UUID.randomUUID().toString();
+        int rate = Math.max(1, Math.min(ratePerSecond, maxRatePerSecond));
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        ReplayStatus status = new ReplayStatus(id, source, max, 0, "QUEUED", null);
+        jobs.put(id, status);
+        executor.execute(() -> {
+            jobs.computeIfPresent(id, (key, current) -> current.with(0, "RUNNING", null));
+            try {
+                int replayed = drain.drain(id, max, intervalNanos);
+                jobs.computeIfPresent(id, (key, current) -> current.with(replayed, "COMPLETED", null));
+                logger.info("Replayed {} dead-lettered events from {}", replayed, source);
+            } catch (Exception ex) {
+                logger.error("Dead-letter replay {} from {} failed", id, source, ex);
+                jobs.computeIfPresent(id, (key, current) -> current.with(current.replayed(), "FAILED", ex.getMessage()));
+            } finally {
+                retire(id);
+            }
+        });
+        return status;
+    }
+
+    /**
+     * Marks a job finished and forgets the oldest finished jobs beyond the retained count.
+     *
+     * <p>Importance: Every request adds a job, so without pruning the map grows for the life
+     * of the pod.</p>
+     * <p>Alternatives: Expire jobs by age, but a count bound needs no clock and still leaves
+     * operators the recent history they poll.</p>
+     */
+    private void retire(String id) {
+        finished.add(id);
+        while (finished.size() > retainedJobs) {
+            String oldest = finished.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * Republishes DLT records to their original topics and commits the DLT offsets.
+     *
+     * <p>Importance: Offsets are committed per poll after every send in it completed, so a
+     * crash mid-replay republishes at most one poll twice and never skips an event. Records keep
+     * their event id header, so a twice-replayed event still upserts a single document.</p>
+     * <p>Alternatives: Auto-commit, but it could commit records whose sends then failed.</p>
+     *
+     * <p>The DLT partitions are assigned directly and positioned at the replay group's committed
+     * offsets, so there is no group join to wait out. The job stops at the end offsets taken
+     * when it started rather than at the first empty poll, which also keeps events that fail
+     * again during the replay from being replayed twice by the same job.</p>
+     */
+    private int drainKafka(String id, int max, long intervalNanos) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Integer.toString(Math.min(max, 500)));
+        int replayed = 0;
+        try (Consumer<String, String> consumer = consumerFactory.createConsumer(REPLAY_GROUP, "replay", null, overrides)) {
+            List<TopicPartition> partitions = consumer.partitionsFor(KafkaRetryConfig.DLT_TOPIC).stream()
+                .map(info -> new TopicPartition(info.topic(), info.partition()))
+                .toList();
+            consumer.assign(partitions);
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.copyOf(partitions));
+            for (TopicPartition partition : partitions) {
+                OffsetAndMetadata offset = committed.get(partition);
+                if (offset == null) {
+                    consumer.seekToBeginning(List.of(partition));
+                } else {
+                    consumer.seek(partition, offset.offset());
+                }
+            }
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            while (replayed < max && !reachedEnd(consumer, endOffsets)) {
+                ConsumerRecords<String, String> records = consumer.poll(POLL_TIMEOUT);
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<String, String> record : records) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (replayed >= max || record.offset() >= endOffsets.getOrDefault(partition, 0L)) {
+                        continue;
+                    }
+                    String topic = KafkaRetryRouter.header(record.headers(), KafkaRetryConfig.ORIGINAL_TOPIC_HEADER,
+                        KafkaRetryConfig.RAW_TOPIC);
+                    pace(intervalNanos);
+                    ProducerRecord<String, String> replay = new ProducerRecord<>(topic, record.key(), record.value());
+                    Header eventId = record.headers().lastHeader(KafkaRetryConfig.EVENT_ID_HEADER);
+                    if (eventId != null) {
+                        replay.headers().add(eventId);
+                    }
+                    kafkaTemplate.send(replay).join();
+                    offsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                    progress(id, replayed);
+                }
+                if (!offsets.isEmpty()) {
+                    consumer.commitSync(offsets);
+                }
+            }
+        }
+        meterRegistry.counter("dt360.dead_letter.replayed", "source", "kafka").increment(replayed);
+        return replayed;
+    }
+
+    /**
+     * Returns whether every DLT partition has been read up to its end offset from job start.
+     *
+     * <p>Importance: This, not an empty poll, is what ends a Kafka replay.</p>
+     * <p>Alternatives: Stop on an empty poll, but a slow fetch would then end the job early.</p>
+     */
+    private static boolean reachedEnd(Consumer<String, String> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves parked messages back to the scoring queue one at a time.
+     *
+     * <p>Importance: Each message is acknowledged on the parking queue only after the broker
+     * confirmed its republish on the same channel, so a failure leaves it parked rather than
+     * lost. A nack or timeout closes the channel, which returns the unacked message to the
+     * parking queue and fails the job.</p>
+     * <p>Alternatives: A listener on the parking queue, but replay must be operator-triggered.</p>
+     */
+    private int drainRabbit(String id, int max, long intervalNanos) {
+        Integer moved = rabbitTemplate.execute(channel -> {
+            channel.confirmSelect();
+            int replayed = 0;
+            while (replayed < max) {
+                GetResponse response = channel.basicGet(RabbitConfig.ANOMALY_PARKING_QUEUE, false);
+                if (response == null) {
+                    break;
+                }
+                AMQP.BasicProperties properties = response.getProps();
+                Map<String, Object> headers = properties.getHeaders() == null
+                    ? new HashMap<>() : new HashMap<>(properties.getHeaders());
+                headers.remove("x-death");
+                headers.remove(AnomalyScoringWorker.ERROR_HEADER);
+                pace(intervalNanos);
+                channel.basicPublish("", RabbitConfig.ANOMALY_QUEUE,
+                    properties.builder().headers(headers).build(), response.getBody());
+                channel.waitForConfirmsOrDie(confirmTimeoutMs);
+                channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                replayed++;
+                progress(id, replayed);
+            }
+            return replayed;
+        });
+        int replayed = moved == null ? 0 : moved;
+        meterRegistry.counter("dt360.dead_letter.replayed", "source", "rabbit").increment(replayed);
+        return replayed;
+    }
+
+    /**
+     * Waits for the next send slot.
+     *
+     * <p>Importance: A fixed interval caps the replay rate without a token bucket.</p>
+     * <p>Alternatives: Sleep with {@code Thread.sleep}, which needs interrupt handling here
+     * for no benefit on a dedicated thread.</p>
+     */
+    private static void pace(long intervalNanos) {
+        LockSupport.parkNanos(intervalNanos);
+    }
+
+    /**
+     * Publishes the running count of a job.
+     *
+     * <p>Importance: Status polls see progress while the job runs.</p>
+     * <p>Alternatives: Update only at the end, but long replays would look stuck.</p>
+     */
+    private void progress(String id, int replayed) {
+        jobs.computeIfPresent(id, (key, current) -> current.with(replayed, current.state(), null));
+    }
+
+    /**
+     * Stops the replay thread on shutdown.
+     *
+     * <p>Importance: Uncommitted DLT records are simply replayed by the next job.</p>
+     * <p>Alternatives: Wait for the job, but a large replay would block shutdown.</p>
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
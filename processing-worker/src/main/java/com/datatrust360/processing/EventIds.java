@@ -0,0 +1,67 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.EventEnvelope;
+
+/**
+ * Deterministic event ids derived from where an event was read.
+ *
+ * <p>Importance: Storage upserts on these ids, so a redelivered Kafka batch, a consumer
+ * rebalance, or a Kinesis replay rewrites the same documents instead of adding duplicates.</p>
+ * <p>Alternatives: Deduplicate in a cache of recently seen events, but a cache forgets across
+ * restarts, which is exactly when replays happen.</p>
+ *
+ * <p>A client-supplied id wins over the source position, because a client that resends an
+ * event produces a second record at a new position. Client ids are scoped by tenant so two
+ * tenants cannot overwrite each other's events.</p>
+ */
+final class EventIds {
+
+    /**
+     * Prevents instantiation of this utility class.
+     *
+     * <p>Importance: The class only groups id formats.</p>
+     * <p>Alternatives: Instance methods, but there is no state to hold.</p>
+     */
+    private EventIds() {
+    }
+
+    /**
+     * Returns the id for a Kafka record: its topic, partition, and offset.
+     *
+     * <p>Importance: The triple is unique and stable for as long as the record exists.</p>
+     * <p>Alternatives: The record key, but keys are optional and not unique.</p>
+     */
+    static String kafka(String topic, int partition, long offset) {
+        return "kafka:" + topic + ':' + partition + ':' + offset;
+    }
+
+    /**
+     * Returns the id for an event in a Kinesis record: shard, sequence number, and its index
+     * within an aggregated record.
+     *
+     * <p>Importance: Aggregated events share one sequence number, so the index tells them apart.</p>
+     * <p>Alternatives: The sequence number alone, but then aggregated siblings would overwrite
+     * each other.</p>
+     */
+    static String kinesis(String shardId, String sequenceNumber, int subIndex) {
+        return "kinesis:" + shardId + ':' + sequenceNumber + ':' + subIndex;
+    }
+
+    /**
+     * Assigns the envelope's storage id: its client-supplied id scoped by tenant, otherwise
+     * the given source position id.
+     *
+     * <p>Importance: One precedence rule for every consumer.</p>
+     * <p>Alternatives: Resolve in storage, but storage does not know where events were read.</p>
+     *
+     * @param positionId source position id, or null to leave position-less events to storage
+     */
+    static void assign(EventEnvelope envelope, String positionId) {
+        String clientId = envelope.getEventId();
+        if (clientId != null && !clientId.isBlank()) {
+            envelope.setEventId("client:" + envelope.getTenantId() + ':' + clientId);
+        } else {
+            envelope.setEventId(positionId);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.PipelineTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Scores events in this process, handing them from ingest threads to scoring threads through
+ * a bounded ring buffer.
+ *
+ * <p>Importance: Single-pod edge deployments skip message serialization, broker I/O, and the
+ * network hop to RabbitMQ, while scoring still runs off the ingest threads.</p>
+ * <p>Alternatives: Call the scorer inline from the ingest listeners, but then scoring time
+ * adds directly to Kafka poll time and consumers cannot batch.</p>
+ *
+ * <p>Selected with {@code processing.pipeline.mode=in-process}. Producers wait while the
+ * buffer is full and fail after {@code offer-timeout-ms}, which makes Kafka batches redeliver
+ * after a backoff. A Kafka batch's future completes only once every event in it has been
+ * scored, so its offsets are never committed ahead of scoring. Single events from the Kinesis
+ * poller are fire-and-forget, as they are in the AMQP mode.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "processing.pipeline.mode", havingValue = "in-process")
+public class InProcessScoringQueue implements ScoringQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(InProcessScoringQueue.class);
+    private static final int SPIN_LIMIT = 100;
+    private static final int YIELD_LIMIT = 200;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long IDLE_WAIT_MS = 100;
+
+    private final RingBuffer<ScoringEvent> buffer;
+    private final AnomalyScoringWorker worker;
+    private final int batchSize;
+    private final long offerTimeoutNanos;
+    private final ExecutorService consumers;
+    private final Counter scoredCounter;
+    private final Counter rejectedCounter;
+    private final PipelineTiming timing;
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition notEmpty = idleLock.newCondition();
+    private final AtomicInteger sleepers = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /**
+     * Creates the buffer and starts the scoring threads.
+     *
+     * <p>Importance: Scoring starts with the context, like the RabbitMQ listener it replaces.</p>
+     * <p>Alternatives: Start on first event, but the first batch would then pay thread start-up.</p>
+     */
+    public InProcessScoringQueue(
+        AnomalyScoringWorker worker,
+        MeterRegistry meterRegistry,
+        @Value("${processing.pipeline.in-process.capacity:65536}") int capacity,
+        @Value("${processing.pipeline.in-process.batch-size:256}") int batchSize,
+        @Value("${processing.pipeline.in-process.consumers:2}") int consumerCount,
+        @Value("${processing.pipeline.in-process.offer-timeout-ms:5000}") long offerTimeoutMs
+    ) {
+        this.buffer = new RingBuffer<>(capacity);
+        this.worker = worker;
+        this.batchSize = Math.max(1, batchSize);
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+        this.scoredCounter = meterRegistry.counter("dt360.pipeline.in_process.events", "result", "scored");
+        this.rejectedCounter = meterRegistry.counter("dt360.pipeline.in_process.events", "result", "rejected");
+        meterRegistry.gauge("dt360.pipeline.in_process.buffered", buffer, RingBuffer::size);
+        this.timing = new PipelineTiming(meterRegistry);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.consumers = Executors.newFixedThreadPool(Math.max(1, consumerCount), task -> {
+            Thread thread = new Thread(task, "scoring-ring-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < Math.max(1, consumerCount); i++) {
+            consumers.execute(this::consume);
+        }
+    }
+
+    /**
+     * Hands one event to the scoring threads, waiting while the buffer is full.
+     *
+     * <p>Importance: Waiting slows the Kinesis shard loop to scoring speed instead of
+     * dropping events.</p>
+     * <p>Alternatives: Drop when full, but then a burst loses exactly the events worth scoring.</p>
+     *
+     * @throws IllegalStateException if the buffer stays full for the offer timeout
+     */
+    @Override
+    public void enqueue(EventEnvelope envelope, String payload, PipelineTrace trace) {
+        put(new ScoringEvent(payload, envelope.getTenantId(), envelope.getSource(), trace, System.nanoTime(), null));
+    }
+
+    /**
+     * Hands a batch to the scoring threads, waiting while the buffer is full.
+     *
+     * <p>Importance: The returned future completes only after the scoring threads have
+     * processed every event of the batch, so a crash before then redelivers it from Kafka
+     * instead of losing what was still buffered.</p>
+     * <p>Alternatives: Complete once buffered, which overlaps the next poll with scoring, but
+     * then a pod restart silently drops up to a full buffer of committed events.</p>
+     */
+    @Override
+    public CompletableFuture<Void> enqueueAll(
+        List<EventEnvelope> envelopes, List<String> payloads, List<PipelineTrace> traces
+    ) {
+        if (envelopes.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        BatchCompletion completion = new BatchCompletion(envelopes.size());
+        try {
+            for (int i = 0; i < envelopes.size(); i++) {
+                EventEnvelope envelope = envelopes.get(i);
+                put(new ScoringEvent(payloads.get(i), envelope.getTenantId(), envelope.getSource(),
+                    traces.get(i), System.nanoTime(), completion));
+            }
+        } catch (IllegalStateException ex) {
+            completion.future().completeExceptionally(ex);
+        }
+        return completion.future();
+    }
+
+    /**
+     * Stops the scoring threads after they drain the buffer.
+     *
+     * <p>Importance: Events already accepted are scored before the pod exits when possible.</p>
+     * <p>Alternatives: Stop immediately, but then every deploy drops the buffered events.</p>
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        wakeConsumers();
+        consumers.shutdown();
+        try {
+            if (!consumers.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Stopped in-process scoring with {} events still buffered", buffer.size());
+                consumers.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            consumers.shutdownNow();
+        }
+    }
+
+    /**
+     * Offers an event, backing off while the buffer is full.
+     *
+     * <p>Importance: This wait is the backpressure that keeps ingest at scoring speed.</p>
+     * <p>Alternatives: A condition variable, but signalling it would add a lock to every poll.</p>
+     */
+    private void put(ScoringEvent event) {
+        if (!buffer.offer(event)) {
+            long deadline = System.nanoTime() + offerTimeoutNanos;
+            int attempts = 0;
+            while (!buffer.offer(event)) {
+                if (!running || System.nanoTime() - deadline > 0) {
+                    rejectedCounter.increment();
+                    throw new IllegalStateException("In-process scoring buffer full for "
+                        + TimeUnit.NANOSECONDS.toMillis(offerTimeoutNanos) + " ms");
+                }
+                idle(++attempts);
+            }
+        }
+        if (sleepers.get() > 0) {
+            wakeConsumers();
+        }
+    }
+
+    /**
+     * Signals scoring threads blocked on an empty buffer.
+     *
+     * <p>Importance: Producers take the lock only when a consumer is actually asleep, so a
+     * busy pipeline never touches it.</p>
+     * <p>Alternatives: Signal on every offer, but that puts a lock on the hot path.</p>
+     */
+    private void wakeConsumers() {
+        idleLock.lock();
+        try {
+            notEmpty.signalAll();
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    /**
+     * Scoring thread loop: drains a batch, scores it, and idles when the buffer is empty.
+     *
+     * <p>Importance: Runs the same {@link AnomalyScoringWorker#score(String, String, String, PipelineTrace)}
+     * the RabbitMQ listener calls, so both modes produce identical results.</p>
+     * <p>Alternatives: A separate in-process scorer, but the two paths would drift.</p>
+     */
+    private void consume() {
+        List<ScoringEvent> batch = new ArrayList<>(batchSize);
+        int idleRounds = 0;
+        while (running || buffer.size() > 0) {
+            if (buffer.drainTo(batch, batchSize) == 0) {
+                if (++idleRounds < YIELD_LIMIT) {
+                    idle(idleRounds);
+                } else {
+                    awaitEvents();
+                }
+                continue;
+            }
+            idleRounds = 0;
+            long now = System.nanoTime();
+            for (ScoringEvent event : batch) {
+                timing.recordStage(PipelineTiming.STAGE_QUEUE, event.trace().path(), now - event.enqueuedNanos());
+            }
+            for (ScoringEvent event : batch) {
+                try {
+                    worker.score(event.payload(), event.tenantId(), event.source(), event.trace());
+                } catch (RuntimeException ex) {
+                    logger.warn("Failed to score in-process event for tenant {}", event.tenantId(), ex);
+                }
+                if (event.completion() != null) {
+                    event.completion().processed();
+                }
+            }
+            scoredCounter.increment(batch.size());
+            batch.clear();
+        }
+    }
+
+    /**
+     * Blocks an idle scoring thread until a producer signals or the wait times out.
+     *
+     * <p>Importance: An idle pod's scoring threads sleep instead of waking every millisecond.
+     * Registering as a sleeper before re-checking the buffer means a producer that offers in
+     * between either sees the sleeper and signals, or its event is seen by the re-check.</p>
+     * <p>Alternatives: Longer exponential park, but that trades idle CPU for wake-up latency
+     * on the first event after a quiet period.</p>
+     */
+    private void awaitEvents() {
+        idleLock.lock();
+        try {
+            sleepers.incrementAndGet();
+            try {
+                if (running && buffer.size() == 0) {
+                    notEmpty.await(IDLE_WAIT_MS, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                sleepers.decrementAndGet();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    /**
+     * Waits progressively longer the more consecutive full rounds, or empty rounds before
+     * blocking, there have been.
+     *
+     * <p>Importance: Spinning keeps hand-off latency in microseconds under load, and parking
+     * keeps a producer facing a full buffer off the CPU.</p>
+     * <p>Alternatives: Always park, but each wake-up then costs tens of microseconds.</p>
+     */
+    private static void idle(int rounds) {
+        if (rounds < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else if (rounds < YIELD_LIMIT) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1_000L * (rounds - YIELD_LIMIT + 1)));
+        }
+    }
+
+    /**
+     * Event waiting in the buffer.
+     *
+     * <p>Importance: Carries the same tenant, source, and timing the AMQP headers would; the
+     * queue stage is measured with {@link System#nanoTime()} since both ends are in this process.</p>
+     * <p>Alternatives: Buffer the envelope, but scoring only needs these fields.</p>
+     *
+     * @param completion the batch this event belongs to, or {@code null} for single events
+     */
+    record ScoringEvent(
+        String payload, String tenantId, String source, PipelineTrace trace, long enqueuedNanos,
+        BatchCompletion completion
+    ) {
+    }
+
+    /**
+     * Counts down a batch's events as scoring threads finish them.
+     *
+     * <p>Importance: Lets the Kafka listener commit only once its whole batch is scored, even
+     * when several scoring threads share it.</p>
+     * <p>Alternatives: One future per event combined with allOf, but that allocates a future
+     * for every event on the hot path.</p>
+     */
+    static final class BatchCompletion {
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        /**
+         * Creates the completion for a batch of the given size.
+         *
+         * <p>Importance: The size is known before the first event is buffered.</p>
+         * <p>Alternatives: Grow the count per put, but a consumer could then finish early.</p>
+         */
+        BatchCompletion(int size) {
+            this.remaining = new AtomicInteger(size);
+        }
+
+        /**
+         * Records one processed event and completes the future after the last.
+         *
+         * <p>Importance: Failed scores count as processed; the scoring thread has already
+         * logged them, and this mode has no parking queue to move them to.</p>
+         * <p>Alternatives: Fail the batch on a scoring error, but redelivering the whole batch
+         * would fail on the same event again.</p>
+         */
+        void processed() {
+            if (remaining.decrementAndGet() == 0) {
+                future.complete(null);
+            }
+        }
+
+        /**
+         * Returns the future the Kafka listener waits on.
+         *
+         * <p>Importance: Already failed when the batch could not be fully buffered.</p>
+         * <p>Alternatives: Throw from enqueueAll, but the interface reports through the future.</p>
+         */
+        CompletableFuture<Void> future() {
+            return future;
+        }
+    }
+}
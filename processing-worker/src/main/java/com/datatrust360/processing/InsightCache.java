@@ -0,0 +1,71 @@
+package com.datatrust360.processing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of generated insights with a time-to-live.
+ *
+ * <p>Importance: Recurring anomaly patterns reuse an earlier summary instead of paying for
+ * another LLM call.</p>
+ * <p>Alternatives: Caffeine, but a synchronized access-ordered map is enough for the low
+ * rate of insight windows and adds no dependency.</p>
+ */
+final class InsightCache {
+
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates a cache holding at most {@code maxEntries} insights.
+     *
+     * <p>Importance: The size bound keeps memory flat however many distinct patterns appear.</p>
+     * <p>Alternatives: Soft references, but eviction would then depend on GC pressure.</p>
+     */
+    InsightCache(int maxEntries, long ttlMs) {
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns a fresh cached insight, or null.
+     *
+     * <p>Importance: Expired entries are removed on read, so stale summaries are not reused.</p>
+     * <p>Alternatives: A sweeper thread, but lazy expiry needs no extra thread.</p>
+     */
+    synchronized String get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.createdAt() > ttlNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.insight();
+    }
+
+    /**
+     * Stores an insight for a fingerprint.
+     *
+     * <p>Importance: Only successful responses are cached, so failures are retried.</p>
+     * <p>Alternatives: Cache failures briefly, but the circuit breaker already covers outages.</p>
+     */
+    synchronized void put(String key, String insight) {
+        entries.put(key, new Entry(insight, System.nanoTime()));
+    }
+
+    /**
+     * Cached insight with its creation time.
+     *
+     * <p>Importance: The timestamp drives the TTL check.</p>
+     * <p>Alternatives: Store expiry instead, but creation time keeps the TTL adjustable.</p>
+     */
+    private record Entry(String insight, long createdAt) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.datatrust360.processing;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+import java.util.List;
+
+/**
+ * Kafka retry and dead-letter topics for ingest events that fail processing.
+ *
+ * <p>Importance: A failing event leaves its source partition immediately and is retried from
+ * a delay tier, so one bad record cannot block the events behind it.</p>
+ * <p>Alternatives: {@code @RetryableTopic}, but it does not support the batch listeners the
+ * ingest path uses.</p>
+ *
+ * <p>Events move from the source topic to {@code dt360.events.retry.1}, {@code .2}, and
+ * {@code .3} with increasing delays, then to {@code dt360.events.dlt}. Malformed events go
+ * straight to the dead-letter topic because retrying cannot fix them.</p>
+ */
+@Configuration
+public class KafkaRetryConfig {
+
+    public static final String RAW_TOPIC = "dt360.events.raw";
+    public static final String BULK_TOPIC = "dt360.events.bulk";
+    public static final String RETRY_TOPIC_1 = "dt360.events.retry.1";
+    public static final String RETRY_TOPIC_2 = "dt360.events.retry.2";
+    public static final String RETRY_TOPIC_3 = "dt360.events.retry.3";
+    public static final String DLT_TOPIC = "dt360.events.dlt";
+    public static final List<String> RETRY_TOPICS = List.of(RETRY_TOPIC_1, RETRY_TOPIC_2, RETRY_TOPIC_3);
+
+    public static final String ATTEMPT_HEADER = "dt360-retry-attempt";
+    public static final String DUE_AT_HEADER = "dt360-retry-due-ms";
+    public static final String ORIGINAL_TOPIC_HEADER = "dt360-original-topic";
+    public static final String ERROR_HEADER = "dt360-error";
+    public static final String EVENT_ID_HEADER = "dt360-event-id";
+
+    private final int partitions;
+
+    /**
+     * Creates the configuration with the partition count for retry and dead-letter topics.
+     *
+     * <p>Importance: Retry tiers need enough partitions to spread redelivery across pods.</p>
+     * <p>Alternatives: Match the source topics, but retry volume is normally far smaller.</p>
+     */
+    public KafkaRetryConfig(@Value("${processing.kafka.retry.partitions:3}") int partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * Declares the first retry tier.
+     *
+     * <p>Importance: Topics exist before the retry listeners subscribe.</p>
+     * <p>Alternatives: Broker auto-creation, but it is often disabled in production clusters.</p>
+     */
+    @Bean
+    public NewTopic retryTopic1() {
+        return TopicBuilder.name(RETRY_TOPIC_1).partitions(partitions).build();
+    }
+
+    /**
+     * Declares the second retry tier.
+     *
+     * <p>Importance: Same as the first tier, with a longer delay applied by the listener.</p>
+     * <p>Alternatives: One retry topic with per-record delays, but then a long delay would
+     * hold back records with short ones.</p>
+     */
+    @Bean
+    public NewTopic retryTopic2() {
+        return TopicBuilder.name(RETRY_TOPIC_2).partitions(partitions).build();
+    }
+
+    /**
+     * Declares the third retry tier.
+     *
+     * <p>Importance: The last automatic attempt before an event needs an operator.</p>
+     * <p>Alternatives: More tiers, but three covers transient outages of several minutes.</p>
+     */
+    @Bean
+    public NewTopic retryTopic3() {
+        return TopicBuilder.name(RETRY_TOPIC_3).partitions(partitions).build();
+    }
+
+    /**
+     * Declares the dead-letter topic.
+     *
+     * <p>Importance: Events that exhausted retries are kept for inspection and replay.</p>
+     * <p>Alternatives: Log and drop, but then a fix could not be applied to lost events.</p>
+     */
+    @Bean
+    public NewTopic deadLetterTopic() {
+        return TopicBuilder.name(DLT_TOPIC).partitions(partitions).build();
+    }
+}
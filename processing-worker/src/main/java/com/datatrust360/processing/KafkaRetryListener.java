@@ -0,0 +1,118 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.EventEnvelope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Consumes the retry tiers and reprocesses events once their delay has passed.
+ *
+ * <p>Importance: Retries run in their own consumer groups and threads, so a waiting retry
+ * never holds up the source partitions.</p>
+ * <p>Alternatives: Sleep before reprocessing, but a sleeping consumer misses its poll
+ * deadline and triggers a rebalance.</p>
+ *
+ * <p>A record that is not due yet is negatively acknowledged with the remaining delay. The
+ * container then pauses that partition and seeks back to the record instead of sleeping, and
+ * every later record in a tier is due no earlier because each tier has one fixed delay.</p>
+ */
+@Component
+public class KafkaRetryListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaRetryListener.class);
+
+    private final ObjectMapper objectMapper;
+    private final StorageClient storageClient;
+    private final ScoringQueue scoringQueue;
+    private final KafkaRetryRouter retryRouter;
+
+    /**
+     * Creates the listener with the same storage and scoring dependencies as the ingest path.
+     *
+     * <p>Importance: A retried event takes exactly the path it failed on.</p>
+     * <p>Alternatives: Republish to the source topic, but that would mix retries with new traffic.</p>
+     */
+    public KafkaRetryListener(
+        ObjectMapper objectMapper,
+        StorageClient storageClient,
+        ScoringQueue scoringQueue,
+        KafkaRetryRouter retryRouter
+    ) {
+        this.objectMapper = objectMapper;
+        this.storageClient = storageClient;
+        this.scoringQueue = scoringQueue;
+        this.retryRouter = retryRouter;
+    }
+
+    /**
+     * Consumes the first retry tier.
+     *
+     * <p>Importance: Each tier has its own container and consumer group (the listener ID), so a
+     * long delay never pauses a short one.</p>
+     * <p>Alternatives: One listener on all tiers, but a pause would then stop every tier.</p>
+     */
+    @KafkaListener(id = "processing-worker-retry-1", topics = KafkaRetryConfig.RETRY_TOPIC_1)
+    public void onFirstRetry(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        handle(record, acknowledgment);
+    }
+
+    /**
+     * Consumes the second retry tier.
+     *
+     * <p>Importance: Gives storage a longer window to recover before the last attempt.</p>
+     * <p>Alternatives: Reuse the first tier's delay, but fast retries burn attempts during outages.</p>
+     */
+    @KafkaListener(id = "processing-worker-retry-2", topics = KafkaRetryConfig.RETRY_TOPIC_2)
+    public void onSecondRetry(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        handle(record, acknowledgment);
+    }
+
+    /**
+     * Consumes the third retry tier.
+     *
+     * <p>Importance: A failure here sends the event to the dead-letter topic.</p>
+     * <p>Alternatives: Retry forever, but poison events would then circulate indefinitely.</p>
+     */
+    @KafkaListener(id = "processing-worker-retry-3", topics = KafkaRetryConfig.RETRY_TOPIC_3)
+    public void onThirdRetry(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        handle(record, acknowledgment);
+    }
+
+    /**
+     * Waits for the record to become due, then persists and enqueues it or routes it onward.
+     *
+     * <p>Importance: The record is acknowledged only after it was processed or handed to the
+     * next tier, so a crash in between replays it rather than losing it.</p>
+     * <p>Alternatives: Acknowledge first, but a crash would then drop the event.</p>
+     */
+    void handle(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        long dueAt = Long.parseLong(KafkaRetryRouter.header(record.headers(), KafkaRetryConfig.DUE_AT_HEADER, "0"));
+        long wait = dueAt - System.currentTimeMillis();
+        if (wait > 0) {
+            acknowledgment.nack(Duration.ofMillis(wait));
+            return;
+        }
+        int attempts = Integer.parseInt(KafkaRetryRouter.header(record.headers(), KafkaRetryConfig.ATTEMPT_HEADER, "1"));
+        String originalTopic = KafkaRetryRouter.header(record.headers(), KafkaRetryConfig.ORIGINAL_TOPIC_HEADER, record.topic());
+        String payload = record.value();
+        String eventId = KafkaRetryRouter.header(record.headers(), KafkaRetryConfig.EVENT_ID_HEADER, null);
+        try {
+            EventEnvelope envelope = objectMapper.readValue(payload, EventEnvelope.class);
+            EventIds.assign(envelope, eventId);
+            storageClient.persistEvent(envelope);
+            scoringQueue.enqueueAll(List.of(envelope), List.of(payload), List.of(PipelineTrace.UNTRACED)).join();
+        } catch (Exception ex) {
+            logger.warn("Retry {} of event from {} failed", attempts, originalTopic, ex);
+            retryRouter.retry(record.key(), payload, eventId, originalTopic, attempts + 1, ex).join();
+        }
+        acknowledgment.acknowledge();
+    }
+}
@@ -0,0 +1,149 @@
+package com.datatrust360.processing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Routes failed ingest events to the next retry tier or the dead-letter topic.
+ *
+ * <p>Importance: Keeps the tier, delay, and header bookkeeping in one place for the ingest
+ * listener and the retry listeners.</p>
+ * <p>Alternatives: A {@code DeadLetterPublishingRecoverer}, but it works on records handed to
+ * an error handler, while batch failures here are split per event by the listener.</p>
+ *
+ * <p>Each retry record carries its attempt number, the time it becomes due, and its original
+ * topic, so a replay can send it back where it came from. It also carries the event id
+ * assigned on the source topic, so a retried or replayed event upserts the same document,
+ * and it keeps the source record's key, so the tiers and a replay stay partitioned by tenant
+ * like the original.</p>
+ */
+@Component
+public class KafkaRetryRouter {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final List<Long> delaysMs;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Creates the router with the retry tier delays.
+     *
+     * <p>Importance: Delays are configuration so operators can stretch them during incidents.</p>
+     * <p>Alternatives: Fixed delays, but the right values depend on storage recovery times.</p>
+     */
+    public KafkaRetryRouter(
+        KafkaTemplate<String, String> kafkaTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${processing.kafka.retry.delays-ms:5000,30000,300000}") List<Long> delaysMs
+    ) {
+        if (delaysMs.size() != KafkaRetryConfig.RETRY_TOPICS.size()) {
+            throw new IllegalArgumentException("processing.kafka.retry.delays-ms needs "
+                + KafkaRetryConfig.RETRY_TOPICS.size() + " values, got " + delaysMs);
+        }
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.delaysMs = List.copyOf(delaysMs);
+    }
+
+    /**
+     * Sends an event to the retry tier for its next attempt, or to the dead-letter topic when
+     * the tiers are exhausted.
+     *
+     * <p>Importance: The caller acknowledges its own record only after this send completes,
+     * so an event is never in neither place.</p>
+     * <p>Alternatives: Fire and forget, but a failed send would then lose the event.</p>
+     *
+     * @param key key of the source record, or null when it had none
+     * @param eventId id assigned on the source topic, or null when none was assigned
+     * @param failedAttempts attempts made so far, 1 for a failure on the source topic
+     */
+    public CompletableFuture<Void> retry(
+        String key, String payload, String eventId, String originalTopic, int failedAttempts, Exception error
+    ) {
+        if (failedAttempts > delaysMs.size()) {
+            return deadLetter(key, payload, eventId, originalTopic, failedAttempts, error);
+        }
+        String topic = KafkaRetryConfig.RETRY_TOPICS.get(failedAttempts - 1);
+        long dueAt = System.currentTimeMillis() + delaysMs.get(failedAttempts - 1);
+        meterRegistry.counter("dt360.kafka.retry.routed", "topic", topic).increment();
+        return send(topic, key, payload, eventId, originalTopic, failedAttempts, dueAt, error);
+    }
+
+    /**
+     * Sends an event straight to the dead-letter topic.
+     *
+     * <p>Importance: Malformed events cannot succeed on retry, so they skip the tiers.</p>
+     * <p>Alternatives: Retry everything, but that delays the operator's view of real poison.</p>
+     */
+    public CompletableFuture<Void> deadLetter(
+        String key, String payload, String eventId, String originalTopic, int failedAttempts, Exception error
+    ) {
+        meterRegistry.counter("dt360.kafka.retry.routed", "topic", KafkaRetryConfig.DLT_TOPIC).increment();
+        return send(KafkaRetryConfig.DLT_TOPIC, key, payload, eventId, originalTopic, failedAttempts, 0, error);
+    }
+
+    /**
+     * Builds and sends a record with the retry headers.
+     *
+     * <p>Importance: Headers keep the payload byte-identical to the original event.</p>
+     * <p>Alternatives: Wrap the payload in a retry envelope, but replay would have to unwrap it.</p>
+     */
+    private CompletableFuture<Void> send(
+        String topic, String key, String payload, String eventId, String originalTopic, int attempts, long dueAt,
+        Exception error
+    ) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(topic, key, payload);
+        Headers headers = record.headers();
+        if (eventId != null) {
+            headers.add(KafkaRetryConfig.EVENT_ID_HEADER, bytes(eventId));
+        }
+        headers.add(KafkaRetryConfig.ORIGINAL_TOPIC_HEADER, bytes(originalTopic));
+        headers.add(KafkaRetryConfig.ATTEMPT_HEADER, bytes(Integer.toString(attempts)));
+        headers.add(KafkaRetryConfig.DUE_AT_HEADER, bytes(Long.toString(dueAt)));
+        headers.add(KafkaRetryConfig.ERROR_HEADER, bytes(describe(error)));
+        return kafkaTemplate.send(record).thenApply(result -> null);
+    }
+
+    /**
+     * Reads a string header, or returns the fallback when it is absent.
+     *
+     * <p>Importance: Shared by the retry listener and the replayer so both parse headers alike.</p>
+     * <p>Alternatives: Spring's header mapper, but these records are read as raw consumer records.</p>
+     */
+    static String header(Headers headers, String name, String fallback) {
+        Header header = headers.lastHeader(name);
+        return header == null ? fallback : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Summarizes an exception for the error header.
+     *
+     * <p>Importance: Operators see why an event was dead-lettered without searching logs.</p>
+     * <p>Alternatives: The full stack trace, but it would bloat every retry record.</p>
+     */
+    private static String describe(Exception error) {
+        if (error == null) {
+            return "";
+        }
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        return message.length() > 512 ? message.substring(0, 512) : message;
+    }
+
+    /**
+     * Encodes a header value as UTF-8.
+     *
+     * <p>Importance: Kafka headers are raw bytes.</p>
+     * <p>Alternatives: Binary longs, but text stays readable in console consumers.</p>
+     */
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,32 +1,52 @@
 package com.datatrust360.processing;
 
 import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.KinesisAggregation;
+import com.datatrust360.common.PipelineTiming;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.services.kinesis.KinesisClient;
-import software.amazon.awssdk.services.kinesis.model.GetRecordsRequest;
-import software.amazon.awssdk.services.kinesis.model.GetRecordsResponse;
-import software.amazon.awssdk.services.kinesis.model.GetShardIteratorRequest;
 import software.amazon.awssdk.services.kinesis.model.ListShardsRequest;
 import software.amazon.awssdk.services.kinesis.model.ListShardsResponse;
 import software.amazon.awssdk.services.kinesis.model.Record;
 import software.amazon.awssdk.services.kinesis.model.Shard;
 import software.amazon.awssdk.services.kinesis.model.ShardIteratorType;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Polls Kinesis for partner ingestion events and forwards them for storage and scoring.
+ * Consumes partner ingestion events from Kinesis and forwards them for storage and scoring.
  *
  * <p>Importance: Separates partner/edge ingestion (Kinesis) from internal Kafka streams.</p>
  * <p>Alternatives: Use Kinesis Client Library, but a lightweight poller keeps the MVP simple.</p>
+ *
+ * <p>Replicas share shards through {@link ShardLeaseTable}: a periodic rebalance renews this
+ * worker's leases, takes free or expired ones, and steals or sheds leases to stay within one
+ * shard of an even split. Each owned shard runs its own {@link ShardConsumer}.</p>
+ *
+ * <p>Positions are checkpointed on the lease row, so a shard resumes after its last handled
+ * record on any worker. A child shard from a reshard is leased only after every parent that is
+ * still in the stream has been read to its end, which preserves per-key ordering.</p>
  */
 @Component
 public class KinesisIngestPoller {
@@ -36,111 +56,351 @@ public class KinesisIngestPoller {
     private final KinesisClient kinesisClient;
     private final ObjectMapper objectMapper;
     private final StorageClient storageClient;
-    private final PartnerQueuePublisher queuePublisher;
+    private final ScoringQueue scoringQueue;
+    private final KafkaRetryRouter retryRouter;
+    private final ShardLeaseTable leaseTable;
+    private final MeterRegistry meterRegistry;
+    private final PipelineTiming timing;
     private final String streamName;
     private final boolean enabled;
-    private final Map<String, String> shardIterators = new ConcurrentHashMap<>();
+    private final String workerId;
+    private final long leaseDurationMs;
+    private final ShardIteratorType initialPosition;
+    private final ShardConsumer.PollSettings pollSettings;
+    private final ShardCheckpointer checkpointer;
+    private final ExecutorService shardExecutor;
+    private final Map<String, RunningShard> running = new ConcurrentHashMap<>();
+    private volatile boolean initialized;
 
     /**
      * Creates the Kinesis poller with dependencies and configuration.
      *
      * <p>Importance: Ensures ingestion stays configurable per environment.</p>
      * <p>Alternatives: Hardcode stream names, but configuration is required for multi-env setups.</p>
+     *
+     * <p>Shard loops block on GetRecords and sleep between polls, so they run on a dedicated
+     * thread per shard rather than on the shared scheduler. The module targets Java 17, so
+     * these are platform threads; on Java 21 the factory can be swapped for virtual threads.</p>
      */
     public KinesisIngestPoller(
         KinesisClient kinesisClient,
         ObjectMapper objectMapper,
         StorageClient storageClient,
-        PartnerQueuePublisher queuePublisher,
+        ScoringQueue scoringQueue,
+        KafkaRetryRouter retryRouter,
+        ShardLeaseTable leaseTable,
+        MeterRegistry meterRegistry,
         @Value("${processing.kinesis.stream}") String streamName,
-        @Value("${processing.kinesis.enabled:true}") boolean enabled
+        @Value("${processing.kinesis.enabled:true}") boolean enabled,
+        @Value("${processing.kinesis.lease.worker-id:}") String workerId,
+        @Value("${processing.kinesis.lease.duration-ms:30000}") long leaseDurationMs,
+        @Value("${processing.kinesis.initial-position:TRIM_HORIZON}") ShardIteratorType initialPosition,
+        @Value("${processing.kinesis.max-records:1000}") int maxRecords,
+        @Value("${processing.kinesis.poll.min-delay-ms:200}") long minDelayMs,
+        @Value("${processing.kinesis.poll.max-delay-ms:5000}") long maxDelayMs,
+        @Value("${processing.kinesis.poll.caught-up-ms:1000}") long caughtUpMs
     ) {
         this.kinesisClient = kinesisClient;
         this.objectMapper = objectMapper;
         this.storageClient = storageClient;
-        this.queuePublisher = queuePublisher;
+        this.scoringQueue = scoringQueue;
+        this.retryRouter = retryRouter;
+        this.leaseTable = leaseTable;
+        this.meterRegistry = meterRegistry;
+        this.timing = new PipelineTiming(meterRegistry);
         this.streamName = streamName;
         this.enabled = enabled;
+        this.workerId = workerId == null || workerId.isBlank() ? UUID.randomUUID().toString() : workerId;
+        this.leaseDurationMs = leaseDurationMs;
+        this.initialPosition = initialPosition;
+        this.pollSettings = new ShardConsumer.PollSettings(maxRecords, minDelayMs, maxDelayMs, caughtUpMs);
+        this.checkpointer = new ShardCheckpointer(leaseTable, streamName, this.workerId);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.shardExecutor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "kinesis-shard-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gauge("dt360.kinesis.shards.owned", running, Map::size);
     }
 
     /**
-     * Polls Kinesis on a fixed schedule to fetch new records.
+     * Renews, takes, steals, and releases shard leases on a fixed schedule.
      *
-     * <p>Importance: Provides a simple, deterministic ingestion loop for partner data.</p>
-     * <p>Alternatives: Event-driven consumers, but polling is acceptable for a local MVP.</p>
+     * <p>Importance: Pods joining or leaving converge to an even split within a few rounds,
+     * and a shard whose lease renewal fails is stopped before another worker reads it for long.</p>
+     * <p>Alternatives: Rebalance on pod lifecycle events, but leases also cover crashed pods
+     * that never send a goodbye.</p>
      */
-    @Scheduled(fixedDelayString = "${processing.kinesis.poll-delay-ms:5000}")
-    public void poll() {
+    @Scheduled(fixedDelayString = "${processing.kinesis.lease.rebalance-interval-ms:10000}")
+    public void rebalance() {
         if (!enabled) {
             return;
         }
-        List<Shard> shards = listShards();
-        for (Shard shard : shards) {
-            String iterator = shardIterators.computeIfAbsent(
-                shard.shardId(),
-                id -> initialIterator(id)
-            );
-            if (iterator == null) {
-                continue;
+        try {
+            if (!initialized) {
+                leaseTable.initialize();
+                initialized = true;
+            }
+            Map<String, Shard> shards = listShards();
+            leaseTable.ensureShards(streamName, List.copyOf(shards.keySet()));
+            for (Map.Entry<String, RunningShard> entry : List.copyOf(running.entrySet())) {
+                if (entry.getValue().future().isDone()) {
+                    stopShard(entry.getKey());
+                    if (entry.getValue().consumer().finished()) {
+                        leaseTable.release(streamName, entry.getKey(), workerId);
+                    } else {
+                        checkpointer.flush(entry.getKey());
+                    }
+                }
+            }
+            for (String shardId : List.copyOf(running.keySet())) {
+                if (!leaseTable.renew(streamName, shardId, workerId, leaseDurationMs)) {
+                    logger.info("Lost lease on Kinesis shard {}", shardId);
+                    stopShard(shardId);
+                }
+            }
+            Map<String, ShardLease> leases = new HashMap<>();
+            for (ShardLease lease : leaseTable.list(streamName)) {
+                leases.put(lease.shardId(), lease);
+            }
+            List<ShardLease> eligible = new ArrayList<>();
+            for (Shard shard : shards.values()) {
+                ShardLease lease = leases.get(shard.shardId());
+                if (lease != null && !lease.finished()
+                    && parentFinished(shard.parentShardId(), shards, leases)
+                    && parentFinished(shard.adjacentParentShardId(), shards, leases)) {
+                    eligible.add(lease);
+                }
+            }
+            ShardLeaseBalancer.Plan plan = ShardLeaseBalancer.plan(workerId, eligible);
+            for (String shardId : plan.release()) {
+                stopShard(shardId);
+                checkpointer.flush(shardId);
+                leaseTable.release(streamName, shardId, workerId);
+                logger.info("Released Kinesis shard {} to rebalance", shardId);
             }
-            GetRecordsResponse records = kinesisClient.getRecords(
-                GetRecordsRequest.builder()
-                    .shardIterator(iterator)
-                    .limit(100)
-                    .build()
-            );
-            handleRecords(records.records());
-            shardIterators.put(shard.shardId(), records.nextShardIterator());
+            for (ShardLease lease : plan.take()) {
+                if (leaseTable.take(streamName, lease, workerId, leaseDurationMs)) {
+                    startShard(shards.get(lease.shardId()), lease.checkpoint());
+                }
+            }
+            for (ShardLease lease : eligible) {
+                if (workerId.equals(lease.owner()) && !lease.expired() && !plan.release().contains(lease.shardId())) {
+                    startShard(shards.get(lease.shardId()), lease.checkpoint());
+                }
+            }
+        } catch (RuntimeException ex) {
+            logger.error("Failed to rebalance Kinesis shard leases", ex);
         }
     }
 
     /**
-     * Lists shards for the configured stream.
+     * Writes the coalesced checkpoints of all owned shards.
      *
-     * <p>Importance: Allows polling across all active shards.</p>
-     * <p>Alternatives: Poll a single shard only, but that would miss partner traffic.</p>
+     * <p>Importance: Bounds how much a crash can replay to one flush interval. A rejected write
+     * means the lease was stolen, so that shard stops now rather than at the next rebalance.</p>
+     * <p>Alternatives: Flush from the shard loops, but that puts database latency on the read path.</p>
      */
-    private List<Shard> listShards() {
-        ListShardsResponse response = kinesisClient.listShards(
-            ListShardsRequest.builder()
-                .streamName(streamName)
-                .build()
-        );
-        return response.shards();
+    @Scheduled(fixedDelayString = "${processing.kinesis.checkpoint.flush-interval-ms:1000}")
+    public void flushCheckpoints() {
+        if (!enabled || !initialized) {
+            return;
+        }
+        try {
+            for (String shardId : checkpointer.flush()) {
+                logger.info("Lost lease on Kinesis shard {} to another worker", shardId);
+                stopShard(shardId);
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to flush Kinesis checkpoints", ex);
+        }
+    }
+
+    /**
+     * Stops every shard loop, saves its checkpoint, and hands its lease back on shutdown.
+     *
+     * <p>Importance: Remaining replicas pick the shards up on their next round, after the last
+     * handled record, instead of waiting for the leases to expire.</p>
+     * <p>Alternatives: Rely on expiry, but that pauses those shards for a lease duration.</p>
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (String shardId : List.copyOf(running.keySet())) {
+            stopShard(shardId);
+            try {
+                checkpointer.flush(shardId);
+                leaseTable.release(streamName, shardId, workerId);
+            } catch (RuntimeException ex) {
+                logger.warn("Failed to release Kinesis shard {}", shardId, ex);
+            }
+        }
+        shardExecutor.shutdownNow();
+    }
+
+    /**
+     * Starts a shard loop unless it is already running.
+     *
+     * <p>Importance: Idempotent, so rebalance rounds can call it for every owned lease.</p>
+     * <p>Alternatives: Track starts separately, but the running map already is that record.</p>
+     *
+     * <p>Child shards always start at TRIM_HORIZON: they only hold records written after the
+     * reshard, so the configured initial position would skip data for them.</p>
+     */
+    private void startShard(Shard shard, String checkpoint) {
+        String shardId = shard.shardId();
+        if (running.containsKey(shardId)) {
+            return;
+        }
+        ShardIteratorType position = shard.parentShardId() == null ? initialPosition : ShardIteratorType.TRIM_HORIZON;
+        checkpointer.acquired(shardId);
+        ShardConsumer consumer = new ShardConsumer(kinesisClient, streamName, shardId, checkpoint, position,
+            records -> handleRecords(shardId, records), checkpointer, pollSettings);
+        Gauge lag = Gauge.builder("dt360.kinesis.millis.behind.latest", consumer, ShardConsumer::millisBehindLatest)
+            .tag("shard", shardId)
+            .register(meterRegistry);
+        running.put(shardId, new RunningShard(consumer, shardExecutor.submit(consumer), lag));
+        logger.info("Started consuming Kinesis shard {} as {} after {}", shardId, workerId, checkpoint);
+    }
+
+    /**
+     * Returns whether a parent shard no longer blocks its child.
+     *
+     * <p>Importance: Reading a child before its parent finishes would reorder records of the
+     * same partition key.</p>
+     * <p>Alternatives: Read parents and children together, but ordering is part of the
+     * Kinesis contract that downstream consumers rely on.</p>
+     *
+     * <p>Parents that aged out of the stream no longer appear in ListShards and do not block.</p>
+     */
+    private static boolean parentFinished(String parentId, Map<String, Shard> shards, Map<String, ShardLease> leases) {
+        if (parentId == null || !shards.containsKey(parentId)) {
+            return true;
+        }
+        ShardLease parent = leases.get(parentId);
+        return parent != null && parent.finished();
+    }
+
+    /**
+     * Stops a shard loop and removes its lag gauge.
+     *
+     * <p>Importance: The interrupt wakes the loop from its poll delay immediately.</p>
+     * <p>Alternatives: Wait for the loop to notice the flag, but that can take a full delay.</p>
+     */
+    private void stopShard(String shardId) {
+        RunningShard shard = running.remove(shardId);
+        if (shard != null) {
+            shard.consumer().stop();
+            shard.future().cancel(true);
+            meterRegistry.remove(shard.lag());
+        }
     }
 
     /**
-     * Creates an initial shard iterator.
+     * Lists shards for the configured stream, following pagination.
      *
-     * <p>Importance: Starts consumption from the earliest available records for learning demos.</p>
-     * <p>Alternatives: Start at LATEST to reduce backlog, but TRIM_HORIZON showcases full ingestion.</p>
+     * <p>Importance: Allows polling across all active shards, including parents and children
+     * that coexist after a reshard.</p>
+     * <p>Alternatives: Read only the first page, but large or resharded streams span several.</p>
      */
-    private String initialIterator(String shardId) {
-        return kinesisClient.getShardIterator(
-            GetShardIteratorRequest.builder()
+    private Map<String, Shard> listShards() {
+        Map<String, Shard> shards = new HashMap<>();
+        ListShardsResponse response = kinesisClient.listShards(
+            ListShardsRequest.builder()
                 .streamName(streamName)
-                .shardId(shardId)
-                .shardIteratorType(ShardIteratorType.TRIM_HORIZON)
                 .build()
-        ).shardIterator();
+        );
+        response.shards().forEach(shard -> shards.put(shard.shardId(), shard));
+        while (response.nextToken() != null) {
+            response = kinesisClient.listShards(ListShardsRequest.builder().nextToken(response.nextToken()).build());
+            response.shards().forEach(shard -> shards.put(shard.shardId(), shard));
+        }
+        return shards;
     }
 
     /**
      * Processes Kinesis records by persisting and enqueueing for scoring.
      *
-     * <p>Importance: Ensures partner events flow through the same storage and scoring pipeline.</p>
+     * <p>Importance: Ensures partner events flow through the same storage and scoring pipeline.
+     * Aggregated records from the batching publisher are unpacked into their original events.</p>
      * <p>Alternatives: Separate partner pipeline, but unified processing reduces duplication.</p>
+     *
+     * <p>Kinesis records carry no headers, so the ingest stamp of a partner event is the
+     * record's approximate arrival time in the stream. Each event is stored under an id made of
+     * the shard, sequence number, and its index in the aggregated record, so re-reading a shard
+     * from an older checkpoint rewrites the same documents.</p>
+     *
+     * <p>Events that fail are handed to {@link KafkaRetryRouter} under the raw topic, so the
+     * retry tiers and DLT replays feed them through the Kafka path. The method returns only
+     * once those sends are acknowledged; if one fails it throws, and the shard consumer re-reads
+     * the batch instead of checkpointing past events that were never stored.</p>
      */
-    private void handleRecords(List<Record> records) {
+    private void handleRecords(String shardId, List<Record> records) {
+        List<CompletableFuture<Void>> routed = new ArrayList<>();
         for (Record record : records) {
-            String json = StandardCharsets.UTF_8.decode(record.data().asByteBuffer()).toString();
+            PipelineTrace trace = record.approximateArrivalTimestamp() == null
+                ? new PipelineTrace(PipelineTiming.PATH_KINESIS, 0)
+                : new PipelineTrace(PipelineTiming.PATH_KINESIS,
+                    TimeUnit.MILLISECONDS.toMicros(record.approximateArrivalTimestamp().toEpochMilli()));
+            List<byte[]> events;
             try {
-                EventEnvelope envelope = objectMapper.readValue(json, EventEnvelope.class);
-                storageClient.persistEvent(envelope);
-                queuePublisher.enqueue(json);
-            } catch (Exception ex) {
-                logger.error("Failed to process Kinesis record", ex);
+                events = KinesisAggregation.deaggregate(record.data().asByteArray());
+            } catch (IllegalArgumentException ex) {
+                logger.error("Dead-lettering Kinesis record {} that cannot be de-aggregated", record.sequenceNumber(), ex);
+                routed.add(retryRouter.deadLetter(record.partitionKey(), record.data().asUtf8String(),
+                    EventIds.kinesis(shardId, record.sequenceNumber(), 0), KafkaRetryConfig.RAW_TOPIC, 1, ex));
+                continue;
+            }
+            timing.recordSince(PipelineTiming.STAGE_STREAM, trace.path(), trace.ingestMicros());
+            for (int i = 0; i < events.size(); i++) {
+                CompletableFuture<Void> failure = handleEvent(record.partitionKey(),
+                    new String(events.get(i), StandardCharsets.UTF_8), trace,
+                    EventIds.kinesis(shardId, record.sequenceNumber(), i));
+                if (failure != null) {
+                    routed.add(failure);
+                }
             }
         }
+        CompletableFuture.allOf(routed.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Persists and enqueues a single partner event, routing it onward when that fails.
+     *
+     * <p>Importance: Isolates failures so one bad event does not drop its aggregated siblings,
+     * while the next checkpoint never skips an event that was not stored.</p>
+     * <p>Alternatives: Fail the whole batch on any error, but a poison event would then stall
+     * its shard forever.</p>
+     *
+     * @return the pending retry or dead-letter send, or null when the event was handled
+     */
+    private CompletableFuture<Void> handleEvent(String key, String json, PipelineTrace trace, String positionId) {
+        EventEnvelope envelope;
+        try {
+            envelope = objectMapper.readValue(json, EventEnvelope.class);
+        } catch (IOException ex) {
+            logger.error("Dead-lettering unparseable Kinesis event {}", positionId, ex);
+            return retryRouter.deadLetter(key, json, positionId, KafkaRetryConfig.RAW_TOPIC, 1, ex);
+        }
+        EventIds.assign(envelope, positionId);
+        try {
+            long start = System.nanoTime();
+            storageClient.persistEvent(envelope);
+            timing.recordStage(PipelineTiming.STAGE_STORAGE, trace.path(), System.nanoTime() - start);
+            scoringQueue.enqueue(envelope, json, trace);
+            return null;
+        } catch (RuntimeException ex) {
+            logger.warn("Kinesis event {} failed, routing it to the retry tier", positionId, ex);
+            return retryRouter.retry(key, json, envelope.getEventId(), KafkaRetryConfig.RAW_TOPIC, 1, ex);
+        }
+    }
+
+    /**
+     * A shard loop owned by this worker.
+     *
+     * <p>Importance: Keeps the loop, its task, and its gauge together for clean shutdown.</p>
+     * <p>Alternatives: Parallel maps per attribute, but they can drift apart.</p>
+     */
+    private record RunningShard(ShardConsumer consumer, Future<?> future, Gauge lag) {
     }
 }
@@ -1,25 +1,77 @@
 package com.datatrust360.processing;
 
 import com.datatrust360.common.AuditLogRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Generates natural language insights using the OpenAI API.
  *
  * <p>Importance: Converts raw anomaly signals into readable explanations for analysts.</p>
  * <p>Alternatives: Use rule-based templates only, but LLMs provide richer summaries.</p>
+ *
+ * <p>Calls never run on the caller's thread. Payloads are gathered into a per-tenant window
+ * that is summarized in one request when it closes. A window closes after
+ * {@code processing.openai.window-ms} or when it holds {@code max-payloads-per-window}.
+ * Summaries are cached by a normalized fingerprint of the window. Requests run on a bounded
+ * bulkhead executor, behind a semaphore and a circuit breaker.</p>
  */
 @Service
 public class OpenAiInsightService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OpenAiInsightService.class);
+    private static final MathContext FINGERPRINT_PRECISION = new MathContext(3);
+
     private final RestClient restClient;
     private final StorageClient storageClient;
+    private final ObjectMapper objectMapper;
     private final boolean enabled;
     private final String model;
+    private final long windowMs;
+    private final int maxPayloadsPerWindow;
+    private final long permitTimeoutMs;
+    private final InsightCache cache;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore permits;
+    private final ScheduledExecutorService windowScheduler;
+    private final ThreadPoolExecutor bulkhead;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final Counter requestedCounter;
+    private final Counter cacheHitCounter;
+    private final Counter failedCounter;
+    private final Counter shortCircuitedCounter;
+    private final Counter rejectedCounter;
 
     /**
      * Creates the insight service with API client configuration.
@@ -30,44 +82,204 @@ public class OpenAiInsightService {
     public OpenAiInsightService(
         RestClient openAiRestClient,
         StorageClient storageClient,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
         @Value("${processing.openai.enabled:false}") boolean enabled,
-        @Value("${processing.openai.model:gpt-4o-mini}") String model
+        @Value("${processing.openai.model:gpt-4o-mini}") String model,
+        @Value("${processing.openai.window-ms:5000}") long windowMs,
+        @Value("${processing.openai.max-payloads-per-window:20}") int maxPayloadsPerWindow,
+        @Value("${processing.openai.cache.max-entries:1000}") int cacheMaxEntries,
+        @Value("${processing.openai.cache.ttl-ms:600000}") long cacheTtlMs,
+        @Value("${processing.openai.max-concurrent:4}") int maxConcurrent,
+        @Value("${processing.openai.permit-timeout-ms:5000}") long permitTimeoutMs,
+        @Value("${processing.openai.bulkhead.threads:4}") int bulkheadThreads,
+        @Value("${processing.openai.bulkhead.queue-capacity:100}") int bulkheadQueueCapacity,
+        @Value("${processing.openai.circuit.failure-threshold:5}") int failureThreshold,
+        @Value("${processing.openai.circuit.open-ms:30000}") long openMs
     ) {
         this.restClient = openAiRestClient;
         this.storageClient = storageClient;
+        this.objectMapper = objectMapper;
         this.enabled = enabled;
         this.model = model;
+        this.windowMs = windowMs;
+        this.maxPayloadsPerWindow = maxPayloadsPerWindow;
+        this.permitTimeoutMs = permitTimeoutMs;
+        this.cache = new InsightCache(cacheMaxEntries, cacheTtlMs);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMs);
+        this.permits = new Semaphore(maxConcurrent);
+        this.windowScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "openai-window");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        this.bulkhead = new ThreadPoolExecutor(bulkheadThreads, bulkheadThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(bulkheadQueueCapacity), task -> {
+                Thread thread = new Thread(task, "openai-bulkhead-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.requestedCounter = meterRegistry.counter("dt360.openai.insights", "result", "requested");
+        this.cacheHitCounter = meterRegistry.counter("dt360.openai.insights", "result", "cache_hit");
+        this.failedCounter = meterRegistry.counter("dt360.openai.insights", "result", "failed");
+        this.shortCircuitedCounter = meterRegistry.counter("dt360.openai.insights", "result", "short_circuited");
+        this.rejectedCounter = meterRegistry.counter("dt360.openai.insights", "result", "rejected");
+        meterRegistry.gauge("dt360.openai.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal());
+        meterRegistry.gauge("dt360.openai.bulkhead.queued", bulkhead, executor -> executor.getQueue().size());
     }
 
     /**
-     * Generates and stores an insight for a payload if OpenAI is enabled.
+     * Queues a payload for the tenant's next insight if OpenAI is enabled.
      *
-     * <p>Importance: Adds analyst-friendly context to anomaly signals.</p>
+     * <p>Importance: Adds analyst-friendly context to anomaly signals. Returns immediately, so
+     * a slow upstream never stalls the RabbitMQ listener.</p>
      * <p>Alternatives: Skip insight generation, but this reduces dashboard usefulness.</p>
      */
     public void generateInsight(String tenantId, String payload) {
         if (!enabled) {
             return;
         }
-        String insight = callOpenAi(payload);
+        String tenant = tenantId == null ? "unknown" : tenantId;
+        while (true) {
+            Window window = windows.computeIfAbsent(tenant, key -> {
+                Window opened = new Window();
+                windowScheduler.schedule(() -> closeWindow(key, opened), windowMs, TimeUnit.MILLISECONDS);
+                return opened;
+            });
+            int size = window.add(payload, maxPayloadsPerWindow);
+            if (size < 0) {
+                closeWindow(tenant, window);
+                continue;
+            }
+            if (size >= maxPayloadsPerWindow) {
+                closeWindow(tenant, window);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Stops the window timer and bulkhead threads.
+     *
+     * <p>Importance: Leaves no non-Spring threads behind on context shutdown.</p>
+     * <p>Alternatives: Rely on daemon threads, but explicit shutdown is clearer in tests.</p>
+     */
+    @PreDestroy
+    public void shutdown() {
+        windowScheduler.shutdownNow();
+        bulkhead.shutdownNow();
+    }
+
+    /**
+     * Closes a tenant window and hands its payloads to the bulkhead.
+     *
+     * <p>Importance: Called by both the timer and a full window; only the first close wins.</p>
+     * <p>Alternatives: Lock the whole window map, but tenants would contend with each other.</p>
+     */
+    private void closeWindow(String tenant, Window window) {
+        windows.remove(tenant, window);
+        Window.Batch batch = window.close();
+        if (batch == null) {
+            return;
+        }
+        try {
+            bulkhead.execute(() -> summarize(tenant, batch));
+        } catch (RejectedExecutionException ex) {
+            rejectedCounter.increment();
+            logger.warn("Insight bulkhead full, dropping window of {} events for tenant {}", batch.payloads().size(), tenant);
+        }
+    }
+
+    /**
+     * Produces and stores one insight for a closed window.
+     *
+     * <p>Importance: Identical payloads are sent once, a cached summary skips the call, and
+     * the semaphore and breaker bound what reaches the upstream. The breaker is checked first
+     * so an open circuit never parks a bulkhead thread waiting for a permit.</p>
+     * <p>Alternatives: Retry failed calls, but insights are best-effort and retries amplify
+     * load on an upstream that is already failing.</p>
+     */
+    private void summarize(String tenant, Window.Batch batch) {
+        Map<String, String> distinct = new LinkedHashMap<>();
+        for (String payload : batch.payloads()) {
+            distinct.putIfAbsent(fingerprint(payload), payload);
+        }
+        String key = sha256(tenant + "\n" + String.join("\n", new TreeMap<>(distinct).keySet()));
+        String cached = cache.get(key);
+        if (cached != null) {
+            cacheHitCounter.increment();
+            persist(tenant, cached);
+            return;
+        }
+        if (!circuitBreaker.allowRequest()) {
+            shortCircuitedCounter.increment();
+            return;
+        }
+        try {
+            if (!permits.tryAcquire(permitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                circuitBreaker.onSkipped();
+                rejectedCounter.increment();
+                return;
+            }
+        } catch (InterruptedException ex) {
+            circuitBreaker.onSkipped();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        String insight;
+        try {
+            requestedCounter.increment();
+            insight = callOpenAi(new ArrayList<>(distinct.values()), batch.payloads().size());
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException ex) {
+            circuitBreaker.onFailure();
+            failedCounter.increment();
+            logger.warn("Insight request for tenant {} failed", tenant, ex);
+            return;
+        } finally {
+            permits.release();
+        }
+        cache.put(key, insight);
+        persist(tenant, insight);
+    }
+
+    /**
+     * Stores an insight as an audit log entry.
+     *
+     * <p>Importance: Keeps insights visible in the tenant's audit trail.</p>
+     * <p>Alternatives: A dedicated insights table, but audit logs already back the dashboards.</p>
+     */
+    private void persist(String tenantId, String insight) {
         AuditLogRequest request = new AuditLogRequest();
         request.setTenantId(tenantId);
         request.setActor("openai");
         request.setAction("INSIGHT_CREATED");
         request.setOccurredAt(Instant.now());
         request.setDetails(insight);
-        storageClient.persistAudit(request);
+        try {
+            storageClient.persistAudit(request);
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to store insight for tenant {}", tenantId, ex);
+        }
     }
 
     /**
-     * Calls the OpenAI API with a minimal prompt and returns the response text.
+     * Calls the OpenAI API with one prompt covering a window of payloads.
      *
      * <p>Importance: Encapsulates API interaction to keep workers focused on workflow.</p>
      * <p>Alternatives: Use the official SDK, but HTTP keeps dependencies light.</p>
      */
-    private String callOpenAi(String payload) {
-        OpenAiRequest request = new OpenAiRequest(model,
-            "Summarize anomalies from this payload in 2 sentences: " + payload);
+    private String callOpenAi(List<String> payloads, int total) {
+        StringBuilder input = new StringBuilder("Summarize anomalies from these ")
+            .append(total)
+            .append(" events (")
+            .append(payloads.size())
+            .append(" distinct shown) in 2 sentences:");
+        for (String payload : payloads) {
+            input.append('\n').append(payload);
+        }
+        OpenAiRequest request = new OpenAiRequest(model, input.toString());
         OpenAiResponse response = restClient.post()
             .uri("/v1/responses")
             .body(request)
@@ -79,6 +291,129 @@ public class OpenAiInsightService {
         return response.outputText();
     }
 
+    /**
+     * Fingerprints a payload after normalizing away incidental differences.
+     *
+     * <p>Importance: Events that differ only in arrival time, key order, or insignificant
+     * digits describe the same anomaly and should share a summary.</p>
+     * <p>Alternatives: Hash the raw string, but then the cache would almost never hit.</p>
+     *
+     * <p>The top-level {@code receivedAt} is dropped, object keys are sorted, and numbers are
+     * rounded to three significant digits. Non-JSON payloads are hashed as-is.</p>
+     */
+    String fingerprint(String payload) {
+        try {
+            JsonNode node = objectMapper.readTree(payload);
+            StringBuilder canonical = new StringBuilder();
+            canonicalize(node, canonical, true);
+            return sha256(canonical.toString());
+        } catch (IOException ex) {
+            return sha256(payload);
+        }
+    }
+
+    /**
+     * Writes a JSON node in canonical form.
+     *
+     * <p>Importance: Equal content must produce equal text for the hash to match.</p>
+     * <p>Alternatives: Jackson's ORDER_MAP_ENTRIES_BY_KEYS, but it does not apply to trees.</p>
+     */
+    private static void canonicalize(JsonNode node, StringBuilder out, boolean envelope) {
+        if (node.isObject()) {
+            TreeMap<String, JsonNode> fields = new TreeMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                if (!(envelope && "receivedAt".equals(field.getKey()))) {
+                    fields.put(field.getKey(), field.getValue());
+                }
+            }
+            out.append('{');
+            fields.forEach((name, value) -> {
+                out.append('"').append(name).append("\":");
+                canonicalize(value, out, false);
+                out.append(',');
+            });
+            out.append('}');
+        } else if (node.isArray()) {
+            out.append('[');
+            for (JsonNode element : node) {
+                canonicalize(element, out, false);
+                out.append(',');
+            }
+            out.append(']');
+        } else if (node.isNumber()) {
+            out.append(node.decimalValue().round(FINGERPRINT_PRECISION).stripTrailingZeros().toPlainString());
+        } else {
+            out.append(node.toString());
+        }
+    }
+
+    /**
+     * Returns the hex SHA-256 of a string.
+     *
+     * <p>Importance: Fixed-size keys keep cache memory independent of payload size.</p>
+     * <p>Alternatives: String.hashCode, but collisions would serve the wrong summary.</p>
+     */
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    /**
+     * Payloads collected for one tenant until the window closes.
+     *
+     * <p>Importance: Turns a burst of anomalies into a single request.</p>
+     * <p>Alternatives: A global window, but mixing tenants in one prompt would leak data.</p>
+     */
+    private static final class Window {
+
+        private final List<String> payloads = new ArrayList<>();
+        private boolean closed;
+
+        /**
+         * Adds a payload unless the window is closed or full.
+         *
+         * <p>Importance: A closed or full window tells the caller to close it and open a new one.</p>
+         * <p>Alternatives: Drop late payloads, but they belong in the next window.</p>
+         *
+         * @return the new payload count, or -1 if the window is closed or full
+         */
+        synchronized int add(String payload, int max) {
+            if (closed || payloads.size() >= max) {
+                return -1;
+            }
+            payloads.add(payload);
+            return payloads.size();
+        }
+
+        /**
+         * Closes the window and returns its contents, or null if it was already closed.
+         *
+         * <p>Importance: Guarantees each window is summarized once.</p>
+         * <p>Alternatives: Atomic flags outside the lock, but add and close must not interleave.</p>
+         */
+        synchronized Batch close() {
+            if (closed) {
+                return null;
+            }
+            closed = true;
+            return new Batch(List.copyOf(payloads));
+        }
+
+        /**
+         * Snapshot of a closed window.
+         *
+         * <p>Importance: Immutable, so it can cross to the bulkhead thread safely.</p>
+         * <p>Alternatives: Pass the window itself, but it is mutable under its lock.</p>
+         */
+        private record Batch(List<String> payloads) {
+        }
+    }
+
     /**
      * Request model for OpenAI responses API.
      *
@@ -0,0 +1,122 @@
+package com.datatrust360.processing;
+
+import java.util.Arrays;
+
+/**
+ * Streaming quantile estimator using the P-square algorithm (Jain and Chlamtac, 1985).
+ *
+ * <p>Importance: Tracks a quantile in five markers of fixed size, so per-series state stays
+ * constant and updates never allocate.</p>
+ * <p>Alternatives: t-digest or KLL sketches, but they allocate as they grow and need a
+ * dependency; one fixed quantile per estimator is all the scorer needs.</p>
+ *
+ * <p>Not thread-safe; callers synchronize per series.</p>
+ */
+final class P2Quantile {
+
+    private final double[] heights = new double[5];
+    private final double[] positions = new double[5];
+    private final double[] desired = new double[5];
+    private final double[] increments;
+    private int count;
+
+    /**
+     * Creates an estimator for quantile {@code p}.
+     *
+     * <p>Importance: The desired marker increments depend only on {@code p}.</p>
+     * <p>Alternatives: Estimate several quantiles per instance, but extended P-square needs
+     * more markers and is harder to verify.</p>
+     */
+    P2Quantile(double p) {
+        this.increments = new double[] {0, p / 2, p, (1 + p) / 2, 1};
+        this.desired[0] = 1;
+        this.desired[1] = 1 + 2 * p;
+        this.desired[2] = 1 + 4 * p;
+        this.desired[3] = 3 + 2 * p;
+        this.desired[4] = 5;
+    }
+
+    /**
+     * Adds an observation and adjusts the markers.
+     *
+     * <p>Importance: Constant time and allocation-free after construction.</p>
+     * <p>Alternatives: Keep a reservoir sample, but that needs memory per series proportional
+     * to the accuracy wanted.</p>
+     */
+    void add(double x) {
+        if (count < 5) {
+            heights[count++] = x;
+            if (count == 5) {
+                Arrays.sort(heights);
+                for (int i = 0; i < 5; i++) {
+                    positions[i] = i + 1;
+                }
+            }
+            return;
+        }
+        int cell;
+        if (x < heights[0]) {
+            heights[0] = x;
+            cell = 0;
+        } else if (x >= heights[4]) {
+            heights[4] = x;
+            cell = 3;
+        } else {
+            cell = 0;
+            while (x >= heights[cell + 1]) {
+                cell++;
+            }
+        }
+        for (int i = cell + 1; i < 5; i++) {
+            positions[i]++;
+        }
+        for (int i = 0; i < 5; i++) {
+            desired[i] += increments[i];
+        }
+        for (int i = 1; i < 4; i++) {
+            double offset = desired[i] - positions[i];
+            if ((offset >= 1 && positions[i + 1] - positions[i] > 1)
+                || (offset <= -1 && positions[i - 1] - positions[i] < -1)) {
+                int step = offset >= 0 ? 1 : -1;
+                double candidate = parabolic(i, step);
+                heights[i] = heights[i - 1] < candidate && candidate < heights[i + 1] ? candidate : linear(i, step);
+                positions[i] += step;
+            }
+        }
+        count++;
+    }
+
+    /**
+     * Returns the current estimate, or NaN before five observations.
+     *
+     * <p>Importance: Callers gate on sample count, so early estimates are never used.</p>
+     * <p>Alternatives: Sort the first samples on demand, but that allocates on the hot path.</p>
+     */
+    double value() {
+        return count < 5 ? Double.NaN : heights[2];
+    }
+
+    /**
+     * Piecewise-parabolic prediction of a marker height.
+     *
+     * <p>Importance: Keeps the middle marker accurate for skewed distributions.</p>
+     * <p>Alternatives: Linear interpolation only, but it converges more slowly.</p>
+     */
+    private double parabolic(int i, int step) {
+        double left = positions[i] - positions[i - 1];
+        double right = positions[i + 1] - positions[i];
+        return heights[i] + step / (positions[i + 1] - positions[i - 1])
+            * ((left + step) * (heights[i + 1] - heights[i]) / right
+            + (right - step) * (heights[i] - heights[i - 1]) / left);
+    }
+
+    /**
+     * Linear prediction used when the parabolic one would break marker order.
+     *
+     * <p>Importance: Guarantees the markers stay monotonic.</p>
+     * <p>Alternatives: Skip the adjustment, but markers would drift from their quantiles.</p>
+     */
+    private double linear(int i, int step) {
+        return heights[i] + step * (heights[i + step] - heights[i]) / (positions[i + step] - positions[i]);
+    }
+}
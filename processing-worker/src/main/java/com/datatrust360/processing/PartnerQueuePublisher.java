@@ -1,18 +1,58 @@
 package com.datatrust360.processing;
 
+import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.PipelineTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Publishes partner ingestion payloads to the anomaly scoring queue.
  *
  * <p>Importance: Keeps Kinesis ingestion aligned with the same async scoring pipeline.</p>
  * <p>Alternatives: Use separate queues for partner data, but a unified queue simplifies ops.</p>
+ *
+ * <p>Envelope metadata travels as AMQP headers so consumers can route and attribute a message
+ * without parsing its body.</p>
+ *
+ * <p>Messages are published in groups of {@code processing.rabbit.publish.batch-size} on one
+ * channel, each with its own correlation ID. Publisher confirms arrive asynchronously, so a
+ * group is written without waiting for the broker between messages.</p>
+ *
+ * <p>This is the default {@link ScoringQueue} ({@code processing.pipeline.mode=amqp}).</p>
  */
 @Component
-public class PartnerQueuePublisher {
+@ConditionalOnProperty(name = "processing.pipeline.mode", havingValue = "amqp", matchIfMissing = true)
+public class PartnerQueuePublisher implements ScoringQueue {
+
+    public static final String TENANT_ID_HEADER = "dt360-tenant-id";
+    public static final String SOURCE_HEADER = "dt360-source";
+    public static final String SCHEMA_VERSION_HEADER = "dt360-schema-version";
+    public static final String RECEIVED_AT_HEADER = "dt360-received-at-ms";
+
+    private static final Logger logger = LoggerFactory.getLogger(PartnerQueuePublisher.class);
 
     private final RabbitTemplate rabbitTemplate;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+    private final Counter ackedCounter;
+    private final Counter nackedCounter;
 
     /**
      * Creates the publisher with RabbitMQ dependency.
@@ -20,17 +60,134 @@ public class PartnerQueuePublisher {
      * <p>Importance: Enables reuse of queue publishing logic across pollers.</p>
      * <p>Alternatives: Publish directly from poller, but this keeps responsibilities clear.</p>
      */
-    public PartnerQueuePublisher(RabbitTemplate rabbitTemplate) {
+    public PartnerQueuePublisher(
+        RabbitTemplate rabbitTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${processing.rabbit.publish.batch-size:100}") int batchSize,
+        @Value("${processing.rabbit.publish.confirm-timeout-ms:10000}") long confirmTimeoutMs
+    ) {
         this.rabbitTemplate = rabbitTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.ackedCounter = meterRegistry.counter("dt360.rabbit.publish", "result", "acked");
+        this.nackedCounter = meterRegistry.counter("dt360.rabbit.publish", "result", "nacked");
+    }
+
+    /**
+     * Enqueues the raw payload for anomaly scoring with envelope metadata as headers.
+     *
+     * <p>Importance: Callers already parsed the envelope once, so its fields are copied into
+     * headers instead of being re-derived by every consumer.</p>
+     * <p>Alternatives: Wrap payload and metadata in a new JSON document, but consumers would
+     * still have to parse it to read the tenant.</p>
+     *
+     * <p>The confirm is not awaited; a nack or timeout is logged. Callers that must not move on
+     * before the broker has the message use {@link #enqueueAll} and wait on its result.</p>
+     */
+    @Override
+    public void enqueue(EventEnvelope envelope, String payload, PipelineTrace trace) {
+        enqueueAll(List.of(envelope), List.of(payload), List.of(trace)).whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                logger.warn("Scoring message for tenant {} was not confirmed", envelope.getTenantId(), ex);
+            }
+        });
+    }
+
+    /**
+     * Publishes events in groups and returns a future that completes when every one is confirmed.
+     *
+     * <p>Importance: One channel checkout per group and asynchronous confirms let a Kafka batch
+     * be published at broker speed while still knowing, before offsets are committed, that
+     * RabbitMQ accepted every message.</p>
+     * <p>Alternatives: {@code waitForConfirms} after each message, but that adds a broker
+     * round trip per event; a batching template that packs messages into one AMQP body, but
+     * it keeps only the first message's headers.</p>
+     *
+     * @param envelopes parsed envelopes, used for headers
+     * @param payloads raw JSON bodies, in the same order as {@code envelopes}
+     * @param traces timing headers per event, in the same order
+     * @return completes normally when all messages are acked; exceptionally on the first nack
+     *     or after {@code processing.rabbit.publish.confirm-timeout-ms}
+     */
+    @Override
+    public CompletableFuture<Void> enqueueAll(
+        List<EventEnvelope> envelopes, List<String> payloads, List<PipelineTrace> traces
+    ) {
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(envelopes.size());
+        for (int start = 0; start < envelopes.size(); start += batchSize) {
+            int from = start;
+            int to = Math.min(start + batchSize, envelopes.size());
+            rabbitTemplate.invoke(operations -> {
+                for (int i = from; i < to; i++) {
+                    confirms.add(send(operations, envelopes.get(i), payloads.get(i), traces.get(i)));
+                }
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(confirms.toArray(CompletableFuture[]::new))
+            .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends one message with a correlation ID and maps its confirm to a future.
+     *
+     * <p>Importance: Correlation ties each broker ack or nack to the message it belongs to.</p>
+     * <p>Alternatives: A template-wide confirm callback, but then callers cannot tell which
+     * of their batches a nack affects.</p>
+     */
+    private CompletableFuture<Void> send(
+        RabbitOperations operations, EventEnvelope envelope, String payload, PipelineTrace trace
+    ) {
+        CorrelationData correlation = new CorrelationData();
+        operations.send("", RabbitConfig.ANOMALY_QUEUE, toMessage(envelope, payload, trace), correlation);
+        return correlation.getFuture().thenAccept(confirm -> {
+            if (!confirm.isAck()) {
+                nackedCounter.increment();
+                throw new AmqpException("Broker rejected scoring message: " + confirm.getReason());
+            }
+            ackedCounter.increment();
+        });
+    }
+
+    /**
+     * Builds the AMQP message for an event.
+     *
+     * <p>Importance: Keeps the body as plain text so header-less consumers still receive
+     * the original JSON string.</p>
+     * <p>Alternatives: A JSON content type, but the default converter would then hand
+     * listeners bytes instead of a String.</p>
+     *
+     * <p>The ingest stamp and path are forwarded, and the publish time is stamped as the start
+     * of the queue stage.</p>
+     */
+    static Message toMessage(EventEnvelope envelope, String payload, PipelineTrace trace) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_TEXT_PLAIN);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setDeliveryMode(MessageProperties.DEFAULT_DELIVERY_MODE);
+        setHeader(properties, TENANT_ID_HEADER, envelope.getTenantId());
+        setHeader(properties, SOURCE_HEADER, envelope.getSource());
+        setHeader(properties, SCHEMA_VERSION_HEADER, envelope.getSchemaVersion());
+        if (envelope.getReceivedAt() != null) {
+            properties.setHeader(RECEIVED_AT_HEADER, envelope.getReceivedAt().toEpochMilli());
+        }
+        properties.setHeader(PipelineTiming.PATH_HEADER, trace.path());
+        if (trace.ingestMicros() > 0) {
+            properties.setHeader(PipelineTiming.INGEST_HEADER, trace.ingestMicros());
+        }
+        properties.setHeader(PipelineTiming.ENQUEUED_HEADER, PipelineTiming.nowMicros());
+        return new Message(payload.getBytes(StandardCharsets.UTF_8), properties);
     }
 
     /**
-     * Enqueues the payload for anomaly scoring.
+     * Sets a header only when the value is present.
      *
-     * <p>Importance: Keeps scoring async and resilient.</p>
-     * <p>Alternatives: Inline scoring, but async queues protect ingestion throughput.</p>
+     * <p>Importance: Absent headers let consumers tell missing metadata from empty strings.</p>
+     * <p>Alternatives: Write empty strings, but that hides missing tenant IDs.</p>
      */
-    public void enqueue(String payload) {
-        rabbitTemplate.convertAndSend(RabbitConfig.ANOMALY_QUEUE, payload);
+    private static void setHeader(MessageProperties properties, String name, String value) {
+        if (value != null) {
+            properties.setHeader(name, value);
+        }
     }
 }
@@ -0,0 +1,44 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.PipelineTiming;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Source path and ingest stamp of one event, carried from the ingest consumers to scoring.
+ *
+ * <p>Importance: Lets the scoring stage tag its timers by source path and measure end-to-end
+ * latency without re-reading broker headers it no longer has.</p>
+ * <p>Alternatives: Add timing fields to {@code EventEnvelope}, but they would then be
+ * serialized into stored events.</p>
+ *
+ * @param path source path tag: rest, grpc, kinesis, or unknown
+ * @param ingestMicros wall-clock epoch microseconds at ingest, or 0 when the event is untimed
+ */
+public record PipelineTrace(String path, long ingestMicros) {
+
+    /**
+     * Trace for events with no ingest stamp, such as retries and replays.
+     *
+     * <p>Importance: Their stages are still timed, but their end-to-end latency would include
+     * retry delays and is skipped.</p>
+     * <p>Alternatives: A null trace, but every consumer would then need a null check.</p>
+     */
+    public static final PipelineTrace UNTRACED = new PipelineTrace(PipelineTiming.PATH_UNKNOWN, 0);
+
+    /**
+     * Reads the trace that the ingest services' producer interceptor wrote to a Kafka record.
+     *
+     * <p>Importance: Keeps header names and decoding in one place for every Kafka consumer.</p>
+     * <p>Alternatives: Spring's header mapper, but batch listeners receive raw records.</p>
+     */
+    public static PipelineTrace fromKafka(Headers headers) {
+        Header ingest = headers.lastHeader(PipelineTiming.INGEST_HEADER);
+        if (ingest == null) {
+            return UNTRACED;
+        }
+        Header path = headers.lastHeader(PipelineTiming.PATH_HEADER);
+        return new PipelineTrace(PipelineTiming.decodePath(path == null ? null : path.value()),
+            PipelineTiming.decode(ingest.value()));
+    }
+}
@@ -0,0 +1,152 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.storage.grpc.BatchAck;
+import io.grpc.stub.StreamObserver;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Long-lived bidirectional stream that pipelines batches and matches acks by batch id.
+ *
+ * <p>Importance: Concurrent callers share one HTTP/2 stream and never wait for each other's
+ * acks before sending, so storage round trips overlap instead of queuing.</p>
+ * <p>Alternatives: A unary call per batch, but each call pays stream setup and headers.</p>
+ *
+ * <p>The stream is opened lazily and reopened on the next send after it fails; batches pending
+ * on a failed stream complete exceptionally so callers can retry.</p>
+ */
+final class PipelinedBatchStream<T> {
+
+    private final Function<StreamObserver<BatchAck>, StreamObserver<T>> opener;
+    private final long ackTimeoutMs;
+    private Session session;
+
+    /**
+     * Creates the stream wrapper.
+     *
+     * <p>Importance: Takes the stub method so events and audits share one implementation.</p>
+     * <p>Alternatives: Subclass per RPC, but only the opener differs.</p>
+     *
+     * @param opener stub method that starts the call, e.g. {@code stub::persistEvents}
+     */
+    PipelinedBatchStream(Function<StreamObserver<BatchAck>, StreamObserver<T>> opener, long ackTimeoutMs) {
+        this.opener = opener;
+        this.ackTimeoutMs = ackTimeoutMs;
+    }
+
+    /**
+     * Sends a batch and returns a future completed by its ack.
+     *
+     * <p>Importance: The monitor serializes writes to the request observer, which gRPC requires,
+     * while waiting for acks happens outside it.</p>
+     * <p>Alternatives: A writer thread with a queue, but sends are already non-blocking.</p>
+     */
+    CompletableFuture<BatchAck> send(long batchId, T batch) {
+        CompletableFuture<BatchAck> future = new CompletableFuture<BatchAck>()
+            .orTimeout(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        synchronized (this) {
+            if (session == null) {
+                session = new Session();
+            }
+            Session current = session;
+            current.pending.put(batchId, future);
+            future.whenComplete((ack, ex) -> current.pending.remove(batchId));
+            try {
+                current.requests.onNext(batch);
+            } catch (RuntimeException ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Half-closes the current stream.
+     *
+     * <p>Importance: Lets the server finish cleanly on shutdown.</p>
+     * <p>Alternatives: Cancel the call, but that could drop acks for in-flight batches.</p>
+     */
+    synchronized void close() {
+        if (session != null) {
+            session.requests.onCompleted();
+            session = null;
+        }
+    }
+
+    /**
+     * Detaches a failed session so the next send opens a fresh stream.
+     *
+     * <p>Importance: Only the current session is cleared, so a late failure of an old stream
+     * cannot discard a newer one.</p>
+     * <p>Alternatives: Reconnect eagerly, but idle workers would then hold streams for nothing.</p>
+     */
+    private synchronized void detach(Session failed) {
+        if (session == failed) {
+            session = null;
+        }
+    }
+
+    /**
+     * One gRPC call and the batches awaiting acks on it.
+     *
+     * <p>Importance: Scoping pending batches to a call lets a failure fail exactly those batches.</p>
+     * <p>Alternatives: One global pending map, but then reconnects would mix generations.</p>
+     */
+    private final class Session implements StreamObserver<BatchAck> {
+
+        private final Map<Long, CompletableFuture<BatchAck>> pending = new ConcurrentHashMap<>();
+        private final StreamObserver<T> requests;
+
+        /**
+         * Opens the call with this session as the ack observer.
+         *
+         * <p>Importance: Acks route straight to the matching pending future.</p>
+         * <p>Alternatives: A separate observer object, but it would need this map anyway.</p>
+         */
+        Session() {
+            this.requests = opener.apply(this);
+        }
+
+        /**
+         * Completes the pending future for an ack.
+         *
+         * <p>Importance: Unknown ids belong to timed-out batches and are ignored.</p>
+         * <p>Alternatives: Fail on unknown ids, but timeouts make them expected.</p>
+         */
+        @Override
+        public void onNext(BatchAck ack) {
+            CompletableFuture<BatchAck> future = pending.remove(ack.getBatchId());
+            if (future != null) {
+                future.complete(ack);
+            }
+        }
+
+        /**
+         * Fails every pending batch after detaching the session.
+         *
+         * <p>Importance: Detaching first guarantees later sends use a new stream, and failing
+         * afterwards catches batches added just before the detach.</p>
+         * <p>Alternatives: Retry pending batches here, but callers own retry and offset decisions.</p>
+         */
+        @Override
+        public void onError(Throwable t) {
+            detach(this);
+            pending.values().forEach(future -> future.completeExceptionally(t));
+        }
+
+        /**
+         * Treats a server-side completion as a failure for anything still pending.
+         *
+         * <p>Importance: A server restart must not leave callers waiting for the timeout.</p>
+         * <p>Alternatives: Ignore, but pending batches would hang until timeout.</p>
+         */
+        @Override
+        public void onCompleted() {
+            onError(new IllegalStateException("Storage write stream closed by server"));
+        }
+    }
+}
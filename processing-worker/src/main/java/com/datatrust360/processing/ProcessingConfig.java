@@ -1,14 +1,19 @@
 package com.datatrust360.processing;
 
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.kinesis.KinesisClient;
 import software.amazon.awssdk.services.kinesis.KinesisClientBuilder;
 
 import java.net.URI;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Configuration for HTTP clients used by the processing worker.
@@ -32,6 +37,26 @@ public class ProcessingConfig {
             .build();
     }
 
+    /**
+     * Builds the gRPC channel for storage-service's internal write API.
+     *
+     * <p>Importance: One long-lived HTTP/2 connection carries every storage stream, and
+     * keepalives detect dead peers before writes time out.</p>
+     * <p>Alternatives: Let the gRPC Spring starter manage channels, but a plain bean matches
+     * how the other clients in this module are built.</p>
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "processing.storage.transport", havingValue = "grpc", matchIfMissing = true)
+    public ManagedChannel storageChannel(
+        @Value("${processing.storage.grpc.target:localhost:9093}") String target,
+        @Value("${processing.storage.grpc.keepalive-seconds:30}") long keepaliveSeconds
+    ) {
+        return ManagedChannelBuilder.forTarget(target)
+            .usePlaintext()
+            .keepAliveTime(keepaliveSeconds, TimeUnit.SECONDS)
+            .build();
+    }
+
     /**
      * Builds a Kinesis client with optional endpoint override.
      *
@@ -51,16 +76,23 @@ public class ProcessingConfig {
     /**
      * Builds a RestClient for OpenAI API calls.
      *
-     * <p>Importance: Centralizes external AI configuration and auth.</p>
+     * <p>Importance: Centralizes external AI configuration and auth. Timeouts bound how long
+     * a slow upstream can hold a bulkhead thread and its permit.</p>
      * <p>Alternatives: Use per-call headers, but a configured client reduces duplication.</p>
      */
     @Bean
     public RestClient openAiRestClient(
         @Value("${processing.openai.base-url:https://api.openai.com}") String baseUrl,
-        @Value("${processing.openai.api-key:}") String apiKey
+        @Value("${processing.openai.api-key:}") String apiKey,
+        @Value("${processing.openai.connect-timeout-ms:2000}") int connectTimeoutMs,
+        @Value("${processing.openai.read-timeout-ms:20000}") int readTimeoutMs
     ) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
         return RestClient.builder()
             .baseUrl(baseUrl)
+            .requestFactory(requestFactory)
             .defaultHeader("Authorization", "Bearer " + apiKey)
             .build();
     }
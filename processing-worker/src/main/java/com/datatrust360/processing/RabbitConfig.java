@@ -1,6 +1,15 @@
 package com.datatrust360.processing;
 
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,11 +18,22 @@ import org.springframework.context.annotation.Configuration;
  *
  * <p>Importance: Defines durable queues for anomaly scoring workloads.</p>
  * <p>Alternatives: Use Kafka for async jobs, but RabbitMQ is optimized for work queues.</p>
+ *
+ * <p>Rejected scoring messages are dead-lettered through {@code dt360.anomaly.dlx} to a retry
+ * queue whose TTL returns them to the scoring queue after a delay, so the broker does the
+ * waiting. Messages that keep failing are moved to a parking queue for replay. Adding the
+ * dead-letter arguments to an existing {@code dt360.anomaly.scoring} queue requires deleting
+ * it once, or setting them through a broker policy instead.</p>
  */
 @Configuration
 public class RabbitConfig {
 
     public static final String ANOMALY_QUEUE = "dt360.anomaly.scoring";
+    public static final String ANOMALY_DLX = "dt360.anomaly.dlx";
+    public static final String ANOMALY_RETRY_QUEUE = "dt360.anomaly.scoring.retry";
+    public static final String ANOMALY_PARKING_QUEUE = "dt360.anomaly.scoring.parking";
+    public static final String SCORING_LISTENER_ID = "anomaly-scoring";
+    public static final String SCORING_CONTAINER_FACTORY = "scoringListenerContainerFactory";
 
     /**
      * Declares the anomaly scoring queue.
@@ -23,6 +43,94 @@ public class RabbitConfig {
      */
     @Bean
     public Queue anomalyQueue() {
-        return new Queue(ANOMALY_QUEUE, true);
+        return QueueBuilder.durable(ANOMALY_QUEUE)
+            .deadLetterExchange(ANOMALY_DLX)
+            .build();
+    }
+
+    /**
+     * Declares the exchange that receives rejected scoring messages.
+     *
+     * <p>Importance: Rejection becomes a broker-side hand-off, so the listener never waits.</p>
+     * <p>Alternatives: Republish failures from the listener, but that is a second publish
+     * that can itself fail.</p>
+     */
+    @Bean
+    public DirectExchange anomalyDeadLetterExchange() {
+        return new DirectExchange(ANOMALY_DLX, true, false);
+    }
+
+    /**
+     * Declares the delay queue that returns rejected messages to the scoring queue.
+     *
+     * <p>Importance: The message TTL is the retry delay, and expiry dead-letters the message
+     * back through the default exchange.</p>
+     * <p>Alternatives: The delayed-message plugin, but it is not installed on stock brokers.</p>
+     */
+    @Bean
+    public Queue anomalyRetryQueue(@Value("${processing.rabbit.retry.delay-ms:30000}") int delayMs) {
+        return QueueBuilder.durable(ANOMALY_RETRY_QUEUE)
+            .ttl(delayMs)
+            .deadLetterExchange("")
+            .deadLetterRoutingKey(ANOMALY_QUEUE)
+            .build();
+    }
+
+    /**
+     * Routes dead-lettered scoring messages into the retry queue.
+     *
+     * <p>Importance: Dead-lettering keeps the original routing key, which this binding matches.</p>
+     * <p>Alternatives: A fanout exchange, but a direct binding leaves room for other queues.</p>
+     */
+    @Bean
+    public Binding anomalyRetryBinding(Queue anomalyRetryQueue, DirectExchange anomalyDeadLetterExchange) {
+        return BindingBuilder.bind(anomalyRetryQueue).to(anomalyDeadLetterExchange).with(ANOMALY_QUEUE);
+    }
+
+    /**
+     * Declares the parking queue for messages that exhausted their retries.
+     *
+     * <p>Importance: Keeps poison messages out of the retry loop until an operator replays them.</p>
+     * <p>Alternatives: Drop them, but a scorer fix could not then be applied to them.</p>
+     */
+    @Bean
+    public Queue anomalyParkingQueue() {
+        return QueueBuilder.durable(ANOMALY_PARKING_QUEUE).build();
+    }
+
+    /**
+     * Creates the listener container factory for batch consumption of the scoring queue.
+     *
+     * <p>Importance: Delivering up to {@code batch-size} messages per listener call, with a
+     * prefetch deep enough to keep every consumer fed, amortizes per-message dispatch and ack
+     * overhead across the batch.</p>
+     * <p>Alternatives: The auto-configured factory with one message per call, but at scoring
+     * rates dispatch and acks cost more than the scoring itself.</p>
+     *
+     * <p>Acknowledgement is manual so one failed message in a batch is rejected on its own
+     * while the rest are acknowledged together. Starts with {@code min-concurrency} consumers;
+     * {@link ScoringConsumerScaler} adjusts the count from queue depth, so the container's own
+     * activity-based scaling is not used.</p>
+     */
+    @Bean(SCORING_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory scoringListenerContainerFactory(
+        SimpleRabbitListenerContainerFactoryConfigurer configurer,
+        ConnectionFactory connectionFactory,
+        @Value("${processing.rabbit.consumer.prefetch:250}") int prefetch,
+        @Value("${processing.rabbit.consumer.batch-size:50}") int batchSize,
+        @Value("${processing.rabbit.consumer.receive-timeout-ms:200}") long receiveTimeoutMs,
+        @Value("${processing.rabbit.consumer.min-concurrency:1}") int minConcurrency
+    ) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(minConcurrency);
+        factory.setMaxConcurrentConsumers(null);
+        return factory;
     }
 }
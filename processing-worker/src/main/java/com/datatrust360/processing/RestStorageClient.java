@@ -0,0 +1,80 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.AuditLogRequest;
+import com.datatrust360.common.EventEnvelope;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+
+/**
+ * REST implementation of the storage client, kept as a fallback transport.
+ *
+ * <p>Importance: Works with any storage-service deployment and standard HTTP tooling, and is
+ * selected with {@code processing.storage.transport=rest}.</p>
+ * <p>Alternatives: Remove it in favor of gRPC, but a fallback eases rollouts and debugging.</p>
+ */
+@Service
+@ConditionalOnProperty(name = "processing.storage.transport", havingValue = "rest")
+public class RestStorageClient implements StorageClient {
+
+    private final RestClient restClient;
+
+    /**
+     * Creates the client with a preconfigured RestClient.
+     *
+     * <p>Importance: Allows consistent base URL configuration and easier mocking.</p>
+     * <p>Alternatives: Build the RestClient here, but configuration should be centralized.</p>
+     */
+    public RestStorageClient(RestClient storageRestClient) {
+        this.restClient = storageRestClient;
+    }
+
+    /**
+     * Persists an event payload in the storage service.
+     *
+     * <p>Importance: Captures raw events for investigation and long-term analysis.</p>
+     * <p>Alternatives: Store only scored results, but raw payloads are needed for forensics.</p>
+     */
+    @Override
+    public void persistEvent(EventEnvelope envelope) {
+        restClient.post()
+            .uri("/api/v1/storage/events")
+            .body(envelope)
+            .retrieve()
+            .toBodilessEntity();
+    }
+
+    /**
+     * Persists a batch of events with one call to the storage bulk endpoint.
+     *
+     * <p>Importance: One HTTP round trip and one unordered Mongo bulk insert per Kafka batch;
+     * returns only after storage acknowledged the write.</p>
+     * <p>Alternatives: Call {@link #persistEvent} per event, but throughput is then bounded
+     * by per-request latency.</p>
+     */
+    @Override
+    public void persistEvents(List<EventEnvelope> envelopes) {
+        restClient.post()
+            .uri("/api/v1/storage/events:bulk")
+            .body(envelopes)
+            .retrieve()
+            .toBodilessEntity();
+    }
+
+    /**
+     * Persists an audit log entry in the storage service.
+     *
+     * <p>Importance: Records insights and security-relevant events for compliance.</p>
+     * <p>Alternatives: Store audits locally, but centralized storage enables reporting.</p>
+     */
+    @Override
+    public void persistAudit(AuditLogRequest request) {
+        restClient.post()
+            .uri("/api/v1/storage/audit")
+            .body(request)
+            .retrieve()
+            .toBodilessEntity();
+    }
+}
@@ -0,0 +1,142 @@
+package com.datatrust360.processing;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer, multi-consumer ring buffer.
+ *
+ * <p>Importance: Ingest threads hand events to scoring threads with one CAS per side and no
+ * lock, allocation, or context switch, which is the point of skipping the broker.</p>
+ * <p>Alternatives: {@code ArrayBlockingQueue}, but its single lock is shared by producers and
+ * consumers; the LMAX Disruptor, but it is a new dependency for one queue.</p>
+ *
+ * <p>Each slot carries a sequence number that tells a producer the slot is free for its lap
+ * and a consumer that it has been filled. Capacity is rounded up to a power of two.</p>
+ */
+final class RingBuffer<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Creates an empty buffer.
+     *
+     * <p>Importance: The fixed capacity is what applies backpressure to producers.</p>
+     * <p>Alternatives: An unbounded queue, but a slow scorer would then grow the heap.</p>
+     */
+    RingBuffer(int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 2 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an item if there is room.
+     *
+     * <p>Importance: Never blocks, so callers choose their own wait strategy.</p>
+     * <p>Alternatives: Park inside the buffer, but then every caller shares one policy.</p>
+     *
+     * @return false if the buffer is full
+     */
+    boolean offer(T item) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, item);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest item, or returns null if the buffer is empty.
+     *
+     * <p>Importance: Clearing the slot lets the payload be collected before the slot is reused.</p>
+     * <p>Alternatives: Leave the reference in place, but a large buffer would then pin old payloads.</p>
+     */
+    T poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    T item = slots.get(index);
+                    slots.lazySet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return item;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * Moves up to {@code max} items into {@code sink}.
+     *
+     * <p>Importance: Consumers score a batch per wake-up instead of one event.</p>
+     * <p>Alternatives: Claim a range with one CAS, but ranges can straddle slots that producers
+     * have claimed and not yet filled.</p>
+     *
+     * @return the number of items moved
+     */
+    int drainTo(List<? super T> sink, int max) {
+        int count = 0;
+        while (count < max) {
+            T item = poll();
+            if (item == null) {
+                break;
+            }
+            sink.add(item);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the approximate number of buffered items.
+     *
+     * <p>Importance: Backs the fill-level gauge.</p>
+     * <p>Alternatives: An exact counter, but that adds a contended write per item.</p>
+     */
+    int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head.get(), mask + 1L));
+    }
+
+    /**
+     * Returns the slot count after rounding.
+     *
+     * <p>Importance: Lets callers report the real capacity.</p>
+     * <p>Alternatives: Report the requested capacity, but it may differ after rounding.</p>
+     */
+    int capacity() {
+        return mask + 1;
+    }
+}
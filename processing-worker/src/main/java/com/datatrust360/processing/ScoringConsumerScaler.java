@@ -0,0 +1,119 @@
+package com.datatrust360.processing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scales the scoring listener's consumer count between configured bounds from queue depth.
+ *
+ * <p>Importance: A backlog on {@code dt360.anomaly.scoring} gets more consumers within one
+ * interval, and idle pods give threads and prefetched messages back once it drains.</p>
+ * <p>Alternatives: The container's built-in scaling, but it reacts to per-consumer activity
+ * rather than to the backlog, and it adds consumers one interval at a time.</p>
+ *
+ * <p>Scale-up jumps straight to the target; scale-down steps by one consumer per interval so
+ * a brief lull does not cancel prefetched batches.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "processing.pipeline.mode", havingValue = "amqp", matchIfMissing = true)
+public class ScoringConsumerScaler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoringConsumerScaler.class);
+
+    private final RabbitListenerEndpointRegistry registry;
+    private final AmqpAdmin amqpAdmin;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final int messagesPerConsumer;
+    private final AtomicInteger consumers;
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    /**
+     * Creates the scaler with the listener registry and broker admin.
+     *
+     * <p>Importance: The registry resolves the running container by ID at each tick, so the
+     * scaler does not depend on listener startup order.</p>
+     * <p>Alternatives: Inject the container directly, but annotated listener containers are
+     * not beans.</p>
+     */
+    public ScoringConsumerScaler(
+        RabbitListenerEndpointRegistry registry,
+        AmqpAdmin amqpAdmin,
+        MeterRegistry meterRegistry,
+        @Value("${processing.rabbit.consumer.min-concurrency:1}") int minConcurrency,
+        @Value("${processing.rabbit.consumer.max-concurrency:8}") int maxConcurrency,
+        @Value("${processing.rabbit.consumer.messages-per-consumer:500}") int messagesPerConsumer
+    ) {
+        this.registry = registry;
+        this.amqpAdmin = amqpAdmin;
+        this.minConcurrency = Math.max(1, minConcurrency);
+        this.maxConcurrency = Math.max(this.minConcurrency, maxConcurrency);
+        this.messagesPerConsumer = Math.max(1, messagesPerConsumer);
+        this.consumers = new AtomicInteger(this.minConcurrency);
+        meterRegistry.gauge("dt360.rabbit.scoring.consumers", consumers);
+        meterRegistry.gauge("dt360.rabbit.scoring.queue.depth", queueDepth);
+    }
+
+    /**
+     * Reads the queue depth and applies the resulting consumer count.
+     *
+     * <p>Importance: Keeps consumer count proportional to the backlog without operator input.</p>
+     * <p>Alternatives: Scale pods only, but adding consumers in a running pod is much faster.</p>
+     */
+    @Scheduled(fixedDelayString = "${processing.rabbit.consumer.scale-interval-ms:5000}")
+    public void scale() {
+        MessageListenerContainer container = registry.getListenerContainer(RabbitConfig.SCORING_LISTENER_ID);
+        if (!(container instanceof SimpleMessageListenerContainer simple) || !container.isRunning()) {
+            return;
+        }
+        try {
+            QueueInformation info = amqpAdmin.getQueueInfo(RabbitConfig.ANOMALY_QUEUE);
+            if (info == null) {
+                return;
+            }
+            queueDepth.set(info.getMessageCount());
+            int current = consumers.get();
+            int target = targetConsumers(info.getMessageCount(), current, minConcurrency, maxConcurrency,
+                messagesPerConsumer);
+            if (target != current) {
+                simple.setConcurrentConsumers(target);
+                consumers.set(target);
+                logger.info("Scaled scoring consumers from {} to {} at queue depth {}",
+                    current, target, info.getMessageCount());
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to scale scoring consumers", ex);
+        }
+    }
+
+    /**
+     * Computes the next consumer count for a queue depth.
+     *
+     * <p>Importance: Pure so the scaling policy can be tested without a broker.</p>
+     * <p>Alternatives: Inline in {@link #scale()}, but then only integration tests cover it.</p>
+     *
+     * @return one consumer per {@code messagesPerConsumer} queued, clamped to the bounds;
+     *     decreases are limited to one consumer per call
+     */
+    static int targetConsumers(long depth, int current, int min, int max, int messagesPerConsumer) {
+        long wanted = (depth + messagesPerConsumer - 1) / messagesPerConsumer;
+        int target = (int) Math.max(min, Math.min(max, wanted));
+        if (target < current) {
+            return Math.max(target, current - 1);
+        }
+        return target;
+    }
+}
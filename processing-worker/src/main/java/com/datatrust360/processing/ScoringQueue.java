@@ -0,0 +1,45 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.EventEnvelope;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hand-off from the ingest consumers to the anomaly scoring stage.
+ *
+ * <p>Importance: Lets Kafka and Kinesis consumers stay unaware of whether scoring runs behind
+ * RabbitMQ or in the same process.</p>
+ * <p>Alternatives: Branch on the pipeline mode in each consumer, but that duplicates the
+ * choice and its configuration in two places.</p>
+ *
+ * <p>Selected with {@code processing.pipeline.mode}: {@code amqp} (default) uses
+ * {@link PartnerQueuePublisher}, {@code in-process} uses {@link InProcessScoringQueue}. Both
+ * carry each event's {@link PipelineTrace} so scoring can record queue and end-to-end latency.</p>
+ */
+public interface ScoringQueue {
+
+    /**
+     * Hands one event to the scoring stage without waiting for it to be accepted.
+     *
+     * <p>Importance: Suits callers that log and move on when a hand-off fails.</p>
+     * <p>Alternatives: Always return a future, but single-event callers would ignore it.</p>
+     */
+    void enqueue(EventEnvelope envelope, String payload, PipelineTrace trace);
+
+    /**
+     * Hands a batch to the scoring stage.
+     *
+     * <p>Importance: Callers that commit source offsets wait on the result, so offsets never
+     * pass events the scoring stage has not accepted.</p>
+     * <p>Alternatives: Block inside the call, but publisher confirms arrive asynchronously.</p>
+     *
+     * @param envelopes parsed envelopes, used for tenant and source
+     * @param payloads raw JSON bodies, in the same order as {@code envelopes}
+     * @param traces source path and ingest stamp per event, in the same order
+     * @return completes when every event is accepted, exceptionally otherwise
+     */
+    CompletableFuture<Void> enqueueAll(
+        List<EventEnvelope> envelopes, List<String> payloads, List<PipelineTrace> traces
+    );
+}
@@ -0,0 +1,128 @@
+package com.datatrust360.processing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalescing, asynchronous checkpoint writer for the shards this worker owns.
+ *
+ * <p>Importance: Shard loops record their position after every batch without a database
+ * round trip; a periodic flush writes only the newest sequence number per shard.</p>
+ * <p>Alternatives: Write after every batch, but at a 200 ms poll delay that is five writes
+ * per second per shard for positions that are immediately superseded.</p>
+ *
+ * <p>A crash loses at most one flush interval of positions, which are then re-read.
+ * This keeps delivery at-least-once.</p>
+ *
+ * <p>Every write is guarded by lease ownership. A write that matches no row means another
+ * worker stole the lease; the shard is then marked lost so its loop stops before its next
+ * fetch, instead of reading on until the next rebalance round.</p>
+ */
+class ShardCheckpointer {
+
+    /**
+     * Checkpoint value for a closed shard that was read to its end.
+     *
+     * <p>Importance: Child shards start only after their parents carry this marker.</p>
+     * <p>Alternatives: Delete the lease row, but then the shard would look new and be re-read.</p>
+     */
+    static final String SHARD_END = "SHARD_END";
+
+    private final ShardLeaseTable leaseTable;
+    private final String streamName;
+    private final String workerId;
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+    private final Set<String> lost = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a checkpointer for one worker and stream.
+     *
+     * <p>Importance: Writes are guarded by this worker's ownership of each lease.</p>
+     * <p>Alternatives: A shared bean, but the worker identity lives in the poller.</p>
+     */
+    ShardCheckpointer(ShardLeaseTable leaseTable, String streamName, String workerId) {
+        this.leaseTable = leaseTable;
+        this.streamName = streamName;
+        this.workerId = workerId;
+    }
+
+    /**
+     * Records the last processed sequence number of a shard for the next flush.
+     *
+     * <p>Importance: Constant-time and lock-free, so it never slows a shard loop.</p>
+     * <p>Alternatives: A queue of positions, but only the newest one matters.</p>
+     */
+    void record(String shardId, String sequenceNumber) {
+        pending.put(shardId, sequenceNumber);
+    }
+
+    /**
+     * Durably marks a shard as fully consumed.
+     *
+     * <p>Importance: Written synchronously because child shards wait for it.</p>
+     * <p>Alternatives: Defer to the next flush, but that delays children for no benefit.</p>
+     */
+    void markShardEnd(String shardId) {
+        pending.remove(shardId);
+        if (!leaseTable.checkpoint(streamName, shardId, workerId, SHARD_END)) {
+            lost.add(shardId);
+        }
+    }
+
+    /**
+     * Writes every pending checkpoint in one batch and returns the shards found to be lost.
+     *
+     * <p>Importance: Positions recorded during the write stay pending for the next flush.</p>
+     * <p>Alternatives: Clear the map up front, but a failed write would then lose positions.</p>
+     */
+    List<String> flush() {
+        Map<String, String> snapshot = Map.copyOf(pending);
+        if (snapshot.isEmpty()) {
+            return List.of();
+        }
+        List<String> stolen = leaseTable.checkpointAll(streamName, workerId, snapshot);
+        snapshot.forEach(pending::remove);
+        lost.addAll(stolen);
+        return stolen;
+    }
+
+    /**
+     * Writes the pending checkpoint of one shard before its lease is given up.
+     *
+     * <p>Importance: The next owner resumes exactly where this worker stopped.</p>
+     * <p>Alternatives: Flush everything, but releases happen one shard at a time.</p>
+     */
+    void flush(String shardId) {
+        String sequenceNumber = pending.get(shardId);
+        if (sequenceNumber != null) {
+            if (!leaseTable.checkpoint(streamName, shardId, workerId, sequenceNumber)) {
+                lost.add(shardId);
+            }
+            pending.remove(shardId, sequenceNumber);
+        }
+    }
+
+    /**
+     * Returns whether no checkpoint write has found the shard's lease taken by another worker.
+     *
+     * <p>Importance: Shard loops check this before every fetch, so a stolen shard stops within
+     * one flush interval instead of one rebalance interval.</p>
+     * <p>Alternatives: Query the lease row before each fetch, but that is a database round trip
+     * per poll per shard.</p>
+     */
+    boolean owns(String shardId) {
+        return !lost.contains(shardId);
+    }
+
+    /**
+     * Clears the lost mark when this worker takes the shard's lease again.
+     *
+     * <p>Importance: A shard that comes back after a steal must be allowed to run.</p>
+     * <p>Alternatives: Keep marks per lease counter, but the owner guard already covers races.</p>
+     */
+    void acquired(String shardId) {
+        lost.remove(shardId);
+    }
+}
@@ -0,0 +1,224 @@
+package com.datatrust360.processing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.kinesis.KinesisClient;
+import software.amazon.awssdk.services.kinesis.model.ExpiredIteratorException;
+import software.amazon.awssdk.services.kinesis.model.GetRecordsRequest;
+import software.amazon.awssdk.services.kinesis.model.GetRecordsResponse;
+import software.amazon.awssdk.services.kinesis.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.kinesis.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.kinesis.model.Record;
+import software.amazon.awssdk.services.kinesis.model.ShardIteratorType;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Polling loop for one leased Kinesis shard.
+ *
+ * <p>Importance: Each shard advances on its own thread, so a slow or backlogged shard no
+ * longer delays the others and the poll rate can follow each shard's lag.</p>
+ * <p>Alternatives: Enhanced fan-out subscriptions, but they cost per consumer-shard hour and
+ * need the async client.</p>
+ *
+ * <p>The delay between polls drops to the minimum while the shard is behind or returned a full
+ * page, and doubles up to the maximum while it is idle.</p>
+ *
+ * <p>The loop resumes {@code AFTER_SEQUENCE_NUMBER} of its checkpoint and records a new one
+ * after each handled batch. Before each fetch it checks that no checkpoint write has found its
+ * lease stolen. An expired iterator is re-requested from the last handled sequence
+ * number. A closed shard is marked {@code SHARD_END} once read to its end.</p>
+ */
+class ShardConsumer implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardConsumer.class);
+
+    private final KinesisClient kinesisClient;
+    private final String streamName;
+    private final String shardId;
+    private final Consumer<List<Record>> handler;
+    private final ShardCheckpointer checkpointer;
+    private final ShardIteratorType initialPosition;
+    private final PollSettings settings;
+    private String lastSequenceNumber;
+    private volatile boolean running = true;
+    private volatile boolean finished;
+    private volatile long millisBehindLatest;
+
+    /**
+     * Creates a consumer for one shard.
+     *
+     * <p>Importance: The handler keeps record processing in the poller, shared by all shards.</p>
+     * <p>Alternatives: Pass storage and queue clients here, but that duplicates the pipeline.</p>
+     *
+     * @param checkpoint stored position to resume after, or null to start at {@code initialPosition}
+     */
+    ShardConsumer(
+        KinesisClient kinesisClient,
+        String streamName,
+        String shardId,
+        String checkpoint,
+        ShardIteratorType initialPosition,
+        Consumer<List<Record>> handler,
+        ShardCheckpointer checkpointer,
+        PollSettings settings
+    ) {
+        this.kinesisClient = kinesisClient;
+        this.streamName = streamName;
+        this.shardId = shardId;
+        this.lastSequenceNumber = checkpoint;
+        this.initialPosition = initialPosition;
+        this.handler = handler;
+        this.checkpointer = checkpointer;
+        this.settings = settings;
+    }
+
+    /**
+     * Polls the shard until it is stopped, interrupted, or closed by a reshard.
+     *
+     * <p>Importance: Errors only slow this shard down; they never end the loop. A handler that
+     * throws leaves the checkpoint where it was, and the batch is fetched again from there.</p>
+     * <p>Alternatives: Let exceptions end the task, but then a transient error drops the shard
+     * until its lease is rebalanced.</p>
+     */
+    @Override
+    public void run() {
+        if (ShardCheckpointer.SHARD_END.equals(lastSequenceNumber)) {
+            finished = true;
+            return;
+        }
+        long delayMs = settings.minDelayMs();
+        String iterator = null;
+        while (running && !Thread.currentThread().isInterrupted()) {
+            if (!checkpointer.owns(shardId)) {
+                logger.info("Kinesis shard {} was taken by another worker, stopping", shardId);
+                return;
+            }
+            try {
+                if (iterator == null) {
+                    iterator = shardIterator();
+                }
+                GetRecordsResponse response = kinesisClient.getRecords(
+                    GetRecordsRequest.builder()
+                        .shardIterator(iterator)
+                        .limit(settings.maxRecords())
+                        .build()
+                );
+                List<Record> records = response.records();
+                handler.accept(records);
+                if (!records.isEmpty()) {
+                    lastSequenceNumber = records.get(records.size() - 1).sequenceNumber();
+                    checkpointer.record(shardId, lastSequenceNumber);
+                }
+                millisBehindLatest = response.millisBehindLatest() == null ? 0L : response.millisBehindLatest();
+                String next = response.nextShardIterator();
+                if (next == null) {
+                    checkpointer.markShardEnd(shardId);
+                    finished = true;
+                    logger.info("Kinesis shard {} is closed and fully consumed", shardId);
+                    return;
+                }
+                iterator = next;
+                delayMs = nextDelay(delayMs, records.size(), millisBehindLatest, settings);
+            } catch (ExpiredIteratorException ex) {
+                iterator = null;
+                delayMs = settings.minDelayMs();
+                logger.info("Shard iterator for {} expired, resuming after {}", shardId, lastSequenceNumber);
+            } catch (ProvisionedThroughputExceededException ex) {
+                delayMs = Math.min(settings.maxDelayMs(), delayMs * 2);
+                logger.debug("Read throughput exceeded on shard {}, backing off to {} ms", shardId, delayMs);
+            } catch (RuntimeException ex) {
+                iterator = null;
+                delayMs = settings.maxDelayMs();
+                logger.error("Failed to poll Kinesis shard {}, resuming after {}", shardId, lastSequenceNumber, ex);
+            }
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Computes the delay before the next poll from the last response.
+     *
+     * <p>Importance: Backlogged shards are drained at the per-shard read limit while idle
+     * shards stop spending GetRecords calls.</p>
+     * <p>Alternatives: A fixed delay, but it either wastes calls or lets lag grow.</p>
+     */
+    static long nextDelay(long previousMs, int records, long millisBehindLatest, PollSettings settings) {
+        if (records >= settings.maxRecords() || millisBehindLatest > settings.caughtUpMs()) {
+            return settings.minDelayMs();
+        }
+        if (records > 0) {
+            return Math.max(settings.minDelayMs(), previousMs / 2);
+        }
+        return Math.min(settings.maxDelayMs(), Math.max(settings.minDelayMs(), previousMs * 2));
+    }
+
+    /**
+     * Requests an iterator just after the last handled record, or at the initial position.
+     *
+     * <p>Importance: Restarts, lease moves, and expired iterators resume where processing
+     * stopped instead of replaying the retention window.</p>
+     * <p>Alternatives: Cache iterators, but they expire after five minutes.</p>
+     */
+    private String shardIterator() {
+        GetShardIteratorRequest.Builder request = GetShardIteratorRequest.builder()
+            .streamName(streamName)
+            .shardId(shardId);
+        if (lastSequenceNumber != null) {
+            request.shardIteratorType(ShardIteratorType.AFTER_SEQUENCE_NUMBER)
+                .startingSequenceNumber(lastSequenceNumber);
+        } else {
+            request.shardIteratorType(initialPosition);
+        }
+        return kinesisClient.getShardIterator(request.build()).shardIterator();
+    }
+
+    /**
+     * Asks the loop to exit after its current poll.
+     *
+     * <p>Importance: Used when the lease is released or lost.</p>
+     * <p>Alternatives: Only interrupt the thread, but a flag also covers non-interruptible I/O.</p>
+     */
+    void stop() {
+        running = false;
+    }
+
+    /**
+     * Returns whether the shard was closed by a reshard and fully read.
+     *
+     * <p>Importance: Lets the poller release the lease of a shard that has nothing left.</p>
+     * <p>Alternatives: Keep the loop polling, but a closed shard returns no iterator.</p>
+     */
+    boolean finished() {
+        return finished;
+    }
+
+    /**
+     * Returns how far the shard's last response was behind the stream tip.
+     *
+     * <p>Importance: Exposed as a per-shard gauge for lag alerts.</p>
+     * <p>Alternatives: Log lag, but a gauge can be graphed and alerted on.</p>
+     */
+    long millisBehindLatest() {
+        return millisBehindLatest;
+    }
+
+    /**
+     * Poll tuning shared by all shard consumers.
+     *
+     * <p>Importance: Groups the knobs so the delay policy can be tested without Kinesis.</p>
+     * <p>Alternatives: Separate constructor parameters, but they always travel together.</p>
+     *
+     * @param maxRecords GetRecords page size
+     * @param minDelayMs delay while catching up; 200 ms respects the 5 reads/s shard limit
+     * @param maxDelayMs ceiling for the idle backoff
+     * @param caughtUpMs lag below which the shard counts as caught up
+     */
+    record PollSettings(int maxRecords, long minDelayMs, long maxDelayMs, long caughtUpMs) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.datatrust360.processing;
+
+/**
+ * Snapshot of one row in the Kinesis shard lease table.
+ *
+ * <p>Importance: Gives the balancer an immutable view of who owns which shard.</p>
+ * <p>Alternatives: Pass raw result-set maps, but a record keeps the balancing logic typed.</p>
+ *
+ * @param shardId Kinesis shard ID
+ * @param owner worker ID holding the lease, or null when the lease is free
+ * @param counter version bumped on every take or renewal, used for conditional steals
+ * @param expired whether the lease expired according to the database clock
+ * @param checkpoint last processed sequence number, {@code SHARD_END}, or null if never read
+ */
+public record ShardLease(String shardId, String owner, long counter, boolean expired, String checkpoint) {
+
+    /**
+     * Returns whether another worker may take the lease without stealing it.
+     *
+     * <p>Importance: Free and expired leases are claimed before any steal is considered.</p>
+     * <p>Alternatives: Treat expired leases as owned, but then a crashed pod's shards stall.</p>
+     */
+    public boolean available() {
+        return owner == null || expired;
+    }
+
+    /**
+     * Returns whether the shard was closed by a reshard and read to its end.
+     *
+     * <p>Importance: Finished shards are never leased again, and their children may start.</p>
+     * <p>Alternatives: Track finished shards in memory, but that is lost on restart.</p>
+     */
+    public boolean finished() {
+        return ShardCheckpointer.SHARD_END.equals(checkpoint);
+    }
+}
@@ -0,0 +1,95 @@
+package com.datatrust360.processing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which shard leases a worker should take, steal, or release in one balancing round.
+ *
+ * <p>Importance: Keeps every worker within one shard of an even split, so pods joining or
+ * leaving rebalance the stream without an external coordinator.</p>
+ * <p>Alternatives: Consistent hashing over pod names, but that needs a membership list and
+ * moves shards whenever any pod restarts.</p>
+ *
+ * <p>Active workers are the distinct owners of unexpired leases plus the caller. Each worker
+ * aims for {@code ceil(shards / workers)} leases; a worker below {@code floor(shards / workers)}
+ * with nothing free steals one lease per round from the most loaded worker.</p>
+ */
+final class ShardLeaseBalancer {
+
+    /**
+     * Prevents instantiation of the stateless balancer.
+     *
+     * <p>Importance: Signals that planning depends only on its inputs.</p>
+     * <p>Alternatives: A Spring bean, but there is no state or dependency to inject.</p>
+     */
+    private ShardLeaseBalancer() {
+    }
+
+    /**
+     * Plans one balancing round for a worker.
+     *
+     * <p>Importance: A pure function of the lease snapshot, so every rule is unit-testable.</p>
+     * <p>Alternatives: Decide while issuing SQL, but that mixes policy with I/O.</p>
+     *
+     * @param workerId the worker doing the planning
+     * @param leases leases of the currently open shards
+     * @return leases to take (free, expired, or stolen) and shard IDs to release
+     */
+    static Plan plan(String workerId, List<ShardLease> leases) {
+        Set<String> workers = new HashSet<>();
+        workers.add(workerId);
+        Map<String, List<ShardLease>> owned = new HashMap<>();
+        List<ShardLease> available = new ArrayList<>();
+        for (ShardLease lease : leases) {
+            if (lease.available()) {
+                available.add(lease);
+            } else {
+                workers.add(lease.owner());
+                owned.computeIfAbsent(lease.owner(), owner -> new ArrayList<>()).add(lease);
+            }
+        }
+        int shards = leases.size();
+        int floor = shards / workers.size();
+        int ceil = floor + (shards % workers.size() == 0 ? 0 : 1);
+        List<ShardLease> mine = owned.getOrDefault(workerId, List.of());
+
+        if (mine.size() > ceil) {
+            List<String> release = new ArrayList<>();
+            for (ShardLease lease : mine.subList(ceil, mine.size())) {
+                release.add(lease.shardId());
+            }
+            return new Plan(List.of(), release);
+        }
+        available.sort(Comparator.comparing(ShardLease::shardId));
+        List<ShardLease> take = new ArrayList<>(available.subList(0, Math.min(available.size(), ceil - mine.size())));
+        if (mine.size() + take.size() < floor) {
+            owned.entrySet().stream()
+                .filter(entry -> !entry.getKey().equals(workerId))
+                .max(Comparator.comparingInt((Map.Entry<String, List<ShardLease>> entry) -> entry.getValue().size())
+                    .thenComparing(Map.Entry::getKey))
+                .filter(entry -> entry.getValue().size() > mine.size() + take.size() + 1)
+                .ifPresent(entry -> take.add(entry.getValue().stream()
+                    .max(Comparator.comparing(ShardLease::shardId))
+                    .orElseThrow()));
+        }
+        return new Plan(take, List.of());
+    }
+
+    /**
+     * Outcome of one balancing round.
+     *
+     * <p>Importance: Separates what to change from how the lease table applies it.</p>
+     * <p>Alternatives: Return SQL statements, but that would tie the balancer to JDBC.</p>
+     *
+     * @param take leases to take, each guarded by the counter seen in the snapshot
+     * @param release shard IDs this worker should give up
+     */
+    record Plan(List<ShardLease> take, List<String> release) {
+    }
+}
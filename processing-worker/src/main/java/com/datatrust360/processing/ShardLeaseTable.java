@@ -0,0 +1,202 @@
+package com.datatrust360.processing;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Postgres-backed lease table that gives each Kinesis shard exactly one owning worker.
+ *
+ * <p>Importance: Replicas coordinate through conditional updates, so adding pods spreads
+ * shards across them instead of polling every shard from every pod.</p>
+ * <p>Alternatives: A DynamoDB table as the KCL uses, but Postgres already runs in every
+ * environment and needs no extra AWS resources locally.</p>
+ *
+ * <p>Expiry is computed with the database clock, so pod clock skew cannot make two workers
+ * both consider a lease theirs.</p>
+ */
+@Component
+public class ShardLeaseTable {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the lease table accessor.
+     *
+     * <p>Importance: Plain JDBC keeps the worker free of JPA for a single table.</p>
+     * <p>Alternatives: Spring Data JPA, but optimistic updates are clearer as SQL.</p>
+     */
+    public ShardLeaseTable(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the lease table when it does not exist yet.
+     *
+     * <p>Importance: Only workers with Kinesis enabled need the table, so it is created on demand.
+     * The ALTER upgrades tables created before checkpoints were stored.</p>
+     * <p>Alternatives: A Spring schema.sql, but that would run even when Kinesis is disabled.</p>
+     */
+    public void initialize() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS kinesis_shard_lease (
+                stream_name VARCHAR(128) NOT NULL,
+                shard_id VARCHAR(128) NOT NULL,
+                owner VARCHAR(255),
+                lease_counter BIGINT NOT NULL DEFAULT 0,
+                lease_expires_at TIMESTAMPTZ,
+                checkpoint VARCHAR(256),
+                PRIMARY KEY (stream_name, shard_id)
+            )""");
+        jdbcTemplate.execute("ALTER TABLE kinesis_shard_lease ADD COLUMN IF NOT EXISTS checkpoint VARCHAR(256)");
+    }
+
+    /**
+     * Inserts free leases for shards that have no row yet.
+     *
+     * <p>Importance: New shards become claimable without a manual step.</p>
+     * <p>Alternatives: Insert on first take, but then the balancer cannot count unowned shards.</p>
+     */
+    public void ensureShards(String streamName, List<String> shardIds) {
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO kinesis_shard_lease (stream_name, shard_id) VALUES (?, ?) ON CONFLICT DO NOTHING",
+            shardIds,
+            shardIds.size(),
+            (statement, shardId) -> {
+                statement.setString(1, streamName);
+                statement.setString(2, shardId);
+            }
+        );
+    }
+
+    /**
+     * Lists every lease of the stream with its expiry evaluated by the database.
+     *
+     * <p>Importance: One query gives the balancer a consistent view of all owners.</p>
+     * <p>Alternatives: Query per shard, but that multiplies round trips by the shard count.</p>
+     */
+    public List<ShardLease> list(String streamName) {
+        return jdbcTemplate.query(
+            """
+            SELECT shard_id, owner, lease_counter, checkpoint,
+                   (lease_expires_at IS NULL OR lease_expires_at < now()) AS expired
+            FROM kinesis_shard_lease WHERE stream_name = ?
+            """,
+            (rs, rowNum) -> new ShardLease(
+                rs.getString("shard_id"),
+                rs.getString("owner"),
+                rs.getLong("lease_counter"),
+                rs.getBoolean("expired"),
+                rs.getString("checkpoint")
+            ),
+            streamName
+        );
+    }
+
+    /**
+     * Takes a lease if it is still at the counter the caller observed.
+     *
+     * <p>Importance: The counter check makes takes and steals atomic, so concurrent workers
+     * cannot both win the same shard.</p>
+     * <p>Alternatives: SELECT ... FOR UPDATE, but that holds row locks across round trips.</p>
+     *
+     * @return whether this worker now owns the lease
+     */
+    public boolean take(String streamName, ShardLease lease, String workerId, long durationMs) {
+        return jdbcTemplate.update(
+            """
+            UPDATE kinesis_shard_lease
+            SET owner = ?, lease_counter = lease_counter + 1,
+                lease_expires_at = now() + ? * INTERVAL '1 millisecond'
+            WHERE stream_name = ? AND shard_id = ? AND lease_counter = ?
+            """,
+            workerId, durationMs, streamName, lease.shardId(), lease.counter()
+        ) == 1;
+    }
+
+    /**
+     * Extends a lease this worker still owns.
+     *
+     * <p>Importance: A failed renewal is how a worker learns its shard was stolen or expired.</p>
+     * <p>Alternatives: Compare counters on renew, but ownership alone is the relevant fact.</p>
+     *
+     * @return whether the lease is still owned by this worker
+     */
+    public boolean renew(String streamName, String shardId, String workerId, long durationMs) {
+        return jdbcTemplate.update(
+            """
+            UPDATE kinesis_shard_lease
+            SET lease_counter = lease_counter + 1,
+                lease_expires_at = now() + ? * INTERVAL '1 millisecond'
+            WHERE stream_name = ? AND shard_id = ? AND owner = ?
+            """,
+            durationMs, streamName, shardId, workerId
+        ) == 1;
+    }
+
+    /**
+     * Gives up a lease so another worker can take it immediately.
+     *
+     * <p>Importance: Pods leaving or shedding load hand shards over without waiting for expiry.</p>
+     * <p>Alternatives: Let leases expire, but that stalls the shard for a full lease duration.</p>
+     */
+    public void release(String streamName, String shardId, String workerId) {
+        jdbcTemplate.update(
+            """
+            UPDATE kinesis_shard_lease
+            SET owner = NULL, lease_counter = lease_counter + 1, lease_expires_at = NULL
+            WHERE stream_name = ? AND shard_id = ? AND owner = ?
+            """,
+            streamName, shardId, workerId
+        );
+    }
+
+    /**
+     * Stores the checkpoint of a shard this worker still owns.
+     *
+     * <p>Importance: Keeping the checkpoint on the lease row means a new owner reads both in
+     * one query, and the owner guard stops a stale worker from moving it backwards.</p>
+     * <p>Alternatives: A separate checkpoint table, but that needs a join and its own guard.</p>
+     *
+     * @return false when the lease has moved to another worker and nothing was written
+     */
+    public boolean checkpoint(String streamName, String shardId, String workerId, String checkpoint) {
+        return jdbcTemplate.update(
+            "UPDATE kinesis_shard_lease SET checkpoint = ? WHERE stream_name = ? AND shard_id = ? AND owner = ?",
+            checkpoint, streamName, shardId, workerId
+        ) > 0;
+    }
+
+    /**
+     * Stores several checkpoints in one JDBC batch.
+     *
+     * <p>Importance: A worker owning many shards flushes them in one round trip.</p>
+     * <p>Alternatives: One update per shard, but that multiplies round trips.</p>
+     *
+     * @return shards whose lease has moved to another worker, so their checkpoint was not written
+     */
+    public List<String> checkpointAll(String streamName, String workerId, Map<String, String> checkpoints) {
+        List<Map.Entry<String, String>> entries = List.copyOf(checkpoints.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(
+            "UPDATE kinesis_shard_lease SET checkpoint = ? WHERE stream_name = ? AND shard_id = ? AND owner = ?",
+            entries,
+            entries.size(),
+            (statement, entry) -> {
+                statement.setString(1, entry.getValue());
+                statement.setString(2, streamName);
+                statement.setString(3, entry.getKey());
+                statement.setString(4, workerId);
+            }
+        );
+        List<String> lost = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (counts[0][i] == 0) {
+                lost.add(entries.get(i).getKey());
+            }
+        }
+        return lost;
+    }
+}
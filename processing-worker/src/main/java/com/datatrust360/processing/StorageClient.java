@@ -2,43 +2,35 @@ package com.datatrust360.processing;
 
 import com.datatrust360.common.AuditLogRequest;
 import com.datatrust360.common.EventEnvelope;
-import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
+
+import java.util.List;
 
 /**
- * Client for persisting events into the storage service.
+ * Client for persisting events and audits into the storage service.
  *
  * <p>Importance: Keeps persistence calls centralized and testable for the worker.</p>
  * <p>Alternatives: Write to Mongo directly, but an API boundary preserves service ownership.</p>
+ *
+ * <p>Every method returns only after storage-service acknowledged the write and throws a
+ * runtime exception otherwise, so callers can safely commit their source offsets.</p>
  */
-@Service
-public class StorageClient {
-
-    private final RestClient restClient;
+public interface StorageClient {
 
     /**
-     * Creates the client with a preconfigured RestClient.
+     * Persists an event payload in the storage service.
      *
-     * <p>Importance: Allows consistent base URL configuration and easier mocking.</p>
-     * <p>Alternatives: Build the RestClient here, but configuration should be centralized.</p>
+     * <p>Importance: Captures raw events for investigation and long-term analysis.</p>
+     * <p>Alternatives: Store only scored results, but raw payloads are needed for forensics.</p>
      */
-    public StorageClient(RestClient restClient) {
-        this.restClient = restClient;
-    }
+    void persistEvent(EventEnvelope envelope);
 
     /**
-     * Persists an event payload in the storage service.
+     * Persists a batch of events with one storage write.
      *
-     * <p>Importance: Captures raw events for investigation and long-term analysis.</p>
-     * <p>Alternatives: Store only scored results, but raw payloads are needed for forensics.</p>
+     * <p>Importance: Batch consumers pay one round trip per batch instead of one per event.</p>
+     * <p>Alternatives: Loop over {@link #persistEvent}, but throughput is then bounded by latency.</p>
      */
-    public void persistEvent(EventEnvelope envelope) {
-        restClient.post()
-            .uri("/api/v1/storage/events")
-            .body(envelope)
-            .retrieve()
-            .toBodilessEntity();
-    }
+    void persistEvents(List<EventEnvelope> envelopes);
 
     /**
      * Persists an audit log entry in the storage service.
@@ -46,11 +38,5 @@ public class StorageClient {
      * <p>Importance: Records insights and security-relevant events for compliance.</p>
      * <p>Alternatives: Store audits locally, but centralized storage enables reporting.</p>
      */
-    public void persistAudit(AuditLogRequest request) {
-        restClient.post()
-            .uri("/api/v1/storage/audit")
-            .body(request)
-            .retrieve()
-            .toBodilessEntity();
-    }
+    void persistAudit(AuditLogRequest request);
 }
@@ -0,0 +1,20 @@
+package com.datatrust360.processing;
+
+/**
+ * Raised when storage-service did not acknowledge a write.
+ *
+ * <p>Importance: Gives callers one exception type to catch before retrying or redelivering.</p>
+ * <p>Alternatives: Surface raw gRPC status exceptions, but that leaks the transport choice.</p>
+ */
+public class StorageWriteException extends RuntimeException {
+
+    /**
+     * Creates the exception with a message and optional cause.
+     *
+     * <p>Importance: Preserves the transport error for logs.</p>
+     * <p>Alternatives: Message only, but the cause explains disconnects and timeouts.</p>
+     */
+    public StorageWriteException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
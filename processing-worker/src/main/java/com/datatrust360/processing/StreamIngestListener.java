@@ -1,26 +1,64 @@
 package com.datatrust360.processing;
 
 import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.PipelineTiming;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
- * Consumes Kafka streams and enqueues jobs for asynchronous processing.
+ * Consumes Kafka streams in batches and enqueues jobs for asynchronous processing.
  *
  * <p>Importance: Decouples real-time ingestion from heavier anomaly scoring tasks.</p>
  * <p>Alternatives: Process inline during consumption, but that increases latency and backpressure.</p>
+ *
+ * <p>Each poll is persisted with one bulk storage call. Offsets are acknowledged manually and
+ * only after every event is stored and accepted by the scoring queue, or handed to a retry
+ * tier. When the bulk write fails, events are written one by one and only the failures go to
+ * {@link KafkaRetryRouter}, so one bad event never blocks its partition. Events storage
+ * rejected as invalid go straight to the dead-letter topic, and events it refused to write go
+ * to the first retry tier. Only when nothing was stored and at least one write failed without
+ * an answer from storage is the batch re-seeked and redelivered after a backoff, since that
+ * points at an outage rather than at the data.</p>
+ *
+ * <p>Each record's ingest stamp and source path are read from the headers written by the
+ * ingest services, and the stream and storage stages are recorded per event.</p>
+ *
+ * <p>Every event is stored under a deterministic id from {@link EventIds}: the client's own
+ * id, the id carried by a replayed record, or the record's topic, partition, and offset. A
+ * redelivered batch therefore rewrites the same documents instead of duplicating them.</p>
  */
 @Component
 public class StreamIngestListener {
 
     private static final Logger logger = LoggerFactory.getLogger(StreamIngestListener.class);
 
+    private static final String MAX_POLL_RECORDS =
+        "max.poll.records=${processing.kafka.batch.max-records:500}";
+    private static final String FETCH_MAX_WAIT =
+        "fetch.max.wait.ms=${processing.kafka.batch.max-wait-ms:200}";
+    private static final String FETCH_MIN_BYTES =
+        "fetch.min.bytes=${processing.kafka.batch.min-bytes:65536}";
+
     private final ObjectMapper objectMapper;
     private final StorageClient storageClient;
-    private final PartnerQueuePublisher queuePublisher;
+    private final ScoringQueue scoringQueue;
+    private final KafkaRetryRouter retryRouter;
+    private final PipelineTiming timing;
+    private final Duration retryBackoff;
 
     /**
      * Creates the listener with storage and queue publishing dependencies.
@@ -31,51 +69,210 @@ public class StreamIngestListener {
     public StreamIngestListener(
         ObjectMapper objectMapper,
         StorageClient storageClient,
-        PartnerQueuePublisher queuePublisher
+        ScoringQueue scoringQueue,
+        KafkaRetryRouter retryRouter,
+        MeterRegistry meterRegistry,
+        @Value("${processing.kafka.batch.retry-backoff-ms:1000}") long retryBackoffMs
     ) {
         this.objectMapper = objectMapper;
         this.storageClient = storageClient;
-        this.queuePublisher = queuePublisher;
+        this.scoringQueue = scoringQueue;
+        this.retryRouter = retryRouter;
+        this.timing = new PipelineTiming(meterRegistry);
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
     }
 
     /**
-     * Receives raw events from Kafka and enqueues scoring jobs.
+     * Receives batches of raw events from Kafka and enqueues scoring jobs.
      *
      * <p>Importance: Keeps stream consumption lightweight and reliable.</p>
      * <p>Alternatives: Write to database first, but async jobs keep ingestion fast.</p>
      */
-    @KafkaListener(topics = "dt360.events.raw", groupId = "processing-worker")
-    public void onEvent(String payload) {
-        EventEnvelope envelope = parseEnvelope(payload);
-        storageClient.persistEvent(envelope);
-        queuePublisher.enqueue(payload);
+    @KafkaListener(topics = KafkaRetryConfig.RAW_TOPIC, groupId = "processing-worker", batch = "true",
+        properties = {MAX_POLL_RECORDS, FETCH_MAX_WAIT, FETCH_MIN_BYTES})
+    public void onEvents(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        handleBatch(KafkaRetryConfig.RAW_TOPIC, records, acknowledgment);
     }
 
     /**
-     * Receives bulk events from Kafka and enqueues scoring jobs.
+     * Receives batches of bulk events from Kafka and enqueues scoring jobs.
      *
      * <p>Importance: Ensures gRPC bulk ingestion flows through the same processing pipeline.</p>
      * <p>Alternatives: Use a separate worker, but shared processing simplifies operations.</p>
      */
-    @KafkaListener(topics = "dt360.events.bulk", groupId = "processing-worker")
-    public void onBulkEvent(String payload) {
-        EventEnvelope envelope = parseEnvelope(payload);
-        storageClient.persistEvent(envelope);
-        queuePublisher.enqueue(payload);
+    @KafkaListener(topics = KafkaRetryConfig.BULK_TOPIC, groupId = "processing-worker", batch = "true",
+        properties = {MAX_POLL_RECORDS, FETCH_MAX_WAIT, FETCH_MIN_BYTES})
+    public void onBulkEvents(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        handleBatch(KafkaRetryConfig.BULK_TOPIC, records, acknowledgment);
+    }
+
+    /**
+     * Persists a polled batch in bulk, enqueues it for scoring, then commits its offsets.
+     *
+     * <p>Importance: Throughput scales with batch size instead of per-record HTTP latency,
+     * and offsets never move past events that were not stored and queued, or parked in a
+     * retry tier. Confirms are awaited once per batch, not once per message.</p>
+     * <p>Alternatives: Auto-commit per batch, but a failed write would then lose events.</p>
+     *
+     * <p>Unparseable and failed events are only sent to the retry tiers or the DLT once the
+     * rest of the batch has been stored and queued. A batch that is redelivered because
+     * storage or the queue failed has therefore routed nothing yet, and does not fill the DLT
+     * with a copy per attempt.</p>
+     */
+    void handleBatch(String topic, List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        List<EventEnvelope> envelopes = new ArrayList<>(records.size());
+        List<String> parsed = new ArrayList<>(records.size());
+        List<PipelineTrace> traces = new ArrayList<>(records.size());
+        List<String> keys = new ArrayList<>(records.size());
+        List<Supplier<CompletableFuture<Void>>> routes = new ArrayList<>();
+        try {
+            for (ConsumerRecord<String, String> record : records) {
+                String payload = record.value();
+                PipelineTrace trace = PipelineTrace.fromKafka(record.headers());
+                timing.recordSince(PipelineTiming.STAGE_STREAM, trace.path(), trace.ingestMicros());
+                EventEnvelope envelope = parseEnvelope(payload);
+                String positionId = KafkaRetryRouter.header(record.headers(), KafkaRetryConfig.EVENT_ID_HEADER,
+                    EventIds.kafka(record.topic(), record.partition(), record.offset()));
+                if (envelope != null) {
+                    EventIds.assign(envelope, positionId);
+                    envelopes.add(envelope);
+                    parsed.add(payload);
+                    traces.add(trace);
+                    keys.add(record.key());
+                } else {
+                    routes.add(() -> retryRouter.deadLetter(record.key(), payload, positionId, topic, 1,
+                        new IllegalArgumentException("Unparseable event payload")));
+                }
+            }
+            if (!envelopes.isEmpty()) {
+                long start = System.nanoTime();
+                persist(topic, envelopes, parsed, traces, keys, routes);
+                long storageNanos = System.nanoTime() - start;
+                for (PipelineTrace trace : traces) {
+                    timing.recordStage(PipelineTiming.STAGE_STORAGE, trace.path(), storageNanos);
+                }
+                if (!envelopes.isEmpty()) {
+                    scoringQueue.enqueueAll(envelopes, parsed, traces).join();
+                }
+            }
+            CompletableFuture.allOf(routes.stream().map(Supplier::get).toArray(CompletableFuture[]::new)).join();
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to persist or enqueue batch of {} events, redelivering in {} ms",
+                envelopes.size(), retryBackoff.toMillis(), ex);
+            acknowledgment.nack(0, retryBackoff);
+            return;
+        }
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Writes the batch in bulk, falling back to one write per event when the bulk write fails.
+     *
+     * <p>Importance: Isolates the event that broke the bulk write; the others are kept in
+     * the batch and the failures are removed from it and added to {@code routes}. A poll whose events
+     * all fail on their data is routed too, so a single poison record cannot stall the
+     * partition.</p>
+     * <p>Alternatives: Bisect the batch, but failures are rare and per-event writes are simpler.</p>
+     *
+     * @throws RuntimeException if nothing was stored and some write never reached storage
+     */
+    private void persist(
+        String topic,
+        List<EventEnvelope> envelopes,
+        List<String> parsed,
+        List<PipelineTrace> traces,
+        List<String> keys,
+        List<Supplier<CompletableFuture<Void>>> routes
+    ) {
+        try {
+            storageClient.persistEvents(envelopes);
+            return;
+        } catch (RuntimeException bulkFailure) {
+            logger.warn("Bulk write of {} events failed, retrying them one by one", envelopes.size(), bulkFailure);
+        }
+        List<EventEnvelope> stored = new ArrayList<>(envelopes.size());
+        List<String> storedPayloads = new ArrayList<>(envelopes.size());
+        List<PipelineTrace> storedTraces = new ArrayList<>(envelopes.size());
+        List<String> failedKeys = new ArrayList<>();
+        List<String> failedPayloads = new ArrayList<>();
+        List<String> failedIds = new ArrayList<>();
+        List<RuntimeException> failures = new ArrayList<>();
+        for (int i = 0; i < envelopes.size(); i++) {
+            try {
+                storageClient.persistEvent(envelopes.get(i));
+                stored.add(envelopes.get(i));
+                storedPayloads.add(parsed.get(i));
+                storedTraces.add(traces.get(i));
+            } catch (RuntimeException ex) {
+                failedKeys.add(keys.get(i));
+                failedPayloads.add(parsed.get(i));
+                failedIds.add(envelopes.get(i).getEventId());
+                failures.add(ex);
+            }
+        }
+        if (stored.isEmpty()) {
+            for (RuntimeException failure : failures) {
+                if (isUnavailable(failure)) {
+                    throw failure;
+                }
+            }
+        }
+        for (int i = 0; i < failedPayloads.size(); i++) {
+            RuntimeException failure = failures.get(i);
+            String key = failedKeys.get(i);
+            String payload = failedPayloads.get(i);
+            String eventId = failedIds.get(i);
+            routes.add(isInvalid(failure)
+                ? () -> retryRouter.deadLetter(key, payload, eventId, topic, 1, failure)
+                : () -> retryRouter.retry(key, payload, eventId, topic, 1, failure));
+        }
+        envelopes.clear();
+        envelopes.addAll(stored);
+        parsed.clear();
+        parsed.addAll(storedPayloads);
+        traces.clear();
+        traces.addAll(storedTraces);
+    }
+
+    /**
+     * Returns whether storage rejected the event itself, so no retry can succeed.
+     *
+     * <p>Importance: A 4xx answer or a payload that cannot be encoded is a property of the
+     * event, so the retry tiers would only delay the dead-letter.</p>
+     * <p>Alternatives: Send everything through the retry tiers, but that holds poison for
+     * minutes before an operator can see it.</p>
+     */
+    private static boolean isInvalid(RuntimeException failure) {
+        return failure instanceof HttpClientErrorException || failure instanceof IllegalArgumentException;
+    }
+
+    /**
+     * Returns whether a write failed without storage answering for the event.
+     *
+     * <p>Importance: Only these failures justify holding the partition; an explicit rejection
+     * from storage is about the data and is routed instead.</p>
+     * <p>Alternatives: Treat every failure as an outage when the whole poll fails, but then a
+     * poll holding one poison record is redelivered forever.</p>
+     */
+    private static boolean isUnavailable(RuntimeException failure) {
+        if (isInvalid(failure)) {
+            return false;
+        }
+        return !(failure instanceof StorageWriteException) || failure.getCause() != null;
     }
 
     /**
-     * Parses raw JSON into an EventEnvelope.
+     * Parses raw JSON into an EventEnvelope, returning null for malformed records.
      *
-     * <p>Importance: Enables storage persistence and downstream processing using a normalized model.</p>
-     * <p>Alternatives: Store raw JSON only, but structured access improves validation.</p>
+     * <p>Importance: A malformed record is dead-lettered so it cannot block the batch forever.</p>
+     * <p>Alternatives: Fail the batch, but a poison record would then be redelivered indefinitely.</p>
      */
     private EventEnvelope parseEnvelope(String payload) {
         try {
             return objectMapper.readValue(payload, EventEnvelope.class);
         } catch (Exception ex) {
-            logger.error("Failed to parse event payload for storage", ex);
-            throw new IllegalArgumentException("Invalid event payload", ex);
+            logger.error("Dead-lettering unparseable event payload", ex);
+            return null;
         }
     }
 }
@@ -0,0 +1,85 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.ThreadCostHarness.Workload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.amqp.core.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.datatrust360.common.ThreadCostHarness.measure;
+
+/**
+ * Compares the scoring worker's per-message cost of parsing the body versus reading AMQP headers.
+ *
+ * <p>Importance: Quantifies the second parse that header attribution removes from every message.</p>
+ * <p>Alternatives: Profile the running worker, but the parse is hard to isolate there.</p>
+ *
+ * <p>Run with {@code mvn -pl processing-worker test -Dtest=AmqpHeadersBenchmark -Dbenchmarks=true}.</p>
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class AmqpHeadersBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+        .findAndAddModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+
+    /**
+     * Runs both consumer paths over the same message and prints per-message CPU and allocation.
+     *
+     * <p>Importance: Both paths decode the body to a String, so the difference is the parse.</p>
+     * <p>Alternatives: Wall-clock timing, but thread CPU time ignores scheduler noise.</p>
+     */
+    @Test
+    void compareBodyParseAndHeaders() throws Exception {
+        EventEnvelope envelope = sampleEnvelope(32);
+        String json = objectMapper.writeValueAsString(envelope);
+        Message message = PartnerQueuePublisher.toMessage(envelope, json, PipelineTrace.UNTRACED);
+
+        Workload parseBody = i -> {
+            String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+            return objectMapper.readValue(payload, EventEnvelope.class).getTenantId().length() + payload.length();
+        };
+        Workload readHeader = i -> {
+            String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+            String tenantId = message.getMessageProperties().getHeader(PartnerQueuePublisher.TENANT_ID_HEADER);
+            return tenantId.length() + payload.length();
+        };
+
+        measure("warmup-parse", "msg", WARMUP, parseBody);
+        measure("warmup-header", "msg", WARMUP, readHeader);
+        measure("parse-body", "msg", ITERATIONS, parseBody);
+        measure("header", "msg", ITERATIONS, readHeader);
+    }
+
+    /**
+     * Builds an envelope with the given number of metrics in its payload.
+     *
+     * <p>Importance: A realistic payload size makes the parse cost representative.</p>
+     * <p>Alternatives: An empty payload, but that understates the saving.</p>
+     */
+    private EventEnvelope sampleEnvelope(int metrics) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        for (int i = 0; i < metrics; i++) {
+            payload.put("metric" + i, Map.of("value", i * 1.5, "unit", "ms"));
+        }
+        EventEnvelope envelope = new EventEnvelope();
+        envelope.setTenantId("t-1");
+        envelope.setSource("agent");
+        envelope.setSchemaVersion("v1");
+        envelope.setReceivedAt(Instant.parse("2025-01-01T00:00:00Z"));
+        envelope.setPayload(payload);
+        return envelope;
+    }
+}
@@ -0,0 +1,54 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.ThreadCostHarness.Workload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static com.datatrust360.common.ThreadCostHarness.measure;
+
+/**
+ * Measures per-event CPU and allocation of the streaming anomaly scorer.
+ *
+ * <p>Importance: Confirms a single core scores tens of thousands of events per second.</p>
+ * <p>Alternatives: Measure through the Rabbit listener, but broker I/O would hide the scorer.</p>
+ *
+ * <p>Run with {@code mvn -pl processing-worker test -Dtest=AnomalyScoringBenchmark -Dbenchmarks=true}.</p>
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class AnomalyScoringBenchmark {
+
+    private static final int TENANTS = 50;
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    /**
+     * Scores pre-built events across many tenant series and prints throughput per core.
+     *
+     * <p>Importance: Pre-built strings keep event construction out of the measurement.</p>
+     * <p>Alternatives: Random payloads per iteration, but building them would dominate.</p>
+     */
+    @Test
+    void scoreThroughput() throws Exception {
+        AnomalyScoringEngine engine =
+            new AnomalyScoringEngine(new ObjectMapper(), new SimpleMeterRegistry(), 0.05, 3.5, 4.0, 30, 100_000);
+        String[] events = new String[1024];
+        String[] tenants = new String[events.length];
+        for (int i = 0; i < events.length; i++) {
+            tenants[i] = "tenant-" + (i % TENANTS);
+            events[i] = "{\"tenantId\":\"" + tenants[i] + "\",\"source\":\"agent\",\"schemaVersion\":\"v1\","
+                + "\"receivedAt\":\"2025-01-01T00:00:00Z\",\"payload\":{\"latencyMs\":" + (100 + i % 37)
+                + ",\"errors\":" + (i % 3) + ",\"cpu\":" + (0.4 + (i % 11) / 100.0) + ",\"host\":\"node-"
+                + (i % 16) + "\"}}";
+        }
+
+        Workload score = i -> {
+            int index = i & (events.length - 1);
+            return engine.score(tenants[index], "agent", events[index]).anomalous() ? 1 : 0;
+        };
+
+        measure("warmup", "event", WARMUP, score);
+        measure("score", "event", ITERATIONS, score);
+    }
+}
@@ -0,0 +1,143 @@
+package com.datatrust360.processing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for streaming anomaly scoring.
+ *
+ * <p>Importance: Ensures thresholds, warm-up, and series separation behave as documented.</p>
+ * <p>Alternatives: Test only through the worker, but scores are easier to assert directly.</p>
+ */
+class AnomalyScoringEngineTest {
+
+    private final AnomalyScoringEngine engine =
+        new AnomalyScoringEngine(new ObjectMapper(), new SimpleMeterRegistry(), 0.05, 3.5, 4.0, 30, 1000);
+
+    /**
+     * Verifies a spike after warm-up is flagged on the metric that caused it.
+     *
+     * <p>Importance: The anomalous metric and its context feed the insight request.</p>
+     * <p>Alternatives: Assert only the flag, but the metric name guards multi-field payloads.</p>
+     */
+    @Test
+    void flagsSpikeOnOffendingMetric() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            engine.score("t-1", "agent", payload(100 + random.nextGaussian() * 5, 3));
+        }
+
+        AnomalyScore score = engine.score("t-1", "agent", payload(100, 400));
+
+        assertThat(score.anomalous()).isTrue();
+        assertThat(score.metric()).isEqualTo("errors");
+        assertThat(score.robustZ()).isGreaterThan(3.5);
+    }
+
+    /**
+     * Verifies nothing is flagged during warm-up.
+     *
+     * <p>Importance: Early estimates are noisy and would flood the insight service.</p>
+     * <p>Alternatives: Flag from the first sample, but then every new series starts with alerts.</p>
+     */
+    @Test
+    void doesNotFlagDuringWarmup() {
+        for (int i = 0; i < 10; i++) {
+            engine.score("t-1", "agent", payload(100, 3));
+        }
+
+        assertThat(engine.score("t-1", "agent", payload(10_000, 3)).anomalous()).isFalse();
+    }
+
+    /**
+     * Verifies series are kept per tenant.
+     *
+     * <p>Importance: One tenant's normal range must not mask another's anomaly.</p>
+     * <p>Alternatives: Global series per metric, but tenants differ by orders of magnitude.</p>
+     */
+    @Test
+    void keepsSeriesPerTenant() {
+        for (int i = 0; i < 100; i++) {
+            engine.score("small", "agent", payload(10 + i % 3, 0));
+            engine.score("large", "agent", payload(1000 + i % 3, 0));
+        }
+
+        assertThat(engine.score("small", "agent", payload(1000, 0)).anomalous()).isTrue();
+        assertThat(engine.score("large", "agent", payload(1001, 0)).anomalous()).isFalse();
+    }
+
+    /**
+     * Verifies tenant and source are read from the body when headers are absent.
+     *
+     * <p>Importance: Legacy messages queued before the headers still score per tenant.</p>
+     * <p>Alternatives: Drop header-less messages, but they may hold real anomalies.</p>
+     */
+    @Test
+    void readsAttributionFromBodyWithoutHeaders() {
+        AnomalyScore score = engine.score(null, null, "{\"payload\":{\"latencyMs\":5},\"tenantId\":\"t-2\",\"source\":\"edge\"}");
+
+        assertThat(score.tenantId()).isEqualTo("t-2");
+        assertThat(score.source()).isEqualTo("edge");
+        assertThat(score.metric()).isEqualTo("latencyMs");
+    }
+
+    /**
+     * Verifies a tenant arriving after the series cap is reached gets no maps at all.
+     *
+     * <p>Importance: Empty per-tenant maps would still grow without bound under tenant churn.</p>
+     * <p>Alternatives: Assert only the dropped counter, but the leak is in the maps themselves.</p>
+     */
+    @Test
+    void createsNoTenantStateOnceSeriesCapIsReached() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AnomalyScoringEngine capped =
+            new AnomalyScoringEngine(new ObjectMapper(), registry, 0.05, 3.5, 4.0, 30, 2);
+
+        capped.score("t-1", "agent", payload(100, 3));
+        for (int i = 0; i < 10; i++) {
+            capped.score("t-" + (i + 2), "agent", payload(100, 3));
+        }
+
+        assertThat(capped.trackedTenants()).isEqualTo(1);
+        assertThat(registry.counter("dt360.anomaly.series.dropped").count()).isEqualTo(20);
+    }
+
+    /**
+     * Verifies the P-square estimator tracks the median and tail of a normal distribution.
+     *
+     * <p>Importance: Robust z-scores are only as good as the median and MAD estimates.</p>
+     * <p>Alternatives: Compare against exact quantiles of stored samples, but known
+     * distribution quantiles need no reference implementation.</p>
+     */
+    @Test
+    void quantileSketchTracksNormalDistribution() {
+        P2Quantile median = new P2Quantile(0.5);
+        P2Quantile p99 = new P2Quantile(0.99);
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            double value = 100 + random.nextGaussian() * 10;
+            median.add(value);
+            p99.add(value);
+        }
+
+        assertThat(median.value()).isCloseTo(100, within(0.5));
+        assertThat(p99.value()).isCloseTo(123.3, within(1.0));
+    }
+
+    /**
+     * Builds an event with latency and error metrics plus a non-numeric field.
+     *
+     * <p>Importance: Ensures non-numeric payload fields are skipped rather than scored.</p>
+     * <p>Alternatives: Numeric-only payloads, but real agents send mixed fields.</p>
+     */
+    private static String payload(double latencyMs, double errors) {
+        return "{\"tenantId\":\"ignored\",\"payload\":{\"latencyMs\":" + latencyMs + ",\"status\":\"ok\",\"errors\":"
+            + errors + "}}";
+    }
+}
@@ -1,9 +1,24 @@
 package com.datatrust360.processing;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.PipelineTiming;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import org.springframework.amqp.core.Message;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -14,6 +29,13 @@ import static org.mockito.Mockito.verify;
  */
 class AnomalyScoringWorkerTest {
 
+    private final OpenAiInsightService insightService = Mockito.mock(OpenAiInsightService.class);
+    private final Channel channel = Mockito.mock(Channel.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AnomalyScoringWorker worker = new AnomalyScoringWorker(insightService,
+        new AnomalyScoringEngine(new ObjectMapper(), new SimpleMeterRegistry(), 0.05, 3.5, 4.0, 30, 1000),
+        meterRegistry, 3, 1_000);
+
     /**
      * Verifies tenant ID is parsed and used when generating insights.
      *
@@ -22,14 +44,200 @@ class AnomalyScoringWorkerTest {
      */
     @Test
     void scoreUsesTenantIdFromPayload() {
-        OpenAiInsightService insightService = Mockito.mock(OpenAiInsightService.class);
-        ObjectMapper objectMapper = new ObjectMapper();
-        AnomalyScoringWorker worker = new AnomalyScoringWorker(insightService, objectMapper);
+        for (int i = 0; i < 50; i++) {
+            worker.score(event("t-1", 100 + i % 5));
+        }
+        String spike = event("t-1", 900);
+
+        worker.score(spike);
+
+        verify(insightService).generateInsight("t-1", spike);
+    }
+
+    /**
+     * Verifies the tenant header is used without reading the tenant from the payload.
+     *
+     * <p>Importance: Header attribution is what lets the worker skip a second parse.</p>
+     * <p>Alternatives: Compare header and body tenants, but that reintroduces the parse.</p>
+     */
+    @Test
+    void scorePrefersTenantHeader() {
+        for (int i = 0; i < 50; i++) {
+            worker.score("{\"payload\":{\"latencyMs\":" + (100 + i % 5) + "}}", "t-9", "agent");
+        }
+        String spike = "{\"payload\":{\"latencyMs\":900}}";
+
+        worker.score(spike, "t-9", "agent");
+
+        verify(insightService).generateInsight("t-9", spike);
+    }
+
+    /**
+     * Verifies a batch is scored message by message with each message's own tenant header.
+     *
+     * <p>Importance: Batching must not blur attribution between messages in the same batch.</p>
+     * <p>Alternatives: Assert on the engine's counters, but the insight call is the outcome.</p>
+     */
+    @Test
+    void scoreBatchUsesPerMessageHeaders() throws IOException {
+        List<Message> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(message(batch.size() + 1, "t-7", "{\"payload\":{\"latencyMs\":" + (100 + i % 5) + "}}"));
+            batch.add(message(batch.size() + 1, "t-8", "{\"payload\":{\"latencyMs\":" + (10 + i % 5) + "}}"));
+        }
+        String spike = "{\"payload\":{\"latencyMs\":900}}";
+        batch.add(message(batch.size() + 1, "t-8", spike));
+
+        worker.scoreBatch(batch, channel);
 
-        String payload = "{\"tenantId\":\"t-1\",\"source\":\"agent\",\"schemaVersion\":\"v1\",\"payload\":{}}";
+        verify(insightService).generateInsight("t-8", spike);
+        verify(insightService, never()).generateInsight(Mockito.eq("t-7"), Mockito.anyString());
+        verify(channel).basicAck(batch.size(), true);
+    }
+
+    /**
+     * Verifies a traced message records its queue and scoring stages and end-to-end latency.
+     *
+     * <p>Importance: These timers are what the pipeline latency dashboards are built on.</p>
+     * <p>Alternatives: Assert on log output, but the metrics are the contract.</p>
+     */
+    @Test
+    void tracedMessageRecordsPipelineLatency() throws IOException {
+        worker.scoreBatch(List.of(message(1, "t-1", "{\"payload\":{\"latencyMs\":10}}")), channel);
 
-        worker.score(payload);
+        assertThat(meterRegistry.get("dt360.pipeline.stage.latency")
+            .tags("stage", PipelineTiming.STAGE_QUEUE, "path", PipelineTiming.PATH_REST).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("dt360.pipeline.stage.latency")
+            .tags("stage", PipelineTiming.STAGE_SCORING, "path", PipelineTiming.PATH_REST).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("dt360.pipeline.end_to_end.latency")
+            .tag("path", PipelineTiming.PATH_REST).timer().totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(5);
+    }
 
-        verify(insightService).generateInsight("t-1", payload);
+    /**
+     * Verifies a failing message is rejected alone and the rest of the batch is acknowledged.
+     *
+     * <p>Importance: One poison message must not send its whole batch through the retry queue.</p>
+     * <p>Alternatives: Throw from the listener, but the container would then reject every message.</p>
+     */
+    @Test
+    void failedMessageIsRejectedForRetry() throws IOException {
+        AnomalyScoringWorker failing = failingWorker("{\"bad\":true}");
+
+        failing.scoreBatch(List.of(message(1, "t-1", "{}"), message(2, "t-1", "{\"bad\":true}"),
+            message(3, "t-1", "{}")), channel);
+
+        verify(channel).basicReject(2, false);
+        verify(channel).basicAck(3, true);
+        verify(channel, never()).basicPublish(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any());
+    }
+
+    /**
+     * Verifies a message that already failed its earlier attempts is parked, not retried.
+     *
+     * <p>Importance: Parking is what stops a poison message from cycling forever.</p>
+     * <p>Alternatives: A retry counter in the body, but rejected messages cannot be rewritten.</p>
+     */
+    @Test
+    void exhaustedMessageIsParked() throws Exception {
+        AnomalyScoringWorker failing = failingWorker("{\"bad\":true}");
+        Message poison = exhausted(7);
+        Mockito.when(channel.waitForConfirms(1_000)).thenReturn(true);
+
+        failing.scoreBatch(List.of(poison), channel);
+
+        InOrder order = Mockito.inOrder(channel);
+        order.verify(channel).basicPublish(Mockito.eq(""), Mockito.eq(RabbitConfig.ANOMALY_PARKING_QUEUE),
+            Mockito.any(), Mockito.eq(poison.getBody()));
+        order.verify(channel).waitForConfirms(1_000);
+        order.verify(channel).basicAck(7, false);
+        verify(channel, never()).basicReject(Mockito.anyLong(), Mockito.anyBoolean());
+    }
+
+    /**
+     * Verifies an unconfirmed parking publish rejects the original instead of acking it.
+     *
+     * <p>Importance: Acking without a confirm loses the message if the broker dropped the copy.</p>
+     * <p>Alternatives: Requeue at the head, but the retry queue keeps the poison message from
+     * spinning.</p>
+     */
+    @Test
+    void unconfirmedParkingRejectsForRetry() throws Exception {
+        AnomalyScoringWorker failing = failingWorker("{\"bad\":true}");
+        Mockito.when(channel.waitForConfirms(1_000)).thenThrow(new TimeoutException("no confirm"));
+
+        failing.scoreBatch(List.of(exhausted(7)), channel);
+
+        verify(channel).basicReject(7, false);
+        verify(channel, never()).basicAck(Mockito.anyLong(), Mockito.anyBoolean());
+    }
+
+    /**
+     * Verifies normal events do not reach the insight service.
+     *
+     * <p>Importance: Forwarding only anomalies is what bounds LLM cost.</p>
+     * <p>Alternatives: Assert call counts only on spikes, but the silent path is the common one.</p>
+     */
+    @Test
+    void normalEventsSkipInsights() {
+        for (int i = 0; i < 100; i++) {
+            worker.score(event("t-1", 100 + i % 5));
+        }
+
+        verify(insightService, never()).generateInsight(Mockito.anyString(), Mockito.anyString());
+    }
+
+    /**
+     * Builds a failing message that has used up its earlier attempts.
+     *
+     * <p>Importance: The broker's {@code x-death} count is what sends it to parking.</p>
+     * <p>Alternatives: Lower max-attempts to one, but that skips the count parsing.</p>
+     */
+    private Message exhausted(long deliveryTag) {
+        Message poison = message(deliveryTag, "t-1", "{\"bad\":true}");
+        poison.getMessageProperties().setHeader("x-death", List.of(
+            Map.of("queue", RabbitConfig.ANOMALY_QUEUE, "reason", "rejected", "count", 2L)));
+        return poison;
+    }
+
+    /**
+     * Builds a worker whose engine fails on one payload.
+     *
+     * <p>Importance: Real payloads never make the engine throw, so the failure is injected.</p>
+     * <p>Alternatives: Malformed JSON, but the engine scores that as not anomalous.</p>
+     */
+    private AnomalyScoringWorker failingWorker(String poison) {
+        AnomalyScoringEngine engine = Mockito.mock(AnomalyScoringEngine.class);
+        Mockito.when(engine.score(Mockito.any(), Mockito.any(), Mockito.anyString()))
+            .thenReturn(AnomalyScore.none("t-1", "agent"));
+        Mockito.when(engine.score(Mockito.any(), Mockito.any(), Mockito.eq(poison)))
+            .thenThrow(new IllegalStateException("scoring bug"));
+        return new AnomalyScoringWorker(insightService, engine, new SimpleMeterRegistry(), 3, 1_000);
+    }
+
+    /**
+     * Builds an AMQP message the way the publisher does, as delivered with a delivery tag.
+     *
+     * <p>Importance: Exercises the same headers and encoding the listener receives.</p>
+     * <p>Alternatives: Set headers by hand, but reusing the publisher keeps them in sync.</p>
+     */
+    private static Message message(long deliveryTag, String tenantId, String payload) {
+        EventEnvelope envelope = new EventEnvelope();
+        envelope.setTenantId(tenantId);
+        envelope.setSource("agent");
+        Message message = PartnerQueuePublisher.toMessage(envelope, payload,
+            new PipelineTrace(PipelineTiming.PATH_REST, PipelineTiming.nowMicros() - 5_000));
+        message.getMessageProperties().setDeliveryTag(deliveryTag);
+        return message;
+    }
+
+    /**
+     * Builds an event envelope with one latency metric.
+     *
+     * <p>Importance: Keeps test payloads in the envelope shape the worker receives.</p>
+     * <p>Alternatives: Serialize an EventEnvelope, but literal JSON is easier to read here.</p>
+     */
+    private static String event(String tenantId, double latencyMs) {
+        return "{\"tenantId\":\"" + tenantId + "\",\"source\":\"agent\",\"schemaVersion\":\"v1\","
+            + "\"payload\":{\"latencyMs\":" + latencyMs + "}}";
     }
 }
@@ -0,0 +1,36 @@
+package com.datatrust360.processing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the insight circuit breaker's half-open trial.
+ *
+ * <p>Importance: A trial that never reports back would keep insights short-circuited forever.</p>
+ * <p>Alternatives: Cover it only through the insight service, but the trial slot is not
+ * observable over HTTP.</p>
+ */
+class CircuitBreakerTest {
+
+    /**
+     * Verifies a trial handed back unsent lets the next request try instead.
+     *
+     * <p>Importance: The insight service checks the breaker before waiting for a bulkhead
+     * permit, so a granted trial can still be dropped.</p>
+     * <p>Alternatives: Treat the skip as a failure, but that reopens a breaker whose upstream
+     * was never called.</p>
+     */
+    @Test
+    void skippedTrialFreesHalfOpenSlot() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+        breaker.onFailure();
+
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.allowRequest()).isFalse();
+        breaker.onSkipped();
+
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+}
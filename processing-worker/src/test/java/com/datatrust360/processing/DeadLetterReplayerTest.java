@@ -0,0 +1,210 @@
+package com.datatrust360.processing;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the dead-letter replays and job bookkeeping.
+ *
+ * <p>Importance: Acking a parked message before its republish is confirmed can lose it.</p>
+ * <p>Alternatives: Run against a broker, but a mocked channel shows the exact call order.</p>
+ */
+class DeadLetterReplayerTest {
+
+    @SuppressWarnings("unchecked")
+    private final ConsumerFactory<String, String> consumerFactory = Mockito.mock(ConsumerFactory.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+    private final RabbitTemplate rabbitTemplate = Mockito.mock(RabbitTemplate.class);
+    private final Channel channel = Mockito.mock(Channel.class);
+    private DeadLetterReplayer replayer;
+
+    /**
+     * Stops the replay thread.
+     *
+     * <p>Importance: Keeps a stuck job from leaking into other tests.</p>
+     * <p>Alternatives: Rely on daemon threads, but they would outlive the test.</p>
+     */
+    @AfterEach
+    void stopReplayer() {
+        replayer.shutdown();
+    }
+
+    /**
+     * Verifies each parked message is acked only after its republish was confirmed.
+     *
+     * <p>Importance: The confirm is what proves the scoring queue holds the copy.</p>
+     * <p>Alternatives: Check only the ack count, but the order is the guarantee.</p>
+     */
+    @Test
+    void acksParkedMessageAfterConfirm() throws Exception {
+        when(channel.basicGet(RabbitConfig.ANOMALY_PARKING_QUEUE, false)).thenReturn(parked(7), (GetResponse) null);
+        replayer = replayer(10);
+
+        awaitState(replayer.replayRabbit(10, 500).id(), "COMPLETED");
+
+        InOrder order = Mockito.inOrder(channel);
+        order.verify(channel).confirmSelect();
+        order.verify(channel).basicPublish(eq(""), eq(RabbitConfig.ANOMALY_QUEUE), any(AMQP.BasicProperties.class),
+            any(byte[].class));
+        order.verify(channel).waitForConfirmsOrDie(10_000);
+        order.verify(channel).basicAck(7, false);
+    }
+
+    /**
+     * Verifies an unconfirmed republish fails the job without acking the parked message.
+     *
+     * <p>Importance: The message must stay parked so a later replay can move it.</p>
+     * <p>Alternatives: Retry the publish in place, but the job should surface the broker problem.</p>
+     */
+    @Test
+    void unconfirmedRepublishLeavesMessageParked() throws Exception {
+        when(channel.basicGet(RabbitConfig.ANOMALY_PARKING_QUEUE, false)).thenReturn(parked(7));
+        Mockito.doThrow(new TimeoutException("no confirm")).when(channel).waitForConfirmsOrDie(anyLong());
+        replayer = replayer(10);
+
+        awaitState(replayer.replayRabbit(10, 500).id(), "FAILED");
+
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    /**
+     * Verifies only the most recent finished jobs stay queryable.
+     *
+     * <p>Importance: Each replay request adds a job, so the map must not grow forever.</p>
+     * <p>Alternatives: Assert the map size, but the status lookup is the public contract.</p>
+     */
+    @Test
+    void forgetsOldestFinishedJobs() throws Exception {
+        when(channel.basicGet(anyString(), anyBoolean())).thenReturn(null);
+        replayer = replayer(1);
+
+        String first = replayer.replayRabbit(1, 500).id();
+        awaitState(first, "COMPLETED");
+        String second = replayer.replayRabbit(1, 500).id();
+        awaitState(second, "COMPLETED");
+
+        assertThat(replayer.status(first)).isEmpty();
+        assertThat(replayer.status(second)).isPresent();
+    }
+
+    /**
+     * Verifies a Kafka replay outlasts an empty first poll and stops at the starting end offset.
+     *
+     * <p>Importance: Ending on the first empty poll reported jobs as done with nothing
+     * replayed, and reading past the start snapshot would replay events that failed again.</p>
+     * <p>Alternatives: An embedded broker, but {@link MockConsumer} scripts each poll exactly.</p>
+     */
+    @Test
+    void kafkaReplayReadsUpToStartingEndOffsets() throws Exception {
+        TopicPartition partition = new TopicPartition(KafkaRetryConfig.DLT_TOPIC, 0);
+        Map<TopicPartition, OffsetAndMetadata> committed = new ConcurrentHashMap<>();
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+                super.commitSync(offsets);
+                committed.putAll(offsets);
+            }
+        };
+        consumer.updatePartitions(KafkaRetryConfig.DLT_TOPIC,
+            List.of(new PartitionInfo(KafkaRetryConfig.DLT_TOPIC, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(partition, 0L));
+        consumer.updateEndOffsets(Map.of(partition, 2L));
+        consumer.schedulePollTask(() -> { });
+        consumer.schedulePollTask(() -> {
+            for (long offset = 0; offset < 3; offset++) {
+                consumer.addRecord(new ConsumerRecord<>(KafkaRetryConfig.DLT_TOPIC, 0, offset, "t-1", "{}"));
+            }
+        });
+        when(consumerFactory.createConsumer(anyString(), anyString(), any(), any(Properties.class))).thenReturn(consumer);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        replayer = replayer(10);
+
+        String id = replayer.replayKafka(10, 500).id();
+        awaitState(id, "COMPLETED");
+
+        assertThat(replayer.status(id).orElseThrow().replayed()).isEqualTo(2);
+        assertThat(committed.get(partition).offset()).isEqualTo(2L);
+    }
+
+    /**
+     * Builds a replayer whose RabbitMQ callbacks run on the mocked channel.
+     *
+     * <p>Importance: The replay logic only sees the channel, so that is all the test controls.</p>
+     * <p>Alternatives: A Spring context, but that needs both brokers.</p>
+     */
+    @SuppressWarnings("unchecked")
+    private DeadLetterReplayer replayer(int retainedJobs) {
+        when(rabbitTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<ChannelCallback<Integer>>getArgument(0).doInRabbit(channel));
+        return new DeadLetterReplayer(consumerFactory, kafkaTemplate, rabbitTemplate, new SimpleMeterRegistry(),
+            500, 10_000, retainedJobs);
+    }
+
+    /**
+     * Builds a parked message with the given delivery tag and a retry history.
+     *
+     * <p>Importance: The {@code x-death} header is what the replay strips.</p>
+     * <p>Alternatives: Empty properties, but then header handling would go unexercised.</p>
+     */
+    private static GetResponse parked(long deliveryTag) {
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+            .headers(Map.of("x-death", "history"))
+            .build();
+        return new GetResponse(new Envelope(deliveryTag, false, "", RabbitConfig.ANOMALY_PARKING_QUEUE),
+            properties, "{}".getBytes(), 0);
+    }
+
+    /**
+     * Polls a job until it reaches the given state.
+     *
+     * <p>Importance: Jobs run on the replay thread, so the test must wait for them.</p>
+     * <p>Alternatives: Sleep a fixed time, but that is slower and still racy.</p>
+     */
+    private void awaitState(String id, String state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (replayer.status(id).map(status -> state.equals(status.state())).orElse(false)) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Replay " + id + " did not reach " + state);
+    }
+}
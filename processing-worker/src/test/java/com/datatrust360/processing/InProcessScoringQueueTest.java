@@ -0,0 +1,99 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.EventEnvelope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Unit tests for the in-process scoring hand-off.
+ *
+ * <p>Importance: The Kafka listener commits offsets when the batch future completes, so an
+ * early completion loses every buffered event on a crash.</p>
+ * <p>Alternatives: Cover it through the listener, but the listener test mocks the queue.</p>
+ */
+class InProcessScoringQueueTest {
+
+    private final AnomalyScoringWorker worker = Mockito.mock(AnomalyScoringWorker.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private InProcessScoringQueue queue;
+
+    /**
+     * Stops the scoring threads, releasing any that are still held by a test.
+     *
+     * <p>Importance: A held scoring thread would otherwise outlive the test.</p>
+     * <p>Alternatives: Daemon threads alone, but they would keep scoring into later tests.</p>
+     */
+    @AfterEach
+    void stopQueue() {
+        release.countDown();
+        queue.shutdown();
+    }
+
+    /**
+     * Verifies a batch completes only after its last event has been scored.
+     *
+     * <p>Importance: This is what keeps Kafka offsets behind scoring.</p>
+     * <p>Alternatives: Check the buffered gauge, but the future is what the listener waits on.</p>
+     */
+    @Test
+    void batchCompletesOnlyAfterScoring() throws Exception {
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(worker).score(anyString(), anyString(), anyString(), any(PipelineTrace.class));
+        queue = new InProcessScoringQueue(worker, new SimpleMeterRegistry(), 16, 4, 2, 1_000);
+
+        CompletableFuture<Void> done = queue.enqueueAll(envelopes(3), List.of("{}", "{}", "{}"),
+            Collections.nCopies(3, PipelineTrace.UNTRACED));
+
+        Thread.sleep(100);
+        assertThat(done).isNotDone();
+        release.countDown();
+        done.get(5, TimeUnit.SECONDS);
+        Mockito.verify(worker, Mockito.times(3)).score(anyString(), anyString(), anyString(), any(PipelineTrace.class));
+    }
+
+    /**
+     * Verifies an idle scoring thread wakes for a batch offered after it went to sleep.
+     *
+     * <p>Importance: A lost signal would stall the batch until the idle wait times out.</p>
+     * <p>Alternatives: Assert on thread states, but timing out is the observable failure.</p>
+     */
+    @Test
+    void idleConsumerWakesForNewBatch() throws Exception {
+        release.countDown();
+        queue = new InProcessScoringQueue(worker, new SimpleMeterRegistry(), 16, 4, 1, 1_000);
+        Thread.sleep(200);
+
+        long start = System.nanoTime();
+        queue.enqueueAll(envelopes(1), List.of("{}"), List.of(PipelineTrace.UNTRACED)).get(5, TimeUnit.SECONDS);
+
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(90));
+    }
+
+    /**
+     * Builds envelopes for tenant {@code t-1}.
+     *
+     * <p>Importance: Only tenant and source are read from them.</p>
+     * <p>Alternatives: Vary the tenant, but scoring is mocked here.</p>
+     */
+    private static List<EventEnvelope> envelopes(int count) {
+        EventEnvelope envelope = new EventEnvelope();
+        envelope.setTenantId("t-1");
+        envelope.setSource("agent");
+        return Collections.nCopies(count, envelope);
+    }
+}
@@ -0,0 +1,105 @@
+package com.datatrust360.processing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for the Kafka retry tier listener.
+ *
+ * <p>Importance: Ensures retries wait without blocking, and that every record ends up processed
+ * or handed to the next tier before its offset is committed.</p>
+ * <p>Alternatives: Use an embedded broker, but mocks isolate the routing decision.</p>
+ */
+class KafkaRetryListenerTest {
+
+    private static final String VALID = "{\"tenantId\":\"t-1\",\"payload\":{}}";
+    private static final String EVENT_ID = "kafka:dt360.events.raw:0:5";
+
+    private final StorageClient storageClient = Mockito.mock(StorageClient.class);
+    private final ScoringQueue scoringQueue = Mockito.mock(ScoringQueue.class);
+    private final KafkaRetryRouter retryRouter = Mockito.mock(KafkaRetryRouter.class);
+    private final Acknowledgment acknowledgment = Mockito.mock(Acknowledgment.class);
+    private final KafkaRetryListener listener = new KafkaRetryListener(
+        new ObjectMapper().findAndRegisterModules(), storageClient, scoringQueue, retryRouter);
+
+    /**
+     * Verifies a record that is not due yet is paused and left uncommitted.
+     *
+     * <p>Importance: Processing early would shorten the backoff storage needs to recover.</p>
+     * <p>Alternatives: Sleep in the listener, but that risks exceeding the poll interval.</p>
+     */
+    @Test
+    void notDueRecordIsPausedWithoutProcessing() {
+        listener.handle(record(System.currentTimeMillis() + 60_000, 1), acknowledgment);
+
+        verify(acknowledgment).nack(Mockito.argThat((Duration wait) -> wait.toMillis() > 0));
+        verify(acknowledgment, never()).acknowledge();
+        verify(storageClient, never()).persistEvent(Mockito.any());
+    }
+
+    /**
+     * Verifies a due record that succeeds is stored under its original event id, enqueued, and committed.
+     *
+     * <p>Importance: A successful retry must reach scoring like a first-time event.</p>
+     * <p>Alternatives: Only store it, but then retried events would never be scored.</p>
+     */
+    @Test
+    void dueRecordIsProcessedAndCommitted() {
+        Mockito.when(scoringQueue.enqueueAll(Mockito.anyList(), Mockito.anyList(), Mockito.anyList()))
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        listener.handle(record(0, 1), acknowledgment);
+
+        verify(storageClient).persistEvent(ArgumentMatchers.argThat(envelope -> EVENT_ID.equals(envelope.getEventId())));
+        verify(scoringQueue).enqueueAll(Mockito.anyList(), Mockito.eq(List.of(VALID)), Mockito.anyList());
+        verify(acknowledgment).acknowledge();
+    }
+
+    /**
+     * Verifies a due record that fails again moves on to the next tier with its original topic.
+     *
+     * <p>Importance: The attempt count is what eventually sends poison events to the DLT.</p>
+     * <p>Alternatives: Re-seek the record, but that would block the tier behind it.</p>
+     */
+    @Test
+    void failedRetryMovesToNextTier() {
+        Mockito.doThrow(new IllegalStateException("still down")).when(storageClient).persistEvent(Mockito.any());
+        Mockito.when(retryRouter.retry(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.anyString(), Mockito.anyInt(),
+            Mockito.any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        listener.handle(record(0, 2), acknowledgment);
+
+        verify(retryRouter).retry(Mockito.eq("t-1"), Mockito.eq(VALID), Mockito.eq(EVENT_ID), Mockito.eq(KafkaRetryConfig.RAW_TOPIC),
+            Mockito.eq(3), Mockito.any());
+        verify(acknowledgment).acknowledge();
+    }
+
+    /**
+     * Builds a retry tier record carrying the headers the router writes.
+     *
+     * <p>Importance: Exercises the same header names the router and replayer use.</p>
+     * <p>Alternatives: Route through a mocked template, but that tests the router twice.</p>
+     */
+    private static ConsumerRecord<String, String> record(long dueAt, int attempts) {
+        ConsumerRecord<String, String> record =
+            new ConsumerRecord<>(KafkaRetryConfig.RETRY_TOPIC_2, 0, 0L, "t-1", VALID);
+        record.headers().add(KafkaRetryConfig.DUE_AT_HEADER, Long.toString(dueAt).getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaRetryConfig.ATTEMPT_HEADER, Integer.toString(attempts).getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaRetryConfig.ORIGINAL_TOPIC_HEADER,
+            KafkaRetryConfig.RAW_TOPIC.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaRetryConfig.EVENT_ID_HEADER, EVENT_ID.getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+}
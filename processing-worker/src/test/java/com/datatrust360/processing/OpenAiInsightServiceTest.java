@@ -0,0 +1,161 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.AuditLogRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests insight coalescing, caching, and circuit breaking against a local stub HTTP server.
+ *
+ * <p>Importance: Exercises the real RestClient path without calling OpenAI.</p>
+ * <p>Alternatives: Mock the RestClient, but a stub server also covers serialization and
+ * HTTP error handling.</p>
+ */
+class OpenAiInsightServiceTest {
+
+    private static final String EVENT = "{\"tenantId\":\"t-1\",\"receivedAt\":\"%s\",\"payload\":{\"latencyMs\":%s}}";
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final StorageClient storageClient = Mockito.mock(StorageClient.class);
+    private HttpServer server;
+    private volatile int status = 200;
+    private OpenAiInsightService service;
+
+    /**
+     * Starts the stub server that records request bodies and replies with a fixed insight.
+     *
+     * <p>Importance: Request bodies show how many payloads each call carried.</p>
+     * <p>Alternatives: WireMock, but the JDK server needs no dependency.</p>
+     */
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/responses", exchange -> {
+            requests.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            byte[] body = "{\"output_text\":\"latency spike\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        RestClient restClient = RestClient.builder()
+            .baseUrl("http://localhost:" + server.getAddress().getPort())
+            .build();
+        service = new OpenAiInsightService(restClient, storageClient, new ObjectMapper(), new SimpleMeterRegistry(),
+            true, "test-model", 100, 20, 100, 60_000, 2, 1_000, 2, 10, 2, 60_000);
+    }
+
+    /**
+     * Stops the stub server and the service's executors.
+     *
+     * <p>Importance: Frees the port and threads between tests.</p>
+     * <p>Alternatives: One server per class, but per-test state keeps counts independent.</p>
+     */
+    @AfterEach
+    void stopServer() {
+        service.shutdown();
+        server.stop(0);
+    }
+
+    /**
+     * Verifies payloads of one tenant within a window become one request and one audit entry.
+     *
+     * <p>Importance: Coalescing is what turns an anomaly burst into a single LLM call.</p>
+     * <p>Alternatives: Count only requests, but the audit entry is what analysts see.</p>
+     */
+    @Test
+    void coalescesTenantWindowIntoOneRequest() {
+        service.generateInsight("t-1", String.format(EVENT, "2025-01-01T00:00:00Z", 900));
+        service.generateInsight("t-1", String.format(EVENT, "2025-01-01T00:00:01Z", 950));
+        service.generateInsight("t-1", String.format(EVENT, "2025-01-01T00:00:02Z", 990));
+
+        ArgumentCaptor<AuditLogRequest> audit = ArgumentCaptor.forClass(AuditLogRequest.class);
+        verify(storageClient, timeout(2_000)).persistAudit(audit.capture());
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0)).contains("these 3 events");
+        assertThat(audit.getValue().getTenantId()).isEqualTo("t-1");
+        assertThat(audit.getValue().getDetails()).isEqualTo("latency spike");
+    }
+
+    /**
+     * Verifies a window that normalizes to an earlier one reuses the cached insight.
+     *
+     * <p>Importance: Recurring anomalies should not pay for the same summary twice.</p>
+     * <p>Alternatives: Exact-match caching, but arrival times alone would defeat it.</p>
+     */
+    @Test
+    void reusesCachedInsightForEquivalentWindow() {
+        service.generateInsight("t-1", String.format(EVENT, "2025-01-01T00:00:00Z", 900));
+        verify(storageClient, timeout(2_000)).persistAudit(Mockito.any());
+
+        service.generateInsight("t-1", String.format(EVENT, "2025-01-01T01:00:00Z", 900.2));
+        verify(storageClient, timeout(2_000).times(2)).persistAudit(Mockito.any());
+
+        assertThat(requests).hasSize(1);
+    }
+
+    /**
+     * Verifies the breaker stops calls after consecutive failures.
+     *
+     * <p>Importance: A failing upstream must not keep consuming permits and threads.</p>
+     * <p>Alternatives: Assert on the breaker directly, but the request count is the real effect.</p>
+     */
+    @Test
+    void opensCircuitAfterConsecutiveFailures() throws InterruptedException {
+        status = 500;
+        for (int i = 0; i < 4; i++) {
+            service.generateInsight("t-" + i, String.format(EVENT, "2025-01-01T00:00:00Z", 900 + i));
+            Thread.sleep(250);
+        }
+
+        assertThat(requests).hasSize(2);
+        verify(storageClient, Mockito.never()).persistAudit(Mockito.any());
+    }
+
+    /**
+     * Verifies callers return immediately while the upstream is slow.
+     *
+     * <p>Importance: The RabbitMQ listener thread must never wait on the LLM.</p>
+     * <p>Alternatives: Measure listener throughput, but a direct timing check is simpler.</p>
+     */
+    @Test
+    void generateInsightDoesNotBlockCaller() {
+        server.removeContext("/v1/responses");
+        server.createContext("/v1/responses", exchange -> {
+            try {
+                Thread.sleep(2_000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            service.generateInsight("t-" + i, String.format(EVENT, "2025-01-01T00:00:00Z", i));
+        }
+
+        assertThat(System.nanoTime() - start).isLessThan(500_000_000L);
+    }
+}
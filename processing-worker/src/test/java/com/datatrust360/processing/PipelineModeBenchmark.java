@@ -0,0 +1,174 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.EventEnvelope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareBatchMessageListener;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares end-to-end scoring throughput of the in-process ring buffer and the RabbitMQ path.
+ *
+ * <p>Importance: Shows what a single-node deployment gains by skipping the broker hop.</p>
+ * <p>Alternatives: JMH, but both paths are multi-threaded pipelines measured end to end, which
+ * wall-clock throughput and process CPU time describe well enough.</p>
+ *
+ * <p>Run with {@code mvn -pl processing-worker test -Dtest=PipelineModeBenchmark -Dbenchmarks=true}.
+ * The AMQP path runs only with {@code -Dbenchmarks.rabbit.host=localhost}; it purges
+ * {@code dt360.anomaly.scoring}, so point it at a local broker.</p>
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class PipelineModeBenchmark {
+
+    private static final int EVENTS = 200_000;
+    private static final int PUBLISH_BATCH = 500;
+    private static final int CONSUMERS = 2;
+
+    private final List<EventEnvelope> envelopes = new ArrayList<>(EVENTS);
+    private final List<String> payloads = new ArrayList<>(EVENTS);
+
+    /**
+     * Builds the event set shared by both paths.
+     *
+     * <p>Importance: Identical inputs make the scoring cost identical, so the difference is
+     * the hand-off.</p>
+     * <p>Alternatives: Generate per run, but then generation time would be measured too.</p>
+     */
+    PipelineModeBenchmark() {
+        for (int i = 0; i < EVENTS; i++) {
+            EventEnvelope envelope = new EventEnvelope();
+            envelope.setTenantId("t-" + (i % 16));
+            envelope.setSource("agent");
+            envelopes.add(envelope);
+            payloads.add("{\"tenantId\":\"t-" + (i % 16) + "\",\"source\":\"agent\",\"payload\":"
+                + "{\"latencyMs\":" + (100 + i % 7) + ",\"cpu\":" + (0.4 + (i % 5) / 10.0) + "}}");
+        }
+    }
+
+    /**
+     * Measures the in-process ring buffer path.
+     *
+     * <p>Importance: The configuration single-node deployments would switch to.</p>
+     * <p>Alternatives: Measure the buffer alone, but scoring dominates and must be included.</p>
+     */
+    @Test
+    void inProcess() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InProcessScoringQueue queue = new InProcessScoringQueue(newWorker(meterRegistry), meterRegistry,
+            65_536, 256, CONSUMERS, 5_000);
+        try {
+            LongSupplier scored = () -> (long) meterRegistry.counter(
+                "dt360.pipeline.in_process.events", "result", "scored").count();
+            run("warmup-in-process", queue, scored, EVENTS);
+            run("in-process", queue, scored, 2L * EVENTS);
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    /**
+     * Measures the RabbitMQ path with the same publisher and batch listener settings as production.
+     *
+     * <p>Importance: The baseline the in-process mode is compared against.</p>
+     * <p>Alternatives: Estimate from serialization cost alone, but broker I/O is most of it.</p>
+     */
+    @Test
+    void amqp() {
+        String host = System.getProperty("benchmarks.rabbit.host");
+        Assumptions.assumeTrue(host != null, "set -Dbenchmarks.rabbit.host to run the AMQP path");
+        CachingConnectionFactory connectionFactory = new CachingConnectionFactory(host);
+        connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+        RabbitAdmin admin = new RabbitAdmin(connectionFactory);
+        admin.declareQueue(new RabbitConfig().anomalyQueue());
+        admin.purgeQueue(RabbitConfig.ANOMALY_QUEUE, false);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AnomalyScoringWorker worker = newWorker(meterRegistry);
+        AtomicLong scored = new AtomicLong();
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueueNames(RabbitConfig.ANOMALY_QUEUE);
+        container.setConsumerBatchEnabled(true);
+        container.setBatchSize(50);
+        container.setPrefetchCount(250);
+        container.setConcurrentConsumers(CONSUMERS);
+        container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        container.setMessageListener(new ChannelAwareBatchMessageListener() {
+            @Override
+            public void onMessageBatch(List<Message> messages, Channel channel) {
+                try {
+                    worker.scoreBatch(messages, channel);
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                scored.addAndGet(messages.size());
+            }
+        });
+        container.start();
+        try {
+            PartnerQueuePublisher publisher = new PartnerQueuePublisher(new RabbitTemplate(connectionFactory),
+                meterRegistry, 100, 30_000);
+            run("warmup-amqp", publisher, scored::get, EVENTS);
+            run("amqp", publisher, scored::get, 2L * EVENTS);
+        } finally {
+            container.stop();
+            connectionFactory.destroy();
+        }
+    }
+
+    /**
+     * Feeds every event through a queue in Kafka-sized batches and waits until all are scored.
+     *
+     * <p>Importance: Waiting on the confirm or hand-off per batch mirrors the Kafka listener.</p>
+     * <p>Alternatives: Fire everything first, but then producer and consumer would not overlap.</p>
+     */
+    private void run(String name, ScoringQueue queue, LongSupplier scored, long target) {
+        com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long cpuStart = os.getProcessCpuTime();
+        long start = System.nanoTime();
+        for (int from = 0; from < EVENTS; from += PUBLISH_BATCH) {
+            int to = Math.min(from + PUBLISH_BATCH, EVENTS);
+            queue.enqueueAll(envelopes.subList(from, to), payloads.subList(from, to),
+                Collections.nCopies(to - from, PipelineTrace.UNTRACED)).join();
+        }
+        while (scored.getAsLong() < target) {
+            Thread.yield();
+        }
+        long elapsed = System.nanoTime() - start;
+        long cpu = os.getProcessCpuTime() - cpuStart;
+        if (!name.startsWith("warmup")) {
+            System.out.printf("%-10s %,10.0f events/s  cpu=%6.0f ns/event%n",
+                name, EVENTS * 1e9 / elapsed, (double) cpu / EVENTS);
+        }
+    }
+
+    /**
+     * Creates the production scoring worker with insights stubbed out.
+     *
+     * <p>Importance: Both paths run the same scoring code.</p>
+     * <p>Alternatives: A no-op scorer, but then the benchmark would overstate the hand-off share.</p>
+     */
+    private static AnomalyScoringWorker newWorker(MeterRegistry meterRegistry) {
+        return new AnomalyScoringWorker(Mockito.mock(OpenAiInsightService.class),
+            new AnomalyScoringEngine(new ObjectMapper(), meterRegistry, 0.05, 3.5, 4.0, 30, 100_000), meterRegistry, 3, 10_000);
+    }
+}
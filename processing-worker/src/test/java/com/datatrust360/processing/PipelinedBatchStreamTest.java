@@ -0,0 +1,84 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.storage.grpc.BatchAck;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for pipelined storage write streams.
+ *
+ * <p>Importance: Ensures acks reach the right caller and failures never strand a caller.</p>
+ * <p>Alternatives: Run an in-process gRPC server, but a fake opener isolates the matching logic.</p>
+ */
+class PipelinedBatchStreamTest {
+
+    private final List<StreamObserver<BatchAck>> opened = new ArrayList<>();
+    private final List<String> sent = new ArrayList<>();
+    private final PipelinedBatchStream<String> stream = new PipelinedBatchStream<>(this::open, 5_000);
+
+    /**
+     * Verifies batches are sent without waiting and acks complete the matching futures.
+     *
+     * <p>Importance: Pipelining is only safe if out-of-order acks are routed by id.</p>
+     * <p>Alternatives: Assume in-order acks, but ids keep the client independent of server order.</p>
+     */
+    @Test
+    void routesAcksByBatchIdOnOneStream() {
+        CompletableFuture<BatchAck> first = stream.send(1, "a");
+        CompletableFuture<BatchAck> second = stream.send(2, "b");
+
+        opened.get(0).onNext(BatchAck.newBuilder().setBatchId(2).setOk(true).build());
+
+        assertThat(opened).hasSize(1);
+        assertThat(sent).containsExactly("a", "b");
+        assertThat(second).isCompleted();
+        assertThat(first).isNotDone();
+    }
+
+    /**
+     * Verifies a stream failure fails pending batches and the next send reopens the stream.
+     *
+     * <p>Importance: Callers must see the failure promptly so they can redeliver.</p>
+     * <p>Alternatives: Wait for the ack timeout, but that stalls consumers for seconds.</p>
+     */
+    @Test
+    void failureFailsPendingAndReopens() {
+        CompletableFuture<BatchAck> pending = stream.send(1, "a");
+
+        opened.get(0).onError(new IllegalStateException("disconnected"));
+        stream.send(2, "b");
+
+        assertThat(pending).isCompletedExceptionally();
+        assertThat(opened).hasSize(2);
+    }
+
+    /**
+     * Fake stub method that records sent batches and captures the ack observer.
+     *
+     * <p>Importance: Lets tests drive acks and failures directly.</p>
+     * <p>Alternatives: Mockito, but a recorder keeps the test readable.</p>
+     */
+    private StreamObserver<String> open(StreamObserver<BatchAck> acks) {
+        opened.add(acks);
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(String value) {
+                sent.add(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        };
+    }
+}
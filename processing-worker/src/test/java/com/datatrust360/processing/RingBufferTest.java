@@ -0,0 +1,96 @@
+package com.datatrust360.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the in-process scoring ring buffer.
+ *
+ * <p>Importance: A lost or duplicated hand-off would silently skew anomaly scores.</p>
+ * <p>Alternatives: Test only through the scoring queue, but races are easier to provoke here.</p>
+ */
+class RingBufferTest {
+
+    /**
+     * Verifies FIFO order, the full signal, and slot reuse across laps.
+     *
+     * <p>Importance: Producers rely on {@code offer} returning false to apply backpressure.</p>
+     * <p>Alternatives: Check only size, but wrap-around bugs show up as wrong items.</p>
+     */
+    @Test
+    void rejectsWhenFullAndReusesSlots() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        assertThat(buffer.capacity()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 3)).isEqualTo(3);
+        assertThat(drained).containsExactly(0, 1, 2);
+        assertThat(buffer.offer(4)).isTrue();
+        assertThat(buffer.poll()).isEqualTo(3);
+        assertThat(buffer.poll()).isEqualTo(4);
+        assertThat(buffer.poll()).isNull();
+    }
+
+    /**
+     * Verifies every item is delivered exactly once with concurrent producers and consumers.
+     *
+     * <p>Importance: This is the property the lock-free protocol has to preserve.</p>
+     * <p>Alternatives: Single-threaded tests only, but they cannot exercise the CAS races.</p>
+     */
+    @Test
+    void deliversEachItemOnceUnderContention() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20_000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        ConcurrentLinkedQueue<Integer> received = new ConcurrentLinkedQueue<>();
+        AtomicInteger remaining = new AtomicInteger(producers * perProducer);
+        CountDownLatch done = new CountDownLatch(producers + 2);
+        ExecutorService pool = Executors.newFixedThreadPool(producers + 2);
+
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            pool.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        for (int c = 0; c < 2; c++) {
+            pool.execute(() -> {
+                List<Integer> batch = new ArrayList<>();
+                while (remaining.get() > 0) {
+                    int count = buffer.drainTo(batch, 32);
+                    if (count == 0) {
+                        Thread.yield();
+                    }
+                    received.addAll(batch);
+                    remaining.addAndGet(-count);
+                    batch.clear();
+                }
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        pool.shutdownNow();
+        assertThat(received).hasSize(producers * perProducer).doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,50 @@
+package com.datatrust360.processing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the scoring consumer scaling policy.
+ *
+ * <p>Importance: Ensures consumer counts follow the backlog and stay within bounds.</p>
+ * <p>Alternatives: Scale against a live broker, but the policy is pure arithmetic.</p>
+ */
+class ScoringConsumerScalerTest {
+
+    /**
+     * Verifies a backlog scales up to one consumer per configured share in a single step.
+     *
+     * <p>Importance: A growing backlog needs capacity now, not one consumer per interval.</p>
+     * <p>Alternatives: Step up gradually, but that lets the backlog grow while scaling.</p>
+     */
+    @Test
+    void scalesUpToBacklogInOneStep() {
+        assertThat(ScoringConsumerScaler.targetConsumers(2_001, 1, 1, 8, 500)).isEqualTo(5);
+    }
+
+    /**
+     * Verifies the target is clamped to the configured bounds.
+     *
+     * <p>Importance: The maximum protects the broker and the minimum keeps the queue consumed.</p>
+     * <p>Alternatives: Trust the arithmetic, but a huge backlog would ask for thousands.</p>
+     */
+    @Test
+    void clampsToBounds() {
+        assertThat(ScoringConsumerScaler.targetConsumers(1_000_000, 2, 1, 8, 500)).isEqualTo(8);
+        assertThat(ScoringConsumerScaler.targetConsumers(0, 1, 2, 8, 500)).isEqualTo(2);
+    }
+
+    /**
+     * Verifies an empty queue sheds consumers one at a time.
+     *
+     * <p>Importance: A brief lull between bursts should not drop every consumer at once.</p>
+     * <p>Alternatives: Drop straight to the minimum, but the next burst would rescale from one.</p>
+     */
+    @Test
+    void scalesDownOneConsumerAtATime() {
+        assertThat(ScoringConsumerScaler.targetConsumers(0, 6, 1, 8, 500)).isEqualTo(5);
+        assertThat(ScoringConsumerScaler.targetConsumers(0, 2, 1, 8, 500)).isEqualTo(1);
+        assertThat(ScoringConsumerScaler.targetConsumers(0, 1, 1, 8, 500)).isEqualTo(1);
+    }
+}
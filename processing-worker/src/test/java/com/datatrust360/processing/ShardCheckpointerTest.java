@@ -0,0 +1,105 @@
+package com.datatrust360.processing;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for coalesced Kinesis checkpoint writes.
+ *
+ * <p>Importance: Ensures only the newest position per shard is written and none are dropped.</p>
+ * <p>Alternatives: Run against Postgres, but a mocked table isolates the coalescing.</p>
+ */
+class ShardCheckpointerTest {
+
+    private final ShardLeaseTable leaseTable = Mockito.mock(ShardLeaseTable.class);
+    private final ShardCheckpointer checkpointer = new ShardCheckpointer(leaseTable, "stream", "worker-1");
+
+    /**
+     * Verifies several batches of one shard become one write of the last sequence number.
+     *
+     * <p>Importance: Coalescing is what keeps checkpoint load independent of poll rate.</p>
+     * <p>Alternatives: Count writes only, but the written value is what resume depends on.</p>
+     */
+    @Test
+    void flushWritesNewestPositionPerShard() {
+        checkpointer.record("s1", "100");
+        checkpointer.record("s1", "200");
+        checkpointer.record("s2", "50");
+
+        checkpointer.flush();
+        checkpointer.flush();
+
+        verify(leaseTable).checkpointAll("stream", "worker-1", Map.of("s1", "200", "s2", "50"));
+        verifyNoMoreInteractions(leaseTable);
+    }
+
+    /**
+     * Verifies a failed flush keeps positions for the next attempt.
+     *
+     * <p>Importance: A database hiccup must not make the next owner replay the shard.</p>
+     * <p>Alternatives: Drop positions on failure, but that widens the replay window.</p>
+     */
+    @Test
+    void failedFlushKeepsPendingPositions() {
+        checkpointer.record("s1", "100");
+        Mockito.doThrow(new IllegalStateException("db down")).doReturn(List.of())
+            .when(leaseTable).checkpointAll(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+
+        try {
+            checkpointer.flush();
+        } catch (IllegalStateException expected) {
+            // retried below
+        }
+        checkpointer.flush();
+
+        verify(leaseTable, Mockito.times(2)).checkpointAll("stream", "worker-1", Map.of("s1", "100"));
+    }
+
+    /**
+     * Verifies marking a shard finished supersedes its pending position.
+     *
+     * <p>Importance: A later flush must not overwrite SHARD_END with an older sequence number.</p>
+     * <p>Alternatives: Order writes by time, but dropping the pending entry is simpler.</p>
+     */
+    @Test
+    void shardEndReplacesPendingPosition() {
+        checkpointer.record("s1", "100");
+
+        checkpointer.markShardEnd("s1");
+        checkpointer.flush();
+
+        verify(leaseTable).checkpoint("stream", "s1", "worker-1", ShardCheckpointer.SHARD_END);
+        verify(leaseTable, never()).checkpointAll(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+    }
+
+    /**
+     * Verifies a checkpoint write that matches no lease row marks the shard as no longer owned.
+     *
+     * <p>Importance: The shard loop stops before its next fetch instead of reading a stolen
+     * shard until the next rebalance.</p>
+     * <p>Alternatives: Rely on lease renewal, but that runs only every rebalance interval.</p>
+     */
+    @Test
+    void rejectedWriteMarksShardLostUntilReacquired() {
+        when(leaseTable.checkpointAll("stream", "worker-1", Map.of("s1", "100", "s2", "7")))
+            .thenReturn(List.of("s1"));
+        checkpointer.record("s1", "100");
+        checkpointer.record("s2", "7");
+
+        assertThat(checkpointer.flush()).containsExactly("s1");
+        assertThat(checkpointer.owns("s1")).isFalse();
+        assertThat(checkpointer.owns("s2")).isTrue();
+
+        checkpointer.acquired("s1");
+        assertThat(checkpointer.owns("s1")).isTrue();
+    }
+}
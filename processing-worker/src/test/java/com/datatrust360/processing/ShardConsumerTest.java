@@ -0,0 +1,40 @@
+package com.datatrust360.processing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the adaptive Kinesis poll delay.
+ *
+ * <p>Importance: Ensures lagging shards poll fast and idle shards back off.</p>
+ * <p>Alternatives: Drive a real shard, but the policy is a pure function.</p>
+ */
+class ShardConsumerTest {
+
+    private final ShardConsumer.PollSettings settings = new ShardConsumer.PollSettings(100, 200, 5000, 1000);
+
+    /**
+     * Verifies lag or a full page keeps the minimum delay.
+     *
+     * <p>Importance: Backlogs drain at the shard read limit.</p>
+     * <p>Alternatives: Decay the delay gradually, but that prolongs catch-up.</p>
+     */
+    @Test
+    void lagOrFullPagePollsAtMinimum() {
+        assertThat(ShardConsumer.nextDelay(5000, 3, 60_000, settings)).isEqualTo(200);
+        assertThat(ShardConsumer.nextDelay(5000, 100, 0, settings)).isEqualTo(200);
+    }
+
+    /**
+     * Verifies empty polls double the delay up to the maximum.
+     *
+     * <p>Importance: Idle shards stop spending read calls.</p>
+     * <p>Alternatives: Jump straight to the maximum, but then a trickle of events sees high latency.</p>
+     */
+    @Test
+    void idleShardBacksOffToMaximum() {
+        assertThat(ShardConsumer.nextDelay(200, 0, 0, settings)).isEqualTo(400);
+        assertThat(ShardConsumer.nextDelay(4000, 0, 0, settings)).isEqualTo(5000);
+    }
+}
@@ -0,0 +1,92 @@
+package com.datatrust360.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for Kinesis shard lease balancing.
+ *
+ * <p>Importance: Ensures replicas converge to an even split without ping-ponging shards.</p>
+ * <p>Alternatives: Run several workers against Postgres, but the plan is a pure function.</p>
+ */
+class ShardLeaseBalancerTest {
+
+    /**
+     * Verifies a single worker takes every free and expired shard.
+     *
+     * <p>Importance: A lone replica must consume the whole stream.</p>
+     * <p>Alternatives: Cap takes per round, but that slows recovery after a full restart.</p>
+     */
+    @Test
+    void loneWorkerTakesFreeAndExpiredShards() {
+        ShardLeaseBalancer.Plan plan = ShardLeaseBalancer.plan("a", List.of(
+            new ShardLease("s1", null, 0, true, null),
+            new ShardLease("s2", "gone", 4, true, null)
+        ));
+
+        assertThat(plan.take()).extracting(ShardLease::shardId).containsExactly("s1", "s2");
+        assertThat(plan.release()).isEmpty();
+    }
+
+    /**
+     * Verifies a joining worker steals one shard from the most loaded owner.
+     *
+     * <p>Importance: New pods must receive work even when every lease is held.</p>
+     * <p>Alternatives: Wait for leases to expire, but live owners keep renewing forever.</p>
+     */
+    @Test
+    void joiningWorkerStealsFromMostLoaded() {
+        ShardLeaseBalancer.Plan plan = ShardLeaseBalancer.plan("c", List.of(
+            new ShardLease("s1", "a", 1, false, null),
+            new ShardLease("s2", "a", 1, false, null),
+            new ShardLease("s3", "a", 1, false, null),
+            new ShardLease("s4", "b", 1, false, null)
+        ));
+
+        assertThat(plan.take()).extracting(ShardLease::owner).containsExactly("a");
+        assertThat(plan.release()).isEmpty();
+    }
+
+    /**
+     * Verifies a near-even split is left alone.
+     *
+     * <p>Importance: Stealing at a one-shard difference would move shards back and forth.</p>
+     * <p>Alternatives: Demand an exact split, but odd shard counts can never reach one.</p>
+     */
+    @Test
+    void nearEvenSplitIsStable() {
+        List<ShardLease> leases = List.of(
+            new ShardLease("s1", "a", 1, false, null),
+            new ShardLease("s2", "a", 1, false, null),
+            new ShardLease("s3", "b", 1, false, null)
+        );
+
+        assertThat(ShardLeaseBalancer.plan("a", leases).take()).isEmpty();
+        assertThat(ShardLeaseBalancer.plan("b", leases).take()).isEmpty();
+        assertThat(ShardLeaseBalancer.plan("a", leases).release()).isEmpty();
+    }
+
+    /**
+     * Verifies an overloaded worker sheds leases down to its share.
+     *
+     * <p>Importance: Releasing lets under-loaded peers take shards without stealing.</p>
+     * <p>Alternatives: Only rely on steals, but shedding converges faster.</p>
+     */
+    @Test
+    void overloadedWorkerReleasesExtras() {
+        ShardLeaseBalancer.Plan plan = ShardLeaseBalancer.plan("a", List.of(
+            new ShardLease("s1", "a", 1, false, null),
+            new ShardLease("s2", "a", 1, false, null),
+            new ShardLease("s3", "a", 1, false, null),
+            new ShardLease("s4", "a", 1, false, null),
+            new ShardLease("s5", "b", 1, false, null),
+            new ShardLease("s6", "c", 1, false, null)
+        ));
+
+        assertThat(plan.release()).hasSize(2);
+        assertThat(plan.take()).isEmpty();
+    }
+}
@@ -0,0 +1,265 @@
+package com.datatrust360.processing;
+
+import com.datatrust360.common.EventEnvelope;
+import com.datatrust360.common.PipelineTiming;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for batch Kafka consumption and offset acknowledgement.
+ *
+ * <p>Importance: Ensures offsets are committed only after the bulk storage write succeeds.</p>
+ * <p>Alternatives: Use an embedded broker, but mocks isolate the commit decision.</p>
+ */
+class StreamIngestListenerTest {
+
+    private static final String VALID = "{\"tenantId\":\"t-1\",\"payload\":{}}";
+
+    private final StorageClient storageClient = Mockito.mock(StorageClient.class);
+    private final ScoringQueue scoringQueue = Mockito.mock(ScoringQueue.class);
+    private final KafkaRetryRouter retryRouter = Mockito.mock(KafkaRetryRouter.class);
+    private final Acknowledgment acknowledgment = Mockito.mock(Acknowledgment.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StreamIngestListener listener = new StreamIngestListener(
+        new ObjectMapper().findAndRegisterModules(), storageClient, scoringQueue, retryRouter, meterRegistry, 1000);
+
+    /**
+     * Makes retry and dead-letter sends succeed immediately.
+     *
+     * <p>Importance: Lets each test focus on which events are routed, not on the send.</p>
+     * <p>Alternatives: Stub per test, but every test would repeat the same lines.</p>
+     */
+    @BeforeEach
+    void stubRouter() {
+        Mockito.when(retryRouter.retry(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.anyString(), Mockito.anyInt(),
+            Mockito.any())).thenReturn(CompletableFuture.completedFuture(null));
+        Mockito.when(retryRouter.deadLetter(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.anyString(), Mockito.anyInt(),
+            Mockito.any()))
+            .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Verifies a batch is persisted with one bulk call, enqueued, and then acknowledged.
+     *
+     * <p>Importance: One storage call per batch is the point of batch consumption.</p>
+     * <p>Alternatives: Assert only the acknowledgement, but the call count guards throughput.</p>
+     */
+    @Test
+    void persistsBatchOnceThenAcknowledges() {
+        Mockito.when(scoringQueue.enqueueAll(Mockito.anyList(), Mockito.anyList(), Mockito.anyList()))
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        listener.handleBatch(KafkaRetryConfig.RAW_TOPIC, records(VALID, "{not json}", VALID), acknowledgment);
+
+        verify(storageClient).persistEvents(ArgumentMatchers.argThat(envelopes -> envelopes.size() == 2));
+        verify(retryRouter).deadLetter(Mockito.eq("t-1"), Mockito.eq("{not json}"), Mockito.eq(EventIds.kafka(KafkaRetryConfig.RAW_TOPIC, 0, 1)),
+            Mockito.eq(KafkaRetryConfig.RAW_TOPIC), Mockito.eq(1), Mockito.any());
+        verify(scoringQueue).enqueueAll(
+            ArgumentMatchers.<List<EventEnvelope>>argThat(envelopes -> envelopes.size() == 2),
+            Mockito.eq(List.of(VALID, VALID)), Mockito.anyList());
+        verify(acknowledgment).acknowledge();
+    }
+
+    /**
+     * Verifies an unconfirmed publish re-seeks the batch instead of committing it.
+     *
+     * <p>Importance: Committing before RabbitMQ confirms would lose the scoring messages.</p>
+     * <p>Alternatives: Commit and republish later, but nothing would remember what to republish.</p>
+     */
+    @Test
+    void nackedPublishRedeliversWithoutCommit() {
+        Mockito.when(scoringQueue.enqueueAll(Mockito.anyList(), Mockito.anyList(), Mockito.anyList()))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("nacked")));
+
+        listener.handleBatch(KafkaRetryConfig.RAW_TOPIC, records(VALID), acknowledgment);
+
+        verify(acknowledgment).nack(0, Duration.ofMillis(1000));
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    /**
+     * Verifies an unparseable record is not dead-lettered when its batch is redelivered.
+     *
+     * <p>Importance: Routing it before the batch failed would add one DLT copy per redelivery.</p>
+     * <p>Alternatives: De-duplicate in the replay, but the DLT would still grow with copies.</p>
+     */
+    @Test
+    void failedBatchRoutesNothingBeforeRedelivery() {
+        Mockito.when(scoringQueue.enqueueAll(Mockito.anyList(), Mockito.anyList(), Mockito.anyList()))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("nacked")));
+
+        listener.handleBatch(KafkaRetryConfig.RAW_TOPIC, records(VALID, "{not json}"), acknowledgment);
+
+        verify(acknowledgment).nack(0, Duration.ofMillis(1000));
+        verify(retryRouter, never()).deadLetter(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.anyString(),
+            Mockito.anyInt(), Mockito.any());
+    }
+
+    /**
+     * Verifies a storage outage re-seeks the batch instead of committing it.
+     *
+     * <p>Importance: Committing after a failed write would silently lose events, and routing
+     * a whole outage to the retry tiers would only move the backlog.</p>
+     * <p>Alternatives: Throw to the error handler, but its recoverer commits after retries.</p>
+     */
+    @Test
+    void failedWriteRedeliversWithoutCommit() {
+        Mockito.doThrow(new IllegalStateException("storage down")).when(storageClient).persistEvents(Mockito.anyList());
+        Mockito.doThrow(new IllegalStateException("storage down")).when(storageClient).persistEvent(Mockito.any());
+
+        listener.handleBatch(KafkaRetryConfig.RAW_TOPIC, records(VALID), acknowledgment);
+
+        verify(acknowledgment).nack(0, Duration.ofMillis(1000));
+        verify(acknowledgment, never()).acknowledge();
+        verify(scoringQueue, never()).enqueueAll(Mockito.anyList(), Mockito.anyList(), Mockito.anyList());
+        verify(retryRouter, never()).retry(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.anyString(), Mockito.anyInt(),
+            Mockito.any());
+    }
+
+    /**
+     * Verifies an event that fails on its own goes to the first retry tier while the rest proceed.
+     *
+     * <p>Importance: This is the non-blocking path; the partition keeps moving past the bad event.</p>
+     * <p>Alternatives: Redeliver the whole batch, but the bad event would fail it every time.</p>
+     */
+    @Test
+    void poisonEventIsRoutedToRetryTier() {
+        String poison = "{\"tenantId\":\"t-poison\",\"payload\":{}}";
+        Mockito.doThrow(new IllegalStateException("bulk rejected")).when(storageClient).persistEvents(Mockito.anyList());
+        Mockito.doThrow(new IllegalStateException("bad event")).when(storageClient)
+            .persistEvent(ArgumentMatchers.argThat(envelope -> "t-poison".equals(envelope.getTenantId())));
+        Mockito.when(scoringQueue.enqueueAll(Mockito.anyList(), Mockito.anyList(), Mockito.anyList()))
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        listener.handleBatch(KafkaRetryConfig.BULK_TOPIC, records(VALID, poison, VALID), acknowledgment);
+
+        verify(retryRouter).retry(Mockito.eq("t-1"), Mockito.eq(poison), Mockito.eq(EventIds.kafka(KafkaRetryConfig.RAW_TOPIC, 0, 1)),
+            Mockito.eq(KafkaRetryConfig.BULK_TOPIC), Mockito.eq(1), Mockito.any());
+        verify(scoringQueue).enqueueAll(
+            ArgumentMatchers.<List<EventEnvelope>>argThat(envelopes -> envelopes.size() == 2),
+            Mockito.eq(List.of(VALID, VALID)), Mockito.anyList());
+        verify(acknowledgment).acknowledge();
+    }
+
+    /**
+     * Verifies a poll whose only event is invalid is dead-lettered and committed.
+     *
+     * <p>Importance: Redelivering it would fail the same way and hold the partition forever.</p>
+     * <p>Alternatives: Route it through the retry tiers, but a 4xx never succeeds on retry.</p>
+     */
+    @Test
+    void invalidEventAloneIsDeadLetteredNotRedelivered() {
+        HttpClientErrorException invalid = HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request",
+            null, null, null);
+        Mockito.doThrow(invalid).when(storageClient).persistEvents(Mockito.anyList());
+        Mockito.doThrow(invalid).when(storageClient).persistEvent(Mockito.any());
+
+        listener.handleBatch(KafkaRetryConfig.RAW_TOPIC, records(VALID), acknowledgment);
+
+        verify(retryRouter).deadLetter(Mockito.eq("t-1"), Mockito.eq(VALID), Mockito.eq(EventIds.kafka(KafkaRetryConfig.RAW_TOPIC, 0, 0)),
+            Mockito.eq(KafkaRetryConfig.RAW_TOPIC), Mockito.eq(1), Mockito.same(invalid));
+        verify(scoringQueue, never()).enqueueAll(Mockito.anyList(), Mockito.anyList(), Mockito.anyList());
+        verify(acknowledgment).acknowledge();
+        verify(acknowledgment, never()).nack(Mockito.anyInt(), Mockito.any());
+    }
+
+    /**
+     * Verifies events storage answered with a rejection go to the retry tier even when none
+     * were stored.
+     *
+     * <p>Importance: Storage responded, so the partition is healthy and need not be held.</p>
+     * <p>Alternatives: Re-seek the poll, but a rejection that repeats would stall it.</p>
+     */
+    @Test
+    void rejectedWritesAreRetriedWithoutRedelivery() {
+        StorageWriteException rejected = new StorageWriteException("Storage rejected event batch: bad", null);
+        Mockito.doThrow(rejected).when(storageClient).persistEvents(Mockito.anyList());
+        Mockito.doThrow(rejected).when(storageClient).persistEvent(Mockito.any());
+
+        listener.handleBatch(KafkaRetryConfig.RAW_TOPIC, records(VALID, VALID), acknowledgment);
+
+        verify(retryRouter, Mockito.times(2)).retry(Mockito.eq("t-1"), Mockito.eq(VALID), Mockito.anyString(),
+            Mockito.eq(KafkaRetryConfig.RAW_TOPIC), Mockito.eq(1), Mockito.same(rejected));
+        verify(acknowledgment).acknowledge();
+    }
+
+    /**
+     * Verifies events are keyed by client id, replayed id, or record position, in that order.
+     *
+     * <p>Importance: Storage upserts on these ids; a wrong precedence would duplicate events
+     * that clients resend or operators replay.</p>
+     * <p>Alternatives: Test the id formats alone, but the header lookup lives in the listener.</p>
+     */
+    @Test
+    void assignsDeterministicEventIds() {
+        Mockito.when(scoringQueue.enqueueAll(Mockito.anyList(), Mockito.anyList(), Mockito.anyList()))
+            .thenReturn(CompletableFuture.completedFuture(null));
+        List<ConsumerRecord<String, String>> records =
+            records(VALID, "{\"eventId\":\"order-9\",\"tenantId\":\"t-1\",\"payload\":{}}", VALID);
+        records.get(2).headers().add(KafkaRetryConfig.EVENT_ID_HEADER,
+            "kafka:dt360.events.raw:3:42".getBytes(StandardCharsets.UTF_8));
+
+        listener.handleBatch(KafkaRetryConfig.RAW_TOPIC, records, acknowledgment);
+
+        verify(storageClient).persistEvents(ArgumentMatchers.argThat(envelopes -> envelopes.stream()
+            .map(EventEnvelope::getEventId)
+            .toList()
+            .equals(List.of("kafka:dt360.events.raw:0:0", "client:t-1:order-9", "kafka:dt360.events.raw:3:42"))));
+    }
+
+    /**
+     * Verifies the ingest stamp travels from the Kafka headers to the scoring queue.
+     *
+     * <p>Importance: Without the trace, scoring could not tag by path or measure end to end.</p>
+     * <p>Alternatives: Check only the stage timers, but the hand-off is what later stages need.</p>
+     */
+    @Test
+    void forwardsPipelineTraceAndRecordsStages() {
+        Mockito.when(scoringQueue.enqueueAll(Mockito.anyList(), Mockito.anyList(), Mockito.anyList()))
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        listener.handleBatch(KafkaRetryConfig.RAW_TOPIC, records(VALID), acknowledgment);
+
+        verify(scoringQueue).enqueueAll(Mockito.anyList(), Mockito.anyList(),
+            Mockito.eq(List.of(new PipelineTrace(PipelineTiming.PATH_REST, 1_000L))));
+        assertThat(meterRegistry.get("dt360.pipeline.stage.latency")
+            .tags("stage", PipelineTiming.STAGE_STORAGE, "path", PipelineTiming.PATH_REST).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("dt360.pipeline.stage.latency")
+            .tags("stage", PipelineTiming.STAGE_STREAM, "path", PipelineTiming.PATH_REST).timer().count()).isEqualTo(1);
+    }
+
+    /**
+     * Builds Kafka records at consecutive offsets, stamped the way the ingest services'
+     * interceptor stamps them.
+     *
+     * <p>Importance: Exercises header decoding with the real header names.</p>
+     * <p>Alternatives: Records without headers, but then the trace path would go untested.</p>
+     */
+    private static List<ConsumerRecord<String, String>> records(String... payloads) {
+        return IntStream.range(0, payloads.length).mapToObj(offset -> {
+            ConsumerRecord<String, String> record =
+                new ConsumerRecord<>(KafkaRetryConfig.RAW_TOPIC, 0, offset, "t-1", payloads[offset]);
+            record.headers().add(PipelineTiming.INGEST_HEADER, "1000".getBytes(StandardCharsets.UTF_8));
+            record.headers().add(PipelineTiming.PATH_HEADER, PipelineTiming.encodePath(PipelineTiming.PATH_REST));
+            return record;
+        }).toList();
+    }
+}
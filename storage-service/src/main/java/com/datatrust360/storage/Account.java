@@ -1,17 +1,25 @@
 package com.datatrust360.storage;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * SQL entity representing a user account in a tenant.
  *
  * <p>Importance: Accounts anchor RBAC and audit trails for tenant users.</p>
  * <p>Alternatives: Use an external IdP only, but local storage supports internal roles.</p>
+ *
+ * <p>Cached in the {@code dt360.account} second-level region, so repeated lookups by id skip
+ * Postgres; a save or delete through JPA replaces or evicts the cached copy.</p>
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "dt360.account")
 public class Account {
 
     @Id
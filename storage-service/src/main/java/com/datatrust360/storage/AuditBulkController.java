@@ -0,0 +1,69 @@
+package com.datatrust360.storage;
+
+import com.datatrust360.common.AuditLogRequest;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST API for queuing audit entries in bulk.
+ *
+ * <p>Importance: High-volume producers such as insight generation hand over many entries in
+ * one call, and the write-behind appender commits them together with other callers' entries.</p>
+ * <p>Alternatives: One {@code POST /audit} per entry, but each then costs its own request,
+ * insert, and commit.</p>
+ */
+@RestController
+@RequestMapping("/api/v1/storage")
+@Tag(name = "Storage")
+public class AuditBulkController {
+
+    private final AuditLogAppender appender;
+
+    /**
+     * Creates the controller with the write-behind appender.
+     *
+     * <p>Importance: Keeps queueing and batching out of the web layer.</p>
+     * <p>Alternatives: Write from the controller, but then batches could not span requests.</p>
+     */
+    public AuditBulkController(AuditLogAppender appender) {
+        this.appender = appender;
+    }
+
+    /**
+     * Queues a list of audit entries and answers once they are accepted, before they are written.
+     *
+     * <p>Importance: The caller waits only for the queue, not for SQL. Accepted entries are
+     * written within the appender's linger time and flushed on shutdown.</p>
+     * <p>Alternatives: Answer after the commit, but the caller would then wait for the linger
+     * and the transaction.</p>
+     */
+    @PostMapping("/audit:bulk")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(summary = "Queue a batch of audit log entries for batched SQL writes")
+    public AuditBulkResponse createAudits(@RequestBody List<AuditLogRequest> requests) {
+        List<AuditLog> logs = new ArrayList<>(requests.size());
+        boolean accepted;
+        try {
+            for (AuditLogRequest request : requests) {
+                logs.add(StorageController.toAuditLog(request));
+            }
+            accepted = appender.append(logs);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        if (!accepted) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Audit write buffer is full");
+        }
+        return new AuditBulkResponse(logs.size());
+    }
+}
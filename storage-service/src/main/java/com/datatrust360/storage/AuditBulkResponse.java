@@ -0,0 +1,11 @@
+package com.datatrust360.storage;
+
+/**
+ * Result of a bulk audit request.
+ *
+ * <p>Importance: Confirms how many entries were queued. Entries are written shortly after the
+ * response, so this is not a count of committed rows.</p>
+ * <p>Alternatives: Reuse {@link BulkInsertResponse}, but its count means rows already stored.</p>
+ */
+public record AuditBulkResponse(int accepted) {
+}
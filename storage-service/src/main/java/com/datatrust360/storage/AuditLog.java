@@ -1,9 +1,12 @@
 package com.datatrust360.storage;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import java.time.Instant;
 
 /**
@@ -11,16 +14,28 @@ import java.time.Instant;
  *
  * <p>Importance: Audit logs provide traceability for compliance and incident response.</p>
  * <p>Alternatives: Log only to files, but persisted audit records are queryable and durable.</p>
+ *
+ * <p>Ids come from the {@code audit_log_seq} sequence with a pooled optimizer: one
+ * {@code nextval} reserves a block of {@value #ID_ALLOCATION_SIZE} ids, so inserts need no
+ * generated-key round trip and Hibernate can send them as JDBC batches. An identity column
+ * would force a separate statement per row to read the key back.</p>
+ *
+ * <p>The {@code audit_log} table is range-partitioned by {@code occurred_at} (see
+ * {@code schema.sql} and {@link AuditPartitionManager}), so every row needs an occurrence time.</p>
  */
 @Entity
 public class AuditLog {
 
+    static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_log_seq")
+    @SequenceGenerator(name = "audit_log_seq", sequenceName = "audit_log_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     private Long tenantId;
     private String actor;
     private String action;
+    @Column(nullable = false)
     private Instant occurredAt;
     private String details;
 
@@ -35,7 +50,7 @@ public class AuditLog {
      * Sets the audit log primary key.
      *
      * <p>Importance: Required for ORM identity handling.</p>
-     * <p>Alternatives: Client-generated IDs, but DB-generated IDs reduce collision risk.</p>
+     * <p>Alternatives: Client-generated IDs, but sequence-allocated IDs cannot collide.</p>
      */
     public void setId(Long id) { this.id = id; }
 
@@ -114,4 +129,18 @@ public class AuditLog {
      * <p>Alternatives: Omit details, but that reduces forensic value.</p>
      */
     public void setDetails(String details) { this.details = details; }
+
+    /**
+     * Defaults the occurrence time to now when the caller did not send one.
+     *
+     * <p>Importance: The partition key cannot be null, and the write time is the closest
+     * available estimate for callers that omit it.</p>
+     * <p>Alternatives: Reject entries without a time, but existing callers send none.</p>
+     */
+    @PrePersist
+    void defaultOccurredAt() {
+        if (occurredAt == null) {
+            occurredAt = Instant.now();
+        }
+    }
 }
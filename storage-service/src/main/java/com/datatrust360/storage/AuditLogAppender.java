@@ -0,0 +1,333 @@
+package com.datatrust360.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind buffer that groups queued audit entries into multi-row SQL transactions.
+ *
+ * <p>Importance: Callers return as soon as entries are queued. A single writer commits up to
+ * {@code max-batch} entries per transaction as batched inserts, instead of one round trip and
+ * one commit per entry.</p>
+ * <p>Alternatives: Write synchronously in larger request batches, but that only groups entries
+ * from one caller, while the queue also groups entries across concurrent callers.</p>
+ *
+ * <p>Capacity is counted in entries with a semaphore, so a bulk request is either queued in full
+ * or rejected; it is never split. Permits are released once a batch is written or dropped.</p>
+ *
+ * <p>{@link #submit(List)} queues entries the same way but returns a future that completes once
+ * every one of them is committed, or fails if any is dropped, for callers that promise
+ * durability rather than acceptance.</p>
+ */
+@Component
+public class AuditLogAppender {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogAppender.class);
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long SHUTDOWN_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private final AuditLogRepository auditLogRepository;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final int capacity;
+    private final long maxBlockMs;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Semaphore permits;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * Creates the appender with batch, buffer, and retry limits.
+     *
+     * <p>Importance: Lets each environment trade commit latency for batch size.</p>
+     * <p>Alternatives: Fixed limits, but a small linger suits low-volume environments better.</p>
+     */
+    public AuditLogAppender(
+        AuditLogRepository auditLogRepository,
+        MeterRegistry meterRegistry,
+        @Value("${storage.audit.write-behind.max-batch:500}") int maxBatch,
+        @Value("${storage.audit.write-behind.linger-ms:20}") long lingerMs,
+        @Value("${storage.audit.write-behind.capacity:10000}") int capacity,
+        @Value("${storage.audit.write-behind.max-block-ms:100}") long maxBlockMs,
+        @Value("${storage.audit.write-behind.max-retries:3}") int maxRetries,
+        @Value("${storage.audit.write-behind.retry-backoff-ms:200}") long retryBackoffMs
+    ) {
+        this.auditLogRepository = auditLogRepository;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.capacity = capacity;
+        this.maxBlockMs = maxBlockMs;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        this.permits = new Semaphore(capacity);
+        this.writtenCounter = meterRegistry.counter("dt360.audit.appender.records", "result", "written");
+        this.failedCounter = meterRegistry.counter("dt360.audit.appender.records", "result", "failed");
+        this.rejectedCounter = meterRegistry.counter("dt360.audit.appender.records", "result", "rejected");
+        meterRegistry.gauge("dt360.audit.appender.queued", queue, BlockingQueue::size);
+    }
+
+    /**
+     * Starts the background writer thread.
+     *
+     * <p>Importance: One writer keeps batches full and commits entries in arrival order.</p>
+     * <p>Alternatives: A writer pool, but parallel commits would contend on the same table and
+     * split batches.</p>
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::runLoop, "audit-log-appender");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops accepting entries and writes everything already queued.
+     *
+     * <p>Importance: Bulk callers got a 202 for queued entries, so a rolling deploy must not
+     * lose them. The repository outlives this bean, so the final writes still have a
+     * connection.</p>
+     * <p>Alternatives: Persist the queue to disk, but draining on shutdown covers planned
+     * restarts without a second store.</p>
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(SHUTDOWN_TIMEOUT_MS);
+        }
+        List<Entry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            logger.warn("Writing {} audit entries left after the appender stopped", remaining.size());
+            write(remaining);
+        }
+    }
+
+    /**
+     * Queues entries for the next batches, waiting up to {@code max-block-ms} for room.
+     *
+     * <p>Importance: Bounded capacity with a short wait gives callers backpressure instead of
+     * unbounded heap growth when SQL falls behind.</p>
+     * <p>Alternatives: Block until room frees up, but that ties request threads to database speed.</p>
+     *
+     * @return false when the entries were not queued because the buffer is full or stopping
+     * @throws IllegalArgumentException when more entries are offered than the buffer can hold
+     */
+    public boolean append(List<AuditLog> logs) {
+        return offer(logs, null);
+    }
+
+    /**
+     * Queues entries like {@link #append(List)} and reports when they are committed.
+     *
+     * <p>Importance: Lets a caller acknowledge entries only once they are in the database, while
+     * still sharing the writer's cross-caller batches.</p>
+     * <p>Alternatives: A synchronous {@code saveAll} per caller, but that gives up the batching.</p>
+     *
+     * @return a future that completes after every entry was committed, and fails with
+     *     {@link RejectedExecutionException} when the buffer is full or with the write error
+     *     when the entries were dropped after {@code max-retries}
+     * @throws IllegalArgumentException when more entries are offered than the buffer can hold
+     */
+    public CompletableFuture<Void> submit(List<AuditLog> logs) {
+        Completion completion = new Completion(logs.size());
+        if (!offer(logs, completion)) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Audit write buffer is full"));
+        }
+        return completion.future;
+    }
+
+    /**
+     * Takes capacity for the entries and queues them with their completion.
+     *
+     * <p>Importance: Both entry points share one admission path, so they see the same limits.</p>
+     * <p>Alternatives: A second queue for tracked entries, but the writer would then have to
+     * merge two queues to keep batches full.</p>
+     */
+    private boolean offer(List<AuditLog> logs, Completion completion) {
+        if (logs.size() > capacity) {
+            throw new IllegalArgumentException("At most " + capacity + " audit entries per request");
+        }
+        if (logs.isEmpty()) {
+            if (completion != null) {
+                completion.future.complete(null);
+            }
+            return true;
+        }
+        if (!running) {
+            rejectedCounter.increment(logs.size());
+            return false;
+        }
+        try {
+            if (!permits.tryAcquire(logs.size(), maxBlockMs, TimeUnit.MILLISECONDS)) {
+                rejectedCounter.increment(logs.size());
+                return false;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            rejectedCounter.increment(logs.size());
+            return false;
+        }
+        for (AuditLog log : logs) {
+            queue.add(new Entry(log, completion));
+        }
+        return true;
+    }
+
+    /**
+     * Collects entries until the batch is full or the linger time passes, then writes them.
+     *
+     * <p>Importance: Linger trades a few milliseconds of latency for far fewer commits.</p>
+     * <p>Alternatives: Write on a fixed schedule, but that delays full batches needlessly.</p>
+     */
+    private void runLoop() {
+        List<Entry> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(IDLE_POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    Entry next = queue.poll();
+                    if (next == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0 || !running) {
+                            break;
+                        }
+                        // Wait in short slices so shutdown does not sit out a long linger.
+                        next = queue.poll(Math.min(remaining, IDLE_POLL_NANOS), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            continue;
+                        }
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                logger.error("Unexpected failure writing audit batch", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes one batch in a single transaction, retrying with backoff before dropping it.
+     *
+     * <p>Importance: A brief database outage should delay audit entries, not lose them.</p>
+     * <p>Alternatives: Retry forever, but a poison entry would then block every later batch.</p>
+     *
+     * <p>Completions are settled only after the permits are released, so a caller that is told
+     * its entries are committed can append again right away.</p>
+     */
+    void write(List<Entry> batch) throws InterruptedException {
+        List<AuditLog> logs = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            logs.add(entry.log());
+        }
+        RuntimeException dropped = null;
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    auditLogRepository.saveAll(logs);
+                    writtenCounter.increment(batch.size());
+                    return;
+                } catch (RuntimeException ex) {
+                    if (attempt >= maxRetries) {
+                        failedCounter.increment(batch.size());
+                        logger.error("Dropping {} audit entries after {} retries", batch.size(), maxRetries, ex);
+                        dropped = ex;
+                        return;
+                    }
+                    logger.warn("Audit batch of {} entries failed, retrying", batch.size(), ex);
+                    // The rolled-back attempt already assigned ids; clear them so the retry inserts again.
+                    logs.forEach(log -> log.setId(null));
+                    Thread.sleep(retryBackoffMs << Math.min(attempt, 6));
+                }
+            }
+        } finally {
+            permits.release(batch.size());
+            for (Entry entry : batch) {
+                if (entry.completion() != null) {
+                    entry.completion().settle(dropped);
+                }
+            }
+        }
+    }
+
+    /**
+     * A queued audit entry and the completion of the call that queued it, if any.
+     *
+     * <p>Importance: Lets the writer report back per caller without a lookup table.</p>
+     * <p>Alternatives: Queue whole requests, but then one large request could not be split
+     * across batches to keep them at {@code max-batch}.</p>
+     */
+    record Entry(AuditLog log, Completion completion) {
+    }
+
+    /**
+     * Counts down the entries of one {@link #submit(List)} call across the batches they land in.
+     *
+     * <p>Importance: A request can be split over two batches, so it is committed only when the
+     * last of its entries is.</p>
+     * <p>Alternatives: One future per entry, but callers would then combine thousands of them.</p>
+     */
+    static final class Completion {
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final AtomicInteger remaining;
+
+        /**
+         * Creates a completion waiting for the given number of entries.
+         *
+         * <p>Importance: The count is fixed when the call is queued.</p>
+         * <p>Alternatives: Grow it as entries are queued, but the size is already known.</p>
+         */
+        Completion(int entries) {
+            this.remaining = new AtomicInteger(entries);
+        }
+
+        /**
+         * Records one written or dropped entry, failing the call on the first drop.
+         *
+         * <p>Importance: A single dropped entry means the call was not durable as a whole.</p>
+         * <p>Alternatives: Report partial success, but the gRPC ack has no per-entry status.</p>
+         */
+        void settle(RuntimeException dropped) {
+            if (dropped != null) {
+                future.completeExceptionally(dropped);
+            }
+            if (remaining.decrementAndGet() == 0) {
+                future.complete(null);
+            }
+        }
+    }
+}
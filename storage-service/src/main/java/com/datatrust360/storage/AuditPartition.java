@@ -0,0 +1,93 @@
+package com.datatrust360.storage;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One range partition of {@code audit_log}, covering UTC days {@code [from, to)}.
+ *
+ * <p>Importance: Both bounds are encoded in the table name, so the partition manager can find
+ * expired partitions from {@code pg_inherits} names alone, even after the interval changes.</p>
+ * <p>Alternatives: Parse {@code pg_get_expr(relpartbound)}, but its text format is meant for
+ * people, not for parsing.</p>
+ *
+ * @param from first UTC day in the partition
+ * @param to first UTC day after the partition
+ */
+record AuditPartition(LocalDate from, LocalDate to) {
+
+    private static final DateTimeFormatter NAME_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Pattern NAME = Pattern.compile("audit_log_p(\\d{8})_(\\d{8})");
+
+    /**
+     * Returns the partition table name, for example {@code audit_log_p20250101_20250201}.
+     *
+     * <p>Importance: Names are generated, never user input, so they are safe to put in DDL.</p>
+     * <p>Alternatives: Numbered names, but those carry no bounds.</p>
+     */
+    String name() {
+        return "audit_log_p" + NAME_DATE.format(from) + '_' + NAME_DATE.format(to);
+    }
+
+    /**
+     * Parses a partition table name, ignoring tables this class did not name.
+     *
+     * <p>Importance: The default partition and hand-made partitions are never dropped.</p>
+     * <p>Alternatives: Fail on unknown names, but that would stop maintenance over one table.</p>
+     */
+    static Optional<AuditPartition> parse(String name) {
+        Matcher matcher = NAME.matcher(name);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(new AuditPartition(
+            LocalDate.parse(matcher.group(1), NAME_DATE), LocalDate.parse(matcher.group(2), NAME_DATE)));
+    }
+
+    /**
+     * Returns whether this partition's range shares any day with another's.
+     *
+     * <p>Importance: Postgres rejects overlapping partitions, so overlapping ranges are skipped
+     * after an interval change rather than failing maintenance.</p>
+     * <p>Alternatives: Let the DDL fail, but that logs an error every run.</p>
+     */
+    boolean overlaps(AuditPartition other) {
+        return from.isBefore(other.to) && other.from.isBefore(to);
+    }
+
+    /**
+     * Partition width.
+     *
+     * <p>Importance: Daily partitions suit high audit volume or short retention; monthly
+     * partitions keep the partition count low.</p>
+     * <p>Alternatives: Arbitrary durations, but calendar-aligned ranges are easier to reason
+     * about in retention policies.</p>
+     */
+    enum Interval {
+        DAILY,
+        MONTHLY;
+
+        /**
+         * Returns the start of the partition containing {@code day}.
+         *
+         * <p>Importance: Aligns every partition to the calendar.</p>
+         * <p>Alternatives: Align to the first run, but then ranges would differ per deployment.</p>
+         */
+        LocalDate floor(LocalDate day) {
+            return this == DAILY ? day : day.withDayOfMonth(1);
+        }
+
+        /**
+         * Returns the start of the partition after the one starting at {@code start}.
+         *
+         * <p>Importance: Ranges are contiguous, so no time falls between partitions.</p>
+         * <p>Alternatives: Fixed 30-day months, but they drift off calendar boundaries.</p>
+         */
+        LocalDate next(LocalDate start) {
+            return this == DAILY ? start.plusDays(1) : start.plusMonths(1);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.datatrust360.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Keeps {@code audit_log} range partitions ahead of time and retires expired ones.
+ *
+ * <p>Importance: Retention becomes a metadata-only {@code DROP} or {@code DETACH} of whole
+ * partitions, not a bulk {@code DELETE} that bloats the table and competes with writers.
+ * Time-range queries prune to the partitions they touch.</p>
+ * <p>Alternatives: pg_partman, but it is an extension that managed Postgres offerings do not
+ * all provide, and this service already owns the audit schema.</p>
+ *
+ * <p>Every statement is idempotent or guarded, so several replicas can run maintenance at the
+ * same time; a replica that loses a race logs a warning and the next run converges.</p>
+ *
+ * <p>When rows for a new range already sit in the default partition, they are moved into the
+ * new partition in the same transaction that attaches it, since Postgres refuses to create a
+ * partition that would leave them behind. Any failure is counted as
+ * {@code dt360.audit.partitions{action=failed}} so it can be alerted on, and maintenance is
+ * skipped entirely while {@code audit_log} is still a plain table.</p>
+ */
+@Component
+public class AuditPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditPartitionManager.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactions;
+    private final AuditPartition.Interval interval;
+    private final int premake;
+    private final int retentionDays;
+    private final boolean detachExpired;
+    private final Counter createdCounter;
+    private final Counter expiredCounter;
+    private final Counter movedCounter;
+    private final Counter failedCounter;
+
+    /**
+     * Creates the manager with partition width, look-ahead, and retention settings.
+     *
+     * <p>Importance: Partition width and retention differ between environments and tenants'
+     * compliance needs.</p>
+     * <p>Alternatives: Fixed monthly partitions, but high-volume deployments need daily ones.</p>
+     */
+    public AuditPartitionManager(
+        JdbcTemplate jdbcTemplate,
+        TransactionOperations transactions,
+        MeterRegistry meterRegistry,
+        @Value("${storage.audit.partition.interval:monthly}") String interval,
+        @Value("${storage.audit.partition.premake:3}") int premake,
+        @Value("${storage.audit.partition.retention-days:400}") int retentionDays,
+        @Value("${storage.audit.partition.detach-expired:false}") boolean detachExpired
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactions = transactions;
+        this.interval = AuditPartition.Interval.valueOf(interval.trim().toUpperCase(Locale.ROOT));
+        this.premake = premake;
+        this.retentionDays = retentionDays;
+        this.detachExpired = detachExpired;
+        this.createdCounter = meterRegistry.counter("dt360.audit.partitions", "action", "created");
+        this.expiredCounter = meterRegistry.counter("dt360.audit.partitions", "action",
+            detachExpired ? "detached" : "dropped");
+        this.movedCounter = meterRegistry.counter("dt360.audit.partitions", "action", "moved");
+        this.failedCounter = meterRegistry.counter("dt360.audit.partitions", "action", "failed");
+    }
+
+    /**
+     * Creates missing partitions from the current one through {@code premake} ahead, then
+     * retires partitions past retention.
+     *
+     * <p>Importance: Runs right after startup and then periodically, so the partition for
+     * "now" always exists well before rows need it.</p>
+     * <p>Alternatives: Create partitions on first insert failure, but that puts DDL on the
+     * write path.</p>
+     */
+    @Scheduled(fixedDelayString = "${storage.audit.partition.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        maintain(LocalDate.now(ZoneOffset.UTC));
+    }
+
+    /**
+     * Runs maintenance as of the given UTC day.
+     *
+     * <p>Importance: Lets tests pin the day without waiting for the calendar.</p>
+     * <p>Alternatives: Inject a clock, but only this entry point reads the time.</p>
+     */
+    void maintain(LocalDate today) {
+        if (!isPartitioned()) {
+            failedCounter.increment();
+            logger.warn("audit_log is a plain table; skipping partition maintenance until it is migrated");
+            return;
+        }
+        List<AuditPartition> existing = existingPartitions();
+        for (AuditPartition partition : toCreate(existing, today)) {
+            create(partition);
+        }
+        for (AuditPartition partition : toExpire(existing, today)) {
+            expire(partition);
+        }
+    }
+
+    /**
+     * Returns the partitions to create: the current one and {@code premake} after it, minus
+     * any that overlap an existing partition.
+     *
+     * <p>Importance: Skipping overlaps lets the interval change from monthly to daily; daily
+     * partitions start once the last monthly one ends.</p>
+     * <p>Alternatives: Compare names only, but names differ when the interval changes.</p>
+     */
+    List<AuditPartition> toCreate(List<AuditPartition> existing, LocalDate today) {
+        List<AuditPartition> missing = new ArrayList<>();
+        LocalDate start = interval.floor(today);
+        for (int i = 0; i <= premake; i++) {
+            AuditPartition candidate = new AuditPartition(start, interval.next(start));
+            if (existing.stream().noneMatch(candidate::overlaps)) {
+                missing.add(candidate);
+            }
+            start = candidate.to();
+        }
+        return missing;
+    }
+
+    /**
+     * Returns the partitions whose every row is older than the retention period.
+     *
+     * <p>Importance: A partition is only retired once all of it has expired, so retention is
+     * never shorter than configured; it can be longer by up to one interval.</p>
+     * <p>Alternatives: Delete expired rows from the oldest live partition, but that is the
+     * bulk delete partitioning avoids.</p>
+     */
+    List<AuditPartition> toExpire(List<AuditPartition> existing, LocalDate today) {
+        LocalDate cutoff = today.minusDays(retentionDays);
+        return existing.stream().filter(partition -> !partition.to().isAfter(cutoff)).toList();
+    }
+
+    /**
+     * Returns whether {@code audit_log} is a partitioned table.
+     *
+     * <p>Importance: A database from before partitioning keeps its plain table until migrated,
+     * and every partition statement would fail against it.</p>
+     * <p>Alternatives: Let each statement fail, but that buries the cause in repeated warnings.</p>
+     */
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'audit_log'::regclass)",
+            Boolean.class));
+    }
+
+    /**
+     * Lists the range partitions currently attached to {@code audit_log}.
+     *
+     * <p>Importance: Reads the catalog each run, so partitions created by other replicas or by
+     * hand are taken into account.</p>
+     * <p>Alternatives: Track partitions in memory, but other replicas change them too.</p>
+     */
+    private List<AuditPartition> existingPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT child.relname
+                FROM pg_inherits
+                JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+                WHERE pg_inherits.inhparent = 'audit_log'::regclass""", String.class)
+            .stream()
+            .map(AuditPartition::parse)
+            .flatMap(Optional::stream)
+            .toList();
+    }
+
+    /**
+     * Creates one range partition; its indexes are inherited from the parent.
+     *
+     * <p>Importance: {@code IF NOT EXISTS} makes a race between replicas harmless.</p>
+     * <p>Alternatives: Always create and attach a standalone table, but that only pays off
+     * when the default partition already holds rows for the range.</p>
+     */
+    private void create(AuditPartition partition) {
+        try {
+            if (defaultHoldsRows(partition)) {
+                transactions.executeWithoutResult(status -> moveFromDefault(partition));
+            } else {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition.name()
+                    + " PARTITION OF audit_log FOR VALUES FROM ('" + utcStart(partition.from())
+                    + "') TO ('" + utcStart(partition.to()) + "')");
+            }
+            createdCounter.increment();
+            logger.info("Created audit partition {}", partition.name());
+        } catch (DataAccessException ex) {
+            failedCounter.increment();
+            logger.warn("Could not create audit partition {}", partition.name(), ex);
+        }
+    }
+
+    /**
+     * Returns whether the default partition holds rows inside the partition's range.
+     *
+     * <p>Importance: Rows written before their partition existed, for example while maintenance
+     * was failing, would otherwise block the partition from ever being created.</p>
+     * <p>Alternatives: Catch the create failure and inspect its SQL state, but checking first
+     * keeps the common path a single statement.</p>
+     */
+    private boolean defaultHoldsRows(AuditPartition partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM audit_log_default WHERE occurred_at >= ? AND occurred_at < ?)",
+            Boolean.class, utcTime(partition.from()), utcTime(partition.to())));
+    }
+
+    /**
+     * Builds the partition as a standalone table, moves the default partition's rows for its
+     * range into it, and attaches it; runs inside one transaction.
+     *
+     * <p>Importance: Either the rows end up in the new partition or nothing changes. The
+     * default partition is locked for the move, so keep maintenance running and this stays
+     * small.</p>
+     * <p>Alternatives: Detach the default partition while creating the new one, but inserts
+     * for out-of-range rows would fail meanwhile.</p>
+     */
+    private void moveFromDefault(AuditPartition partition) {
+        OffsetDateTime from = utcTime(partition.from());
+        OffsetDateTime to = utcTime(partition.to());
+        jdbcTemplate.execute("CREATE TABLE " + partition.name()
+            + " (LIKE audit_log INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("INSERT INTO " + partition.name()
+            + " SELECT * FROM audit_log_default WHERE occurred_at >= ? AND occurred_at < ?", from, to);
+        jdbcTemplate.update("DELETE FROM audit_log_default WHERE occurred_at >= ? AND occurred_at < ?", from, to);
+        jdbcTemplate.execute("ALTER TABLE audit_log ATTACH PARTITION " + partition.name()
+            + " FOR VALUES FROM ('" + utcStart(partition.from()) + "') TO ('" + utcStart(partition.to()) + "')");
+        movedCounter.increment(moved);
+        logger.info("Moved {} audit rows from the default partition into {}", moved, partition.name());
+    }
+
+    /**
+     * Drops an expired partition, or detaches it so it can be archived first.
+     *
+     * <p>Importance: Either way the rows leave {@code audit_log} without a row-by-row delete.</p>
+     * <p>Alternatives: {@code DETACH ... CONCURRENTLY}, but Postgres does not allow it while a
+     * default partition exists.</p>
+     */
+    private void expire(AuditPartition partition) {
+        try {
+            jdbcTemplate.execute(detachExpired
+                ? "ALTER TABLE audit_log DETACH PARTITION " + partition.name()
+                : "DROP TABLE IF EXISTS " + partition.name());
+            expiredCounter.increment();
+            logger.info("{} expired audit partition {}", detachExpired ? "Detached" : "Dropped", partition.name());
+        } catch (DataAccessException ex) {
+            failedCounter.increment();
+            logger.warn("Could not retire audit partition {}", partition.name(), ex);
+        }
+    }
+
+    /**
+     * Formats the start of a UTC day as a {@code timestamptz} literal.
+     *
+     * <p>Importance: Bounds are UTC regardless of the database session time zone.</p>
+     * <p>Alternatives: Plain dates, but Postgres would read them in the session zone.</p>
+     */
+    private static String utcStart(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant().toString();
+    }
+
+    /**
+     * Returns the start of a UTC day as a bind parameter.
+     *
+     * <p>Importance: The JDBC driver sends it as {@code timestamptz}, matching the column.</p>
+     * <p>Alternatives: Bind an {@code Instant}, but not every driver version maps it.</p>
+     */
+    private static OffsetDateTime utcTime(LocalDate day) {
+        return day.atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+}
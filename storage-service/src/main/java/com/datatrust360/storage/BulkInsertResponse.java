@@ -0,0 +1,11 @@
+package com.datatrust360.storage;
+
+/**
+ * Result of a bulk event write.
+ *
+ * <p>Importance: Lets callers confirm the whole batch was written before committing offsets.
+ * {@code inserted} counts every event now stored, including ones an earlier attempt stored.</p>
+ * <p>Alternatives: Return the stored documents, but echoing payloads inflates responses.</p>
+ */
+public record BulkInsertResponse(int inserted) {
+}
@@ -0,0 +1,58 @@
+package com.datatrust360.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset position after the last event of a page: its {@code receivedAt} and {@code _id}.
+ *
+ * <p>Importance: The next page seeks straight to this key in the compound index, so page
+ * latency does not grow with how deep the caller has paged.</p>
+ * <p>Alternatives: {@code skip}/{@code limit}, but skipping walks every earlier index entry
+ * and gets slower with each page.</p>
+ *
+ * @param receivedAt receive time of the last returned event
+ * @param id document id of the last returned event, which breaks ties on {@code receivedAt}
+ */
+public record EventCursor(Instant receivedAt, String id) {
+
+    /**
+     * Returns the cursor positioned after a document.
+     *
+     * <p>Importance: The cursor always names a real key, so resuming never skips or repeats.</p>
+     * <p>Alternatives: A page number, but inserts would shift every later page.</p>
+     */
+    static EventCursor after(EventDocument document) {
+        return new EventCursor(document.getReceivedAt(), document.getId());
+    }
+
+    /**
+     * Encodes the cursor as an opaque URL-safe token.
+     *
+     * <p>Importance: Callers pass it back verbatim and cannot depend on its layout.</p>
+     * <p>Alternatives: Separate query parameters, but that freezes the key into the API.</p>
+     */
+    public String encode() {
+        String raw = receivedAt.toEpochMilli() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * <p>Importance: MongoDB stores dates in milliseconds, so the millisecond value round-trips exactly.</p>
+     * <p>Alternatives: ISO-8601 text, but it makes every token longer.</p>
+     *
+     * @throws IllegalArgumentException when the token is malformed
+     */
+    public static EventCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(':');
+        if (separator <= 0 || separator == raw.length() - 1) {
+            throw new IllegalArgumentException("Malformed event cursor");
+        }
+        return new EventCursor(Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator))),
+            raw.substring(separator + 1));
+    }
+}
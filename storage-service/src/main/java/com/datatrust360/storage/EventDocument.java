@@ -1,6 +1,8 @@
 package com.datatrust360.storage;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -12,8 +14,16 @@ import java.util.Map;
  * <p>Importance: Supports flexible schemas for unstructured operational data.</p>
  * <p>Alternatives: Store payloads in SQL JSON columns, but MongoDB offers simpler
  * document storage and indexing for variable fields.</p>
+ *
+ * <p>Both compound indexes end in {@code receivedAt, _id}, the keyset order of event
+ * listings, so a tenant's page, with or without a source filter, is one index range scan.
+ * {@link EventIndexInitializer} creates them at startup.</p>
  */
 @Document(collection = "event_payloads")
+@CompoundIndexes({
+    @CompoundIndex(name = "tenant_received_id", def = "{'tenantId': 1, 'receivedAt': 1, '_id': 1}"),
+    @CompoundIndex(name = "tenant_source_received_id", def = "{'tenantId': 1, 'source': 1, 'receivedAt': 1, '_id': 1}")
+})
 public class EventDocument {
 
     @Id
@@ -34,8 +44,9 @@ public class EventDocument {
     /**
      * Sets the document identifier.
      *
-     * <p>Importance: Required for persistence operations.</p>
-     * <p>Alternatives: Auto-generate without setters, but explicit setters help tests.</p>
+     * <p>Importance: Set from the event's deterministic id so repeated writes upsert one
+     * document; left null, MongoDB assigns an ObjectId.</p>
+     * <p>Alternatives: Auto-generate without setters, but then retries would duplicate events.</p>
      */
     public void setId(String id) { this.id = id; }
 
@@ -0,0 +1,24 @@
+package com.datatrust360.storage;
+
+import java.util.List;
+
+/**
+ * Bulk write operations for event payload documents.
+ *
+ * <p>Importance: Lets batch consumers persist many events in one database round trip.</p>
+ * <p>Alternatives: Use {@code saveAll}, but it issues an ordered insert that stops at the
+ * first failing document.</p>
+ */
+public interface EventDocumentBulkOperations {
+
+    /**
+     * Writes documents in a single unordered bulk write and returns how many are now stored.
+     *
+     * <p>Importance: Unordered writes let the server parallelize and continue past individual
+     * failures, which are then reported together. Documents with an id are upserted, so a
+     * retried batch leaves exactly one copy of each event; documents without one are inserted.</p>
+     * <p>Alternatives: Ordered inserts, but ordering buys nothing for independent events, and
+     * plain inserts fail on every event a retried batch already stored.</p>
+     */
+    int bulkUpsert(List<EventDocument> documents);
+}
@@ -0,0 +1,38 @@
+package com.datatrust360.storage;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Indexed read operations for event payload documents.
+ *
+ * <p>Importance: Keeps tenant-scoped event reads on the compound indexes instead of
+ * collection scans.</p>
+ * <p>Alternatives: Derived query methods with {@code Pageable}, but they page with
+ * {@code skip}, which slows down with depth.</p>
+ */
+public interface EventDocumentQueries {
+
+    /**
+     * Returns up to {@code limit} events matching the query, in {@code receivedAt}, {@code _id}
+     * order, starting after the cursor.
+     *
+     * <p>Importance: Each page is one bounded index range scan, so page latency is flat no
+     * matter how large the collection or how deep the page.</p>
+     * <p>Alternatives: Offset pagination, but its cost grows with the offset.</p>
+     *
+     * @param after position of the last event already returned, or null for the first page
+     */
+    List<EventDocument> findPage(EventQuery query, EventCursor after, int limit);
+
+    /**
+     * Streams every event matching the query, in {@code receivedAt}, {@code _id} order, from a
+     * server-side cursor.
+     *
+     * <p>Importance: Documents arrive {@code batchSize} at a time as the stream is consumed,
+     * so memory stays constant however many events match. Callers must close the stream to
+     * release the cursor.</p>
+     * <p>Alternatives: Walk {@link #findPage} pages, but each page is a new query and round trip.</p>
+     */
+    Stream<EventDocument> streamAll(EventQuery query, int batchSize);
+}
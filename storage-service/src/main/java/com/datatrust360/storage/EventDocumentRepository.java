@@ -8,5 +8,6 @@ import org.springframework.data.mongodb.repository.MongoRepository;
  * <p>Importance: Enables retrieval of dynamic event payloads without manual queries.</p>
  * <p>Alternatives: Use the MongoTemplate directly, but repository interfaces are simpler.</p>
  */
-public interface EventDocumentRepository extends MongoRepository<EventDocument, String> {
+public interface EventDocumentRepository
+    extends MongoRepository<EventDocument, String>, EventDocumentBulkOperations, EventDocumentQueries {
 }
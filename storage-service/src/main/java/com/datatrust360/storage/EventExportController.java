@@ -0,0 +1,81 @@
+package com.datatrust360.storage;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * REST API for bulk export of a tenant's stored events.
+ *
+ * <p>Importance: Compliance exports are one streamed download instead of a client paging
+ * through the listing API and buffering the result.</p>
+ * <p>Alternatives: Export to object storage in a background job, but a streamed response
+ * needs no extra infrastructure and starts delivering immediately.</p>
+ */
+@RestController
+@RequestMapping("/api/v1/storage")
+@Tag(name = "Storage")
+public class EventExportController {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final EventExporter exporter;
+
+    /**
+     * Creates the controller with the exporter.
+     *
+     * <p>Importance: Keeps cursor and serialization handling out of the web layer.</p>
+     * <p>Alternatives: Stream inline here, but the exporter is easier to test on its own.</p>
+     */
+    public EventExportController(EventExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    /**
+     * Streams a tenant's events for a time range as NDJSON, gzip-compressed when the client
+     * accepts it.
+     *
+     * <p>Importance: The body is written on an MVC async thread, so the request thread is
+     * released while a long export runs, and memory stays constant however large it is.</p>
+     * <p>Alternatives: Rely on {@code server.compression}, but it is off by default and
+     * configured per content type for the whole server.</p>
+     */
+    @GetMapping("/events:export")
+    @Operation(summary = "Stream a tenant's event payloads as NDJSON")
+    public ResponseEntity<StreamingResponseBody> export(
+        @RequestParam String tenantId,
+        @RequestParam(required = false) String source,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        EventQuery query;
+        try {
+            query = new EventQuery(tenantId, source, from, to);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .body(output -> exporter.export(query, output, gzip));
+    }
+}
@@ -0,0 +1,58 @@
+package com.datatrust360.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes declared on {@link EventDocument} at startup.
+ *
+ * <p>Importance: The event listing relies on its compound indexes; without them every page
+ * is a collection scan.</p>
+ * <p>Alternatives: {@code spring.data.mongodb.auto-index-creation}, but it applies to every
+ * mapped type and is off by default in Spring Boot; an explicit initializer keeps index
+ * creation visible and limited to this collection.</p>
+ *
+ * <p>{@code ensureIndex} is a no-op for indexes that already exist, so restarts are cheap.
+ * Building a missing index on a large collection takes time; create it ahead of a deploy on
+ * big clusters.</p>
+ */
+@Component
+public class EventIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Creates the initializer with the shared MongoTemplate.
+     *
+     * <p>Importance: Uses the same mapping context that maps the documents.</p>
+     * <p>Alternatives: Raw driver index calls, but they would repeat the annotation definitions.</p>
+     */
+    public EventIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Ensures every index declared on the event document exists.
+     *
+     * <p>Importance: Runs once the context is ready, so a slow build does not hold bean creation.</p>
+     * <p>Alternatives: A migration tool, but none is used for MongoDB here.</p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(EventDocument.class);
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        resolver.resolveIndexFor(EventDocument.class).forEach(index -> {
+            indexOps.ensureIndex(index);
+            logger.info("Ensured event index {}", index.getIndexOptions().get("name"));
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.datatrust360.storage;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated event listing.
+ *
+ * <p>Importance: Carries the cursor for the next page alongside the events.</p>
+ * <p>Alternatives: A {@code Link} header, but a body field is easier for scripted clients.</p>
+ *
+ * @param events events in {@code receivedAt}, {@code _id} order
+ * @param nextCursor token for the next page, or null when this is the last page
+ */
+public record EventPage(List<EventDocument> events, String nextCursor) {
+}
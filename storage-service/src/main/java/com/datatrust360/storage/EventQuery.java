@@ -0,0 +1,66 @@
+package com.datatrust360.storage;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.Instant;
+
+/**
+ * Filters for listing a tenant's event payloads.
+ *
+ * <p>Importance: One filter definition for every event read path, so each one lines up with
+ * the same compound indexes.</p>
+ * <p>Alternatives: Spring Data derived query methods, but one method per filter combination
+ * does not scale and cannot express keyset bounds.</p>
+ *
+ * @param tenantId required tenant; the leading key of every event index
+ * @param source optional source filter, or null for all sources
+ * @param from inclusive lower bound on {@code receivedAt}, or null for no bound
+ * @param to exclusive upper bound on {@code receivedAt}, or null for no bound
+ */
+public record EventQuery(String tenantId, String source, Instant from, Instant to) {
+
+    /**
+     * Validates that a tenant is present.
+     *
+     * <p>Importance: Without the tenant prefix no index applies and the query scans every tenant.</p>
+     * <p>Alternatives: Allow cross-tenant listing, but that breaks tenant isolation too.</p>
+     */
+    public EventQuery {
+        if (tenantId == null || tenantId.isBlank()) {
+            throw new IllegalArgumentException("tenantId is required");
+        }
+    }
+
+    /**
+     * Builds the MongoDB filter, optionally resuming at a later {@code receivedAt}.
+     *
+     * <p>Importance: Equality on tenant and source plus a range on {@code receivedAt} is exactly
+     * the prefix of the compound indexes, so the scan starts at the first matching entry.</p>
+     * <p>Alternatives: Leave the resume bound to the keyset {@code $or}, but the planner does
+     * not derive index bounds from it and would scan from {@code from} on every page.</p>
+     *
+     * <p>Events without a {@code receivedAt} are not listed; keyset order needs a value.</p>
+     *
+     * @param resumeAt {@code receivedAt} of the last event already returned, or null
+     */
+    Criteria toCriteria(Instant resumeAt) {
+        Criteria criteria = Criteria.where("tenantId").is(tenantId);
+        if (source != null) {
+            criteria.and("source").is(source);
+        }
+        Criteria receivedAt = criteria.and("receivedAt");
+        Instant lower = from;
+        if (resumeAt != null && (lower == null || resumeAt.isAfter(lower))) {
+            lower = resumeAt;
+        }
+        if (lower != null) {
+            receivedAt.gte(lower);
+        } else {
+            receivedAt.ne(null);
+        }
+        if (to != null) {
+            receivedAt.lt(to);
+        }
+        return criteria;
+    }
+}
@@ -1,17 +1,25 @@
 package com.datatrust360.storage;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * SQL entity representing tenant policies for routing and compliance.
  *
  * <p>Importance: Policies define how events are processed and governed per tenant.</p>
  * <p>Alternatives: Hardcode policy rules in code, but stored policies enable dynamic updates.</p>
+ *
+ * <p>Cached in the {@code dt360.policy} second-level region. Policies are evaluated far more
+ * often than they are edited, and an edit locks and then refreshes the cached entry.</p>
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "dt360.policy")
 public class Policy {
 
     @Id
@@ -4,15 +4,24 @@ import com.datatrust360.common.AuditLogRequest;
 import com.datatrust360.common.EventEnvelope;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -27,6 +36,8 @@ import java.util.List;
 @Tag(name = "Storage")
 public class StorageController {
 
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final TenantRepository tenantRepository;
     private final EventDocumentRepository eventRepository;
     private final AuditLogRepository auditLogRepository;
@@ -48,15 +59,33 @@ public class StorageController {
     }
 
     /**
-     * Returns all tenants stored in SQL.
+     * Returns one page of tenants stored in SQL, by page number or after a tenant id.
      *
-     * <p>Importance: Enables admin oversight of tenant inventory.</p>
-     * <p>Alternatives: Provide paged endpoints only, but full list is adequate for MVP.</p>
+     * <p>Importance: Enables admin oversight of tenant inventory without loading every row.
+     * With {@code afterId} the page is a keyset seek on the primary key; otherwise
+     * {@code page} selects an offset page.</p>
+     * <p>Alternatives: Return the full list, but it grows with every onboarded tenant.</p>
      */
     @GetMapping("/tenants")
-    @Operation(summary = "List tenants stored in SQL")
-    public List<Tenant> tenants() {
-        return tenantRepository.findAll();
+    @Operation(summary = "List tenants stored in SQL, by page or after a tenant id")
+    public TenantPage tenants(
+        @RequestParam(defaultValue = "0") int page,
+        @RequestParam(defaultValue = "50") int size,
+        @RequestParam(required = false) Long afterId
+    ) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<Tenant> tenants;
+        boolean hasNext;
+        if (afterId != null) {
+            List<Tenant> fetched = tenantRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1));
+            hasNext = fetched.size() > pageSize;
+            tenants = hasNext ? fetched.subList(0, pageSize) : fetched;
+        } else {
+            Slice<Tenant> slice = tenantRepository.findAllBy(PageRequest.of(Math.max(0, page), pageSize, Sort.by("id")));
+            hasNext = slice.hasNext();
+            tenants = slice.getContent();
+        }
+        return new TenantPage(tenants, hasNext ? tenants.get(tenants.size() - 1).getId() : null);
     }
 
     /**
@@ -75,7 +104,8 @@ public class StorageController {
     /**
      * Persists an event payload into NoSQL storage.
      *
-     * <p>Importance: Retains raw events for investigation and downstream analytics.</p>
+     * <p>Importance: Retains raw events for investigation and downstream analytics. An event
+     * with an {@code eventId} is upserted under that id, so resending it is harmless.</p>
      * <p>Alternatives: Store only aggregated results, but raw payloads are critical for forensics.</p>
      */
     @PostMapping("/events")
@@ -85,6 +115,26 @@ public class StorageController {
         return eventRepository.save(toDocument(envelope));
     }
 
+    /**
+     * Persists a batch of event payloads with one unordered bulk write.
+     *
+     * <p>Importance: Lets batch consumers pay one HTTP call and one database round trip per
+     * batch, and answers only after the write is acknowledged so callers can commit offsets.
+     * Events with an {@code eventId} are upserted, so a retried batch creates no duplicates.</p>
+     * <p>Alternatives: Call {@code /events} per event, but throughput is then bounded by
+     * per-request latency.</p>
+     */
+    @PostMapping("/events:bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Store a batch of event payloads in NoSQL")
+    public BulkInsertResponse createEvents(@RequestBody List<EventEnvelope> envelopes) {
+        List<EventDocument> documents = new ArrayList<>(envelopes.size());
+        for (EventEnvelope envelope : envelopes) {
+            documents.add(toDocument(envelope));
+        }
+        return new BulkInsertResponse(eventRepository.bulkUpsert(documents));
+    }
+
     /**
      * Persists an audit log entry to SQL.
      *
@@ -98,6 +148,41 @@ public class StorageController {
         return auditLogRepository.save(toAuditLog(request));
     }
 
+    /**
+     * Lists a tenant's events in receive order, one keyset page at a time.
+     *
+     * <p>Importance: Lets investigators walk a tenant's events over a time window without
+     * scanning the collection; every page costs the same however deep it is.</p>
+     * <p>Alternatives: Page numbers with {@code skip}, but deep pages would walk every
+     * earlier entry.</p>
+     */
+    @GetMapping("/events")
+    @Operation(summary = "List a tenant's event payloads by receive time with a keyset cursor")
+    public EventPage events(
+        @RequestParam String tenantId,
+        @RequestParam(required = false) String source,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "100") int limit
+    ) {
+        EventQuery query;
+        EventCursor after;
+        try {
+            query = new EventQuery(tenantId, source, from, to);
+            after = cursor == null || cursor.isBlank() ? null : EventCursor.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<EventDocument> events = eventRepository.findPage(query, after, pageSize + 1);
+        if (events.size() <= pageSize) {
+            return new EventPage(events, null);
+        }
+        List<EventDocument> page = events.subList(0, pageSize);
+        return new EventPage(page, EventCursor.after(page.get(pageSize - 1)).encode());
+    }
+
     /**
      * Retrieves a single event payload document by ID.
      *
@@ -118,6 +203,7 @@ public class StorageController {
      */
     private EventDocument toDocument(EventEnvelope envelope) {
         EventDocument document = new EventDocument();
+        document.setId(envelope.getEventId());
         document.setTenantId(envelope.getTenantId());
         document.setSource(envelope.getSource());
         document.setSchemaVersion(envelope.getSchemaVersion());
@@ -132,7 +218,7 @@ public class StorageController {
      * <p>Importance: Ensures consistent audit record creation across endpoints.</p>
      * <p>Alternatives: Inline mapping per request, but a dedicated method improves reuse.</p>
      */
-    private AuditLog toAuditLog(AuditLogRequest request) {
+    static AuditLog toAuditLog(AuditLogRequest request) {
         AuditLog log = new AuditLog();
         log.setTenantId(parseTenantId(request.getTenantId()));
         log.setActor(request.getActor());
@@ -148,7 +234,7 @@ public class StorageController {
      * <p>Importance: Aligns audit log storage with SQL numeric tenant keys.</p>
      * <p>Alternatives: Store tenant IDs as strings, but numeric IDs align with existing schema.</p>
      */
-    private Long parseTenantId(String tenantId) {
+    private static Long parseTenantId(String tenantId) {
         if (tenantId == null || tenantId.isBlank()) {
             return null;
         }
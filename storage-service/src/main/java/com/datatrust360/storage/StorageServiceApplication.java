@@ -2,6 +2,7 @@ package com.datatrust360.storage;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Bootstraps the storage service for SQL and NoSQL persistence.
@@ -10,6 +11,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * <p>Alternatives: Separate SQL and NoSQL services, but one service reduces operational overhead.</p>
  */
 @SpringBootApplication
+@EnableScheduling
 public class StorageServiceApplication {
     /**
      * Starts the storage service.
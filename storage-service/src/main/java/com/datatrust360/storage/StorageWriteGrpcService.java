@@ -0,0 +1,262 @@
+package com.datatrust360.storage;
+
+import com.datatrust360.storage.grpc.AuditBatch;
+import com.datatrust360.storage.grpc.AuditRecord;
+import com.datatrust360.storage.grpc.BatchAck;
+import com.datatrust360.storage.grpc.EventBatch;
+import com.datatrust360.storage.grpc.EventRecord;
+import com.datatrust360.storage.grpc.StorageWriteServiceGrpc;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.stub.StreamObserver;
+import net.devh.boot.grpc.server.service.GrpcService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Internal gRPC write API used by the processing worker.
+ *
+ * <p>Importance: Long-lived HTTP/2 streams with binary envelopes replace one JSON POST per
+ * record, so the worker pays neither connection setup nor envelope JSON on the hot path.</p>
+ * <p>Alternatives: Tune the REST client pool, but that still encodes and parses JSON per call.</p>
+ *
+ * <p>Each inbound event batch is written with one bulk operation and answered with one ack.
+ * Audit batches go through {@link AuditLogAppender} like REST audits, so they are committed
+ * together with other callers' entries, and are acked once the appender has committed them.
+ * Acks are chained, so they are sent in batch order even when a later batch settles first.</p>
+ */
+@GrpcService
+public class StorageWriteGrpcService extends StorageWriteServiceGrpc.StorageWriteServiceImplBase {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageWriteGrpcService.class);
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    private final EventDocumentRepository eventRepository;
+    private final AuditLogAppender auditLogAppender;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates the service with the event repository and the audit write-behind appender.
+     *
+     * <p>Importance: Shares the REST controllers' write paths so both transports write the same data.</p>
+     * <p>Alternatives: A separate persistence layer, but that would duplicate mapping rules.</p>
+     */
+    public StorageWriteGrpcService(
+        EventDocumentRepository eventRepository,
+        AuditLogAppender auditLogAppender,
+        ObjectMapper objectMapper
+    ) {
+        this.eventRepository = eventRepository;
+        this.auditLogAppender = auditLogAppender;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Persists streamed event batches with one unordered bulk write each.
+     *
+     * <p>Importance: Matches the REST bulk endpoint's write path with less per-call overhead.</p>
+     * <p>Alternatives: Unary calls per batch, but a stream lets the client pipeline batches.</p>
+     */
+    @Override
+    public StreamObserver<EventBatch> persistEvents(StreamObserver<BatchAck> responseObserver) {
+        return new BatchObserver<>(responseObserver, EventBatch::getBatchId, batch -> {
+            List<EventDocument> documents = new ArrayList<>(batch.getEventsCount());
+            for (EventRecord record : batch.getEventsList()) {
+                documents.add(toDocument(record));
+            }
+            return CompletableFuture.completedFuture(eventRepository.bulkUpsert(documents));
+        });
+    }
+
+    /**
+     * Queues streamed audit batches on the write-behind appender and acks them once committed.
+     *
+     * <p>Importance: gRPC audits share the appender's batching and bounded buffer with the
+     * REST endpoints, instead of a transaction per batch that bypasses its backpressure. A full
+     * buffer or entries dropped after the appender's retries ack the batch with
+     * {@code ok=false}, so the worker only sees {@code ok=true} for durable entries.</p>
+     * <p>Alternatives: Keep a direct {@code saveAll}, but then the two transports would write
+     * audits through different paths with different limits.</p>
+     */
+    @Override
+    public StreamObserver<AuditBatch> persistAudits(StreamObserver<BatchAck> responseObserver) {
+        return new BatchObserver<>(responseObserver, AuditBatch::getBatchId, batch -> {
+            List<AuditLog> logs = new ArrayList<>(batch.getAuditsCount());
+            for (AuditRecord record : batch.getAuditsList()) {
+                logs.add(toAuditLog(record));
+            }
+            return auditLogAppender.submit(logs).thenApply(committed -> logs.size());
+        });
+    }
+
+    /**
+     * Maps a protobuf event record into a MongoDB document.
+     *
+     * <p>Importance: Produces the same document shape as the REST endpoints.</p>
+     * <p>Alternatives: Store payload bytes as-is, but queries rely on a structured payload.</p>
+     */
+    private EventDocument toDocument(EventRecord record) {
+        EventDocument document = new EventDocument();
+        document.setId(emptyToNull(record.getEventId()));
+        document.setTenantId(emptyToNull(record.getTenantId()));
+        document.setSource(emptyToNull(record.getSource()));
+        document.setSchemaVersion(emptyToNull(record.getSchemaVersion()));
+        document.setReceivedAt(toInstant(record.getReceivedAtMicros()));
+        if (!record.getPayloadJson().isEmpty()) {
+            try {
+                document.setPayload(objectMapper.readValue(record.getPayloadJson().newInput(), PAYLOAD_TYPE));
+            } catch (IOException ex) {
+                throw new IllegalArgumentException("Invalid event payload JSON", ex);
+            }
+        }
+        return document;
+    }
+
+    /**
+     * Maps a protobuf audit record into a persistent audit log entity.
+     *
+     * <p>Importance: Parses tenant IDs the same way as the REST audit endpoint.</p>
+     * <p>Alternatives: Store tenant IDs as strings, but the SQL schema uses numeric keys.</p>
+     */
+    private AuditLog toAuditLog(AuditRecord record) {
+        AuditLog log = new AuditLog();
+        log.setTenantId(record.getTenantId().isBlank() ? null : Long.parseLong(record.getTenantId()));
+        log.setActor(emptyToNull(record.getActor()));
+        log.setAction(emptyToNull(record.getAction()));
+        log.setOccurredAt(toInstant(record.getOccurredAtMicros()));
+        log.setDetails(emptyToNull(record.getDetails()));
+        return log;
+    }
+
+    /**
+     * Converts epoch microseconds to an instant, treating 0 as unset.
+     *
+     * <p>Importance: Keeps null timestamps null, as the REST path does.</p>
+     * <p>Alternatives: Use protobuf Timestamp, but one int64 is smaller on the wire.</p>
+     */
+    private static Instant toInstant(long micros) {
+        if (micros == 0L) {
+            return null;
+        }
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    /**
+     * Maps proto3's empty-string default back to null.
+     *
+     * <p>Importance: Stored records match the REST path, where absent fields are null.</p>
+     * <p>Alternatives: Optional wrapper fields in the proto, but they complicate every client.</p>
+     */
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Per-call observer that writes each batch and acks it.
+     *
+     * <p>Importance: A failed batch is acked with {@code ok=false} so the stream survives and
+     * the client retries only that batch.</p>
+     * <p>Alternatives: Fail the call on error, but that also fails every pipelined batch behind it.</p>
+     *
+     * <p>Each ack is sent from a stage chained behind the previous one, so acks keep batch order
+     * and never reach the response observer from two threads at once.</p>
+     */
+    private static final class BatchObserver<T> implements StreamObserver<T> {
+
+        private final StreamObserver<BatchAck> responseObserver;
+        private final ToLongFunction<T> batchId;
+        private final Function<T, CompletableFuture<Integer>> writer;
+        private CompletableFuture<Void> acks = CompletableFuture.completedFuture(null);
+
+        /**
+         * Creates the observer for one call.
+         *
+         * <p>Importance: Lets events and audits share ack handling.</p>
+         * <p>Alternatives: Two copies of the observer, but they would differ only in the writer.</p>
+         */
+        BatchObserver(
+            StreamObserver<BatchAck> responseObserver,
+            ToLongFunction<T> batchId,
+            Function<T, CompletableFuture<Integer>> writer
+        ) {
+            this.responseObserver = responseObserver;
+            this.batchId = batchId;
+            this.writer = writer;
+        }
+
+        /**
+         * Writes one batch and sends its ack once the write settles.
+         *
+         * <p>Importance: The ack is sent only after the database acknowledged the write.</p>
+         * <p>Alternatives: Ack on receipt, but then the client could commit unwritten events.</p>
+         */
+        @Override
+        public synchronized void onNext(T batch) {
+            long id = batchId.applyAsLong(batch);
+            CompletableFuture<Integer> written;
+            try {
+                written = writer.apply(batch);
+            } catch (RuntimeException ex) {
+                written = CompletableFuture.failedFuture(ex);
+            }
+            CompletableFuture<BatchAck> ack = written.handle((persisted, error) -> {
+                BatchAck.Builder builder = BatchAck.newBuilder().setBatchId(id);
+                if (error == null) {
+                    return builder.setOk(true).setPersisted(persisted).build();
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                logger.warn("Failed to persist batch {}", id, cause);
+                return builder.setOk(false).setError(String.valueOf(cause.getMessage())).build();
+            });
+            acks = acks.thenCompose(previous -> ack).thenAccept(this::send);
+        }
+
+        /**
+         * Sends one ack, logging rather than throwing when the call is already gone.
+         *
+         * <p>Importance: A failed send must not break the chain for the acks behind it.</p>
+         * <p>Alternatives: Let it throw, but every later stage would then be skipped silently.</p>
+         */
+        private void send(BatchAck ack) {
+            try {
+                responseObserver.onNext(ack);
+            } catch (RuntimeException ex) {
+                logger.debug("Could not send ack for batch {}", ack.getBatchId(), ex);
+            }
+        }
+
+        /**
+         * Logs client-side stream errors.
+         *
+         * <p>Importance: Clients reconnect on their own; the server only needs a trace.</p>
+         * <p>Alternatives: Ignore silently, but disconnect storms should be visible.</p>
+         */
+        @Override
+        public void onError(Throwable t) {
+            logger.debug("Storage write stream closed by client", t);
+        }
+
+        /**
+         * Completes the response stream once every pending ack has been sent.
+         *
+         * <p>Importance: Audit acks can still be waiting on the appender when the client
+         * half-closes, and completing first would drop them.</p>
+         * <p>Alternatives: Keep the call open, but that leaks server resources.</p>
+         */
+        @Override
+        public synchronized void onCompleted() {
+            acks.whenComplete((done, error) -> responseObserver.onCompleted());
+        }
+    }
+}
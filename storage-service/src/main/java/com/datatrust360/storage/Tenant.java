@@ -1,17 +1,25 @@
 package com.datatrust360.storage;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * SQL entity representing a tenant organization.
  *
  * <p>Importance: Tenants are the core isolation boundary for multi-tenant data.</p>
  * <p>Alternatives: Store tenant data in NoSQL, but relational constraints aid governance.</p>
+ *
+ * <p>Cached in the {@code dt360.tenant} second-level region: tenants are looked up on most
+ * requests and almost never change, and Hibernate refreshes the entry on every write.</p>
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "dt360.tenant")
 public class Tenant {
 
     @Id
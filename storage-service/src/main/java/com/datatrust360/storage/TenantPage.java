@@ -0,0 +1,15 @@
+package com.datatrust360.storage;
+
+import java.util.List;
+
+/**
+ * One page of the tenant listing.
+ *
+ * <p>Importance: Gives page/size and keyset callers the same response shape.</p>
+ * <p>Alternatives: Serialize Spring Data's {@code Page}, but its JSON layout is not a stable API.</p>
+ *
+ * @param tenants tenants in id order
+ * @param nextAfterId {@code afterId} for the next keyset page, or null when this is the last page
+ */
+public record TenantPage(List<Tenant> tenants, Long nextAfterId) {
+}
@@ -1,6 +1,14 @@
 package com.datatrust360.storage;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 /**
  * JPA repository for tenant entities.
@@ -9,4 +17,24 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * <p>Alternatives: Use manual DAO implementations, but Spring Data reduces boilerplate.</p>
  */
 public interface TenantRepository extends JpaRepository<Tenant, Long> {
+
+    /**
+     * Returns one page of tenants by page number, without a count query.
+     *
+     * <p>Importance: Simple page/size navigation for admin screens. Results are held in the
+     * query cache, and the cached ids resolve through the tenant entity cache.</p>
+     * <p>Alternatives: {@code Page}, but its total count is one more query per request.</p>
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Slice<Tenant> findAllBy(Pageable pageable);
+
+    /**
+     * Returns up to {@code limit} tenants with an id greater than {@code afterId}, in id order.
+     *
+     * <p>Importance: Keyset pages seek on the primary key, so they cost the same at any depth
+     * and do not shift when tenants are added.</p>
+     * <p>Alternatives: Only offset pages, but {@code OFFSET} re-reads every skipped row.</p>
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Tenant> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 }
@@ -0,0 +1,44 @@
+-- Audit log, range-partitioned by occurred_at. Runs before Hibernate's ddl-auto, which would
+-- otherwise create audit_log as a plain table. AuditPartitionManager creates the range
+-- partitions ahead of time and drops or detaches expired ones.
+-- Statements end with @@ (spring.sql.init.separator) because the DO blocks contain semicolons.
+CREATE TABLE IF NOT EXISTS audit_log (
+    id BIGINT NOT NULL,
+    tenant_id BIGINT,
+    actor VARCHAR(255),
+    action VARCHAR(255),
+    occurred_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    details VARCHAR(255),
+    -- A partitioned table's primary key must include the partition key.
+    PRIMARY KEY (id, occurred_at)
+) PARTITION BY RANGE (occurred_at)@@
+
+-- Audit ids come from this sequence in blocks of 50 (AuditLog.ID_ALLOCATION_SIZE); Hibernate
+-- would create the same sequence, but only after this script runs.
+CREATE SEQUENCE IF NOT EXISTS audit_log_seq INCREMENT BY 50@@
+
+-- Tables created before the sequence hold IDENTITY ids the sequence knows nothing about, so
+-- move it past them. It only ever moves forward, so blocks already handed to running pods
+-- stay unique, and on later startups this selects nothing.
+SELECT setval('audit_log_seq', (SELECT max(id) FROM audit_log))
+WHERE (SELECT max(id) FROM audit_log) > (SELECT last_value FROM audit_log_seq)@@
+
+-- A database from before partitioning already has a plain audit_log, which the CREATE above
+-- leaves alone. Partition DDL would fail on it and stop startup, so it only runs once the
+-- table is partitioned; until the migration in README-tech is done, the plain table keeps
+-- working and AuditPartitionManager skips maintenance.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'audit_log'::regclass) THEN
+        -- Indexes on the parent are created on every partition, including future ones.
+        -- BRIN keeps time-range scans cheap at a tiny fraction of a btree's size, because
+        -- rows arrive roughly in occurred_at order.
+        CREATE INDEX IF NOT EXISTS audit_log_occurred_at_brin ON audit_log USING BRIN (occurred_at);
+        CREATE INDEX IF NOT EXISTS audit_log_tenant_occurred_at_idx ON audit_log (tenant_id, occurred_at);
+        -- Catches rows outside every range partition (far past or far future) so inserts never fail.
+        CREATE TABLE IF NOT EXISTS audit_log_default PARTITION OF audit_log DEFAULT;
+    ELSE
+        RAISE WARNING 'audit_log is not partitioned; see README-tech for the one-time migration';
+    END IF;
+END
+$$@@
@@ -0,0 +1,159 @@
+package com.datatrust360.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the write-behind audit appender.
+ *
+ * <p>Importance: Guards the batching, backpressure, and shutdown guarantees bulk callers rely on.</p>
+ * <p>Alternatives: Test against PostgreSQL, but batching and capacity are decided before SQL.</p>
+ */
+class AuditLogAppenderTest {
+
+    private final AuditLogRepository auditLogRepository = Mockito.mock(AuditLogRepository.class);
+
+    /**
+     * Verifies entries queued before shutdown are written in one batch when the appender stops.
+     *
+     * <p>Importance: Accepted entries must survive a rolling deploy.</p>
+     * <p>Alternatives: Wait for the linger in the test, but that makes it timing-dependent.</p>
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void closeWritesQueuedEntriesInOneBatch() throws Exception {
+        AuditLogAppender appender = appender(10);
+
+        assertThat(appender.append(List.of(log("a"), log("b"), log("c")))).isTrue();
+        appender.close();
+
+        ArgumentCaptor<List<AuditLog>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(auditLogRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).extracting(AuditLog::getAction).containsExactly("a", "b", "c");
+        assertThat(appender.append(List.of(log("d")))).isFalse();
+    }
+
+    /**
+     * Verifies a request is rejected whole when the buffer lacks room for all of it.
+     *
+     * <p>Importance: A partially queued bulk request could not be retried without duplicates.</p>
+     * <p>Alternatives: Queue what fits, but callers would then have to track which entries landed.</p>
+     */
+    @Test
+    void appendRejectsWholeRequestWhenFull() throws Exception {
+        AuditLogAppender appender = appender(3);
+
+        assertThat(appender.append(List.of(log("a"), log("b")))).isTrue();
+        assertThat(appender.append(List.of(log("c"), log("d")))).isFalse();
+        assertThatThrownBy(() -> appender.append(List.of(log("e"), log("f"), log("g"), log("h"))))
+            .isInstanceOf(IllegalArgumentException.class);
+        appender.close();
+    }
+
+    /**
+     * Verifies a failed batch is retried with its ids cleared and then releases its capacity.
+     *
+     * <p>Importance: Ids assigned during a rolled-back attempt would make the retry a merge,
+     * and unreleased capacity would eventually reject every request.</p>
+     * <p>Alternatives: Keep the ids, but then the retry issues a select per entry.</p>
+     */
+    @Test
+    void writeRetriesWithClearedIdsAndReleasesCapacity() throws Exception {
+        AuditLog log = log("a");
+        AtomicReference<Long> retriedId = new AtomicReference<>(-1L);
+        when(auditLogRepository.saveAll(anyList()))
+            .thenAnswer(invocation -> {
+                log.setId(7L);
+                throw new DataAccessResourceFailureException("connection reset");
+            })
+            .thenAnswer(invocation -> {
+                retriedId.set(log.getId());
+                return invocation.getArgument(0);
+            });
+        AuditLogAppender appender = new AuditLogAppender(auditLogRepository, new SimpleMeterRegistry(),
+            100, 0, 1, 5_000, 1, 1);
+        appender.start();
+
+        assertThat(appender.append(List.of(log))).isTrue();
+        assertThat(appender.append(List.of(log("b")))).isTrue();
+        appender.close();
+
+        Mockito.verify(auditLogRepository, times(3)).saveAll(anyList());
+        assertThat(retriedId.get()).isNull();
+    }
+
+    /**
+     * Verifies a submitted request completes only once its entries are committed.
+     *
+     * <p>Importance: The gRPC ack waits on this future, and the worker treats the ack as durable.</p>
+     * <p>Alternatives: Poll the repository mock, but the future is what the ack is tied to.</p>
+     */
+    @Test
+    void submitCompletesAfterCommit() throws Exception {
+        AuditLogAppender appender = appender(10);
+
+        CompletableFuture<Void> committed = appender.submit(List.of(log("a"), log("b")));
+
+        assertThat(committed).isNotDone();
+        appender.close();
+        assertThat(committed).isCompleted();
+    }
+
+    /**
+     * Verifies a submitted request fails when its batch is dropped after the retries.
+     *
+     * <p>Importance: A dropped entry must turn into an {@code ok=false} ack so the worker retries.</p>
+     * <p>Alternatives: Check the failed counter, but callers only see the future.</p>
+     */
+    @Test
+    void submitFailsWhenBatchIsDropped() throws Exception {
+        when(auditLogRepository.saveAll(anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        AuditLogAppender appender = new AuditLogAppender(auditLogRepository, new SimpleMeterRegistry(),
+            100, 60_000, 10, 10, 0, 1);
+        appender.start();
+
+        CompletableFuture<Void> committed = appender.submit(List.of(log("a")));
+        appender.close();
+
+        assertThat(committed).isCompletedExceptionally();
+    }
+
+    /**
+     * Builds a started appender with the given capacity and a linger longer than any test.
+     *
+     * <p>Importance: Entries then stay queued until {@code close}, and a short block time keeps
+     * rejection tests fast.</p>
+     * <p>Alternatives: Load a Spring context, but that needs a database.</p>
+     */
+    private AuditLogAppender appender(int capacity) {
+        AuditLogAppender appender = new AuditLogAppender(auditLogRepository, new SimpleMeterRegistry(),
+            100, 60_000, capacity, 10, 0, 1);
+        appender.start();
+        return appender;
+    }
+
+    /**
+     * Builds an audit entry identified by its action.
+     *
+     * <p>Importance: The action makes batch order visible in assertions.</p>
+     * <p>Alternatives: Fully populated entries, but only order matters here.</p>
+     */
+    private static AuditLog log(String action) {
+        AuditLog log = new AuditLog();
+        log.setAction(action);
+        return log;
+    }
+}
@@ -0,0 +1,149 @@
+package com.datatrust360.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for audit partition lifecycle planning.
+ *
+ * <p>Importance: A wrong bound would either leave the current month without a partition or
+ * drop audit rows that are still within retention.</p>
+ * <p>Alternatives: Test against PostgreSQL, but the decisions are made before any DDL runs.</p>
+ */
+class AuditPartitionManagerTest {
+
+    private final JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Verifies maintenance creates the missing upcoming months and drops only fully expired ones.
+     *
+     * <p>Importance: January still holds rows inside the 60-day window, so it must survive.</p>
+     * <p>Alternatives: Expire by partition start, but that would drop rows that are still live.</p>
+     */
+    @Test
+    void maintainCreatesUpcomingAndDropsExpiredPartitions() {
+        partitioned(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+            "audit_log_default",
+            "audit_log_p20241201_20250101",
+            "audit_log_p20250101_20250201",
+            "audit_log_p20250301_20250401"));
+        AuditPartitionManager manager = manager("monthly", 2);
+
+        manager.maintain(LocalDate.of(2025, 3, 15));
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(jdbcTemplate, Mockito.times(3)).execute(captor.capture());
+        assertThat(captor.getAllValues()).containsExactly(
+            "CREATE TABLE IF NOT EXISTS audit_log_p20250401_20250501 PARTITION OF audit_log"
+                + " FOR VALUES FROM ('2025-04-01T00:00:00Z') TO ('2025-05-01T00:00:00Z')",
+            "CREATE TABLE IF NOT EXISTS audit_log_p20250501_20250601 PARTITION OF audit_log"
+                + " FOR VALUES FROM ('2025-05-01T00:00:00Z') TO ('2025-06-01T00:00:00Z')",
+            "DROP TABLE IF EXISTS audit_log_p20241201_20250101");
+    }
+
+    /**
+     * Verifies switching to daily partitions skips days still covered by a monthly partition.
+     *
+     * <p>Importance: Postgres rejects overlapping ranges, so the switch must wait out the month.</p>
+     * <p>Alternatives: Split the monthly partition, but that rewrites its rows.</p>
+     */
+    @Test
+    void dailyPartitionsStartAfterExistingMonthlyPartition() {
+        AuditPartitionManager manager = manager("daily", 3);
+        List<AuditPartition> existing = List.of(
+            new AuditPartition(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 4, 1)));
+
+        List<AuditPartition> missing = manager.toCreate(existing, LocalDate.of(2025, 3, 30));
+
+        assertThat(missing).extracting(AuditPartition::name)
+            .containsExactly("audit_log_p20250401_20250402", "audit_log_p20250402_20250403");
+    }
+
+    /**
+     * Verifies rows already in the default partition are moved into the new partition as it
+     * is attached.
+     *
+     * <p>Importance: Postgres refuses to create a partition over rows left in the default, so
+     * without the move the partition would never be created.</p>
+     * <p>Alternatives: Only warn, but then every later run fails the same way.</p>
+     */
+    @Test
+    void movesDefaultPartitionRowsIntoNewPartition() {
+        partitioned(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("audit_log_default"));
+        OffsetDateTime march = OffsetDateTime.of(2025, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime april = OffsetDateTime.of(2025, 4, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        when(jdbcTemplate.queryForObject(contains("FROM audit_log_default"), eq(Boolean.class), eq(march), eq(april)))
+            .thenReturn(true);
+        when(jdbcTemplate.update(contains("INSERT INTO audit_log_p20250301_20250401"), eq(march), eq(april)))
+            .thenReturn(7);
+
+        manager("monthly", 0).maintain(LocalDate.of(2025, 3, 15));
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(jdbcTemplate, Mockito.times(2)).execute(captor.capture());
+        assertThat(captor.getAllValues()).containsExactly(
+            "CREATE TABLE audit_log_p20250301_20250401 (LIKE audit_log INCLUDING DEFAULTS INCLUDING CONSTRAINTS)",
+            "ALTER TABLE audit_log ATTACH PARTITION audit_log_p20250301_20250401"
+                + " FOR VALUES FROM ('2025-03-01T00:00:00Z') TO ('2025-04-01T00:00:00Z')");
+        Mockito.verify(jdbcTemplate).update(
+            "DELETE FROM audit_log_default WHERE occurred_at >= ? AND occurred_at < ?", march, april);
+        assertThat(meterRegistry.counter("dt360.audit.partitions", "action", "moved").count()).isEqualTo(7);
+    }
+
+    /**
+     * Verifies a plain, not yet migrated audit_log gets no partition DDL and is counted as a failure.
+     *
+     * <p>Importance: Every statement would fail against it, and operators need a signal to migrate.</p>
+     * <p>Alternatives: Attempt the DDL anyway, but that only repeats the same error each run.</p>
+     */
+    @Test
+    void skipsMaintenanceForPlainTable() {
+        partitioned(false);
+
+        manager("monthly", 2).maintain(LocalDate.of(2025, 3, 15));
+
+        Mockito.verify(jdbcTemplate, never()).execute(anyString());
+        assertThat(meterRegistry.counter("dt360.audit.partitions", "action", "failed").count()).isEqualTo(1);
+    }
+
+    /**
+     * Stubs the catalog check for whether audit_log is partitioned.
+     *
+     * <p>Importance: Maintenance runs only against a partitioned table.</p>
+     * <p>Alternatives: Stub every Boolean query alike, but the default-partition check must
+     * stay false unless a test says otherwise.</p>
+     */
+    private void partitioned(boolean partitioned) {
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class))).thenReturn(partitioned);
+    }
+
+    /**
+     * Builds a manager with 60-day retention that drops expired partitions.
+     *
+     * <p>Importance: A short retention keeps the fixture dates close together.</p>
+     * <p>Alternatives: Load a Spring context, but that needs a database.</p>
+     */
+    private AuditPartitionManager manager(String interval, int premake) {
+        return new AuditPartitionManager(jdbcTemplate, TransactionOperations.withoutTransaction(), meterRegistry,
+            interval, premake, 60, false);
+    }
+}
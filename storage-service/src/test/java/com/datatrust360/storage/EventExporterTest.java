@@ -0,0 +1,90 @@
+package com.datatrust360.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the NDJSON event exporter.
+ *
+ * <p>Importance: Ensures exports are valid NDJSON, compress correctly, and release the cursor.</p>
+ * <p>Alternatives: Test through MockMvc, but the async body would need extra dispatch handling.</p>
+ */
+class EventExporterTest {
+
+    private final EventDocumentRepository eventRepository = Mockito.mock(EventDocumentRepository.class);
+    private final EventExporter exporter =
+        new EventExporter(eventRepository, new ObjectMapper().findAndRegisterModules(), 2);
+    private final EventQuery query = new EventQuery("t-1", null, null, null);
+
+    /**
+     * Verifies every event is written as one JSON object per line and the cursor is closed.
+     *
+     * <p>Importance: A missing or extra separator breaks line-oriented consumers.</p>
+     * <p>Alternatives: Compare whole documents, but field order is not part of the contract.</p>
+     */
+    @Test
+    void writesOneLinePerEventAndClosesCursor() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        Mockito.when(eventRepository.streamAll(query, 2))
+            .thenReturn(Stream.of(event("a"), event("b"), event("c")).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long written = exporter.export(query, output, false);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertThat(written).isEqualTo(3);
+        assertThat(lines).hasSize(4);
+        assertThat(lines[3]).isEmpty();
+        assertThat(lines[0]).startsWith("{").contains("\"id\":\"a\"").contains("\"host\":\"api-1\"");
+        assertThat(lines[2]).contains("\"id\":\"c\"");
+        assertThat(closed).isTrue();
+    }
+
+    /**
+     * Verifies gzip output decompresses to the same NDJSON.
+     *
+     * <p>Importance: A missing gzip trailer would truncate the download for strict clients.</p>
+     * <p>Alternatives: Check only the gzip magic bytes, but that misses an unfinished stream.</p>
+     */
+    @Test
+    void gzipOutputDecompressesToNdjson() throws IOException {
+        Mockito.when(eventRepository.streamAll(query, 2)).thenReturn(Stream.of(event("a"), event("b")));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exporter.export(query, output, true);
+
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            String text = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(text.split("\n")).hasSize(2);
+            assertThat(text).endsWith("\n");
+        }
+    }
+
+    /**
+     * Builds a stored event with a small payload.
+     *
+     * <p>Importance: Exercises nested payload and timestamp serialization.</p>
+     * <p>Alternatives: Empty documents, but those would not catch serializer configuration gaps.</p>
+     */
+    private static EventDocument event(String id) {
+        EventDocument document = new EventDocument();
+        document.setId(id);
+        document.setTenantId("t-1");
+        document.setReceivedAt(Instant.parse("2025-01-01T00:00:00Z"));
+        document.setPayload(Map.of("host", "api-1"));
+        return document;
+    }
+}
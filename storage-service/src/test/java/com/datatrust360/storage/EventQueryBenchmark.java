@@ -0,0 +1,207 @@
+package com.datatrust360.storage;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Shows that keyset page latency stays flat as {@code event_payloads} grows to 100M documents.
+ *
+ * <p>Importance: Flat page cost is the reason for keyset pagination and the compound indexes;
+ * this measures it against a real MongoDB at increasing collection sizes.</p>
+ * <p>Alternatives: Trust the planner, but one missing index field silently turns every page
+ * into a scan plus an in-memory sort.</p>
+ *
+ * <p>Run with {@code mvn -pl storage-service test -Dtest=EventQueryBenchmark -Dbenchmarks=true
+ * -Dbenchmarks.mongo.uri=mongodb://localhost:27017}. It loads {@code -Dbenchmarks.events}
+ * documents (default 100,000,000) into the {@code dt360_benchmark} database and resumes an
+ * interrupted load. At 1M, 10M, and 100M documents it prints p50 and p99 latency for random
+ * deep keyset pages and for {@code skip} pages at the same depth. It also asserts on the
+ * explained plan that a page examines about one page of index keys and never sorts in memory.</p>
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class EventQueryBenchmark {
+
+    private static final String DATABASE = "dt360_benchmark";
+    private static final String COLLECTION = "event_payloads";
+    private static final int TENANTS = 64;
+    private static final int LOAD_BATCH = 10_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int KEYSET_SAMPLES = 500;
+    private static final int SKIP_SAMPLES = 5;
+    private static final long BASE_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final long[] CHECKPOINTS = {1_000_000L, 10_000_000L, 100_000_000L};
+
+    /**
+     * Loads the collection in stages and measures page latency at each stage.
+     *
+     * <p>Importance: Comparing the same queries at 1M and 100M documents is what shows flatness.</p>
+     * <p>Alternatives: Measure once at 100M, but a single number cannot show a trend.</p>
+     */
+    @Test
+    void keysetPageLatencyIsFlatAsCollectionGrows() {
+        String uri = System.getProperty("benchmarks.mongo.uri");
+        Assumptions.assumeTrue(uri != null, "set -Dbenchmarks.mongo.uri to run against MongoDB");
+        long target = Long.getLong("benchmarks.events", 100_000_000L);
+        try (MongoClient client = MongoClients.create(uri)) {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, DATABASE);
+            new EventIndexInitializer(mongoTemplate).ensureIndexes();
+            EventDocumentQueriesImpl queries = new EventDocumentQueriesImpl(mongoTemplate);
+            MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+            for (long checkpoint : checkpoints(target)) {
+                load(collection, checkpoint);
+                measure(mongoTemplate, queries, checkpoint);
+            }
+        }
+    }
+
+    /**
+     * Returns the standard checkpoints up to the target, ending at the target itself.
+     *
+     * <p>Importance: Lets a smaller {@code -Dbenchmarks.events} run finish quickly on a laptop.</p>
+     * <p>Alternatives: Fixed sizes only, but 100M documents take a long time to load.</p>
+     */
+    private static long[] checkpoints(long target) {
+        long[] sizes = Arrays.stream(CHECKPOINTS).filter(size -> size < target).toArray();
+        long[] withTarget = Arrays.copyOf(sizes, sizes.length + 1);
+        withTarget[sizes.length] = target;
+        return withTarget;
+    }
+
+    /**
+     * Inserts generated events until the collection holds {@code size} documents.
+     *
+     * <p>Importance: Event {@code i} is always the same document, and ordered inserts keep the
+     * stored events a prefix of the sequence, so a resumed load continues where it stopped.</p>
+     * <p>Alternatives: Drop and reload each run, but 100M documents take too long to repeat.</p>
+     */
+    private static void load(MongoCollection<Document> collection, long size) {
+        long loaded = collection.estimatedDocumentCount();
+        long start = System.nanoTime();
+        List<Document> batch = new ArrayList<>(LOAD_BATCH);
+        for (long i = loaded; i < size; i++) {
+            batch.add(new Document("_id", id(i))
+                .append("tenantId", tenant(i))
+                .append("source", "agent-" + (i % 4))
+                .append("schemaVersion", "v1")
+                .append("receivedAt", Instant.ofEpochMilli(BASE_MILLIS + i))
+                .append("payload", new Document("host", "api-" + (i % 50)).append("latencyMs", i % 500)));
+            if (batch.size() == LOAD_BATCH || i == size - 1) {
+                collection.insertMany(batch);
+                batch.clear();
+            }
+        }
+        System.out.printf("loaded %,d -> %,d documents in %,d s%n",
+            loaded, size, (System.nanoTime() - start) / 1_000_000_000L);
+    }
+
+    /**
+     * Times random keyset and skip pages for one tenant and checks the explained plan.
+     *
+     * <p>Importance: Random resume points hit cold and warm parts of the index alike.</p>
+     * <p>Alternatives: Walk pages sequentially, but consecutive pages share cached index blocks.</p>
+     */
+    private static void measure(MongoTemplate mongoTemplate, EventDocumentQueriesImpl queries, long size) {
+        SplittableRandom random = new SplittableRandom(size);
+        EventQuery query = new EventQuery(tenant(0), null, null, null);
+        long perTenant = size / TENANTS;
+        long[] keyset = new long[KEYSET_SAMPLES];
+        for (int i = 0; i < keyset.length; i++) {
+            EventCursor after = cursorAt(random.nextLong(perTenant - PAGE_SIZE) * TENANTS);
+            long start = System.nanoTime();
+            List<EventDocument> page = queries.findPage(query, after, PAGE_SIZE);
+            keyset[i] = System.nanoTime() - start;
+            assertThat(page).hasSize(PAGE_SIZE);
+        }
+        long[] skip = new long[SKIP_SAMPLES];
+        for (int i = 0; i < skip.length; i++) {
+            Query skipQuery = EventDocumentQueriesImpl.pageQuery(query, null, PAGE_SIZE)
+                .skip(random.nextLong(perTenant - PAGE_SIZE));
+            long start = System.nanoTime();
+            mongoTemplate.find(skipQuery, EventDocument.class);
+            skip[i] = System.nanoTime() - start;
+        }
+        Document stats = explain(mongoTemplate,
+            EventDocumentQueriesImpl.pageQuery(query, cursorAt((perTenant / 2) * TENANTS), PAGE_SIZE));
+        System.out.printf("%,13d docs  keyset p50=%,8d us p99=%,8d us  skip p50=%,10d us  keys=%d docs=%d%n",
+            size, percentile(keyset, 0.5), percentile(keyset, 0.99), percentile(skip, 0.5),
+            stats.get("totalKeysExamined", Number.class).longValue(),
+            stats.get("totalDocsExamined", Number.class).longValue());
+        assertThat(stats.get("totalDocsExamined", Number.class).longValue()).isLessThanOrEqualTo(2L * PAGE_SIZE);
+    }
+
+    /**
+     * Explains a page query with execution statistics and checks it did not sort in memory.
+     *
+     * <p>Importance: Key and document counts per page are the size-independent proof of
+     * flatness; timings only confirm it.</p>
+     * <p>Alternatives: Assert on timings, but they depend on the machine.</p>
+     */
+    private static Document explain(MongoTemplate mongoTemplate, Query query) {
+        Document find = new Document("find", COLLECTION)
+            .append("filter", query.getQueryObject())
+            .append("sort", query.getSortObject())
+            .append("limit", query.getLimit());
+        Document explain = mongoTemplate.getDb().runCommand(
+            new Document("explain", find).append("verbosity", "executionStats"));
+        assertThat(explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson())
+            .doesNotContain("\"SORT\"");
+        return explain.get("executionStats", Document.class);
+    }
+
+    /**
+     * Returns the cursor positioned at generated event {@code i}.
+     *
+     * <p>Importance: Generated ids and times are known, so no query is needed to seed a cursor.</p>
+     * <p>Alternatives: Page from the start to reach depth, but that is what skip would cost.</p>
+     */
+    private static EventCursor cursorAt(long i) {
+        return new EventCursor(Instant.ofEpochMilli(BASE_MILLIS + i), id(i));
+    }
+
+    /**
+     * Returns the deterministic id of generated event {@code i}.
+     *
+     * <p>Importance: Matches the id shape the pipeline writes.</p>
+     * <p>Alternatives: ObjectIds, but they are not reproducible across resumed loads.</p>
+     */
+    private static String id(long i) {
+        return "kafka:dt360.events.raw:0:" + i;
+    }
+
+    /**
+     * Returns the tenant of generated event {@code i}.
+     *
+     * <p>Importance: Round-robin tenants interleave in time, as real traffic does.</p>
+     * <p>Alternatives: One tenant, but then the tenant prefix would select the whole collection.</p>
+     */
+    private static String tenant(long i) {
+        return "t-" + (i % TENANTS);
+    }
+
+    /**
+     * Returns a percentile of nanosecond samples in microseconds.
+     *
+     * <p>Importance: p99 shows cold-cache pages that a mean would hide.</p>
+     * <p>Alternatives: HdrHistogram, but a sorted array is enough for a few hundred samples.</p>
+     */
+    private static long percentile(long[] samples, double quantile) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * (sorted.length - 1)))] / 1_000L;
+    }
+}
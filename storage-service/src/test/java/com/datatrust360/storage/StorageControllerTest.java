@@ -1,14 +1,24 @@
 package com.datatrust360.storage;
 
 import com.datatrust360.common.AuditLogRequest;
+import com.datatrust360.common.EventEnvelope;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
- * Unit tests for storage controller audit persistence.
+ * Unit tests for storage controller audit and event persistence.
  *
  * <p>Importance: Ensures audit requests map correctly to persisted entities.</p>
  * <p>Alternatives: Use integration tests only, but unit tests isolate mapping logic.</p>
@@ -39,4 +49,143 @@ class StorageControllerTest {
         Mockito.verify(auditLogRepository).save(captor.capture());
         assertThat(captor.getValue().getTenantId()).isEqualTo(42L);
     }
+
+    /**
+     * Verifies bulk events are mapped, keyed by their event ids, and written with a single bulk write.
+     *
+     * <p>Importance: Batch consumers rely on one write per batch for throughput.</p>
+     * <p>Alternatives: Verify per-event saves, but that is the pattern this endpoint replaces.</p>
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void createEventsUsesSingleBulkInsert() {
+        TenantRepository tenantRepository = Mockito.mock(TenantRepository.class);
+        EventDocumentRepository eventRepository = Mockito.mock(EventDocumentRepository.class);
+        AuditLogRepository auditLogRepository = Mockito.mock(AuditLogRepository.class);
+        StorageController controller = new StorageController(tenantRepository, eventRepository, auditLogRepository);
+        Mockito.when(eventRepository.bulkUpsert(Mockito.anyList())).thenReturn(2);
+
+        EventEnvelope first = new EventEnvelope();
+        first.setTenantId("t-1");
+        first.setEventId("kafka:dt360.events.bulk:0:7");
+        EventEnvelope second = new EventEnvelope();
+        second.setTenantId("t-2");
+
+        BulkInsertResponse response = controller.createEvents(List.of(first, second));
+
+        ArgumentCaptor<List<EventDocument>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(eventRepository).bulkUpsert(captor.capture());
+        Mockito.verify(eventRepository, Mockito.never()).save(Mockito.any());
+        assertThat(captor.getValue()).extracting(EventDocument::getTenantId).containsExactly("t-1", "t-2");
+        assertThat(captor.getValue()).extracting(EventDocument::getId)
+            .containsExactly("kafka:dt360.events.bulk:0:7", null);
+        assertThat(response.inserted()).isEqualTo(2);
+    }
+
+    /**
+     * Verifies a full page returns a cursor after its last event, and that the cursor resumes there.
+     *
+     * <p>Importance: The extra fetched event is how the endpoint knows another page exists;
+     * it must not leak into the response.</p>
+     * <p>Alternatives: Always return a cursor, but then clients would make one empty request per walk.</p>
+     */
+    @Test
+    void listEventsReturnsKeysetCursor() {
+        EventDocumentRepository eventRepository = Mockito.mock(EventDocumentRepository.class);
+        StorageController controller = new StorageController(
+            Mockito.mock(TenantRepository.class), eventRepository, Mockito.mock(AuditLogRepository.class));
+        Mockito.when(eventRepository.findPage(Mockito.any(), Mockito.any(), Mockito.eq(3)))
+            .thenReturn(List.of(event("a", 1_000), event("b", 2_000), event("c", 2_000)));
+
+        EventPage page = controller.events("t-1", null, null, null, null, 2);
+
+        assertThat(page.events()).extracting(EventDocument::getId).containsExactly("a", "b");
+        EventCursor cursor = EventCursor.decode(page.nextCursor());
+        assertThat(cursor).isEqualTo(new EventCursor(Instant.ofEpochMilli(2_000), "b"));
+
+        controller.events("t-1", null, null, null, page.nextCursor(), 2);
+
+        Mockito.verify(eventRepository).findPage(new EventQuery("t-1", null, null, null), cursor, 3);
+    }
+
+    /**
+     * Verifies a tampered cursor is rejected as a bad request.
+     *
+     * <p>Importance: Clients get a 400 they can act on instead of a server error.</p>
+     * <p>Alternatives: Restart from the first page, but that silently repeats events.</p>
+     */
+    @Test
+    void listEventsRejectsMalformedCursor() {
+        StorageController controller = new StorageController(Mockito.mock(TenantRepository.class),
+            Mockito.mock(EventDocumentRepository.class), Mockito.mock(AuditLogRepository.class));
+
+        assertThatThrownBy(() -> controller.events("t-1", null, null, null, "not a cursor", 10))
+            .isInstanceOf(ResponseStatusException.class);
+    }
+
+    /**
+     * Verifies a keyset tenant page fetches one extra row and returns the last id as the next key.
+     *
+     * <p>Importance: The next key must be the last returned tenant, or a tenant would be skipped.</p>
+     * <p>Alternatives: Return the extra row's id, but then the next page would start after it.</p>
+     */
+    @Test
+    void tenantsAfterIdReturnsNextKey() {
+        TenantRepository tenantRepository = Mockito.mock(TenantRepository.class);
+        StorageController controller = new StorageController(tenantRepository,
+            Mockito.mock(EventDocumentRepository.class), Mockito.mock(AuditLogRepository.class));
+        Mockito.when(tenantRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(3)))
+            .thenReturn(List.of(tenant(11L), tenant(12L), tenant(13L)));
+
+        TenantPage page = controller.tenants(0, 2, 10L);
+
+        assertThat(page.tenants()).extracting(Tenant::getId).containsExactly(11L, 12L);
+        assertThat(page.nextAfterId()).isEqualTo(12L);
+    }
+
+    /**
+     * Verifies a page-number request uses a sorted slice and reports the last page.
+     *
+     * <p>Importance: Offset pages are only stable when ordered by id.</p>
+     * <p>Alternatives: Unsorted pages, but rows could then move between pages.</p>
+     */
+    @Test
+    void tenantsByPageUsesSortedSlice() {
+        TenantRepository tenantRepository = Mockito.mock(TenantRepository.class);
+        StorageController controller = new StorageController(tenantRepository,
+            Mockito.mock(EventDocumentRepository.class), Mockito.mock(AuditLogRepository.class));
+        PageRequest request = PageRequest.of(1, 2, Sort.by("id"));
+        Mockito.when(tenantRepository.findAllBy(request))
+            .thenReturn(new SliceImpl<>(List.of(tenant(3L)), request, false));
+
+        TenantPage page = controller.tenants(1, 2, null);
+
+        assertThat(page.tenants()).extracting(Tenant::getId).containsExactly(3L);
+        assertThat(page.nextAfterId()).isNull();
+    }
+
+    /**
+     * Builds a tenant with an id.
+     *
+     * <p>Importance: Paging logic only looks at ids.</p>
+     * <p>Alternatives: Fully populated tenants, but names are irrelevant here.</p>
+     */
+    private static Tenant tenant(long id) {
+        Tenant tenant = new Tenant();
+        tenant.setId(id);
+        return tenant;
+    }
+
+    /**
+     * Builds a stored event with an id and receive time.
+     *
+     * <p>Importance: Keyset cursors are made from exactly these two fields.</p>
+     * <p>Alternatives: Full documents, but payloads are irrelevant to paging.</p>
+     */
+    private static EventDocument event(String id, long receivedAtMillis) {
+        EventDocument document = new EventDocument();
+        document.setId(id);
+        document.setReceivedAt(Instant.ofEpochMilli(receivedAtMillis));
+        return document;
+    }
 }